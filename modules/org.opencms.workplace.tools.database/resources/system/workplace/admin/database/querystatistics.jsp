@@ -0,0 +1,5 @@
+<%@ page import="org.opencms.workplace.tools.database.*" %><%	
+	
+	CmsQueryStatisticsList wp = new CmsQueryStatisticsList(pageContext, request, response);
+	wp.displayDialog();
+%>
\ No newline at end of file
@@ -31,6 +31,8 @@ import org.opencms.cache.CmsLruCache;
 import org.opencms.flex.CmsFlexCache;
 import org.opencms.flex.CmsFlexController;
 import org.opencms.jsp.CmsJspActionElement;
+import org.opencms.main.OpenCms;
+import org.opencms.staticexport.CmsLinkManager;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.widgets.CmsDisplayWidget;
 import org.opencms.workplace.CmsWidgetDialog;
@@ -65,6 +67,15 @@ public class CmsFlexCacheOverviewDialog extends CmsWidgetDialog {
     /** Flex Caches keys. */
     private String m_keys;
 
+    /** Link substitution cache hits. */
+    private String m_linkCacheHits;
+
+    /** Link substitution cache misses. */
+    private String m_linkCacheMisses;
+
+    /** Link substitution cache size. */
+    private String m_linkCacheSize;
+
     /** Flex Caches maximal size. */
     private String m_maxSize;
 
@@ -134,6 +145,36 @@ public class CmsFlexCacheOverviewDialog extends CmsWidgetDialog {
         return m_keys;
     }
 
+    /**
+     * Returns the number of link substitution cache hits.<p>
+     *
+     * @return the number of link substitution cache hits
+     */
+    public String getLinkCacheHits() {
+
+        return m_linkCacheHits;
+    }
+
+    /**
+     * Returns the number of link substitution cache misses.<p>
+     *
+     * @return the number of link substitution cache misses
+     */
+    public String getLinkCacheMisses() {
+
+        return m_linkCacheMisses;
+    }
+
+    /**
+     * Returns the number of cached substituted links.<p>
+     *
+     * @return the number of cached substituted links
+     */
+    public String getLinkCacheSize() {
+
+        return m_linkCacheSize;
+    }
+
     /**
      * Returns the maximal size.<p>
      *
@@ -184,6 +225,36 @@ public class CmsFlexCacheOverviewDialog extends CmsWidgetDialog {
         m_keys = keys;
     }
 
+    /**
+     * Sets the number of link substitution cache hits.<p>
+     *
+     * @param linkCacheHits the number of link substitution cache hits to set
+     */
+    public void setLinkCacheHits(String linkCacheHits) {
+
+        m_linkCacheHits = linkCacheHits;
+    }
+
+    /**
+     * Sets the number of link substitution cache misses.<p>
+     *
+     * @param linkCacheMisses the number of link substitution cache misses to set
+     */
+    public void setLinkCacheMisses(String linkCacheMisses) {
+
+        m_linkCacheMisses = linkCacheMisses;
+    }
+
+    /**
+     * Sets the number of cached substituted links.<p>
+     *
+     * @param linkCacheSize the number of cached substituted links to set
+     */
+    public void setLinkCacheSize(String linkCacheSize) {
+
+        m_linkCacheSize = linkCacheSize;
+    }
+
     /**
      * Sets the maximal size.<p>
      *
@@ -235,6 +306,11 @@ public class CmsFlexCacheOverviewDialog extends CmsWidgetDialog {
             result.append(createDialogRowsHtml(2, 4));
             result.append(createWidgetTableEnd());
             result.append(dialogBlockEnd());
+            result.append(dialogBlockStart(key(Messages.GUI_FLEXCACHE_LABEL_LINKS_BLOCK_0)));
+            result.append(createWidgetTableStart());
+            result.append(createDialogRowsHtml(5, 7));
+            result.append(createWidgetTableEnd());
+            result.append(dialogBlockEnd());
         }
 
         // close widget table
@@ -269,6 +345,9 @@ public class CmsFlexCacheOverviewDialog extends CmsWidgetDialog {
         addWidget(new CmsWidgetDialogParameter(this, "maxSize", PAGES[0], new CmsDisplayWidget()));
         addWidget(new CmsWidgetDialogParameter(this, "avgSize", PAGES[0], new CmsDisplayWidget()));
         addWidget(new CmsWidgetDialogParameter(this, "curSize", PAGES[0], new CmsDisplayWidget()));
+        addWidget(new CmsWidgetDialogParameter(this, "linkCacheSize", PAGES[0], new CmsDisplayWidget()));
+        addWidget(new CmsWidgetDialogParameter(this, "linkCacheHits", PAGES[0], new CmsDisplayWidget()));
+        addWidget(new CmsWidgetDialogParameter(this, "linkCacheMisses", PAGES[0], new CmsDisplayWidget()));
     }
 
     /**
@@ -299,6 +378,11 @@ public class CmsFlexCacheOverviewDialog extends CmsWidgetDialog {
             setAvgSize(CmsFileUtil.formatFilesize(entryLruCache.getAvgCacheCosts(), locale));
             setCurSize(CmsFileUtil.formatFilesize(entryLruCache.getObjectCosts(), locale));
         }
+
+        CmsLinkManager linkManager = OpenCms.getLinkManager();
+        setLinkCacheSize("" + linkManager.getLinkCacheSize());
+        setLinkCacheHits("" + linkManager.getLinkCacheHits());
+        setLinkCacheMisses("" + linkManager.getLinkCacheMisses());
     }
 
     /**
@@ -100,6 +100,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_FLEXCACHE_LABEL_CLEAN_BLOCK_0 = "GUI_FLEXCACHE_LABEL_CLEAN_BLOCK_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_FLEXCACHE_LABEL_LINKS_BLOCK_0 = "GUI_FLEXCACHE_LABEL_LINKS_BLOCK_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_FLEXCACHE_LABEL_MEMORY_BLOCK_0 = "GUI_FLEXCACHE_LABEL_MEMORY_BLOCK_0";
 
@@ -0,0 +1,296 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.workplace.tools.database;
+
+import org.opencms.db.CmsQueryStatistics;
+import org.opencms.db.CmsQueryStatisticsEntry;
+import org.opencms.jsp.CmsJspActionElement;
+import org.opencms.main.CmsRuntimeException;
+import org.opencms.main.OpenCms;
+import org.opencms.workplace.list.A_CmsListDialog;
+import org.opencms.workplace.list.CmsListColumnAlignEnum;
+import org.opencms.workplace.list.CmsListColumnDefinition;
+import org.opencms.workplace.list.CmsListItem;
+import org.opencms.workplace.list.CmsListMacroFormatter;
+import org.opencms.workplace.list.CmsListMetadata;
+import org.opencms.workplace.list.CmsListOrderEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.jsp.PageContext;
+
+/**
+ * List of the collected SQL query statistics, per query key and per driver method.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsQueryStatisticsList extends A_CmsListDialog {
+
+    /** list column id constant. */
+    public static final String LIST_COLUMN_AVERAGE = "ca";
+
+    /** list column id constant. */
+    public static final String LIST_COLUMN_COUNT = "cc";
+
+    /** list column id constant. */
+    public static final String LIST_COLUMN_MAX = "cm";
+
+    /** list column id constant. */
+    public static final String LIST_COLUMN_NAME = "cn";
+
+    /** list column id constant. */
+    public static final String LIST_COLUMN_ROWS = "cr";
+
+    /** list column id constant. */
+    public static final String LIST_COLUMN_SLOW = "cs";
+
+    /** list column id constant. */
+    public static final String LIST_COLUMN_TOTAL = "ct";
+
+    /** list column id constant. */
+    public static final String LIST_COLUMN_TYPE = "cy";
+
+    /** list id constant. */
+    public static final String LIST_ID = "lqs";
+
+    /**
+     * Public constructor.<p>
+     *
+     * @param jsp an initialized JSP action element
+     */
+    public CmsQueryStatisticsList(CmsJspActionElement jsp) {
+
+        super(
+            jsp,
+            LIST_ID,
+            Messages.get().container(Messages.GUI_DB_QUERYSTATS_LIST_NAME_0),
+            LIST_COLUMN_TOTAL,
+            CmsListOrderEnum.ORDER_DESCENDING,
+            LIST_COLUMN_NAME);
+    }
+
+    /**
+     * Public constructor with JSP variables.<p>
+     *
+     * @param context the JSP page context
+     * @param req the JSP request
+     * @param res the JSP response
+     */
+    public CmsQueryStatisticsList(PageContext context, HttpServletRequest req, HttpServletResponse res) {
+
+        this(new CmsJspActionElement(context, req, res));
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#executeListMultiActions()
+     */
+    @Override
+    public void executeListMultiActions() throws CmsRuntimeException {
+
+        throwListUnsupportedActionException();
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#executeListSingleActions()
+     */
+    @Override
+    public void executeListSingleActions() {
+
+        throwListUnsupportedActionException();
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#customHtmlStart()
+     */
+    @Override
+    protected String customHtmlStart() {
+
+        StringBuffer result = new StringBuffer(512);
+        CmsQueryStatistics statistics = OpenCms.getSqlManager().getQueryStatistics();
+        result.append(dialogBlockStart(null));
+        if (statistics.isEnabled()) {
+            result.append(
+                Messages.get().getBundle(getLocale()).key(
+                    Messages.GUI_DB_QUERYSTATS_SUMMARY_3,
+                    Long.valueOf(statistics.getExecutionCount()),
+                    Long.valueOf(statistics.getTotalExecutionTime()),
+                    Long.valueOf(statistics.getSlowQueryCount())));
+        } else {
+            result.append(Messages.get().getBundle(getLocale()).key(Messages.GUI_DB_QUERYSTATS_DISABLED_0));
+        }
+        result.append(dialogBlockEnd());
+        return result.toString();
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#fillDetails(java.lang.String)
+     */
+    @Override
+    protected void fillDetails(String detailId) {
+
+        // no details
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#getListItems()
+     */
+    @Override
+    protected List<CmsListItem> getListItems() {
+
+        List<CmsListItem> ret = new ArrayList<CmsListItem>();
+        CmsQueryStatistics statistics = OpenCms.getSqlManager().getQueryStatistics();
+        String queryType = Messages.get().getBundle(getLocale()).key(Messages.GUI_DB_QUERYSTATS_TYPE_QUERY_0);
+        for (CmsQueryStatisticsEntry entry : statistics.getQueryEntries()) {
+            ret.add(createItem("q:" + entry.getName(), queryType, entry));
+        }
+        String methodType = Messages.get().getBundle(getLocale()).key(Messages.GUI_DB_QUERYSTATS_TYPE_METHOD_0);
+        for (CmsQueryStatisticsEntry entry : statistics.getDriverMethodEntries()) {
+            ret.add(createItem("m:" + entry.getName(), methodType, entry));
+        }
+        return ret;
+    }
+
+    /**
+     * @see org.opencms.workplace.CmsWorkplace#initMessages()
+     */
+    @Override
+    protected void initMessages() {
+
+        // add specific dialog resource bundle
+        addMessages(Messages.get().getBundleName());
+        // add default resource bundles
+        super.initMessages();
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#setColumns(org.opencms.workplace.list.CmsListMetadata)
+     */
+    @Override
+    protected void setColumns(CmsListMetadata metadata) {
+
+        // create column for the query key or driver method
+        CmsListColumnDefinition nameCol = new CmsListColumnDefinition(LIST_COLUMN_NAME);
+        nameCol.setName(Messages.get().container(Messages.GUI_DB_QUERYSTATS_LIST_COLS_NAME_0));
+        nameCol.setWidth("35%");
+        metadata.addColumn(nameCol);
+
+        // create column for the type
+        CmsListColumnDefinition typeCol = new CmsListColumnDefinition(LIST_COLUMN_TYPE);
+        typeCol.setName(Messages.get().container(Messages.GUI_DB_QUERYSTATS_LIST_COLS_TYPE_0));
+        typeCol.setWidth("15%");
+        metadata.addColumn(typeCol);
+
+        // create column for the execution count
+        CmsListColumnDefinition countCol = new CmsListColumnDefinition(LIST_COLUMN_COUNT);
+        countCol.setName(Messages.get().container(Messages.GUI_DB_QUERYSTATS_LIST_COLS_COUNT_0));
+        countCol.setWidth("10%");
+        countCol.setAlign(CmsListColumnAlignEnum.ALIGN_RIGHT);
+        metadata.addColumn(countCol);
+
+        // create column for the total execution time
+        CmsListColumnDefinition totalCol = new CmsListColumnDefinition(LIST_COLUMN_TOTAL);
+        totalCol.setName(Messages.get().container(Messages.GUI_DB_QUERYSTATS_LIST_COLS_TOTAL_0));
+        totalCol.setWidth("10%");
+        totalCol.setAlign(CmsListColumnAlignEnum.ALIGN_RIGHT);
+        metadata.addColumn(totalCol);
+
+        // create column for the average execution time
+        CmsListColumnDefinition averageCol = new CmsListColumnDefinition(LIST_COLUMN_AVERAGE);
+        averageCol.setName(Messages.get().container(Messages.GUI_DB_QUERYSTATS_LIST_COLS_AVERAGE_0));
+        averageCol.setWidth("10%");
+        averageCol.setAlign(CmsListColumnAlignEnum.ALIGN_RIGHT);
+        averageCol.setFormatter(
+            new CmsListMacroFormatter(Messages.get().container(Messages.GUI_DB_QUERYSTATS_AVERAGE_FORMAT_0)));
+        metadata.addColumn(averageCol);
+
+        // create column for the maximum execution time
+        CmsListColumnDefinition maxCol = new CmsListColumnDefinition(LIST_COLUMN_MAX);
+        maxCol.setName(Messages.get().container(Messages.GUI_DB_QUERYSTATS_LIST_COLS_MAX_0));
+        maxCol.setWidth("10%");
+        maxCol.setAlign(CmsListColumnAlignEnum.ALIGN_RIGHT);
+        metadata.addColumn(maxCol);
+
+        // create column for the number of rows
+        CmsListColumnDefinition rowsCol = new CmsListColumnDefinition(LIST_COLUMN_ROWS);
+        rowsCol.setName(Messages.get().container(Messages.GUI_DB_QUERYSTATS_LIST_COLS_ROWS_0));
+        rowsCol.setWidth("5%");
+        rowsCol.setAlign(CmsListColumnAlignEnum.ALIGN_RIGHT);
+        metadata.addColumn(rowsCol);
+
+        // create column for the number of slow executions
+        CmsListColumnDefinition slowCol = new CmsListColumnDefinition(LIST_COLUMN_SLOW);
+        slowCol.setName(Messages.get().container(Messages.GUI_DB_QUERYSTATS_LIST_COLS_SLOW_0));
+        slowCol.setWidth("5%");
+        slowCol.setAlign(CmsListColumnAlignEnum.ALIGN_RIGHT);
+        metadata.addColumn(slowCol);
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#setIndependentActions(org.opencms.workplace.list.CmsListMetadata)
+     */
+    @Override
+    protected void setIndependentActions(CmsListMetadata metadata) {
+
+        // no independent actions
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#setMultiActions(org.opencms.workplace.list.CmsListMetadata)
+     */
+    @Override
+    protected void setMultiActions(CmsListMetadata metadata) {
+
+        // no multi actions
+    }
+
+    /**
+     * Creates a list item for a statistics entry.<p>
+     *
+     * @param id the id of the list item
+     * @param type the localized type of the entry
+     * @param entry the statistics entry
+     *
+     * @return the list item
+     */
+    private CmsListItem createItem(String id, String type, CmsQueryStatisticsEntry entry) {
+
+        CmsListItem item = getList().newItem(id);
+        item.set(LIST_COLUMN_NAME, entry.getName());
+        item.set(LIST_COLUMN_TYPE, type);
+        item.set(LIST_COLUMN_COUNT, Long.valueOf(entry.getExecutionCount()));
+        item.set(LIST_COLUMN_TOTAL, Long.valueOf(entry.getTotalTime()));
+        item.set(LIST_COLUMN_AVERAGE, Double.valueOf(entry.getAverageTime()));
+        item.set(LIST_COLUMN_MAX, Long.valueOf(entry.getMaxTime()));
+        item.set(LIST_COLUMN_ROWS, Long.valueOf(entry.getRowCount()));
+        item.set(LIST_COLUMN_SLOW, Long.valueOf(entry.getSlowCount()));
+        return item;
+    }
+}
@@ -112,6 +112,54 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_DB_PUBLOCKS_THREAD_NAME_0 = "GUI_DB_PUBLOCKS_THREAD_NAME_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_ADMIN_TOOL_HELP_0 = "GUI_DB_QUERYSTATS_ADMIN_TOOL_HELP_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_ADMIN_TOOL_NAME_0 = "GUI_DB_QUERYSTATS_ADMIN_TOOL_NAME_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_AVERAGE_FORMAT_0 = "GUI_DB_QUERYSTATS_AVERAGE_FORMAT_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_DISABLED_0 = "GUI_DB_QUERYSTATS_DISABLED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_LIST_COLS_AVERAGE_0 = "GUI_DB_QUERYSTATS_LIST_COLS_AVERAGE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_LIST_COLS_COUNT_0 = "GUI_DB_QUERYSTATS_LIST_COLS_COUNT_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_LIST_COLS_MAX_0 = "GUI_DB_QUERYSTATS_LIST_COLS_MAX_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_LIST_COLS_NAME_0 = "GUI_DB_QUERYSTATS_LIST_COLS_NAME_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_LIST_COLS_ROWS_0 = "GUI_DB_QUERYSTATS_LIST_COLS_ROWS_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_LIST_COLS_SLOW_0 = "GUI_DB_QUERYSTATS_LIST_COLS_SLOW_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_LIST_COLS_TOTAL_0 = "GUI_DB_QUERYSTATS_LIST_COLS_TOTAL_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_LIST_COLS_TYPE_0 = "GUI_DB_QUERYSTATS_LIST_COLS_TYPE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_LIST_NAME_0 = "GUI_DB_QUERYSTATS_LIST_NAME_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_SUMMARY_3 = "GUI_DB_QUERYSTATS_SUMMARY_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_TYPE_METHOD_0 = "GUI_DB_QUERYSTATS_TYPE_METHOD_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_DB_QUERYSTATS_TYPE_QUERY_0 = "GUI_DB_QUERYSTATS_TYPE_QUERY_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_EDITOR_HELP_EXPORTFILE_1 = "GUI_EDITOR_HELP_EXPORTFILE_1";
 
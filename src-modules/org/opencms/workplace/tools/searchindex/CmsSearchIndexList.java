@@ -35,6 +35,7 @@ import org.opencms.main.OpenCms;
 import org.opencms.search.CmsSearchIndex;
 import org.opencms.search.CmsSearchIndexSource;
 import org.opencms.search.CmsSearchManager;
+import org.opencms.search.CmsShadowIndexWriter;
 import org.opencms.search.fields.CmsLuceneField;
 import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.fields.CmsSearchFieldConfiguration;
@@ -110,6 +111,9 @@ public class CmsSearchIndexList extends A_CmsListDialog {
     /** list column id constant. */
     public static final String LIST_COLUMN_NAME = "cn";
 
+    /** list column id constant. */
+    public static final String LIST_COLUMN_PROGRESS = "cpr";
+
     /** list column id constant. */
     public static final String LIST_COLUMN_PROJECT = "cp";
 
@@ -321,6 +325,7 @@ public class CmsSearchIndexList extends A_CmsListDialog {
             item.set(LIST_COLUMN_NAME, index.getName());
             item.set(LIST_COLUMN_CONFIGURATION, index.getFieldConfiguration().getName());
             item.set(LIST_COLUMN_REBUILDMODE, index.getRebuildMode());
+            item.set(LIST_COLUMN_PROGRESS, getShadowRebuildProgress(index));
             item.set(LIST_COLUMN_PROJECT, index.getProject());
             item.set(LIST_COLUMN_LOCALE, index.getLocale().toString());
             result.add(item);
@@ -463,11 +468,18 @@ public class CmsSearchIndexList extends A_CmsListDialog {
         rebuildModeCol.setWidth("5%");
         metadata.addColumn(rebuildModeCol);
 
+        // add column for the progress of a running shadow rebuild
+        CmsListColumnDefinition progressCol = new CmsListColumnDefinition(LIST_COLUMN_PROGRESS);
+        progressCol.setAlign(CmsListColumnAlignEnum.ALIGN_LEFT);
+        progressCol.setName(Messages.get().container(Messages.GUI_LIST_SEARCHINDEX_COL_PROGRESS_0));
+        progressCol.setWidth("10%");
+        metadata.addColumn(progressCol);
+
         // add column for project
         CmsListColumnDefinition projectCol = new CmsListColumnDefinition(LIST_COLUMN_PROJECT);
         projectCol.setAlign(CmsListColumnAlignEnum.ALIGN_LEFT);
         projectCol.setName(Messages.get().container(Messages.GUI_LIST_SEARCHINDEX_COL_PROJECT_0));
-        projectCol.setWidth("30%");
+        projectCol.setWidth("20%");
         metadata.addColumn(projectCol);
 
         // add column for locale
@@ -683,4 +695,28 @@ public class CmsSearchIndexList extends A_CmsListDialog {
         html.append("</ul>\n");
         item.set(detailId, html.toString());
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the progress of the running shadow rebuild of the given index.<p>
+     *
+     * @param index the search index
+     *
+     * @return the localized progress of the shadow rebuild, or an empty String if no shadow rebuild is running
+     */
+    private String getShadowRebuildProgress(CmsSearchIndex index) {
+
+        CmsShadowIndexWriter writer = index.getShadowIndexWriter();
+        if (writer == null) {
+            return "";
+        }
+        Integer progress = Integer.valueOf(writer.getProgress());
+        long remaining = writer.getRemainingTime();
+        if (remaining < 0) {
+            return Messages.get().getBundle(getLocale()).key(Messages.GUI_LIST_SEARCHINDEX_PROGRESS_1, progress);
+        }
+        return Messages.get().getBundle(getLocale()).key(
+            Messages.GUI_LIST_SEARCHINDEX_PROGRESS_2,
+            progress,
+            Long.valueOf((remaining + 59999) / 60000));
+    }
+}
@@ -718,6 +718,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_LIST_SEARCHINDEX_COL_OVERVIEW_NAME_0 = "GUI_LIST_SEARCHINDEX_COL_OVERVIEW_NAME_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_LIST_SEARCHINDEX_COL_PROGRESS_0 = "GUI_LIST_SEARCHINDEX_COL_PROGRESS_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_LIST_SEARCHINDEX_COL_PROJECT_0 = "GUI_LIST_SEARCHINDEX_COL_PROJECT_0";
 
@@ -811,6 +814,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_LIST_SEARCHINDEX_NAME_0 = "GUI_LIST_SEARCHINDEX_NAME_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_LIST_SEARCHINDEX_PROGRESS_1 = "GUI_LIST_SEARCHINDEX_PROGRESS_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_LIST_SEARCHINDEX_PROGRESS_2 = "GUI_LIST_SEARCHINDEX_PROGRESS_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_LIST_SEARCHRESOURCES_NAME_0 = "GUI_LIST_SEARCHRESOURCES_NAME_0";
 
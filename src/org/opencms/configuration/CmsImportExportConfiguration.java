@@ -210,6 +210,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export defualtsuffix node. */
     public static final String N_STATICEXPORT_DEFAULTSUFFIXES = "defaultsuffixes";
 
+    /**  The node name of the static export dependencyindexonly node. */
+    public static final String N_STATICEXPORT_DEPENDENCYINDEXONLY = "dependencyindexonly";
+
     /**  The node name of the static export rule description nodes. */
     public static final String N_STATICEXPORT_DESCRIPTION = "description";
 
@@ -222,6 +225,12 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export exportheaders node. */
     public static final String N_STATICEXPORT_EXPORTHEADERS = "exportheaders";
 
+    /**  The node name of the static export exportcompression node. */
+    public static final String N_STATICEXPORT_EXPORTCOMPRESSION = "exportcompression";
+
+    /**  The node name of the static export exportondemandworkers node. */
+    public static final String N_STATICEXPORT_EXPORTONDEMANDWORKERS = "exportondemandworkers";
+
     /**  The node name of the static export exportpath node. */
     public static final String N_STATICEXPORT_EXPORTPATH = "exportpath";
 
@@ -234,6 +243,12 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export exporturl node. */
     public static final String N_STATICEXPORT_EXPORTURL = "exporturl";
 
+    /**  The node name of the static export exportworkers node. */
+    public static final String N_STATICEXPORT_EXPORTWORKERS = "exportworkers";
+
+    /**  The node name of the static export exportworkersperhost node. */
+    public static final String N_STATICEXPORT_EXPORTWORKERSPERHOST = "exportworkersperhost";
+
     /**  The node name of the static export exportworkpath node. */
     public static final String N_STATICEXPORT_EXPORTWORKPATH = "exportworkpath";
 
@@ -459,6 +474,28 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTWORKPATH, "setExportWorkPath", 0);
         // exportbackups rule
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTBACKUPS, "setExportBackups", 0);
+        // exportworkers rule
+        digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTWORKERS, "setExportWorkers", 0);
+        // exportworkersperhost rule
+        digester.addCallMethod(
+            "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTWORKERSPERHOST,
+            "setExportWorkersPerHost",
+            0);
+        // exportondemandworkers rule
+        digester.addCallMethod(
+            "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTONDEMANDWORKERS,
+            "setExportOnDemandWorkers",
+            0);
+        // exportcompression rule
+        digester.addCallMethod(
+            "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTCOMPRESSION,
+            "setExportCompression",
+            0);
+        // dependencyindexonly rule
+        digester.addCallMethod(
+            "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_DEPENDENCYINDEXONLY,
+            "setDependencyIndexOnly",
+            0);
         // default property rule
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_DEFAULT, "setDefault", 0);
         // export suffix rule
@@ -839,6 +876,36 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             staticexportElement.addElement(N_STATICEXPORT_EXPORTBACKUPS).addText(exportBackupsUnmodified);
         }
 
+        // <exportworkers> node
+        if (m_staticExportManager.getExportWorkersForConfiguration() != null) {
+            staticexportElement.addElement(N_STATICEXPORT_EXPORTWORKERS).addText(
+                String.valueOf(m_staticExportManager.getExportWorkersForConfiguration()));
+        }
+
+        // <exportworkersperhost> node
+        if (m_staticExportManager.getExportWorkersPerHostForConfiguration() != null) {
+            staticexportElement.addElement(N_STATICEXPORT_EXPORTWORKERSPERHOST).addText(
+                String.valueOf(m_staticExportManager.getExportWorkersPerHostForConfiguration()));
+        }
+
+        // <exportondemandworkers> node
+        if (m_staticExportManager.getExportOnDemandWorkersForConfiguration() != null) {
+            staticexportElement.addElement(N_STATICEXPORT_EXPORTONDEMANDWORKERS).addText(
+                String.valueOf(m_staticExportManager.getExportOnDemandWorkersForConfiguration()));
+        }
+
+        // <exportcompression> node
+        if (m_staticExportManager.getExportCompressionForConfiguration() != null) {
+            staticexportElement.addElement(N_STATICEXPORT_EXPORTCOMPRESSION).addText(
+                m_staticExportManager.getExportCompressionForConfiguration());
+        }
+
+        // <dependencyindexonly> node
+        if (m_staticExportManager.getDependencyIndexOnlyForConfiguration() != null) {
+            staticexportElement.addElement(N_STATICEXPORT_DEPENDENCYINDEXONLY).addText(
+                m_staticExportManager.getDependencyIndexOnlyForConfiguration());
+        }
+
         // <defaultpropertyvalue> node
         staticexportElement.addElement(N_STATICEXPORT_DEFAULT).addText(m_staticExportManager.getDefault());
 
@@ -128,6 +128,12 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
     /** Node name constant. */
     public static final String N_EXTRACTION_CACHE_MAX_AGE = "extractionCacheMaxAge";
 
+    /** Node name constant. */
+    public static final String N_EXTRACTION_MAX_BYTES = "extractionMaxBytes";
+
+    /** Node name constant. */
+    public static final String N_EXTRACTION_MAX_CHARS = "extractionMaxChars";
+
     /** Node name constant. */
     public static final String N_FIELD = "field";
 
@@ -166,6 +172,9 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
 
     /** Node name constant. */
 
+    /** Node name constant. */
+    public static final String N_INDEXING_THREADS = "indexingThreads";
+
     /** Node name constant. */
     public static final String N_LOCALE = "locale";
 
@@ -263,12 +272,19 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
         // rule for the max. age of entries in the extraction cache
         digester.addCallMethod(XPATH_SEARCH + "/" + N_EXTRACTION_CACHE_MAX_AGE, "setExtractionCacheMaxAge", 0);
 
+        // rules for the limits of the text extraction
+        digester.addCallMethod(XPATH_SEARCH + "/" + N_EXTRACTION_MAX_BYTES, "setExtractionMaxBytes", 0);
+        digester.addCallMethod(XPATH_SEARCH + "/" + N_EXTRACTION_MAX_CHARS, "setExtractionMaxChars", 0);
+
         // rule for max. number of modifications before commit
         digester.addCallMethod(
             XPATH_SEARCH + "/" + N_MAX_MODIFICATIONS_BEFORE_COMMIT,
             "setMaxModificationsBeforeCommit",
             0);
 
+        // rule for the number of documents extracted in parallel
+        digester.addCallMethod(XPATH_SEARCH + "/" + N_INDEXING_THREADS, "setIndexingThreads", 0);
+
         // rule for the highlighter to highlight the search terms in the excerpt of the search result
         digester.addCallMethod(XPATH_SEARCH + "/" + N_HIGHLIGHTER, "setHighlighter", 0);
 
@@ -420,9 +436,24 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
         // add <extractionCacheMaxAge> element
         searchElement.addElement(N_EXTRACTION_CACHE_MAX_AGE).addText(
             String.valueOf(m_searchManager.getExtractionCacheMaxAge()));
+        if (m_searchManager.getExtractionMaxBytes() > 0) {
+            // add <extractionMaxBytes> element
+            searchElement.addElement(N_EXTRACTION_MAX_BYTES).addText(
+                String.valueOf(m_searchManager.getExtractionMaxBytes()));
+        }
+        if (m_searchManager.getExtractionMaxChars() > 0) {
+            // add <extractionMaxChars> element
+            searchElement.addElement(N_EXTRACTION_MAX_CHARS).addText(
+                String.valueOf(m_searchManager.getExtractionMaxChars()));
+        }
         // add <maxModificationsBeforeCommit> element
         searchElement.addElement(N_MAX_MODIFICATIONS_BEFORE_COMMIT).addText(
             String.valueOf(m_searchManager.getMaxModificationsBeforeCommit()));
+        if (m_searchManager.getIndexingThreads() > 0) {
+            // add <indexingThreads> element
+            searchElement.addElement(N_INDEXING_THREADS).addText(
+                String.valueOf(m_searchManager.getIndexingThreads()));
+        }
         // add <highlighter> element
         searchElement.addElement(N_HIGHLIGHTER).addText(m_searchManager.getHighlighter().getClass().getName());
 
@@ -36,14 +36,15 @@ import org.opencms.util.CmsStringUtil;
 import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.dbcp.ConnectionFactory;
 import org.apache.commons.dbcp.DriverManagerConnectionFactory;
 import org.apache.commons.dbcp.PoolableConnectionFactory;
 import org.apache.commons.dbcp.PoolingDriver;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
-import org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 
 /**
@@ -102,6 +103,9 @@ public final class CmsDbPool {
     /** Key for maximum idle connections. */
     public static final String KEY_MAX_IDLE = "maxIdle";
 
+    /** Key for the maximum number of pooled statements per connection. */
+    public static final String KEY_MAX_TOTAL = "maxTotal";
+
     /** Key for maximum wait time. */
     public static final String KEY_MAX_WAIT = "maxWait";
 
@@ -159,6 +163,9 @@ public final class CmsDbPool {
     /** The prefix used for opencms JDBC pools. */
     public static final String OPENCMS_URL_PREFIX = "opencms:";
 
+    /** The statement pool factories of the created connection pools, by pool URL. */
+    private static final Map<String, CmsStatementPoolFactory> STATEMENT_POOL_FACTORIES = new ConcurrentHashMap<String, CmsStatementPoolFactory>();
+
     /**
      * Default constructor.<p>
      *
@@ -241,6 +248,9 @@ public final class CmsDbPool {
         int maxActiveStmts = config.getInteger(KEY_DATABASE_STATEMENTS + '.' + key + '.' + KEY_MAX_ACTIVE, 25);
         int maxWaitStmts = config.getInteger(KEY_DATABASE_STATEMENTS + '.' + key + '.' + KEY_MAX_WAIT, 250);
         int maxIdleStmts = config.getInteger(KEY_DATABASE_STATEMENTS + '.' + key + '.' + KEY_MAX_IDLE, 15);
+        int maxTotalStmts = config.getInteger(
+            KEY_DATABASE_STATEMENTS + '.' + key + '.' + KEY_MAX_TOTAL,
+            GenericKeyedObjectPool.DEFAULT_MAX_TOTAL);
         String whenStmtsExhaustedActionValue = config.get(
             KEY_DATABASE_STATEMENTS + '.' + key + '.' + KEY_WHEN_EXHAUSTED_ACTION);
         byte whenStmtsExhaustedAction = GenericKeyedObjectPool.WHEN_EXHAUSTED_GROW;
@@ -304,14 +314,15 @@ public final class CmsDbPool {
         ConnectionFactory connectionFactory = new DriverManagerConnectionFactory(jdbcUrl, connectionProperties);
 
         // Set up statement pool, if desired
-        GenericKeyedObjectPoolFactory statementFactory = null;
+        CmsStatementPoolFactory statementFactory = null;
         if (poolingStmts) {
-            statementFactory = new GenericKeyedObjectPoolFactory(
-                null,
+            statementFactory = new CmsStatementPoolFactory(
                 maxActiveStmts,
                 whenStmtsExhaustedAction,
                 maxWaitStmts,
-                maxIdleStmts);
+                maxIdleStmts,
+                maxTotalStmts);
+            STATEMENT_POOL_FACTORIES.put(poolUrl, statementFactory);
         }
 
         // initialize a factory to obtain pooled connections and prepared statements
@@ -400,4 +411,16 @@ public final class CmsDbPool {
 
         return OPENCMS_DEFAULT_POOL_NAME;
     }
+
+    /**
+     * Returns the prepared statement pool factory of the connection pool with the given URL.<p>
+     *
+     * @param poolUrl the URL of the connection pool
+     *
+     * @return the statement pool factory, or <code>null</code> if statement pooling is disabled for the pool
+     */
+    public static CmsStatementPoolFactory getStatementPoolFactory(String poolUrl) {
+
+        return STATEMENT_POOL_FACTORIES.get(poolUrl);
+    }
 }
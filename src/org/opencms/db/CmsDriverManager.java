@@ -329,6 +329,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The list of initialized JDBC pools. */
     private List<PoolingDriver> m_connectionPools;
 
+    /** The factory to create the database contexts for the background operations. */
+    private I_CmsDbContextFactory m_dbContextFactory;
+
     /** The history driver. */
     private I_CmsHistoryDriver m_historyDriver;
 
@@ -447,6 +450,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // create and set the sql manager
         driverManager.m_sqlManager = new CmsSqlManager(driverManager);
+        driverManager.m_sqlManager.getQueryStatistics().initConfiguration(config);
 
         // set the publish engine
         driverManager.m_publishEngine = publishEngine;
@@ -470,6 +474,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
             driverManager.newPoolInstance(config, name);
         }
 
+        // initialize the routing of online reads to a replica pool
+        driverManager.m_sqlManager.getReplicaRouter().initConfiguration(config);
+
         // initialize the runtime info factory with the generated driver manager
         runtimeInfoFactory.initialize(driverManager);
 
@@ -2432,6 +2439,42 @@ public final class CmsDriverManager implements I_CmsEventListener {
         I_CmsReport report)
     throws CmsException {
 
+        deleteHistoricalVersions(
+            dbc,
+            versionsToKeep,
+            versionsDeleted,
+            timeDeleted,
+            new CmsHistoryCompactionSettings(),
+            report);
+    }
+
+    /**
+     * Deletes the versions from the history tables, keeping the given number of versions per resource.<p>
+     *
+     * if the <code>cleanUp</code> option is set, additionally versions of deleted resources will be removed.<p>
+     *
+     * The versions are deleted in chunks and parallel partitions as configured by the given settings,
+     * see {@link CmsHistoryCompactor}.<p>
+     *
+     * @param dbc the current database context
+     * @param versionsToKeep number of versions to keep, is ignored if negative
+     * @param versionsDeleted number of versions to keep for deleted resources, is ignored if negative
+     * @param timeDeleted deleted resources older than this will also be deleted, is ignored if negative
+     * @param settings the settings for the chunks, partitions and pauses of the deletion
+     * @param report the report for output logging
+     *
+     * @throws CmsException if operation was not successful
+     */
+    public void deleteHistoricalVersions(
+        CmsDbContext dbc,
+        int versionsToKeep,
+        int versionsDeleted,
+        long timeDeleted,
+        CmsHistoryCompactionSettings settings,
+        I_CmsReport report)
+    throws CmsException {
+
+        CmsHistoryCompactor compactor = new CmsHistoryCompactor(this, m_dbContextFactory, settings, report);
         report.println(Messages.get().container(Messages.RPT_START_DELETE_VERSIONS_0), I_CmsReport.FORMAT_HEADLINE);
         if (versionsToKeep >= 0) {
             report.println(
@@ -2441,46 +2484,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
             List<I_CmsHistoryResource> resources = getHistoryDriver(dbc).getAllNotDeletedEntries(dbc);
             if (resources.isEmpty()) {
                 report.println(Messages.get().container(Messages.RPT_DELETE_NOTHING_0), I_CmsReport.FORMAT_OK);
-            }
-            int n = resources.size();
-            int m = 1;
-            Iterator<I_CmsHistoryResource> itResources = resources.iterator();
-            while (itResources.hasNext()) {
-                I_CmsHistoryResource histResource = itResources.next();
-
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        String.valueOf(m),
-                        String.valueOf(n)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_ARGUMENT_1,
-                        dbc.removeSiteRoot(histResource.getRootPath())));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-
-                try {
-                    int deleted = getHistoryDriver(dbc).deleteEntries(dbc, histResource, versionsToKeep, -1);
-
-                    report.print(
-                        Messages.get().container(Messages.RPT_VERSION_DELETING_1, new Integer(deleted)),
-                        I_CmsReport.FORMAT_NOTE);
-                    report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } catch (CmsDataAccessException e) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ERROR_0),
-                        I_CmsReport.FORMAT_ERROR);
-
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(e.getLocalizedMessage(), e);
-                    }
-                }
-
-                m++;
+            } else {
+                compactor.compact(dbc, resources, versionsToKeep, -1);
             }
 
             report.println(
@@ -2503,46 +2508,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
             List<I_CmsHistoryResource> resources = getHistoryDriver(dbc).getAllDeletedEntries(dbc);
             if (resources.isEmpty()) {
                 report.println(Messages.get().container(Messages.RPT_DELETE_NOTHING_0), I_CmsReport.FORMAT_OK);
-            }
-            int n = resources.size();
-            int m = 1;
-            Iterator<I_CmsHistoryResource> itResources = resources.iterator();
-            while (itResources.hasNext()) {
-                I_CmsHistoryResource histResource = itResources.next();
-
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        String.valueOf(m),
-                        String.valueOf(n)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_ARGUMENT_1,
-                        dbc.removeSiteRoot(histResource.getRootPath())));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-
-                try {
-                    int deleted = getHistoryDriver(dbc).deleteEntries(dbc, histResource, versionsDeleted, timeDeleted);
-
-                    report.print(
-                        Messages.get().container(Messages.RPT_VERSION_DELETING_1, new Integer(deleted)),
-                        I_CmsReport.FORMAT_NOTE);
-                    report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } catch (CmsDataAccessException e) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ERROR_0),
-                        I_CmsReport.FORMAT_ERROR);
-
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(e.getLocalizedMessage(), e);
-                    }
-                }
-
-                m++;
+            } else {
+                compactor.compact(dbc, resources, versionsDeleted, timeDeleted);
             }
             report.println(
                 Messages.get().container(Messages.RPT_END_DELETE_DEL_VERSIONS_0),
@@ -3399,6 +3366,41 @@ public final class CmsDriverManager implements I_CmsEventListener {
         publishList.initialize();
     }
 
+    /**
+     * Filters the given list of resources, removes all resources where the current user
+     * does not have READ permissions, plus the given filter is applied.<p>
+     *
+     * Instead of looking up the access control list of each resource separately, the resources
+     * are grouped by their parent folder and the access control entries that are missing in the cache
+     * are read with a single query per folder before the permissions are evaluated.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to filter
+     * @param filter the resource filter to use
+     *
+     * @return the resources the current user is allowed to read, in the original order
+     *
+     * @throws CmsException in case errors testing the permissions
+     */
+    public List<CmsResource> filterReadable(CmsDbContext dbc, List<CmsResource> resources, CmsResourceFilter filter)
+    throws CmsException {
+
+        preloadAccessControlLists(dbc, resources);
+        List<CmsResource> result = new ArrayList<CmsResource>(resources.size());
+        for (CmsResource resource : resources) {
+            // only return resources where permission was granted
+            if (m_securityManager.hasPermissions(
+                dbc,
+                resource,
+                CmsPermissionSet.ACCESS_READ,
+                true,
+                filter).isAllowed()) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns the list of access control entries of a resource given its name.<p>
      *
@@ -5147,6 +5149,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
         // store local reference to the memory monitor to avoid multiple lookups through the OpenCms singelton
         m_monitor = OpenCms.getMemoryMonitor();
+        m_dbContextFactory = dbContextFactory;
 
         CmsSystemConfiguration systemConfiguation = (CmsSystemConfiguration)configurationManager.getConfiguration(
             CmsSystemConfiguration.class);
@@ -10901,22 +10904,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             // never check time range here - this must be done later in #updateContextDates(...)
             filter = filter.addExcludeTimerange();
         }
-        ArrayList<CmsResource> result = new ArrayList<CmsResource>(resourceList.size());
-        for (int i = 0; i < resourceList.size(); i++) {
-            // check the permission of all resources
-            CmsResource currentResource = resourceList.get(i);
-            if (m_securityManager.hasPermissions(
-                dbc,
-                currentResource,
-                CmsPermissionSet.ACCESS_READ,
-                true,
-                filter).isAllowed()) {
-                // only return resources where permission was granted
-                result.add(currentResource);
-            }
-        }
-        // return the result
-        return result;
+        return filterReadable(dbc, resourceList, filter);
     }
 
     /**
@@ -11077,13 +11065,36 @@ public final class CmsDriverManager implements I_CmsEventListener {
         int depth)
     throws CmsException {
 
-        String cacheKey = getCacheKey(
-            new String[] {
-                inheritedOnly ? "+" : "-",
-                forFolder ? "+" : "-",
-                Integer.toString(depth),
-                resource.getStructureId().toString()},
-            dbc);
+        return getAccessControlList(dbc, resource, inheritedOnly, forFolder, depth, null, null);
+    }
+
+    /**
+     * Returns the access control list of a given resource, optionally using already read
+     * access control entries and an already read parent folder.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource
+     * @param inheritedOnly flag indicates to collect inherited permissions only
+     * @param forFolder should be true if resource is a folder
+     * @param depth the depth to include non-inherited access entries, also
+     * @param preloadedAces the already read access control entries of the resource, or <code>null</code> to read them
+     * @param knownParent the already read parent folder of the resource, or <code>null</code> to read it
+     *
+     * @return the access control list of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsAccessControlList getAccessControlList(
+        CmsDbContext dbc,
+        CmsResource resource,
+        boolean inheritedOnly,
+        boolean forFolder,
+        int depth,
+        List<CmsAccessControlEntry> preloadedAces,
+        CmsResource knownParent)
+    throws CmsException {
+
+        String cacheKey = getAccessControlListCacheKey(dbc, resource, inheritedOnly, forFolder, depth);
 
         CmsAccessControlList acl = m_monitor.getCachedACL(cacheKey);
 
@@ -11092,11 +11103,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
             return acl;
         }
 
-        List<CmsAccessControlEntry> aces = getUserDriver(dbc).readAccessControlEntries(
-            dbc,
-            dbc.currentProject(),
-            resource.getResourceId(),
-            (depth > 1) || ((depth > 0) && forFolder));
+        List<CmsAccessControlEntry> aces = preloadedAces;
+        if (aces == null) {
+            aces = getUserDriver(dbc).readAccessControlEntries(
+                dbc,
+                dbc.currentProject(),
+                resource.getResourceId(),
+                (depth > 1) || ((depth > 0) && forFolder));
+        }
 
         // sort the list of aces
         boolean overwriteAll = sortAceList(aces);
@@ -11104,18 +11118,23 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // if no 'overwrite all' ace was found
         if (!overwriteAll) {
             // get the acl of the parent
-            CmsResource parentResource = null;
-            try {
-                // try to recurse over the id
-                parentResource = getVfsDriver(dbc).readParentFolder(
-                    dbc,
-                    dbc.currentProject().getUuid(),
-                    resource.getStructureId());
-            } catch (CmsVfsResourceNotFoundException e) {
-                // should never happen, but try with the path
-                String parentPath = CmsResource.getParentFolder(resource.getRootPath());
-                if (parentPath != null) {
-                    parentResource = getVfsDriver(dbc).readFolder(dbc, dbc.currentProject().getUuid(), parentPath);
+            CmsResource parentResource = knownParent;
+            if (parentResource == null) {
+                try {
+                    // try to recurse over the id
+                    parentResource = getVfsDriver(dbc).readParentFolder(
+                        dbc,
+                        dbc.currentProject().getUuid(),
+                        resource.getStructureId());
+                } catch (CmsVfsResourceNotFoundException e) {
+                    // should never happen, but try with the path
+                    String parentPath = CmsResource.getParentFolder(resource.getRootPath());
+                    if (parentPath != null) {
+                        parentResource = getVfsDriver(dbc).readFolder(
+                            dbc,
+                            dbc.currentProject().getUuid(),
+                            parentPath);
+                    }
                 }
             }
             if (parentResource != null) {
@@ -11154,6 +11173,33 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return acl;
     }
 
+    /**
+     * Returns the cache key for the access control list of a given resource.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource
+     * @param inheritedOnly flag indicates to collect inherited permissions only
+     * @param forFolder should be true if resource is a folder
+     * @param depth the depth to include non-inherited access entries, also
+     *
+     * @return the cache key for the access control list
+     */
+    private String getAccessControlListCacheKey(
+        CmsDbContext dbc,
+        CmsResource resource,
+        boolean inheritedOnly,
+        boolean forFolder,
+        int depth) {
+
+        return getCacheKey(
+            new String[] {
+                inheritedOnly ? "+" : "-",
+                forFolder ? "+" : "-",
+                Integer.toString(depth),
+                resource.getStructureId().toString()},
+            dbc);
+    }
+
     /**
      * Return a cache key build from the provided information.<p>
      *
@@ -11434,6 +11480,56 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return allUsers;
     }
 
+    /**
+     * Makes sure the access control lists of the given resources are cached.<p>
+     *
+     * Resources are grouped by their parent folder, and for each folder with more than one
+     * uncached resource the access control entries of all children are read with a single query.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to load the access control lists for
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private void preloadAccessControlLists(CmsDbContext dbc, List<CmsResource> resources) throws CmsException {
+
+        if ((resources.size() < 2) || !dbc.getProjectId().isNullUUID()) {
+            // nothing to gain, access control lists are only cached without a project override
+            return;
+        }
+        Map<String, List<CmsResource>> missingByParent = new HashMap<String, List<CmsResource>>();
+        for (CmsResource resource : resources) {
+            String parentPath = CmsResource.getParentFolder(resource.getRootPath());
+            if ((parentPath == null)
+                || (m_monitor.getCachedACL(
+                    getAccessControlListCacheKey(dbc, resource, false, resource.isFolder(), 0)) != null)) {
+                continue;
+            }
+            List<CmsResource> siblings = missingByParent.get(parentPath);
+            if (siblings == null) {
+                siblings = new ArrayList<CmsResource>();
+                missingByParent.put(parentPath, siblings);
+            }
+            siblings.add(resource);
+        }
+        for (Map.Entry<String, List<CmsResource>> entry : missingByParent.entrySet()) {
+            if (entry.getValue().size() < 2) {
+                // a single resource is read the usual way
+                continue;
+            }
+            CmsResource parent = getVfsDriver(dbc).readFolder(dbc, dbc.currentProject().getUuid(), entry.getKey());
+            Map<CmsUUID, List<CmsAccessControlEntry>> aces = getUserDriver(
+                dbc).readAccessControlEntriesForChildren(dbc, dbc.currentProject(), parent.getStructureId());
+            for (CmsResource resource : entry.getValue()) {
+                List<CmsAccessControlEntry> resourceAces = new ArrayList<CmsAccessControlEntry>();
+                if (aces.containsKey(resource.getResourceId())) {
+                    resourceAces.addAll(aces.get(resource.getResourceId()));
+                }
+                getAccessControlList(dbc, resource, false, resource.isFolder(), 0, resourceAces, parent);
+            }
+        }
+    }
+
     /**
      * Reads all resources that are inside and changed in a specified project.<p>
      *
@@ -0,0 +1,238 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.main.CmsIllegalArgumentException;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * Settings for the compaction of the history tables.<p>
+ *
+ * The historical resources are split into partitions by resource id, which are processed in parallel.
+ * Each partition is processed in chunks of resources, the versions of a chunk are deleted with batched statements.
+ * Between two chunks the compaction pauses, to let the interactive queries through. During the throttled hours,
+ * e.g. the business hours, a longer pause can be configured.<p>
+ *
+ * The default settings process all resources in a single partition with chunks of 100 resources and without pauses.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsHistoryCompactionSettings {
+
+    /** The default number of resources per chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    /** The number of resources per chunk. */
+    private int m_chunkSize;
+
+    /** The number of partitions processed in parallel. */
+    private int m_partitions;
+
+    /** The pause between two chunks in milliseconds. */
+    private long m_pause;
+
+    /** The pause between two chunks during the throttled hours in milliseconds. */
+    private long m_throttledPause;
+
+    /** The hour of the day the throttled hours end (exclusive). */
+    private int m_throttleEndHour;
+
+    /** The hour of the day the throttled hours start (inclusive). */
+    private int m_throttleStartHour;
+
+    /**
+     * Creates new default history compaction settings.<p>
+     */
+    public CmsHistoryCompactionSettings() {
+
+        m_chunkSize = DEFAULT_CHUNK_SIZE;
+        m_partitions = 1;
+        m_throttleStartHour = -1;
+        m_throttleEndHour = -1;
+    }
+
+    /**
+     * Returns the number of resources per chunk.<p>
+     *
+     * @return the number of resources per chunk
+     */
+    public int getChunkSize() {
+
+        return m_chunkSize;
+    }
+
+    /**
+     * Returns the number of partitions processed in parallel.<p>
+     *
+     * @return the number of partitions
+     */
+    public int getPartitions() {
+
+        return m_partitions;
+    }
+
+    /**
+     * Returns the pause between two chunks in milliseconds.<p>
+     *
+     * @return the pause between two chunks in milliseconds
+     */
+    public long getPause() {
+
+        return m_pause;
+    }
+
+    /**
+     * Returns the pause to apply between two chunks at the given time.<p>
+     *
+     * @param time the current time
+     *
+     * @return the pause in milliseconds
+     */
+    public long getPause(long time) {
+
+        return isThrottled(time) ? Math.max(m_pause, m_throttledPause) : m_pause;
+    }
+
+    /**
+     * Returns the pause between two chunks during the throttled hours in milliseconds.<p>
+     *
+     * @return the pause between two chunks during the throttled hours in milliseconds
+     */
+    public long getThrottledPause() {
+
+        return m_throttledPause;
+    }
+
+    /**
+     * Returns the hour of the day the throttled hours end (exclusive).<p>
+     *
+     * @return the hour of the day the throttled hours end, or <code>-1</code> if not throttled
+     */
+    public int getThrottleEndHour() {
+
+        return m_throttleEndHour;
+    }
+
+    /**
+     * Returns the hour of the day the throttled hours start (inclusive).<p>
+     *
+     * @return the hour of the day the throttled hours start, or <code>-1</code> if not throttled
+     */
+    public int getThrottleStartHour() {
+
+        return m_throttleStartHour;
+    }
+
+    /**
+     * Checks if the given time is within the throttled hours.<p>
+     *
+     * The throttled hours may span midnight, e.g. from 22 to 6.<p>
+     *
+     * @param time the time to check
+     *
+     * @return <code>true</code> if the given time is within the throttled hours
+     */
+    public boolean isThrottled(long time) {
+
+        if ((m_throttleStartHour < 0) || (m_throttleEndHour < 0) || (m_throttleStartHour == m_throttleEndHour)) {
+            return false;
+        }
+        Calendar cal = new GregorianCalendar();
+        cal.setTimeInMillis(time);
+        int hour = cal.get(Calendar.HOUR_OF_DAY);
+        if (m_throttleStartHour < m_throttleEndHour) {
+            return (hour >= m_throttleStartHour) && (hour < m_throttleEndHour);
+        }
+        return (hour >= m_throttleStartHour) || (hour < m_throttleEndHour);
+    }
+
+    /**
+     * Sets the number of resources per chunk.<p>
+     *
+     * @param chunkSize the number of resources per chunk, values &lt; 1 are ignored
+     */
+    public void setChunkSize(int chunkSize) {
+
+        if (chunkSize > 0) {
+            m_chunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * Sets the number of partitions processed in parallel.<p>
+     *
+     * @param partitions the number of partitions, values &lt; 1 are ignored
+     */
+    public void setPartitions(int partitions) {
+
+        if (partitions > 0) {
+            m_partitions = partitions;
+        }
+    }
+
+    /**
+     * Sets the pause between two chunks in milliseconds.<p>
+     *
+     * @param pause the pause between two chunks in milliseconds
+     */
+    public void setPause(long pause) {
+
+        m_pause = Math.max(0, pause);
+    }
+
+    /**
+     * Sets the throttled hours, e.g. the business hours.<p>
+     *
+     * @param startHour the hour of the day the throttled hours start (inclusive), <code>-1</code> to disable throttling
+     * @param endHour the hour of the day the throttled hours end (exclusive), <code>-1</code> to disable throttling
+     */
+    public void setThrottledHours(int startHour, int endHour) {
+
+        if ((startHour < -1) || (startHour > 23) || (endHour < -1) || (endHour > 24)) {
+            throw new CmsIllegalArgumentException(
+                Messages.get().container(
+                    Messages.ERR_HISTORY_COMPACTION_THROTTLED_HOURS_2,
+                    Integer.valueOf(startHour),
+                    Integer.valueOf(endHour)));
+        }
+        m_throttleStartHour = startHour;
+        m_throttleEndHour = endHour % 24;
+    }
+
+    /**
+     * Sets the pause between two chunks during the throttled hours in milliseconds.<p>
+     *
+     * @param throttledPause the pause between two chunks during the throttled hours in milliseconds
+     */
+    public void setThrottledPause(long throttledPause) {
+
+        m_throttledPause = Math.max(0, throttledPause);
+    }
+}
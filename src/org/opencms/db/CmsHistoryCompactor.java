@@ -0,0 +1,423 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.history.I_CmsHistoryResource;
+import org.opencms.main.CmsLog;
+import org.opencms.report.I_CmsReport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Deletes the historical versions of a list of historical resources.<p>
+ *
+ * The resources are sorted by resource id and split into contiguous partitions, so that all siblings of a resource,
+ * which share the resource and content history entries, are processed by the same partition. The partitions
+ * are processed in parallel, each by its own thread with its own database context.<p>
+ *
+ * Each partition is processed in chunks, the versions of all resources of a chunk are deleted
+ * with one batched statement per history table, see {@link I_CmsHistoryDriver#deleteEntries(CmsDbContext, List, int, long)}.
+ * So the database locks are only held for the short time of a chunk, and the pauses configured in the
+ * {@link CmsHistoryCompactionSettings} between the chunks leave room for the interactive queries.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsHistoryCompactor {
+
+    /**
+     * Thread to compact the history of a single partition.<p>
+     */
+    protected class CmsHistoryCompactionThread extends Thread {
+
+        /** The error that stopped the compaction of the partition. */
+        private Throwable m_error;
+
+        /** The index of the partition. */
+        private int m_partition;
+
+        /** The resources of the partition. */
+        private List<I_CmsHistoryResource> m_resources;
+
+        /**
+         * Creates a new thread to compact the history of a single partition.<p>
+         *
+         * @param partition the index of the partition
+         * @param resources the resources of the partition
+         */
+        protected CmsHistoryCompactionThread(int partition, List<I_CmsHistoryResource> resources) {
+
+            super("OpenCms: History Compaction Partition " + partition);
+            m_partition = partition;
+            m_resources = resources;
+        }
+
+        /**
+         * Returns the error that stopped the compaction of the partition.<p>
+         *
+         * @return the error, or <code>null</code> if the partition was compacted without errors
+         */
+        public Throwable getError() {
+
+            return m_error;
+        }
+
+        /**
+         * Returns the index of the partition.<p>
+         *
+         * @return the index of the partition
+         */
+        public int getPartition() {
+
+            return m_partition;
+        }
+
+        /**
+         * @see java.lang.Thread#run()
+         */
+        @Override
+        public void run() {
+
+            CmsDbContext dbc = createDbContext();
+            try {
+                compactPartition(dbc, m_partition, m_resources);
+            } catch (Throwable t) {
+                // reported by the thread waiting for the partitions
+                m_error = t;
+            } finally {
+                dbc.clear();
+            }
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsHistoryCompactor.class);
+
+    /** The factory to create the database contexts of the partition threads. */
+    private I_CmsDbContextFactory m_dbContextFactory;
+
+    /** The number of deleted versions. */
+    private AtomicInteger m_deleted;
+
+    /** The driver manager. */
+    private CmsDriverManager m_driverManager;
+
+    /** The number of processed resources. */
+    private AtomicInteger m_processed;
+
+    /** The report to write the progress to. */
+    private I_CmsReport m_report;
+
+    /** The request context of the compaction. */
+    private CmsRequestContext m_requestContext;
+
+    /** The compaction settings. */
+    private CmsHistoryCompactionSettings m_settings;
+
+    /** Deleted resources older than this will also be deleted, is ignored if negative. */
+    private long m_time;
+
+    /** The number of versions to keep. */
+    private int m_versionsToKeep;
+
+    /**
+     * Creates a new history compactor.<p>
+     *
+     * @param driverManager the driver manager
+     * @param dbContextFactory the factory to create the database contexts of the partition threads
+     * @param settings the compaction settings
+     * @param report the report to write the progress to
+     */
+    public CmsHistoryCompactor(
+        CmsDriverManager driverManager,
+        I_CmsDbContextFactory dbContextFactory,
+        CmsHistoryCompactionSettings settings,
+        I_CmsReport report) {
+
+        m_driverManager = driverManager;
+        m_dbContextFactory = dbContextFactory;
+        m_settings = settings;
+        m_report = report;
+        m_deleted = new AtomicInteger();
+        m_processed = new AtomicInteger();
+    }
+
+    /**
+     * Splits the given resources into the given number of partitions of about the same size.<p>
+     *
+     * The resources are sorted by resource id, and all resources with the same resource id
+     * are put into the same partition. Thus less partitions may be returned.<p>
+     *
+     * @param resources the resources to split
+     * @param partitions the number of partitions
+     *
+     * @return the partitions
+     */
+    public static List<List<I_CmsHistoryResource>> partition(List<I_CmsHistoryResource> resources, int partitions) {
+
+        List<I_CmsHistoryResource> sorted = new ArrayList<I_CmsHistoryResource>(resources);
+        Collections.sort(sorted, new Comparator<I_CmsHistoryResource>() {
+
+            public int compare(I_CmsHistoryResource res1, I_CmsHistoryResource res2) {
+
+                return res1.getResourceId().compareTo(res2.getResourceId());
+            }
+        });
+        List<List<I_CmsHistoryResource>> result = new ArrayList<List<I_CmsHistoryResource>>();
+        int partitionSize = Math.max(1, (sorted.size() + Math.max(1, partitions) - 1) / Math.max(1, partitions));
+        List<I_CmsHistoryResource> current = new ArrayList<I_CmsHistoryResource>(partitionSize);
+        for (I_CmsHistoryResource resource : sorted) {
+            if ((current.size() >= partitionSize)
+                && !current.get(current.size() - 1).getResourceId().equals(resource.getResourceId())) {
+                result.add(current);
+                current = new ArrayList<I_CmsHistoryResource>(partitionSize);
+            }
+            current.add(resource);
+        }
+        if (!current.isEmpty()) {
+            result.add(current);
+        }
+        return result;
+    }
+
+    /**
+     * Deletes the historical versions of the given resources.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the historical resources to delete the versions for
+     * @param versionsToKeep the number of versions to keep
+     * @param time deleted resources older than this will also be deleted, is ignored if negative
+     *
+     * @return the number of deleted versions
+     *
+     * @throws CmsDataAccessException if the compaction of a partition failed
+     */
+    public int compact(CmsDbContext dbc, List<I_CmsHistoryResource> resources, int versionsToKeep, long time)
+    throws CmsDataAccessException {
+
+        m_requestContext = dbc.getRequestContext();
+        m_versionsToKeep = versionsToKeep;
+        m_time = time;
+        m_deleted.set(0);
+        m_processed.set(0);
+        long start = System.currentTimeMillis();
+
+        List<List<I_CmsHistoryResource>> partitions = partition(resources, m_settings.getPartitions());
+        m_report.println(
+            Messages.get().container(
+                Messages.RPT_HISTORY_COMPACTION_START_3,
+                Integer.valueOf(resources.size()),
+                Integer.valueOf(partitions.size()),
+                Integer.valueOf(m_settings.getChunkSize())),
+            I_CmsReport.FORMAT_NOTE);
+
+        Throwable error = null;
+        if (partitions.size() == 1) {
+            // no need for an additional thread
+            compactPartition(dbc, 1, partitions.get(0));
+        } else if (partitions.size() > 1) {
+            List<CmsHistoryCompactionThread> threads = new ArrayList<CmsHistoryCompactionThread>();
+            for (int i = 0; i < partitions.size(); i++) {
+                CmsHistoryCompactionThread thread = new CmsHistoryCompactionThread(i + 1, partitions.get(i));
+                threads.add(thread);
+                thread.start();
+            }
+            for (CmsHistoryCompactionThread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    // stop waiting, the partition threads will finish their current chunk
+                    Thread.currentThread().interrupt();
+                    for (CmsHistoryCompactionThread t : threads) {
+                        t.interrupt();
+                    }
+                    break;
+                }
+            }
+            for (CmsHistoryCompactionThread thread : threads) {
+                if (thread.getError() != null) {
+                    synchronized (m_report) {
+                        m_report.println(
+                            Messages.get().container(
+                                Messages.RPT_HISTORY_COMPACTION_PARTITION_FAILED_1,
+                                Integer.valueOf(thread.getPartition())),
+                            I_CmsReport.FORMAT_ERROR);
+                        m_report.println(thread.getError());
+                    }
+                    if (error == null) {
+                        error = thread.getError();
+                    } else {
+                        error.addSuppressed(thread.getError());
+                    }
+                }
+            }
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        m_report.println(
+            Messages.get().container(
+                Messages.RPT_HISTORY_COMPACTION_END_4,
+                new Object[] {
+                    Integer.valueOf(m_processed.get()),
+                    Integer.valueOf(m_deleted.get()),
+                    Long.valueOf(duration / 1000),
+                    Long.valueOf(getRate(m_deleted.get(), duration))}),
+            I_CmsReport.FORMAT_OK);
+        if (error instanceof Error) {
+            throw (Error)error;
+        } else if (error != null) {
+            throw new CmsDataAccessException(
+                Messages.get().container(Messages.ERR_HISTORY_COMPACTION_FAILED_0),
+                error);
+        }
+        return m_deleted.get();
+    }
+
+    /**
+     * Deletes the historical versions of the resources of a single partition, chunk by chunk.<p>
+     *
+     * @param dbc the database context to use
+     * @param partition the index of the partition
+     * @param resources the resources of the partition
+     */
+    protected void compactPartition(CmsDbContext dbc, int partition, List<I_CmsHistoryResource> resources) {
+
+        int chunkSize = m_settings.getChunkSize();
+        int processed = 0;
+        int deleted = 0;
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < resources.size(); i += chunkSize) {
+            List<I_CmsHistoryResource> chunk = resources.subList(i, Math.min(i + chunkSize, resources.size()));
+            int chunkDeleted = deleteChunk(dbc, partition, chunk);
+            processed += chunk.size();
+            deleted += chunkDeleted;
+            m_processed.addAndGet(chunk.size());
+            m_deleted.addAndGet(chunkDeleted);
+            synchronized (m_report) {
+                m_report.println(
+                    Messages.get().container(
+                        Messages.RPT_HISTORY_COMPACTION_CHUNK_5,
+                        new Object[] {
+                            Integer.valueOf(partition),
+                            Integer.valueOf(processed),
+                            Integer.valueOf(resources.size()),
+                            Integer.valueOf(deleted),
+                            Long.valueOf(getRate(deleted, System.currentTimeMillis() - start))}),
+                    I_CmsReport.FORMAT_NOTE);
+            }
+            long pause = m_settings.getPause(System.currentTimeMillis());
+            if ((pause > 0) && (processed < resources.size())) {
+                try {
+                    Thread.sleep(pause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Creates a new database context for a partition thread.<p>
+     *
+     * @return the new database context
+     */
+    protected CmsDbContext createDbContext() {
+
+        if (m_dbContextFactory == null) {
+            return new CmsDbContext(m_requestContext);
+        }
+        return m_dbContextFactory.getDbContext(m_requestContext);
+    }
+
+    /**
+     * Deletes the historical versions of a chunk of resources.<p>
+     *
+     * If the batched deletion of the chunk fails, the resources are processed one by one,
+     * so a single failing resource does not prevent the deletion of the others.<p>
+     *
+     * @param dbc the database context to use
+     * @param partition the index of the partition
+     * @param chunk the resources of the chunk
+     *
+     * @return the number of deleted versions
+     */
+    protected int deleteChunk(CmsDbContext dbc, int partition, List<I_CmsHistoryResource> chunk) {
+
+        I_CmsHistoryDriver historyDriver = m_driverManager.getHistoryDriver(dbc);
+        try {
+            return historyDriver.deleteEntries(dbc, chunk, m_versionsToKeep, m_time);
+        } catch (CmsDataAccessException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
+        int deleted = 0;
+        for (I_CmsHistoryResource resource : chunk) {
+            try {
+                deleted += historyDriver.deleteEntries(dbc, resource, m_versionsToKeep, m_time);
+            } catch (CmsDataAccessException e) {
+                synchronized (m_report) {
+                    m_report.println(
+                        Messages.get().container(
+                            Messages.RPT_HISTORY_COMPACTION_FAILED_2,
+                            Integer.valueOf(partition),
+                            dbc.removeSiteRoot(resource.getRootPath())),
+                        I_CmsReport.FORMAT_ERROR);
+                }
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Returns the number of deleted versions per second.<p>
+     *
+     * @param deleted the number of deleted versions
+     * @param duration the duration in milliseconds
+     *
+     * @return the number of deleted versions per second
+     */
+    private long getRate(int deleted, long duration) {
+
+        return duration > 0 ? (deleted * 1000L) / duration : deleted;
+    }
+}
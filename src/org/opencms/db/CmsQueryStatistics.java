@@ -0,0 +1,626 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsLog;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Collects execution time, row and call count statistics of the SQL queries executed by the drivers.<p>
+ *
+ * The statistics are collected per query key of the <code>query.properties</code> and per calling driver method.
+ * Queries that take longer than the configured threshold are logged together with their bound parameters.<p>
+ *
+ * Collecting the statistics requires wrapping each prepared statement in a proxy, so it is disabled
+ * by default and should only be enabled for diagnosing performance problems. It can be enabled in
+ * the <code>opencms.properties</code> or at runtime via JMX.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsQueryStatistics implements I_CmsQueryStatisticsMBean {
+
+    /**
+     * Invocation handler for result sets, counting the returned rows.<p>
+     */
+    protected class CmsResultSetHandler implements InvocationHandler {
+
+        /** The statistics entries to add the rows to. */
+        private CmsQueryStatisticsEntry[] m_entries;
+
+        /** The wrapped result set. */
+        private ResultSet m_resultSet;
+
+        /**
+         * Creates a new result set handler.<p>
+         *
+         * @param resultSet the result set to wrap
+         * @param entries the statistics entries to add the rows to
+         */
+        protected CmsResultSetHandler(ResultSet resultSet, CmsQueryStatisticsEntry... entries) {
+
+            m_resultSet = resultSet;
+            m_entries = entries;
+        }
+
+        /**
+         * Returns the wrapped result set.<p>
+         *
+         * @return the wrapped result set
+         */
+        public ResultSet getResultSet() {
+
+            return m_resultSet;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            Object result = CmsQueryStatistics.invoke(m_resultSet, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                for (CmsQueryStatisticsEntry entry : m_entries) {
+                    entry.addRows(1);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Invocation handler for prepared statements, measuring the execution time and keeping
+     * track of the bound parameters.<p>
+     */
+    protected class CmsStatementHandler implements InvocationHandler {
+
+        /** The name of the calling driver method. */
+        private String m_caller;
+
+        /** The statistics entry of the calling driver method. */
+        private CmsQueryStatisticsEntry m_callerEntry;
+
+        /** The bound parameters, by index. */
+        private Map<Integer, Object> m_parameters;
+
+        /** The statistics entry of the query key. */
+        private CmsQueryStatisticsEntry m_queryEntry;
+
+        /** The query key. */
+        private String m_queryKey;
+
+        /** The wrapped statement. */
+        private PreparedStatement m_statement;
+
+        /**
+         * Creates a new statement handler.<p>
+         *
+         * @param statement the statement to wrap
+         * @param queryKey the query key
+         * @param caller the name of the calling driver method
+         */
+        protected CmsStatementHandler(PreparedStatement statement, String queryKey, String caller) {
+
+            m_statement = statement;
+            m_queryKey = queryKey;
+            m_caller = caller;
+            m_queryEntry = getEntry(m_queryStatistics, queryKey);
+            m_callerEntry = getEntry(m_callerStatistics, caller);
+            m_parameters = new TreeMap<Integer, Object>();
+        }
+
+        /**
+         * Returns the wrapped statement.<p>
+         *
+         * @return the wrapped statement
+         */
+        public PreparedStatement getStatement() {
+
+            return m_statement;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                Object result = CmsQueryStatistics.invoke(m_statement, method, args);
+                recordExecution(System.nanoTime() - start, result);
+                return wrapResult(result);
+            } else if ("getResultSet".equals(name)) {
+                return wrapResult(CmsQueryStatistics.invoke(m_statement, method, args));
+            } else if (name.startsWith("set") && (args != null) && (args.length > 1) && (args[0] instanceof Integer)) {
+                // the second argument of setNull is the SQL type, not the value
+                m_parameters.put((Integer)args[0], "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                m_parameters.clear();
+            }
+            return CmsQueryStatistics.invoke(m_statement, method, args);
+        }
+
+        /**
+         * Records an execution of the wrapped statement.<p>
+         *
+         * @param nanos the execution time in nanoseconds
+         * @param result the result of the execution
+         */
+        private void recordExecution(long nanos, Object result) {
+
+            long millis = nanos / 1000000;
+            boolean slow = (m_slowQueryThreshold > 0) && (millis >= m_slowQueryThreshold);
+            m_queryEntry.recordExecution(nanos, slow);
+            m_callerEntry.recordExecution(nanos, slow);
+            m_executionCount.incrementAndGet();
+            m_totalTime.addAndGet(nanos);
+            if (result instanceof Integer) {
+                m_queryEntry.addRows(((Integer)result).intValue());
+                m_callerEntry.addRows(((Integer)result).intValue());
+            }
+            if (slow) {
+                m_slowQueryCount.incrementAndGet();
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_SLOW_QUERY_4,
+                            new Object[] {m_queryKey, Long.valueOf(millis), m_caller, formatParameters()}));
+                }
+            }
+        }
+
+        /**
+         * Returns the bound parameters as a string.<p>
+         *
+         * @return the bound parameters as a string
+         */
+        private String formatParameters() {
+
+            StringBuffer result = new StringBuffer(128);
+            result.append('[');
+            for (Map.Entry<Integer, Object> parameter : m_parameters.entrySet()) {
+                if (result.length() > 1) {
+                    result.append(", ");
+                }
+                result.append(parameter.getKey()).append('=');
+                Object value = parameter.getValue();
+                if (value instanceof byte[]) {
+                    result.append("byte[").append(((byte[])value).length).append(']');
+                } else {
+                    result.append(value);
+                }
+            }
+            result.append(']');
+            return result.toString();
+        }
+
+        /**
+         * Wraps a result set returned by the statement, so the returned rows are counted.<p>
+         *
+         * @param result the result of a statement method
+         *
+         * @return the wrapped result set, or the unchanged result if it is no result set
+         */
+        private Object wrapResult(Object result) {
+
+            if (result instanceof ResultSet) {
+                return Proxy.newProxyInstance(
+                    CmsQueryStatistics.class.getClassLoader(),
+                    new Class<?>[] {ResultSet.class},
+                    new CmsResultSetHandler((ResultSet)result, m_queryEntry, m_callerEntry));
+            }
+            return result;
+        }
+    }
+
+    /** The configuration key to enable the query statistics. */
+    public static final String CONFIGURATION_STATISTICS_ENABLED = CmsDriverManager.CONFIGURATION_DB
+        + ".statistics.enabled";
+
+    /** The configuration key for the slow query threshold in milliseconds. */
+    public static final String CONFIGURATION_STATISTICS_SLOW_QUERY_THRESHOLD = CmsDriverManager.CONFIGURATION_DB
+        + ".statistics.slowQueryThreshold";
+
+    /** The default slow query threshold in milliseconds. */
+    public static final int DEFAULT_SLOW_QUERY_THRESHOLD = 1000;
+
+    /** The name under which the statistics are registered with the platform MBean server. */
+    public static final String MBEAN_NAME = "org.opencms.db:type=QueryStatistics";
+
+    /** The maximum number of entries returned by the JMX interface. */
+    public static final int MAX_MBEAN_ENTRIES = 50;
+
+    /** The log object for this class. */
+    protected static final Log LOG = CmsLog.getLog(CmsQueryStatistics.class);
+
+    /** Compares statistics entries by descending total execution time. */
+    private static final Comparator<CmsQueryStatisticsEntry> TOTAL_TIME_COMPARATOR = new Comparator<CmsQueryStatisticsEntry>() {
+
+        public int compare(CmsQueryStatisticsEntry entry1, CmsQueryStatisticsEntry entry2) {
+
+            long time1 = entry1.getTotalTime();
+            long time2 = entry2.getTotalTime();
+            return time1 < time2 ? 1 : (time1 == time2 ? 0 : -1);
+        }
+    };
+
+    /** The statistics per calling driver method. */
+    protected ConcurrentHashMap<String, CmsQueryStatisticsEntry> m_callerStatistics;
+
+    /** The total number of executed queries. */
+    protected AtomicLong m_executionCount;
+
+    /** The statistics per query key. */
+    protected ConcurrentHashMap<String, CmsQueryStatisticsEntry> m_queryStatistics;
+
+    /** The total number of slow queries. */
+    protected AtomicLong m_slowQueryCount;
+
+    /** The slow query threshold in milliseconds. */
+    protected volatile long m_slowQueryThreshold;
+
+    /** The total execution time of all queries in nanoseconds. */
+    protected AtomicLong m_totalTime;
+
+    /** Flag indicating if the statistics are collected. */
+    private volatile boolean m_enabled;
+
+    /**
+     * Creates new, disabled query statistics.<p>
+     */
+    public CmsQueryStatistics() {
+
+        m_callerStatistics = new ConcurrentHashMap<String, CmsQueryStatisticsEntry>();
+        m_queryStatistics = new ConcurrentHashMap<String, CmsQueryStatisticsEntry>();
+        m_executionCount = new AtomicLong();
+        m_slowQueryCount = new AtomicLong();
+        m_totalTime = new AtomicLong();
+        m_slowQueryThreshold = DEFAULT_SLOW_QUERY_THRESHOLD;
+    }
+
+    /**
+     * Returns the original result set of a result set returned by a statement wrapped for the statistics.<p>
+     *
+     * This is required before casting the result set to a driver or connection pool specific class.<p>
+     *
+     * @param resultSet the result set, may be wrapped or not
+     *
+     * @return the original result set, or the given result set if it is not wrapped
+     */
+    public static ResultSet unwrap(ResultSet resultSet) {
+
+        if ((resultSet != null) && Proxy.isProxyClass(resultSet.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(resultSet);
+            if (handler instanceof CmsResultSetHandler) {
+                return ((CmsResultSetHandler)handler).getResultSet();
+            }
+        }
+        return resultSet;
+    }
+
+    /**
+     * Returns the original statement of a statement wrapped for the statistics.<p>
+     *
+     * This is required before casting the statement to a driver or connection pool specific class.<p>
+     *
+     * @param statement the statement, may be wrapped or not
+     *
+     * @return the original statement, or the given statement if it is not wrapped
+     */
+    public static Statement unwrap(Statement statement) {
+
+        if ((statement != null) && Proxy.isProxyClass(statement.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(statement);
+            if (handler instanceof CmsStatementHandler) {
+                return ((CmsStatementHandler)handler).getStatement();
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * Invokes a method on the wrapped object, unwrapping the exceptions thrown by the method.<p>
+     *
+     * @param target the wrapped object
+     * @param method the method to invoke
+     * @param args the method arguments
+     *
+     * @return the result of the method
+     *
+     * @throws Throwable the exception thrown by the method
+     */
+    protected static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the statistics of the driver methods, sorted by descending total execution time.<p>
+     *
+     * @return the statistics of the driver methods
+     */
+    public List<CmsQueryStatisticsEntry> getDriverMethodEntries() {
+
+        return getSortedEntries(m_callerStatistics);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsQueryStatisticsMBean#getDriverMethodStatistics()
+     */
+    public String[] getDriverMethodStatistics() {
+
+        return formatEntries(getDriverMethodEntries());
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsQueryStatisticsMBean#getExecutionCount()
+     */
+    public long getExecutionCount() {
+
+        return m_executionCount.get();
+    }
+
+    /**
+     * Returns the statistics of the query keys, sorted by descending total execution time.<p>
+     *
+     * @return the statistics of the query keys
+     */
+    public List<CmsQueryStatisticsEntry> getQueryEntries() {
+
+        return getSortedEntries(m_queryStatistics);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsQueryStatisticsMBean#getQueryStatistics()
+     */
+    public String[] getQueryStatistics() {
+
+        return formatEntries(getQueryEntries());
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsQueryStatisticsMBean#getSlowQueryCount()
+     */
+    public long getSlowQueryCount() {
+
+        return m_slowQueryCount.get();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsQueryStatisticsMBean#getSlowQueryThreshold()
+     */
+    public long getSlowQueryThreshold() {
+
+        return m_slowQueryThreshold;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsQueryStatisticsMBean#getTotalExecutionTime()
+     */
+    public long getTotalExecutionTime() {
+
+        return m_totalTime.get() / 1000000;
+    }
+
+    /**
+     * Initializes the query statistics from the configuration and registers them with
+     * the platform MBean server, so they can also be enabled later at runtime.<p>
+     *
+     * @param config the OpenCms configuration
+     */
+    public void initConfiguration(CmsParameterConfiguration config) {
+
+        m_slowQueryThreshold = config.getInteger(
+            CONFIGURATION_STATISTICS_SLOW_QUERY_THRESHOLD,
+            DEFAULT_SLOW_QUERY_THRESHOLD);
+        m_enabled = config.getBoolean(CONFIGURATION_STATISTICS_ENABLED, false);
+        registerMBean();
+        if (m_enabled && CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_QUERY_STATISTICS_2,
+                    Long.valueOf(m_slowQueryThreshold),
+                    MBEAN_NAME));
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsQueryStatisticsMBean#isEnabled()
+     */
+    public boolean isEnabled() {
+
+        return m_enabled;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsQueryStatisticsMBean#reset()
+     */
+    public void reset() {
+
+        m_callerStatistics.clear();
+        m_queryStatistics.clear();
+        m_executionCount.set(0);
+        m_slowQueryCount.set(0);
+        m_totalTime.set(0);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsQueryStatisticsMBean#setEnabled(boolean)
+     */
+    public void setEnabled(boolean enabled) {
+
+        m_enabled = enabled;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsQueryStatisticsMBean#setSlowQueryThreshold(long)
+     */
+    public void setSlowQueryThreshold(long threshold) {
+
+        m_slowQueryThreshold = threshold;
+    }
+
+    /**
+     * Wraps a prepared statement, so that its executions are recorded in these statistics.<p>
+     *
+     * If the statistics are disabled, the statement is returned unchanged.<p>
+     *
+     * @param statement the statement to wrap
+     * @param queryKey the key of the query in the <code>query.properties</code>
+     *
+     * @return the wrapped statement
+     */
+    public PreparedStatement wrap(PreparedStatement statement, String queryKey) {
+
+        if (!m_enabled || (statement == null)) {
+            return statement;
+        }
+        return (PreparedStatement)Proxy.newProxyInstance(
+            CmsQueryStatistics.class.getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            new CmsStatementHandler(statement, queryKey, getCaller()));
+    }
+
+    /**
+     * Returns the statistics entry with the given name, creating it if required.<p>
+     *
+     * @param entries the map of entries
+     * @param name the name of the entry
+     *
+     * @return the statistics entry
+     */
+    protected CmsQueryStatisticsEntry getEntry(
+        ConcurrentHashMap<String, CmsQueryStatisticsEntry> entries,
+        String name) {
+
+        CmsQueryStatisticsEntry entry = entries.get(name);
+        if (entry == null) {
+            entry = new CmsQueryStatisticsEntry(name);
+            CmsQueryStatisticsEntry existing = entries.putIfAbsent(name, entry);
+            if (existing != null) {
+                entry = existing;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Formats the first entries of a list for the JMX interface.<p>
+     *
+     * @param entries the entries to format
+     *
+     * @return the formatted entries
+     */
+    private String[] formatEntries(List<CmsQueryStatisticsEntry> entries) {
+
+        int size = Math.min(entries.size(), MAX_MBEAN_ENTRIES);
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = entries.get(i).toString();
+        }
+        return result;
+    }
+
+    /**
+     * Determines the driver method which is preparing a statement from the current stack trace.<p>
+     *
+     * @return the name of the calling driver method
+     */
+    private String getCaller() {
+
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        for (StackTraceElement element : stack) {
+            String className = element.getClassName();
+            if (className.startsWith("org.opencms.db.")
+                && !className.startsWith(CmsQueryStatistics.class.getName())
+                && !className.endsWith("CmsSqlManager")) {
+                return className.substring(className.lastIndexOf('.') + 1) + "." + element.getMethodName();
+            }
+        }
+        return "unknown";
+    }
+
+    /**
+     * Returns the values of a map of entries, sorted by descending total execution time.<p>
+     *
+     * @param entries the map of entries
+     *
+     * @return the sorted entries
+     */
+    private List<CmsQueryStatisticsEntry> getSortedEntries(Map<String, CmsQueryStatisticsEntry> entries) {
+
+        List<CmsQueryStatisticsEntry> result = new ArrayList<CmsQueryStatisticsEntry>(entries.values());
+        Collections.sort(result, TOTAL_TIME_COMPARATOR);
+        return result;
+    }
+
+    /**
+     * Registers these statistics with the platform MBean server, replacing the statistics of
+     * a previously initialized instance.<p>
+     */
+    private void registerMBean() {
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new StandardMBean(this, I_CmsQueryStatisticsMBean.class), name);
+        } catch (Exception e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_QUERY_STATISTICS_REGISTER_FAILED_1, MBEAN_NAME), e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution statistics for a single SQL query key or driver method.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsQueryStatisticsEntry {
+
+    /** The number of executions. */
+    private AtomicLong m_executionCount = new AtomicLong();
+
+    /** The maximum execution time in nanoseconds. */
+    private AtomicLong m_maxTime = new AtomicLong();
+
+    /** The name of the query key or driver method. */
+    private String m_name;
+
+    /** The number of rows returned or updated. */
+    private AtomicLong m_rowCount = new AtomicLong();
+
+    /** The number of slow executions. */
+    private AtomicLong m_slowCount = new AtomicLong();
+
+    /** The total execution time in nanoseconds. */
+    private AtomicLong m_totalTime = new AtomicLong();
+
+    /**
+     * Creates a new statistics entry.<p>
+     *
+     * @param name the name of the query key or driver method
+     */
+    public CmsQueryStatisticsEntry(String name) {
+
+        m_name = name;
+    }
+
+    /**
+     * Records the given number of rows.<p>
+     *
+     * @param rows the number of rows returned or updated
+     */
+    public void addRows(long rows) {
+
+        m_rowCount.addAndGet(rows);
+    }
+
+    /**
+     * Returns the average execution time in milliseconds.<p>
+     *
+     * @return the average execution time in milliseconds
+     */
+    public double getAverageTime() {
+
+        long count = m_executionCount.get();
+        return count == 0 ? 0 : (m_totalTime.get() / 1000000.0) / count;
+    }
+
+    /**
+     * Returns the number of executions.<p>
+     *
+     * @return the number of executions
+     */
+    public long getExecutionCount() {
+
+        return m_executionCount.get();
+    }
+
+    /**
+     * Returns the maximum execution time in milliseconds.<p>
+     *
+     * @return the maximum execution time in milliseconds
+     */
+    public long getMaxTime() {
+
+        return m_maxTime.get() / 1000000;
+    }
+
+    /**
+     * Returns the name of the query key or driver method.<p>
+     *
+     * @return the name of the query key or driver method
+     */
+    public String getName() {
+
+        return m_name;
+    }
+
+    /**
+     * Returns the number of rows returned or updated.<p>
+     *
+     * @return the number of rows
+     */
+    public long getRowCount() {
+
+        return m_rowCount.get();
+    }
+
+    /**
+     * Returns the number of executions that exceeded the slow query threshold.<p>
+     *
+     * @return the number of slow executions
+     */
+    public long getSlowCount() {
+
+        return m_slowCount.get();
+    }
+
+    /**
+     * Returns the total execution time in milliseconds.<p>
+     *
+     * @return the total execution time in milliseconds
+     */
+    public long getTotalTime() {
+
+        return m_totalTime.get() / 1000000;
+    }
+
+    /**
+     * Records a single execution.<p>
+     *
+     * @param nanos the execution time in nanoseconds
+     * @param slow <code>true</code> if the execution exceeded the slow query threshold
+     */
+    public void recordExecution(long nanos, boolean slow) {
+
+        m_executionCount.incrementAndGet();
+        m_totalTime.addAndGet(nanos);
+        if (slow) {
+            m_slowCount.incrementAndGet();
+        }
+        long max = m_maxTime.get();
+        while ((nanos > max) && !m_maxTime.compareAndSet(max, nanos)) {
+            max = m_maxTime.get();
+        }
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return m_name
+            + ": count="
+            + getExecutionCount()
+            + ", total="
+            + getTotalTime()
+            + "ms, max="
+            + getMaxTime()
+            + "ms, rows="
+            + getRowCount()
+            + ", slow="
+            + getSlowCount();
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Decides which read operations of the drivers may be served by a read replica of the database.<p>
+ *
+ * Only reads of online project data issued in the context of an online request are routed to the replica.
+ * Offline reads, all writes and the reads done while publishing always use the primary pool.
+ * Since the online project only changes while publishing, the online reads also stay on the primary pool
+ * while a publish job is running and for a configurable time afterwards, so the replica can catch up
+ * with the published changes.<p>
+ *
+ * The replica pool has to be listed in <code>db.pools</code> and configured like any other pool.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsReplicaRouter implements I_CmsEventListener {
+
+    /** The configuration key for the name of the replica pool. */
+    public static final String CONFIGURATION_REPLICA_POOL = CmsDriverManager.CONFIGURATION_DB + ".replica.pool";
+
+    /** The configuration key for the time in milliseconds the online reads stay on the primary after publishing. */
+    public static final String CONFIGURATION_REPLICA_WINDOW = CmsDriverManager.CONFIGURATION_DB
+        + ".replica.readYourWritesWindow";
+
+    /** The default time in milliseconds the online reads stay on the primary after publishing. */
+    public static final int DEFAULT_REPLICA_WINDOW = 5000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsReplicaRouter.class);
+
+    /** The URL of the replica pool, or <code>null</code> if no replica is configured. */
+    private String m_poolUrl;
+
+    /** The number of reads served by the primary pool although a replica is configured. */
+    private AtomicLong m_primaryReads;
+
+    /** The time until which all reads have to use the primary pool. */
+    private volatile long m_primaryUntil;
+
+    /** The number of reads served by the replica pool. */
+    private AtomicLong m_replicaReads;
+
+    /** The time in milliseconds the online reads stay on the primary after publishing. */
+    private long m_window;
+
+    /**
+     * Creates a new replica router without replica.<p>
+     */
+    public CmsReplicaRouter() {
+
+        m_primaryReads = new AtomicLong();
+        m_replicaReads = new AtomicLong();
+        m_window = DEFAULT_REPLICA_WINDOW;
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT:
+                // the online project is about to change, stay on the primary until the publish job has finished
+                m_primaryUntil = Long.MAX_VALUE;
+                break;
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                m_primaryUntil = System.currentTimeMillis() + m_window;
+                break;
+            default:
+                // ignore
+        }
+    }
+
+    /**
+     * Returns the URL of the replica pool.<p>
+     *
+     * @return the URL of the replica pool, or <code>null</code> if no replica is configured
+     */
+    public String getPoolUrl() {
+
+        return m_poolUrl;
+    }
+
+    /**
+     * Returns the number of online reads served by the primary pool although a replica is configured.<p>
+     *
+     * @return the number of online reads served by the primary pool
+     */
+    public long getPrimaryReadCount() {
+
+        return m_primaryReads.get();
+    }
+
+    /**
+     * Returns the number of reads served by the replica pool.<p>
+     *
+     * @return the number of reads served by the replica pool
+     */
+    public long getReplicaReadCount() {
+
+        return m_replicaReads.get();
+    }
+
+    /**
+     * Initializes the router from the configuration.<p>
+     *
+     * @param config the OpenCms configuration
+     */
+    public void initConfiguration(CmsParameterConfiguration config) {
+
+        String poolName = config.getString(CONFIGURATION_REPLICA_POOL, null);
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(poolName)) {
+            return;
+        }
+        poolName = poolName.trim();
+        if (poolName.startsWith(CmsDbPool.DBCP_JDBC_URL_PREFIX)) {
+            poolName = poolName.substring(CmsDbPool.DBCP_JDBC_URL_PREFIX.length());
+        }
+        if (!CmsDbPool.getDbPoolUrls(config).contains(poolName)) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_REPLICA_POOL_MISSING_1, poolName));
+            return;
+        }
+        m_window = config.getInteger(CONFIGURATION_REPLICA_WINDOW, DEFAULT_REPLICA_WINDOW);
+        m_poolUrl = CmsDbPool.DBCP_JDBC_URL_PREFIX + poolName;
+        OpenCms.addCmsEventListener(
+            this,
+            new int[] {
+                I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+                I_CmsEventListener.EVENT_CLEAR_CACHES});
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(Messages.INIT_REPLICA_POOL_2, poolName, Long.valueOf(m_window)));
+        }
+    }
+
+    /**
+     * Checks if a read of the given project's data may be served by the replica pool.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project whose data is read
+     *
+     * @return <code>true</code> if the read may be served by the replica pool
+     */
+    public boolean isReplicaReadable(CmsDbContext dbc, CmsUUID projectId) {
+
+        if ((m_poolUrl == null) || (dbc == null) || !CmsProject.ONLINE_PROJECT_ID.equals(projectId)) {
+            return false;
+        }
+        CmsRequestContext context = dbc.getRequestContext();
+        if ((context == null) || !context.getCurrentProject().isOnlineProject()) {
+            // offline requests and publish jobs need to see their own changes
+            return false;
+        }
+        if ((dbc.getProjectId() != null) && !dbc.getProjectId().isNullUUID()) {
+            // the context has been switched to another project, e.g. while publishing
+            return false;
+        }
+        if (System.currentTimeMillis() < m_primaryUntil) {
+            m_primaryReads.incrementAndGet();
+            return false;
+        }
+        m_replicaReads.incrementAndGet();
+        return true;
+    }
+}
@@ -1376,12 +1376,50 @@ public final class CmsSecurityManager {
         I_CmsReport report)
     throws CmsException, CmsRoleViolationException {
 
+        deleteHistoricalVersions(
+            context,
+            versionsToKeep,
+            versionsDeleted,
+            timeDeleted,
+            new CmsHistoryCompactionSettings(),
+            report);
+    }
+
+    /**
+     * Deletes the versions from the history tables, keeping the given number of versions per resource,
+     * using the given settings for the chunks, partitions and pauses of the deletion.<p>
+     *
+     * @param context the current request context
+     * @param versionsToKeep number of versions to keep, is ignored if negative
+     * @param versionsDeleted number of versions to keep for deleted resources, is ignored if negative
+     * @param timeDeleted deleted resources older than this will also be deleted, is ignored if negative
+     * @param settings the history compaction settings
+     * @param report the report for output logging
+     *
+     * @throws CmsException if operation was not successful
+     * @throws CmsRoleViolationException if the current user does not own the role {@link CmsRole#WORKPLACE_MANAGER}
+     */
+    public void deleteHistoricalVersions(
+        CmsRequestContext context,
+        int versionsToKeep,
+        int versionsDeleted,
+        long timeDeleted,
+        CmsHistoryCompactionSettings settings,
+        I_CmsReport report)
+    throws CmsException, CmsRoleViolationException {
+
         CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
         try {
             CmsFolder root = readFolder(dbc, "/", CmsResourceFilter.ALL);
             checkRole(dbc, CmsRole.WORKPLACE_MANAGER.forOrgUnit(null));
             checkPermissions(dbc, root, CmsPermissionSet.ACCESS_WRITE, false, CmsResourceFilter.ALL);
-            m_driverManager.deleteHistoricalVersions(dbc, versionsToKeep, versionsDeleted, timeDeleted, report);
+            m_driverManager.deleteHistoricalVersions(
+                dbc,
+                versionsToKeep,
+                versionsDeleted,
+                timeDeleted,
+                settings,
+                report);
         } catch (Exception e) {
             dbc.report(
                 null,
@@ -1858,6 +1896,42 @@ public final class CmsSecurityManager {
         return publishList;
     }
 
+    /**
+     * Filters the given list of resources, removes all resources where the current user
+     * does not have READ permissions, plus the given filter is applied.<p>
+     *
+     * This is considerably faster than checking the permissions of each resource separately,
+     * since the access control lists of resources in the same folder are read together.<p>
+     *
+     * @param context the current request context
+     * @param resources the resources to filter
+     * @param filter the resource filter to use
+     *
+     * @return the resources the current user is allowed to read, in the original order
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> filterReadable(
+        CmsRequestContext context,
+        List<CmsResource> resources,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        List<CmsResource> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.filterReadable(dbc, resources, filter);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_FILTER_READABLE_RESOURCES_1, Integer.valueOf(resources.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the list of access control entries of a resource given its name.<p>
      *
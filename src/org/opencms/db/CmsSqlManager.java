@@ -39,6 +39,12 @@ import java.util.List;
  */
 public class CmsSqlManager {
 
+    /** The statistics of the executed queries, shared by all SQL managers. */
+    protected static final CmsQueryStatistics QUERY_STATISTICS = new CmsQueryStatistics();
+
+    /** The router for reads from a replica pool, shared by all SQL managers. */
+    protected static final CmsReplicaRouter REPLICA_ROUTER = new CmsReplicaRouter();
+
     /** the driver manager. */
     private CmsDriverManager m_driverManager;
 
@@ -127,4 +133,66 @@ public class CmsSqlManager {
 
         return m_driverManager.getIdleConnections(dbPoolUrl);
     }
+
+    /**
+     * Returns the statistics of the queries executed by the drivers.<p>
+     *
+     * @return the query statistics
+     */
+    public CmsQueryStatistics getQueryStatistics() {
+
+        return QUERY_STATISTICS;
+    }
+
+    /**
+     * Returns the router deciding which reads may be served by a replica pool.<p>
+     *
+     * @return the replica router
+     */
+    public CmsReplicaRouter getReplicaRouter() {
+
+        return REPLICA_ROUTER;
+    }
+
+    /**
+     * Returns the number of prepared statements that were closed by the statement pools
+     * of the connections of a pool, e.g. because the maximum number of pooled statements was reached.<p>
+     *
+     * @param dbPoolUrl the url of a pool
+     *
+     * @return the number of closed statements, or <code>-1</code> if statement pooling is disabled for the pool
+     */
+    public long getStatementCloseCount(String dbPoolUrl) {
+
+        CmsStatementPoolFactory statementPool = CmsDbPool.getStatementPoolFactory(dbPoolUrl);
+        return statementPool != null ? statementPool.getCloseCount() : -1;
+    }
+
+    /**
+     * Returns the number of prepared statements that were actually prepared by the JDBC driver
+     * for the connections of a pool.<p>
+     *
+     * @param dbPoolUrl the url of a pool
+     *
+     * @return the number of prepared statements, or <code>-1</code> if statement pooling is disabled for the pool
+     */
+    public long getStatementPrepareCount(String dbPoolUrl) {
+
+        CmsStatementPoolFactory statementPool = CmsDbPool.getStatementPoolFactory(dbPoolUrl);
+        return statementPool != null ? statementPool.getPrepareCount() : -1;
+    }
+
+    /**
+     * Returns the number of prepared statements that were requested from the statement pools
+     * of the connections of a pool.<p>
+     *
+     * @param dbPoolUrl the url of a pool
+     *
+     * @return the number of requested statements, or <code>-1</code> if statement pooling is disabled for the pool
+     */
+    public long getStatementRequestCount(String dbPoolUrl) {
+
+        CmsStatementPoolFactory statementPool = CmsDbPool.getStatementPoolFactory(dbPoolUrl);
+        return statementPool != null ? statementPool.getRequestCount() : -1;
+    }
 }
\ No newline at end of file
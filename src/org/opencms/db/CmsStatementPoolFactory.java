@@ -0,0 +1,237 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.pool.KeyedObjectPool;
+import org.apache.commons.pool.KeyedPoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory;
+
+/**
+ * Factory for the per-connection prepared statement pools of a DBCP connection pool.<p>
+ *
+ * DBCP creates one statement pool for each pooled connection, keyed by the final SQL of the statement.
+ * In addition to the standard behavior, the pools created by this factory count how often a statement
+ * was requested and how often it actually had to be prepared by the JDBC driver, so the effectiveness
+ * of the statement cache can be monitored.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsStatementPoolFactory extends GenericKeyedObjectPoolFactory {
+
+    /**
+     * Statement pool that counts requests and physical prepares.<p>
+     */
+    protected class CmsCountingStatementPool extends GenericKeyedObjectPool {
+
+        /**
+         * Creates a new statement pool.<p>
+         *
+         * @param maxActive the maximum number of active statements per SQL string
+         * @param whenExhaustedAction the action to take when the pool is exhausted
+         * @param maxWait the maximum time to wait for a statement if the pool is exhausted
+         * @param maxIdle the maximum number of idle statements per SQL string
+         * @param maxTotal the maximum number of statements per connection, or a negative value for no limit
+         */
+        protected CmsCountingStatementPool(
+            int maxActive,
+            byte whenExhaustedAction,
+            long maxWait,
+            int maxIdle,
+            int maxTotal) {
+
+            super(
+                null,
+                maxActive,
+                whenExhaustedAction,
+                maxWait,
+                maxIdle,
+                maxTotal,
+                false,
+                false,
+                GenericKeyedObjectPool.DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS,
+                GenericKeyedObjectPool.DEFAULT_NUM_TESTS_PER_EVICTION_RUN,
+                GenericKeyedObjectPool.DEFAULT_MIN_EVICTABLE_IDLE_TIME_MILLIS,
+                false);
+        }
+
+        /**
+         * @see org.apache.commons.pool.impl.GenericKeyedObjectPool#borrowObject(java.lang.Object)
+         */
+        @Override
+        public Object borrowObject(Object key) throws Exception {
+
+            m_requestCount.incrementAndGet();
+            return super.borrowObject(key);
+        }
+
+        /**
+         * @see org.apache.commons.pool.impl.GenericKeyedObjectPool#setFactory(org.apache.commons.pool.KeyedPoolableObjectFactory)
+         */
+        @Override
+        @SuppressWarnings("deprecation")
+        public void setFactory(KeyedPoolableObjectFactory factory) throws IllegalStateException {
+
+            super.setFactory(new CmsCountingStatementFactory(factory));
+        }
+    }
+
+    /**
+     * Statement factory wrapper counting the statements created and destroyed.<p>
+     */
+    protected class CmsCountingStatementFactory implements KeyedPoolableObjectFactory {
+
+        /** The wrapped factory, i.e. the pooling connection. */
+        private KeyedPoolableObjectFactory m_factory;
+
+        /**
+         * Creates a new counting wrapper.<p>
+         *
+         * @param factory the factory to wrap
+         */
+        protected CmsCountingStatementFactory(KeyedPoolableObjectFactory factory) {
+
+            m_factory = factory;
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#activateObject(java.lang.Object, java.lang.Object)
+         */
+        public void activateObject(Object key, Object obj) throws Exception {
+
+            m_factory.activateObject(key, obj);
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#destroyObject(java.lang.Object, java.lang.Object)
+         */
+        public void destroyObject(Object key, Object obj) throws Exception {
+
+            m_closeCount.incrementAndGet();
+            m_factory.destroyObject(key, obj);
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#makeObject(java.lang.Object)
+         */
+        public Object makeObject(Object key) throws Exception {
+
+            m_prepareCount.incrementAndGet();
+            return m_factory.makeObject(key);
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#passivateObject(java.lang.Object, java.lang.Object)
+         */
+        public void passivateObject(Object key, Object obj) throws Exception {
+
+            m_factory.passivateObject(key, obj);
+        }
+
+        /**
+         * @see org.apache.commons.pool.KeyedPoolableObjectFactory#validateObject(java.lang.Object, java.lang.Object)
+         */
+        public boolean validateObject(Object key, Object obj) {
+
+            return m_factory.validateObject(key, obj);
+        }
+    }
+
+    /** The number of statements that were closed by the pools. */
+    protected AtomicLong m_closeCount = new AtomicLong();
+
+    /** The number of statements that were prepared by the JDBC driver. */
+    protected AtomicLong m_prepareCount = new AtomicLong();
+
+    /** The number of statements that were requested from the pools. */
+    protected AtomicLong m_requestCount = new AtomicLong();
+
+    /**
+     * Creates a new statement pool factory.<p>
+     *
+     * @param maxActive the maximum number of active statements per SQL string
+     * @param whenExhaustedAction the action to take when the pool is exhausted
+     * @param maxWait the maximum time to wait for a statement if the pool is exhausted
+     * @param maxIdle the maximum number of idle statements per SQL string
+     * @param maxTotal the maximum number of statements per connection, or a negative value for no limit
+     */
+    public CmsStatementPoolFactory(int maxActive, byte whenExhaustedAction, long maxWait, int maxIdle, int maxTotal) {
+
+        super(null, maxActive, whenExhaustedAction, maxWait, maxIdle, maxTotal);
+    }
+
+    /**
+     * @see org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory#createPool()
+     */
+    @Override
+    public KeyedObjectPool createPool() {
+
+        return new CmsCountingStatementPool(
+            getMaxActive(),
+            getWhenExhaustedAction(),
+            getMaxWait(),
+            getMaxIdle(),
+            getMaxTotal());
+    }
+
+    /**
+     * Returns the number of statements that were closed by the statement pools, e.g.
+     * because the pool size limit was reached or the connection was closed.<p>
+     *
+     * @return the number of closed statements
+     */
+    public long getCloseCount() {
+
+        return m_closeCount.get();
+    }
+
+    /**
+     * Returns the number of statements that were actually prepared by the JDBC driver.<p>
+     *
+     * @return the number of prepared statements
+     */
+    public long getPrepareCount() {
+
+        return m_prepareCount.get();
+    }
+
+    /**
+     * Returns the number of statements requested from the statement pools.<p>
+     *
+     * The difference between this value and {@link #getPrepareCount()} is the number of statements
+     * that have been served from the cache.<p>
+     *
+     * @return the number of requested statements
+     */
+    public long getRequestCount() {
+
+        return m_requestCount.get();
+    }
+}
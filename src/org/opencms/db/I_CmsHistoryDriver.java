@@ -86,6 +86,25 @@ public interface I_CmsHistoryDriver {
     int deleteEntries(CmsDbContext dbc, I_CmsHistoryResource histResource, int versionsToKeep, long time)
     throws CmsDataAccessException;
 
+    /**
+     * Deletes all historical versions of a list of resources
+     * keeping maximal <code>versionsToKeep</code> versions per resource.<p>
+     *
+     * Implementations should execute the deletions for all given resources in batches,
+     * so the cost of a chunk of resources is a few statements instead of a few statements per resource.<p>
+     *
+     * @param dbc the current database context
+     * @param histResources the historical resources to delete versions for
+     * @param versionsToKeep the number of versions to keep
+     * @param time deleted resources older than this will also be deleted, is ignored if negative
+     *
+     * @return the number of versions that were deleted
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    int deleteEntries(CmsDbContext dbc, List<I_CmsHistoryResource> histResources, int versionsToKeep, long time)
+    throws CmsDataAccessException;
+
     /**
      * Deletes a property definition.<p>
      *
@@ -0,0 +1,106 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+/**
+ * Management interface for the SQL query statistics, exposed via JMX.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsQueryStatisticsMBean {
+
+    /**
+     * Returns the statistics of the driver methods with the highest total execution time.<p>
+     *
+     * @return the formatted statistics of the driver methods
+     */
+    String[] getDriverMethodStatistics();
+
+    /**
+     * Returns the total number of executed queries.<p>
+     *
+     * @return the total number of executed queries
+     */
+    long getExecutionCount();
+
+    /**
+     * Returns the statistics of the query keys with the highest total execution time.<p>
+     *
+     * @return the formatted statistics of the query keys
+     */
+    String[] getQueryStatistics();
+
+    /**
+     * Returns the total number of slow queries.<p>
+     *
+     * @return the total number of slow queries
+     */
+    long getSlowQueryCount();
+
+    /**
+     * Returns the slow query threshold in milliseconds.<p>
+     *
+     * @return the slow query threshold in milliseconds
+     */
+    long getSlowQueryThreshold();
+
+    /**
+     * Returns the total execution time of all queries in milliseconds.<p>
+     *
+     * @return the total execution time in milliseconds
+     */
+    long getTotalExecutionTime();
+
+    /**
+     * Returns if the query statistics are collected.<p>
+     *
+     * @return <code>true</code> if the query statistics are collected
+     */
+    boolean isEnabled();
+
+    /**
+     * Clears all collected statistics.<p>
+     */
+    void reset();
+
+    /**
+     * Enables or disables the collection of the query statistics.<p>
+     *
+     * Only statements prepared after the change are affected.<p>
+     *
+     * @param enabled <code>true</code> to collect the query statistics
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Sets the slow query threshold in milliseconds.<p>
+     *
+     * @param threshold the slow query threshold in milliseconds, a value &lt;= 0 disables the slow query log
+     */
+    void setSlowQueryThreshold(long threshold);
+}
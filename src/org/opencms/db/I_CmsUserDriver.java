@@ -434,6 +434,25 @@ public interface I_CmsUserDriver extends I_CmsDriver {
         CmsUUID resource,
         boolean inheritedOnly) throws CmsDataAccessException;
 
+    /**
+     * Reads the access control entries of all resources in a folder with a single query.<p>
+     *
+     * The entries are grouped by the id of the resource they belong to,
+     * resources without any access control entries are not contained in the result.<p>
+     *
+     * @param dbc the current database context
+     * @param project the project to read the entries from
+     * @param parentId the structure id of the parent folder
+     *
+     * @return a map from resource id to the list of <code>{@link CmsAccessControlEntry}</code> objects of that resource
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsAccessControlEntry>> readAccessControlEntriesForChildren(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsUUID parentId) throws CmsDataAccessException;
+
     //    /**
     //     * Returns all resources subscribed by the given user or group.<p>
     //     *
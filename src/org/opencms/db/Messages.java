@@ -243,6 +243,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_ERROR_INITIALIZING_DRIVER_1 = "ERR_ERROR_INITIALIZING_DRIVER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_FILTER_READABLE_RESOURCES_1 = "ERR_FILTER_READABLE_RESOURCES_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_FORBIDDEN_PARENT_CURRENTLY_DELETING_0 = "ERR_FORBIDDEN_PARENT_CURRENTLY_DELETING_0";
 
@@ -315,6 +318,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_GROUP_NOT_EMPTY_1 = "ERR_GROUP_NOT_EMPTY_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_HISTORY_COMPACTION_FAILED_0 = "ERR_HISTORY_COMPACTION_FAILED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_HISTORY_COMPACTION_THROTTLED_HOURS_2 = "ERR_HISTORY_COMPACTION_THROTTLED_HOURS_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_HISTORY_PROJECT_4 = "ERR_HISTORY_PROJECT_4";
 
@@ -840,6 +849,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JDBC_POOL_2 = "INIT_JDBC_POOL_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_QUERY_STATISTICS_2 = "INIT_QUERY_STATISTICS_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_REPLICA_POOL_2 = "INIT_REPLICA_POOL_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SECURITY_MANAGER_INIT_0 = "INIT_SECURITY_MANAGER_INIT_0";
 
@@ -879,6 +894,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NO_EXPORT_POINTS_CONFIGURED_0 = "LOG_NO_EXPORT_POINTS_CONFIGURED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_QUERY_STATISTICS_REGISTER_FAILED_1 = "LOG_QUERY_STATISTICS_REGISTER_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_REPLICA_POOL_MISSING_1 = "LOG_REPLICA_POOL_MISSING_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SLOW_QUERY_4 = "LOG_SLOW_QUERY_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_UPDATE_EXORT_POINTS_ERROR_0 = "LOG_UPDATE_EXORT_POINTS_ERROR_0";
 
@@ -921,6 +945,21 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_EXPORT_POINTS_WRITE_END_0 = "RPT_EXPORT_POINTS_WRITE_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_HISTORY_COMPACTION_CHUNK_5 = "RPT_HISTORY_COMPACTION_CHUNK_5";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_HISTORY_COMPACTION_END_4 = "RPT_HISTORY_COMPACTION_END_4";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_HISTORY_COMPACTION_FAILED_2 = "RPT_HISTORY_COMPACTION_FAILED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_HISTORY_COMPACTION_PARTITION_FAILED_1 = "RPT_HISTORY_COMPACTION_PARTITION_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_HISTORY_COMPACTION_START_3 = "RPT_HISTORY_COMPACTION_START_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_PARENT_FOLDER_NOT_PUBLISHED_1 = "RPT_PARENT_FOLDER_NOT_PUBLISHED_1";
 
@@ -63,6 +63,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -123,155 +124,46 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
     public int deleteEntries(CmsDbContext dbc, I_CmsHistoryResource resource, int versionsToKeep, long time)
     throws CmsDataAccessException {
 
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet res = null;
-
-        try {
-            conn = m_sqlManager.getConnection(dbc);
+        return deleteEntries(dbc, Collections.singletonList(resource), versionsToKeep, time);
+    }
 
-            int maxVersion = -1;
-            // get the maximal version number for this resource
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_MAXVER");
-            stmt.setString(1, resource.getStructureId().toString());
-            res = stmt.executeQuery();
-            boolean noHistoryStructure = false;
-            if (res.next()) {
-                maxVersion = res.getInt(1);
-                noHistoryStructure |= res.wasNull();
-                while (res.next()) {
-                    // do nothing only move through all rows because of mssql odbc driver
-                }
-            } else {
-                // make sure the connection is closed
-                m_sqlManager.closeAll(dbc, conn, stmt, res);
-                // nothing to delete
-                internalCleanup(dbc, resource);
-                return 0;
-            }
-            m_sqlManager.closeAll(dbc, conn, stmt, res);
+    /**
+     * @see org.opencms.db.I_CmsHistoryDriver#deleteEntries(CmsDbContext, List, int, long)
+     */
+    public int deleteEntries(
+        CmsDbContext dbc,
+        List<I_CmsHistoryResource> resources,
+        int versionsToKeep,
+        long time) throws CmsDataAccessException {
 
-            if (time >= 0) {
-                int maxVersionByTime = -1;
-                conn = m_sqlManager.getConnection(dbc);
-                // get the maximal version to keep for this resource based on the time parameter
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_MAXVER_BYTIME");
-                stmt.setString(1, resource.getStructureId().toString());
-                stmt.setLong(2, time);
-                res = stmt.executeQuery();
-                if (res.next()) {
-                    maxVersionByTime = res.getInt(1);
-                    while (res.next()) {
-                        // do nothing only move through all rows because of mssql odbc driver
-                    }
-                }
-                m_sqlManager.closeAll(dbc, conn, stmt, res);
-                if (maxVersionByTime > 0) {
-                    if (versionsToKeep < 0) {
-                        versionsToKeep = (maxVersion - maxVersionByTime);
-                    } else {
-                        versionsToKeep = Math.min(versionsToKeep, (maxVersion - maxVersionByTime));
-                    }
-                }
-            }
-            int structureVersions = 0;
-            // get the minimal structure publish tag to keep for this sibling
+        Connection conn = null;
+        int deleted = 0;
+        try {
             conn = m_sqlManager.getConnection(dbc);
-            if (!noHistoryStructure) {
-                if ((versionsToKeep == -1) || ((maxVersion - versionsToKeep) <= 0)) {
-                    // nothing to delete
-                    internalCleanup(dbc, resource);
-                    return 0;
-                }
-
-                // get the minimal structure publish tag to keep for this sibling
-                int minStrPublishTagToKeep = -1;
 
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_READ_MAXTAG_FOR_VERSION");
-                stmt.setString(1, resource.getStructureId().toString());
-                stmt.setInt(2, (1 + maxVersion) - versionsToKeep);
-                res = stmt.executeQuery();
-                if (res.next()) {
-                    minStrPublishTagToKeep = res.getInt(1);
-                    while (res.next()) {
-                        // do nothing only move through all rows because of mssql odbc driver
-                    }
-                } else {
-                    // make sure the statement and the result is closed
-                    m_sqlManager.closeAll(dbc, conn, stmt, res);
-                    // nothing to delete
-                    internalCleanup(dbc, resource);
-                    return 0;
-                }
-                m_sqlManager.closeAll(dbc, conn, stmt, res);
-                if (minStrPublishTagToKeep < 1) {
-                    // nothing to delete
-                    internalCleanup(dbc, resource);
-                    return 0;
+            // collect the resources with versions to delete and their minimal structure publish tag to keep
+            List<I_CmsHistoryResource> candidates = new ArrayList<I_CmsHistoryResource>(resources.size());
+            List<Integer> structureTags = new ArrayList<Integer>(resources.size());
+            for (I_CmsHistoryResource resource : resources) {
+                int structureTag = internalReadStructureTagToKeep(dbc, conn, resource, versionsToKeep, time);
+                if (structureTag >= 0) {
+                    candidates.add(resource);
+                    structureTags.add(Integer.valueOf(structureTag));
                 }
-                minStrPublishTagToKeep++;
-
-                // delete the properties
-                conn = m_sqlManager.getConnection(dbc);
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_DELETE");
-                stmt.setString(1, resource.getStructureId().toString());
-                stmt.setInt(2, minStrPublishTagToKeep);
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
-
-                // delete the structure entries
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_DELETE");
-                stmt.setString(1, resource.getStructureId().toString());
-                stmt.setInt(2, minStrPublishTagToKeep);
-                structureVersions = stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
             }
-
-            // get the minimal resource publish tag to keep,
-            // all entries with publish tag less than this will be deleted
-            int minResPublishTagToKeep = -1;
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_READ_MIN_USED_TAG");
-            stmt.setString(1, resource.getResourceId().toString());
-            res = stmt.executeQuery();
-            if (res.next()) {
-                minResPublishTagToKeep = res.getInt(1);
-                if (res.wasNull()) {
-                    // the database will return a row with a single NULL column if there are no rows at all for the given
-                    // resource id. This means that we want to clean up all resource history and content history entries
-                    // for this resource id, and we achieve this by comparing their publish tag with the maximum integer.
-                    minResPublishTagToKeep = Integer.MAX_VALUE;
-                }
-                while (res.next()) {
-                    // do nothing only move through all rows because of mssql odbc driver
-                }
+            if (!candidates.isEmpty()) {
+                deleted = internalDeleteEntries(dbc, conn, candidates, structureTags);
             }
-            m_sqlManager.closeAll(dbc, conn, stmt, res);
-
-            // delete the resource entries
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_HISTORY_DELETE");
-            stmt.setString(1, resource.getResourceId().toString());
-            stmt.setInt(2, minResPublishTagToKeep);
-            int resourceVersions = stmt.executeUpdate();
-            m_sqlManager.closeAll(dbc, null, stmt, null);
-
-            // delete the content entries
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_HISTORY_DELETE");
-            stmt.setString(1, resource.getResourceId().toString());
-            stmt.setInt(2, minResPublishTagToKeep);
-            stmt.executeUpdate();
-
-            // make sure the statement and the result is closed
-            m_sqlManager.closeAll(dbc, conn, stmt, res);
-            internalCleanup(dbc, resource);
-            return Math.max(structureVersions, resourceVersions);
         } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
+            throw new CmsDbSqlException(Messages.get().container(Messages.ERR_GENERIC_SQL_0), e);
         } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, res);
+            m_sqlManager.closeAll(dbc, conn, null, null);
+        }
+        // the cleanup uses its own connections, so it is done after the connection above has been released
+        for (I_CmsHistoryResource resource : resources) {
+            internalCleanup(dbc, resource);
         }
+        return deleted;
     }
 
     /**
@@ -1797,6 +1689,128 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         }
     }
 
+    /**
+     * Deletes the historical entries of the given resources using one batch per history table.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param resources the resources to delete the historical entries for
+     * @param structureTags the minimal structure publish tags to keep, as returned by
+     *      {@link #internalReadStructureTagToKeep(CmsDbContext, Connection, I_CmsHistoryResource, int, long)}
+     *
+     * @return the number of deleted versions
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected int internalDeleteEntries(
+        CmsDbContext dbc,
+        Connection conn,
+        List<I_CmsHistoryResource> resources,
+        List<Integer> structureTags) throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        int size = resources.size();
+        try {
+            boolean hasStructureTags = false;
+            for (Integer structureTag : structureTags) {
+                hasStructureTags |= (structureTag.intValue() > 0);
+            }
+            int[] structureVersions = new int[size];
+            if (hasStructureTags) {
+                // delete the properties
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_DELETE");
+                for (int i = 0; i < size; i++) {
+                    int structureTag = structureTags.get(i).intValue();
+                    if (structureTag > 0) {
+                        stmt.setString(1, resources.get(i).getStructureId().toString());
+                        stmt.setInt(2, structureTag);
+                        stmt.addBatch();
+                    }
+                }
+                stmt.executeBatch();
+                m_sqlManager.closeAll(dbc, null, stmt, null);
+
+                // delete the structure entries
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_DELETE");
+                for (int i = 0; i < size; i++) {
+                    int structureTag = structureTags.get(i).intValue();
+                    if (structureTag > 0) {
+                        stmt.setString(1, resources.get(i).getStructureId().toString());
+                        stmt.setInt(2, structureTag);
+                        stmt.addBatch();
+                    }
+                }
+                int[] counts = stmt.executeBatch();
+                m_sqlManager.closeAll(dbc, null, stmt, null);
+                int j = 0;
+                for (int i = 0; i < size; i++) {
+                    if (structureTags.get(i).intValue() > 0) {
+                        // drivers may return SUCCESS_NO_INFO instead of the update count
+                        structureVersions[i] = Math.max(0, counts[j]);
+                        j++;
+                    }
+                }
+            }
+
+            // get the minimal resource publish tags to keep,
+            // all entries with publish tag less than this will be deleted
+            int[] resourceTags = new int[size];
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_READ_MIN_USED_TAG");
+            for (int i = 0; i < size; i++) {
+                resourceTags[i] = -1;
+                stmt.setString(1, resources.get(i).getResourceId().toString());
+                res = stmt.executeQuery();
+                if (res.next()) {
+                    resourceTags[i] = res.getInt(1);
+                    if (res.wasNull()) {
+                        // the database will return a row with a single NULL column if there are no rows at all for the given
+                        // resource id. This means that we want to clean up all resource history and content history entries
+                        // for this resource id, and we achieve this by comparing their publish tag with the maximum integer.
+                        resourceTags[i] = Integer.MAX_VALUE;
+                    }
+                    while (res.next()) {
+                        // do nothing only move through all rows because of mssql odbc driver
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, null, res);
+                res = null;
+            }
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            // delete the resource entries
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_HISTORY_DELETE");
+            for (int i = 0; i < size; i++) {
+                stmt.setString(1, resources.get(i).getResourceId().toString());
+                stmt.setInt(2, resourceTags[i]);
+                stmt.addBatch();
+            }
+            int[] resourceVersions = stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            // delete the content entries
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_HISTORY_DELETE");
+            for (int i = 0; i < size; i++) {
+                stmt.setString(1, resources.get(i).getResourceId().toString());
+                stmt.setInt(2, resourceTags[i]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+
+            int deleted = 0;
+            for (int i = 0; i < size; i++) {
+                deleted += Math.max(structureVersions[i], Math.max(0, resourceVersions[i]));
+            }
+            return deleted;
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+    }
+
     /**
      * Merges an historical entry for a sibling, based on the structure data from the given historical resource
      * and result set for the resource entry.<p>
@@ -1880,6 +1894,109 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         }
     }
 
+    /**
+     * Reads the minimal structure publish tag to keep for the given resource.<p>
+     *
+     * All structure and property entries of the resource with a publish tag less than the returned one can be deleted.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param resource the resource to read the publish tag for
+     * @param versionsToKeep the number of versions to keep
+     * @param time deleted resources older than this will also be deleted, is ignored if negative
+     *
+     * @return the minimal structure publish tag to keep, <code>0</code> if the resource has no structure history
+     *      but its resource history can be cleaned up, or <code>-1</code> if there is nothing to delete
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected int internalReadStructureTagToKeep(
+        CmsDbContext dbc,
+        Connection conn,
+        I_CmsHistoryResource resource,
+        int versionsToKeep,
+        long time) throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            int maxVersion = -1;
+            // get the maximal version number for this resource
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_MAXVER");
+            stmt.setString(1, resource.getStructureId().toString());
+            res = stmt.executeQuery();
+            boolean noHistoryStructure = false;
+            if (res.next()) {
+                maxVersion = res.getInt(1);
+                noHistoryStructure |= res.wasNull();
+                while (res.next()) {
+                    // do nothing only move through all rows because of mssql odbc driver
+                }
+            } else {
+                // nothing to delete
+                return -1;
+            }
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+            res = null;
+
+            if (time >= 0) {
+                int maxVersionByTime = -1;
+                // get the maximal version to keep for this resource based on the time parameter
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_MAXVER_BYTIME");
+                stmt.setString(1, resource.getStructureId().toString());
+                stmt.setLong(2, time);
+                res = stmt.executeQuery();
+                if (res.next()) {
+                    maxVersionByTime = res.getInt(1);
+                    while (res.next()) {
+                        // do nothing only move through all rows because of mssql odbc driver
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                res = null;
+                if (maxVersionByTime > 0) {
+                    if (versionsToKeep < 0) {
+                        versionsToKeep = (maxVersion - maxVersionByTime);
+                    } else {
+                        versionsToKeep = Math.min(versionsToKeep, (maxVersion - maxVersionByTime));
+                    }
+                }
+            }
+            if (noHistoryStructure) {
+                // only the resource entries have to be cleaned up
+                return 0;
+            }
+            if ((versionsToKeep == -1) || ((maxVersion - versionsToKeep) <= 0)) {
+                // nothing to delete
+                return -1;
+            }
+
+            // get the minimal structure publish tag to keep for this sibling
+            int minStrPublishTagToKeep = -1;
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_READ_MAXTAG_FOR_VERSION");
+            stmt.setString(1, resource.getStructureId().toString());
+            stmt.setInt(2, (1 + maxVersion) - versionsToKeep);
+            res = stmt.executeQuery();
+            if (res.next()) {
+                minStrPublishTagToKeep = res.getInt(1);
+                while (res.next()) {
+                    // do nothing only move through all rows because of mssql odbc driver
+                }
+            }
+            if (minStrPublishTagToKeep < 1) {
+                // nothing to delete
+                return -1;
+            }
+            return minStrPublishTagToKeep + 1;
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+    }
+
     /**
      * Tests if a history resource does exist.<p>
      *
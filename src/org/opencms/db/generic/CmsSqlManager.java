@@ -66,9 +66,15 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /** The filename/path of the SQL query properties. */
     private static final String QUERY_PROPERTIES = "org/opencms/db/generic/query.properties";
 
-    /** A map to cache queries with replaced search patterns. */
+    /** A map to cache project independent queries with replaced search patterns. */
     protected ConcurrentHashMap<String, String> m_cachedQueries;
 
+    /** A map to cache the offline variants of the queries with replaced search patterns. */
+    protected ConcurrentHashMap<String, String> m_cachedOfflineQueries;
+
+    /** A map to cache the online variants of the queries with replaced search patterns. */
+    protected ConcurrentHashMap<String, String> m_cachedOnlineQueries;
+
     /** The type ID of the driver (vfs, user, project or history) from where this SQL manager is referenced. */
     protected int m_driverType;
 
@@ -84,6 +90,8 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     public CmsSqlManager() {
 
         m_cachedQueries = new ConcurrentHashMap<String, String>();
+        m_cachedOfflineQueries = new ConcurrentHashMap<String, String>();
+        m_cachedOnlineQueries = new ConcurrentHashMap<String, String>();
         m_queries = new HashMap<String, String>();
         loadQueryProperties(QUERY_PROPERTIES);
     }
@@ -259,7 +267,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     throws SQLException {
 
         String rawSql = readQuery(projectId, queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return QUERY_STATISTICS.wrap(getPreparedStatementForSql(con, rawSql), queryKey);
     }
 
     /**
@@ -273,7 +281,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     public PreparedStatement getPreparedStatement(Connection con, String queryKey) throws SQLException {
 
         String rawSql = readQuery(CmsUUID.getNullUUID(), queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return QUERY_STATISTICS.wrap(getPreparedStatementForSql(con, rawSql), queryKey);
     }
 
     /**
@@ -291,6 +299,35 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return con.prepareStatement(query);
     }
 
+    /**
+     * Returns a JDBC connection for a read-only operation on the data of the given project.<p>
+     *
+     * If a replica pool is configured, reads of online data in the context of an online request
+     * are served by the replica, see {@link org.opencms.db.CmsReplicaRouter}. All other reads use the
+     * same connection pool as {@link #getConnection(CmsDbContext)}.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project whose data is read
+     *
+     * @return a JDBC connection
+     *
+     * @throws SQLException if the connection can not be returned
+     */
+    public Connection getReadConnection(CmsDbContext dbc, CmsUUID projectId) throws SQLException {
+
+        if (REPLICA_ROUTER.isReplicaReadable(dbc, projectId)) {
+            try {
+                return getConnectionByUrl(REPLICA_ROUTER.getPoolUrl());
+            } catch (SQLException e) {
+                // the primary pool always has the current data, so it is safe to fall back
+                LOG.warn(
+                    Messages.get().getBundle().key(Messages.LOG_REPLICA_CONNECTION_FAILED_1, REPLICA_ROUTER.getPoolUrl()),
+                    e);
+            }
+        }
+        return getConnection(dbc);
+    }
+
     /**
      * Initializes this SQL manager.<p>
      *
@@ -333,23 +370,19 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      */
     public String readQuery(CmsUUID projectId, String queryKey) {
 
-        String key;
-        if ((projectId != null) && !projectId.isNullUUID()) {
+        // the online and offline variants are kept in separate maps to avoid building a key for each lookup
+        Map<String, String> cache;
+        if ((projectId == null) || projectId.isNullUUID()) {
             // id 0 is special, please see below
-            StringBuffer buffer = new StringBuffer(128);
-            buffer.append(queryKey);
-            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
-                buffer.append("_ONLINE");
-            } else {
-                buffer.append("_OFFLINE");
-            }
-            key = buffer.toString();
+            cache = m_cachedQueries;
+        } else if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+            cache = m_cachedOnlineQueries;
         } else {
-            key = queryKey;
+            cache = m_cachedOfflineQueries;
         }
 
         // look up the query in the cache
-        String query = m_cachedQueries.get(key);
+        String query = cache.get(queryKey);
 
         if (query == null) {
             // the query has not been cached yet
@@ -360,18 +393,9 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
                 throw new CmsRuntimeException(Messages.get().container(Messages.ERR_QUERY_NOT_FOUND_1, queryKey));
             }
 
-            // replace control chars.
-            query = CmsStringUtil.substitute(query, "\t", " ");
-            query = CmsStringUtil.substitute(query, "\n", " ");
-
-            if ((projectId != null) && !projectId.isNullUUID()) {
-                // a project ID = 0 is an internal indicator that a project-independent
-                // query was requested - further regex operations are not required then
-                query = CmsSqlManager.replaceProjectPattern(projectId, query);
-            }
-
             // to minimize costs, all statements with replaced expressions are cached in a map
-            m_cachedQueries.put(key, query);
+            query = prepareQuery(projectId, query);
+            cache.put(queryKey, query);
         }
 
         return query;
@@ -442,6 +466,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
             properties.load(getClass().getClassLoader().getResourceAsStream(propertyFilename));
             m_queries.putAll(CmsCollectionsGenericWrapper.<String, String> map(properties));
             replaceQuerySearchPatterns();
+            precomputeQueries();
         } catch (Throwable t) {
             if (LOG.isErrorEnabled()) {
                 LOG.error(
@@ -453,6 +478,55 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         }
     }
 
+    /**
+     * Computes the project independent, online and offline variants of all loaded queries.<p>
+     *
+     * Queries that do not depend on the project share the same string instance in all variants.<p>
+     */
+    protected synchronized void precomputeQueries() {
+
+        m_cachedQueries.clear();
+        m_cachedOnlineQueries.clear();
+        m_cachedOfflineQueries.clear();
+        for (Map.Entry<String, String> entry : m_queries.entrySet()) {
+            String query = prepareQuery(null, entry.getValue());
+            m_cachedQueries.put(entry.getKey(), query);
+            if (query.contains(QUERY_PROJECT_SEARCH_PATTERN)) {
+                m_cachedOnlineQueries.put(
+                    entry.getKey(),
+                    CmsStringUtil.substitute(query, QUERY_PROJECT_SEARCH_PATTERN, "_ONLINE_"));
+                m_cachedOfflineQueries.put(
+                    entry.getKey(),
+                    CmsStringUtil.substitute(query, QUERY_PROJECT_SEARCH_PATTERN, "_OFFLINE_"));
+            } else {
+                m_cachedOnlineQueries.put(entry.getKey(), query);
+                m_cachedOfflineQueries.put(entry.getKey(), query);
+            }
+        }
+    }
+
+    /**
+     * Prepares a raw query from the properties for execution in the given project.<p>
+     *
+     * @param projectId the ID of the project, or <code>null</code> or the null UUID for a project independent query
+     * @param query the raw query
+     *
+     * @return the query with control chars and the project pattern replaced
+     */
+    protected String prepareQuery(CmsUUID projectId, String query) {
+
+        // replace control chars.
+        query = CmsStringUtil.substitute(query, "\t", " ");
+        query = CmsStringUtil.substitute(query, "\n", " ");
+
+        if ((projectId != null) && !projectId.isNullUUID()) {
+            // a project ID = 0 is an internal indicator that a project-independent
+            // query was requested - further regex operations are not required then
+            query = CmsSqlManager.replaceProjectPattern(projectId, query);
+        }
+        return query;
+    }
+
     /**
      * Replaces patterns ${XXX} by another property value, if XXX is a property key with a value.<p>
      */
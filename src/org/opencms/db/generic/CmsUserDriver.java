@@ -1079,7 +1079,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
         ResultSet res = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
             if (resource.equals(CmsAccessControlEntry.PRINCIPAL_READALL_ID)) {
                 stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_READ_ENTRIES_0");
             } else {
@@ -1111,6 +1111,45 @@ public class CmsUserDriver implements I_CmsUserDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsUserDriver#readAccessControlEntriesForChildren(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID)
+     */
+    public Map<CmsUUID, List<CmsAccessControlEntry>> readAccessControlEntriesForChildren(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsUUID parentId) throws CmsDataAccessException {
+
+        Map<CmsUUID, List<CmsAccessControlEntry>> result = new HashMap<CmsUUID, List<CmsAccessControlEntry>>();
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
+            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_READ_ENTRIES_FOR_CHILDREN_1");
+            stmt.setString(1, parentId.toString());
+            res = stmt.executeQuery();
+
+            // group the entries by resource id
+            while (res.next()) {
+                CmsAccessControlEntry ace = internalCreateAce(res);
+                List<CmsAccessControlEntry> aceList = result.get(ace.getResource());
+                if (aceList == null) {
+                    aceList = new ArrayList<CmsAccessControlEntry>();
+                    result.put(ace.getResource(), aceList);
+                }
+                aceList.add(ace);
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsUserDriver#readAccessControlEntry(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -1126,7 +1165,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
         ResultSet res = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
             stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_READ_ENTRY_2");
 
             stmt.setString(1, resource.toString());
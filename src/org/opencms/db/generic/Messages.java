@@ -409,6 +409,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_REMOVING_VISITEDLOG_1 = "LOG_REMOVING_VISITEDLOG_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_REPLICA_CONNECTION_FAILED_1 = "LOG_REPLICA_CONNECTION_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SQL_MANAGER_INIT_FAILED_1 = "LOG_SQL_MANAGER_INIT_FAILED_1";
 
@@ -370,6 +370,22 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsHistoryDriver#deleteEntries(org.opencms.db.CmsDbContext, java.util.List, int, long)
+     */
+    public int deleteEntries(
+        CmsDbContext dbc,
+        List<I_CmsHistoryResource> resources,
+        int versionsToKeep,
+        long time) throws CmsDataAccessException {
+
+        int deleted = 0;
+        for (I_CmsHistoryResource resource : resources) {
+            deleted += deleteEntries(dbc, resource, versionsToKeep, time);
+        }
+        return deleted;
+    }
+
     /**
      * @see org.opencms.db.I_CmsHistoryDriver#deletePropertyDefinition(org.opencms.db.CmsDbContext, org.opencms.file.CmsPropertyDefinition)
      */
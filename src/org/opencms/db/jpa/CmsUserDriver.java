@@ -134,6 +134,9 @@ public class CmsUserDriver implements I_CmsUserDriver {
     /** Query key. */
     private static final String C_ACCESS_READ_ENTRIES_1 = "C_ACCESS_READ_ENTRIES_1";
 
+    /** Query key. */
+    private static final String C_ACCESS_READ_ENTRIES_FOR_CHILDREN_1 = "C_ACCESS_READ_ENTRIES_FOR_CHILDREN_1";
+
     /** Query key. */
     private static final String C_ACCESS_READ_ENTRY_2 = "C_ACCESS_READ_ENTRY_2";
 
@@ -1155,6 +1158,37 @@ public class CmsUserDriver implements I_CmsUserDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsUserDriver#readAccessControlEntriesForChildren(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID)
+     */
+    public Map<CmsUUID, List<CmsAccessControlEntry>> readAccessControlEntriesForChildren(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsUUID parentId) throws CmsDataAccessException {
+
+        Map<CmsUUID, List<CmsAccessControlEntry>> result = new HashMap<CmsUUID, List<CmsAccessControlEntry>>();
+
+        try {
+            Query q = m_sqlManager.createQuery(dbc, project, C_ACCESS_READ_ENTRIES_FOR_CHILDREN_1);
+            q.setParameter(1, parentId.toString());
+            @SuppressWarnings("unchecked")
+            List<I_CmsDAOAccessControl> res = q.getResultList();
+            // group the entries by resource id
+            for (I_CmsDAOAccessControl ac : res) {
+                CmsAccessControlEntry ace = internalCreateAce(ac);
+                List<CmsAccessControlEntry> aceList = result.get(ace.getResource());
+                if (aceList == null) {
+                    aceList = new ArrayList<CmsAccessControlEntry>();
+                    result.put(ace.getResource(), aceList);
+                }
+                aceList.add(ace);
+            }
+            return result;
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsUserDriver#readAccessControlEntry(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -31,6 +31,7 @@ import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsDbIoException;
 import org.opencms.db.CmsDbSqlException;
+import org.opencms.db.CmsQueryStatistics;
 import org.opencms.db.generic.CmsSqlManager;
 import org.opencms.db.generic.Messages;
 import org.opencms.file.CmsDataAccessException;
@@ -150,7 +151,7 @@ public class CmsProjectDriver extends org.opencms.db.generic.CmsProjectDriver {
 
             // update the file content in the contents table
             stmt.setString(1, publishJobHistoryId.toString());
-            res = ((DelegatingResultSet)stmt.executeQuery()).getInnermostDelegate();
+            res = ((DelegatingResultSet)CmsQueryStatistics.unwrap(stmt.executeQuery())).getInnermostDelegate();
             if (!res.next()) {
                 throw new CmsDbEntryNotFoundException(
                     Messages.get().container(Messages.ERR_READ_PUBLISH_JOB_1, publishJobHistoryId));
@@ -31,6 +31,7 @@ import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsDbIoException;
 import org.opencms.db.CmsDbSqlException;
+import org.opencms.db.CmsQueryStatistics;
 import org.opencms.db.generic.CmsSqlManager;
 import org.opencms.db.generic.Messages;
 import org.opencms.file.CmsDataAccessException;
@@ -215,7 +216,7 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
                 stmt.setInt(2, publishTag);
                 stmt.setInt(3, publishTag);
             }
-            res = ((DelegatingResultSet)stmt.executeQuery()).getInnermostDelegate();
+            res = ((DelegatingResultSet)CmsQueryStatistics.unwrap(stmt.executeQuery())).getInnermostDelegate();
             if (!res.next()) {
                 throw new CmsDbEntryNotFoundException(
                     Messages.get().container(Messages.LOG_READING_RESOURCE_1, resourceId));
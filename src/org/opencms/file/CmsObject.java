@@ -28,6 +28,7 @@
 package org.opencms.file;
 
 import org.opencms.db.CmsDbEntryNotFoundException;
+import org.opencms.db.CmsHistoryCompactionSettings;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.CmsSecurityManager;
@@ -955,6 +956,37 @@ public final class CmsObject {
         m_securityManager.deleteHistoricalVersions(m_context, versionsToKeep, versionsDeleted, timeDeleted, report);
     }
 
+    /**
+     * Deletes the versions from the history tables, keeping the given number of versions per resource.<p>
+     *
+     * The versions are deleted in chunks and parallel partitions, with pauses between the chunks,
+     * as configured by the given settings.<p>
+     *
+     * @param versionsToKeep number of versions to keep, is ignored if negative
+     * @param versionsDeleted number of versions to keep for deleted resources, is ignored if negative
+     * @param timeDeleted deleted resources older than this will also be deleted, is ignored if negative
+     * @param settings the history compaction settings
+     * @param report the report for output logging
+     *
+     * @throws CmsException if operation was not successful
+     */
+    public void deleteHistoricalVersions(
+        int versionsToKeep,
+        int versionsDeleted,
+        long timeDeleted,
+        CmsHistoryCompactionSettings settings,
+        I_CmsReport report)
+    throws CmsException {
+
+        m_securityManager.deleteHistoricalVersions(
+            m_context,
+            versionsToKeep,
+            versionsDeleted,
+            timeDeleted,
+            settings,
+            report);
+    }
+
     /**
      * Deletes the log entries matching the given filter.<p>
      *
@@ -1231,6 +1263,25 @@ public final class CmsObject {
         return m_securityManager.existsResource(m_context, addSiteRoot(resourcename), filter);
     }
 
+    /**
+     * Returns the resources from the given list the current user is allowed to read.<p>
+     *
+     * The permissions are checked in bulk, which is much faster than reading or checking
+     * the resources one by one.<p>
+     *
+     * @param resources the resources to filter
+     * @param filter the resource filter to use
+     *
+     * @return the readable resources, in the original order
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> filterReadable(List<CmsResource> resources, CmsResourceFilter filter)
+    throws CmsException {
+
+        return m_securityManager.filterReadable(m_context, resources, filter);
+    }
+
     /**
      * Returns the list of access control entries of a resource given its name.<p>
      *
@@ -273,7 +273,12 @@ public class CmsDefaultResourceCollector extends A_CmsResourceCollector {
         for (int i = 0, n = foundResources.size(); i < n; i++) {
 
             CmsResource resource = foundResources.get(i);
-            CmsJspNavElement navElement = navBuilder.getNavigationForResource(cms.getSitePath(resource));
+            CmsJspNavElement navElement = null;
+            // the resources are already permission checked, so only the default filter must be applied
+            // instead of reading each resource again
+            if (CmsResourceFilter.DEFAULT.isValid(cms.getRequestContext(), resource)) {
+                navElement = navBuilder.getNavigationForResource(resource, CmsResourceFilter.DEFAULT);
+            }
 
             // check if the resource has the NavPos property set or not
             if ((navElement != null) && (navElement.getNavPosition() != Float.MAX_VALUE)) {
@@ -481,7 +481,8 @@ public class CmsJspNavBuilder {
         boolean includeAll = visibility == Visibility.all;
         boolean includeHidden = visibility == Visibility.includeHidden;
         for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter);
+            // the resources have already been read with the filter, so there is no need to read them again
+            CmsJspNavElement element = getNavigationForResource(r, resourceFilter, false);
             if ((element != null)
                 && (includeAll
                     || (element.isInNavigation() && (includeHidden || !element.isHiddenNavigationEntry())))) {
@@ -515,6 +516,23 @@ public class CmsJspNavBuilder {
         return getNavigationForResource(sitePath, CmsResourceFilter.DEFAULT, false);
     }
 
+    /**
+     * Returns a navigation element for the given, already read resource.<p>
+     *
+     * Use this instead of {@link #getNavigationForResource(String, CmsResourceFilter)} if the
+     * resource is already available, e.g. from a permission filtered list, to avoid reading
+     * the resource again.<p>
+     *
+     * @param resource the resource to get the navigation information for
+     * @param resourceFilter the resource filter
+     *
+     * @return a navigation element for the given resource
+     */
+    public CmsJspNavElement getNavigationForResource(CmsResource resource, CmsResourceFilter resourceFilter) {
+
+        return getNavigationForResource(resource, resourceFilter, false);
+    }
+
     /**
      * Returns a navigation element for the named resource.<p>
      *
@@ -701,7 +719,7 @@ public class CmsJspNavBuilder {
         }
 
         for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow);
+            CmsJspNavElement element = getNavigationForResource(r, resourceFilter, shallow);
             if ((element != null) && (includeInvisible || element.isInNavigation())) {
                 result.add(element);
             }
@@ -726,13 +744,37 @@ public class CmsJspNavBuilder {
         boolean shallow) {
 
         CmsResource resource;
+        try {
+            resource = m_cms.readResource(sitePath, resourceFilter);
+        } catch (Exception e) {
+            // may happen if permissions are not sufficient
+            LOG.warn(e.getLocalizedMessage(), e);
+            return null;
+        }
+        return getNavigationForResource(resource, resourceFilter, shallow);
+    }
+
+    /**
+     * Returns a navigation element for the given resource.<p>
+     *
+     * @param resource the resource to get the navigation information for
+     * @param resourceFilter the filter to use reading the resources
+     * @param shallow <code>true</code> for a shallow look up, not regarding next level resources
+     *
+     * @return a navigation element for the given resource
+     */
+    private CmsJspNavElement getNavigationForResource(
+        CmsResource resource,
+        CmsResourceFilter resourceFilter,
+        boolean shallow) {
+
+        String sitePath = m_cms.getSitePath(resource);
         Map<String, String> propertiesMap;
         int level = CmsResource.getPathLevel(sitePath);
         if (sitePath.endsWith("/")) {
             level--;
         }
         try {
-            resource = m_cms.readResource(sitePath, resourceFilter);
             List<CmsProperty> properties = m_cms.readPropertyObjects(resource, false);
             propertiesMap = CmsProperty.toMap(properties);
             if (resource.isFolder()) {
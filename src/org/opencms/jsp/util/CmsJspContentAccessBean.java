@@ -44,8 +44,10 @@ import org.opencms.security.CmsPermissionSet;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsConstantMap;
 import org.opencms.util.CmsUUID;
+import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.I_CmsXmlDocument;
 import org.opencms.xml.content.CmsXmlContentFactory;
+import org.opencms.xml.content.CmsXmlContentValueIndex;
 import org.opencms.xml.page.CmsXmlPageFactory;
 import org.opencms.xml.types.I_CmsXmlContentValue;
 
@@ -167,6 +169,34 @@ public class CmsJspContentAccessBean {
         }
     }
 
+    /**
+     * Resolves the value for an xpath from the complete XML content,
+     * used by values that have been read from the value index.<p>
+     */
+    public class CmsIndexedValueTransformer implements Transformer {
+
+        /** The selected locale. */
+        private Locale m_selectedLocale;
+
+        /**
+         * Constructor with a locale.<p>
+         *
+         * @param locale the locale to use
+         */
+        public CmsIndexedValueTransformer(Locale locale) {
+
+            m_selectedLocale = locale;
+        }
+
+        /**
+         * @see org.apache.commons.collections.Transformer#transform(java.lang.Object)
+         */
+        public Object transform(Object input) {
+
+            return getRawContent().getValue(String.valueOf(input), m_selectedLocale);
+        }
+    }
+
     /**
      * Provides a Map which lets the user access the list of element names from the selected locale in an XML content,
      * the input is assumed to be a String that represents a Locale.<p>
@@ -264,7 +294,7 @@ public class CmsJspContentAccessBean {
 
             Locale locale = CmsLocaleManager.getLocale(String.valueOf(input));
             Map<String, CmsJspContentAccessValueWrapper> result;
-            if (getRawContent().hasLocale(locale)) {
+            if (hasContentLocale(locale)) {
                 result = CmsCollectionsGenericWrapper.createLazyMap(new CmsValueTransformer(locale));
             } else {
                 result = CONSTANT_NULL_VALUE_WRAPPER_MAP;
@@ -401,6 +431,10 @@ public class CmsJspContentAccessBean {
          */
         public Object transform(Object input) {
 
+            CmsJspContentAccessValueWrapper indexedValue = getIndexedValue(String.valueOf(input), m_selectedLocale);
+            if (indexedValue != null) {
+                return indexedValue;
+            }
             I_CmsXmlContentValue value = getRawContent().getValue(String.valueOf(input), m_selectedLocale);
             return CmsJspContentAccessValueWrapper.createWrapper(
                 getCmsObject(),
@@ -457,6 +491,15 @@ public class CmsJspContentAccessBean {
     /** The categories assigned to the resource. */
     private CmsJspCategoryAccessBean m_categories;
 
+    /** The index of the text values, used as long as the complete XML content has not been read. */
+    private CmsXmlContentValueIndex m_valueIndex;
+
+    /** Indicates if the value index has already been looked up. */
+    private boolean m_valueIndexChecked;
+
+    /** The content definition of the indexed XML content. */
+    private CmsXmlContentDefinition m_valueIndexDefinition;
+
     /**
      * No argument constructor, required for a JavaBean.<p>
      *
@@ -754,7 +797,12 @@ public class CmsJspContentAccessBean {
 
         // check the content if the locale has not been set yet
         if (m_locale == null) {
-            getRawContent();
+            CmsXmlContentValueIndex valueIndex = getValueIndex();
+            if (valueIndex != null) {
+                m_locale = getBestMatchingLocale(valueIndex.getLocales());
+            } else {
+                getRawContent();
+            }
         }
         return m_locale;
     }
@@ -932,10 +980,7 @@ public class CmsJspContentAccessBean {
 
         // make sure a valid locale is used
         if (m_locale == null) {
-            m_locale = OpenCms.getLocaleManager().getBestMatchingLocale(
-                m_requestedLocale,
-                OpenCms.getLocaleManager().getDefaultLocales(m_cms, m_cms.getRequestContext().getUri()),
-                m_content.getLocales());
+            m_locale = getBestMatchingLocale(m_content.getLocales());
         }
 
         return m_content;
@@ -1056,6 +1101,96 @@ public class CmsJspContentAccessBean {
         m_requestedLocale = locale;
         m_content = content;
         m_resource = resource;
+        m_valueIndex = null;
+        m_valueIndexChecked = false;
+        m_valueIndexDefinition = null;
+    }
+
+    /**
+     * Returns a wrapper for the value read from the value index.<p>
+     *
+     * @param path the xpath of the value
+     * @param locale the locale of the value
+     *
+     * @return the wrapper for the indexed value, or <code>null</code> if the value requires the complete XML content
+     */
+    protected CmsJspContentAccessValueWrapper getIndexedValue(String path, Locale locale) {
+
+        if (m_content != null) {
+            // the complete content has already been read
+            return null;
+        }
+        CmsXmlContentValueIndex valueIndex = getValueIndex();
+        if ((valueIndex == null) || !CmsXmlContentValueIndex.isIndexable(m_valueIndexDefinition.getSchemaType(path))) {
+            return null;
+        }
+        String value = valueIndex.getStringValue(path, locale);
+        if (value == null) {
+            // non existing values require the complete content for the null value info
+            return null;
+        }
+        return CmsJspContentAccessValueWrapper.createIndexedWrapper(
+            getCmsObject(),
+            path,
+            value,
+            new CmsIndexedValueTransformer(locale));
+    }
+
+    /**
+     * Returns if the XML content contains the given locale,
+     * using the value index as long as the complete XML content has not been read.<p>
+     *
+     * @param locale the locale to check
+     *
+     * @return <code>true</code> if the XML content contains the given locale
+     */
+    protected boolean hasContentLocale(Locale locale) {
+
+        if (m_content == null) {
+            CmsXmlContentValueIndex valueIndex = getValueIndex();
+            if (valueIndex != null) {
+                return valueIndex.hasLocale(locale);
+            }
+        }
+        return getRawContent().hasLocale(locale);
+    }
+
+    /**
+     * Returns the best matching locale for the requested locale from the given available locales.<p>
+     *
+     * @param availableLocales the locales available in the XML content
+     *
+     * @return the best matching locale
+     */
+    private Locale getBestMatchingLocale(List<Locale> availableLocales) {
+
+        return OpenCms.getLocaleManager().getBestMatchingLocale(
+            m_requestedLocale,
+            OpenCms.getLocaleManager().getDefaultLocales(m_cms, m_cms.getRequestContext().getUri()),
+            availableLocales);
+    }
+
+    /**
+     * Returns the index of the text values of the XML content.<p>
+     *
+     * @return the value index, or <code>null</code> if the values can not be read from an index
+     */
+    private CmsXmlContentValueIndex getValueIndex() {
+
+        if (!m_valueIndexChecked) {
+            m_valueIndexChecked = true;
+            if ((m_content == null) && (m_resource != null) && !CmsResourceTypeXmlPage.isXmlPage(m_resource)) {
+                CmsXmlContentValueIndex valueIndex = CmsXmlContentValueIndex.getIndex(m_cms, m_resource);
+                if (valueIndex != null) {
+                    CmsXmlContentDefinition definition = valueIndex.getContentDefinition(m_cms);
+                    if ((definition != null) && CmsXmlContentValueIndex.isIndexable(definition.getContentHandler())) {
+                        m_valueIndex = valueIndex;
+                        m_valueIndexDefinition = definition;
+                    }
+                }
+            }
+        }
+        return m_valueIndex;
     }
 
     /**
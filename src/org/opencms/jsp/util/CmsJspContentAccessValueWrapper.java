@@ -283,6 +283,12 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
     /** Calculated hash code. */
     private int m_hashCode;
 
+    /** The xpath of the value read from the index. */
+    private String m_indexedPath;
+
+    /** The String value read from the index, or <code>null</code> if the wrapper was created for a content value. */
+    private String m_indexedValue;
+
     /** The lazy initialized Map that checks if a value is available. */
     private Map<String, Boolean> m_hasValue;
 
@@ -307,6 +313,9 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
     /** The lazy initialized value list Map. */
     private Map<String, List<CmsJspContentAccessValueWrapper>> m_valueList;
 
+    /** Resolves the content value of a value read from the index, <code>null</code> once the value is resolved. */
+    private Transformer m_valueResolver;
+
     /** The lazy initialized XML element Map. */
     private Map<String, String> m_xml;
 
@@ -337,9 +346,12 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
         m_contentValue = base.m_contentValue;
         m_hashCode = base.m_hashCode;
         m_hasValue = base.m_hasValue;
+        m_indexedPath = base.m_indexedPath;
+        m_indexedValue = base.m_indexedValue;
         m_macroResolver = macroResolver;
         m_value = base.m_value;
         m_valueList = base.m_valueList;
+        m_valueResolver = base.m_valueResolver;
     }
 
     /**
@@ -364,6 +376,35 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
         }
     }
 
+    /**
+     * Factory method to create a wrapper for a simple value read from the index of an XML content.<p>
+     *
+     * The String value is available without reading the complete XML content. All other information
+     * is read from the content value, which is resolved with the given resolver on first access.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param path the xpath of the value
+     * @param value the String value read from the index
+     * @param valueResolver resolves the content value for the xpath
+     *
+     * @return a new content value wrapper instance
+     *
+     * @see org.opencms.xml.content.CmsXmlContentValueIndex
+     */
+    public static CmsJspContentAccessValueWrapper createIndexedWrapper(
+        CmsObject cms,
+        String path,
+        String value,
+        Transformer valueResolver) {
+
+        // only simple values are indexed, so the maps are initialized like for a simple value
+        CmsJspContentAccessValueWrapper wrapper = new CmsJspContentAccessValueWrapper(cms, null);
+        wrapper.m_indexedPath = path;
+        wrapper.m_indexedValue = value;
+        wrapper.m_valueResolver = valueResolver;
+        return wrapper;
+    }
+
     /**
      * Factory method to create a new XML content value wrapper.<p>
      *
@@ -466,6 +507,11 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
      */
     public I_CmsXmlContentValue getContentValue() {
 
+        if (m_valueResolver != null) {
+            // the value has been read from the index, but now the complete content is required
+            m_contentValue = (I_CmsXmlContentValue)m_valueResolver.transform(m_indexedPath);
+            m_valueResolver = null;
+        }
         return m_contentValue;
     }
 
@@ -485,7 +531,7 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
     @Override
     public boolean getExists() {
 
-        return m_contentValue != null;
+        return (m_indexedValue != null) || (getContentValue() != null);
     }
 
     /**
@@ -537,13 +583,13 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
         CmsObject cms = obtainCmsObject();
 
         if ((cms != null)
-            && (m_contentValue != null)
+            && (getContentValue() != null)
             && isDirectEditEnabled(cms)
-            && (m_contentValue.getDocument().getFile() != null)) {
+            && (getContentValue().getDocument().getFile() != null)) {
             result = CmsJspContentAccessBean.createImageDndAttr(
-                m_contentValue.getDocument().getFile().getStructureId(),
-                m_contentValue.getPath(),
-                String.valueOf(m_contentValue.getLocale()));
+                getContentValue().getDocument().getFile().getStructureId(),
+                getContentValue().getPath(),
+                String.valueOf(getContentValue().getLocale()));
         }
 
         return result;
@@ -565,10 +611,10 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
      */
     public int getIndex() {
 
-        if (m_contentValue == null) {
+        if (getContentValue() == null) {
             return -1;
         }
-        return m_contentValue.getIndex();
+        return getContentValue().getIndex();
     }
 
     /**
@@ -589,16 +635,19 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
     @Override
     public boolean getIsEmpty() {
 
-        if (m_contentValue == null) {
+        if (m_indexedValue != null) {
+            return CmsStringUtil.isEmpty(m_indexedValue);
+        }
+        if (getContentValue() == null) {
             // this is the case for non existing values
             return true;
         }
-        if (m_contentValue.isSimpleType()) {
+        if (getContentValue().isSimpleType()) {
             // return values for simple type
-            return CmsStringUtil.isEmpty(m_contentValue.getStringValue(m_cms));
+            return CmsStringUtil.isEmpty(getContentValue().getStringValue(m_cms));
         } else {
             // nested types are not empty if they have any children in the XML
-            return m_contentValue.getElement().elements().size() > 0;
+            return getContentValue().getElement().elements().size() > 0;
         }
     }
 
@@ -621,16 +670,19 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
     @Override
     public boolean getIsEmptyOrWhitespaceOnly() {
 
-        if (m_contentValue == null) {
+        if (m_indexedValue != null) {
+            return CmsStringUtil.isEmptyOrWhitespaceOnly(m_indexedValue);
+        }
+        if (getContentValue() == null) {
             // this is the case for non existing values
             return true;
         }
-        if (m_contentValue.isSimpleType()) {
+        if (getContentValue().isSimpleType()) {
             // return values for simple type
-            return CmsStringUtil.isEmptyOrWhitespaceOnly(m_contentValue.getStringValue(m_cms));
+            return CmsStringUtil.isEmptyOrWhitespaceOnly(getContentValue().getStringValue(m_cms));
         } else {
             // nested types are not empty if they have any children in the XML
-            return m_contentValue.getElement().elements().isEmpty();
+            return getContentValue().getElement().elements().isEmpty();
         }
     }
 
@@ -671,10 +723,10 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
      */
     public Locale getLocale() {
 
-        if (m_contentValue == null) {
+        if (getContentValue() == null) {
             return CmsLocaleManager.getDefaultLocale();
         }
-        return m_contentValue.getLocale();
+        return getContentValue().getLocale();
     }
 
     /**
@@ -686,10 +738,10 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
      */
     public String getName() {
 
-        if (m_contentValue == null) {
+        if (getContentValue() == null) {
             return null;
         }
-        return m_contentValue.getName();
+        return getContentValue().getName();
     }
 
     /**
@@ -710,8 +762,8 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
 
         if ((m_names == null)) {
             m_names = new ArrayList<String>();
-            if (!m_contentValue.isSimpleType()) {
-                for (I_CmsXmlContentValue value : m_contentValue.getDocument().getSubValues(getPath(), getLocale())) {
+            if (!getContentValue().isSimpleType()) {
+                for (I_CmsXmlContentValue value : getContentValue().getDocument().getSubValues(getPath(), getLocale())) {
                     m_names.add(CmsXmlUtils.createXpathElement(value.getName(), value.getXmlIndex() + 1));
                 }
             }
@@ -734,10 +786,10 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
      */
     public String getPath() {
 
-        if (m_contentValue == null) {
+        if (getContentValue() == null) {
             return "";
         }
-        return m_contentValue.getPath();
+        return getContentValue().getPath();
     }
 
     /**
@@ -770,9 +822,9 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
         CmsObject cms = obtainCmsObject();
         if (cms != null) {
             if (isDirectEditEnabled(cms)) {
-                if (m_contentValue != null) {
+                if (getContentValue() != null) {
                     // within the offline project return the OpenCms specific entity id's and property names
-                    result = CmsContentService.getRdfaAttributes(m_contentValue);
+                    result = CmsContentService.getRdfaAttributes(getContentValue());
                 } else if ((m_nullValueInfo != null)) {
                     if (m_nullValueInfo.getParentValue() != null) {
                         result = CmsContentService.getRdfaAttributes(
@@ -887,8 +939,8 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
      */
     public String getTypeName() {
 
-        if (m_contentValue != null) {
-            return m_contentValue.getTypeName();
+        if (getContentValue() != null) {
+            return getContentValue().getTypeName();
         }
         return null;
     }
@@ -969,16 +1021,16 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
     @Override
     public int hashCode() {
 
-        if (m_contentValue == null) {
+        if (getContentValue() == null) {
             return 0;
         }
         if (m_hashCode == 0) {
             StringBuffer result = new StringBuffer(64);
-            result.append(m_contentValue.getDocument().getFile().getStructureId().toString());
+            result.append(getContentValue().getDocument().getFile().getStructureId().toString());
             result.append('/');
-            result.append(m_contentValue.getLocale());
+            result.append(getContentValue().getLocale());
             result.append('/');
-            result.append(m_contentValue.getPath());
+            result.append(getContentValue().getPath());
             m_hashCode = result.toString().hashCode();
         }
         return m_hashCode;
@@ -1010,7 +1062,7 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
     @Deprecated
     public I_CmsXmlContentValue obtainContentValue() {
 
-        return m_contentValue;
+        return getContentValue();
     }
 
     /**
@@ -1020,13 +1072,17 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
     @Override
     public String toString() {
 
-        if (m_contentValue == null) {
+        if (m_indexedValue != null) {
+            // the value has been read from the index
+            return m_macroResolver == null ? m_indexedValue : m_macroResolver.resolveMacros(m_indexedValue);
+        }
+        if (getContentValue() == null) {
             // this is the case for non existing values
             return "";
         }
-        if (m_contentValue.isSimpleType()) {
+        if (getContentValue().isSimpleType()) {
             // return values for simple type
-            String value = m_contentValue.getStringValue(m_cms);
+            String value = getContentValue().getStringValue(m_cms);
             if (m_macroResolver == null) {
                 // no macro resolving
                 return value;
@@ -1051,6 +1107,6 @@ public final class CmsJspContentAccessValueWrapper extends A_CmsJspValueWrapper
      */
     protected String createPath(Object input) {
 
-        return CmsXmlUtils.concatXpath(m_contentValue.getPath(), String.valueOf(input));
+        return CmsXmlUtils.concatXpath(getContentValue().getPath(), String.valueOf(input));
     }
 }
\ No newline at end of file
@@ -2710,6 +2710,17 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                             poolname,
                             Integer.toString(OpenCms.getSqlManager().getActiveConnections(poolname)),
                             Integer.toString(OpenCms.getSqlManager().getIdleConnections(poolname))));
+                    long statementRequests = OpenCms.getSqlManager().getStatementRequestCount(poolname);
+                    if (statementRequests >= 0) {
+                        LOG.info(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_MM_STATEMENTS_4,
+                                new Object[] {
+                                    poolname,
+                                    Long.toString(statementRequests),
+                                    Long.toString(OpenCms.getSqlManager().getStatementPrepareCount(poolname)),
+                                    Long.toString(OpenCms.getSqlManager().getStatementCloseCount(poolname))}));
+                    }
                 } catch (Exception exc) {
                     LOG.info(
                         Messages.get().getBundle().key(
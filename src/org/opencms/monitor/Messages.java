@@ -82,6 +82,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_STARTUP_TIME_2 = "LOG_MM_STARTUP_TIME_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_STATEMENTS_4 = "LOG_MM_STATEMENTS_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_STATUS_EMAIL_SENT_0 = "LOG_MM_STATUS_EMAIL_SENT_0";
 
@@ -27,7 +27,10 @@
 
 package org.opencms.scheduler.jobs;
 
+import org.opencms.db.CmsHistoryCompactionSettings;
 import org.opencms.file.CmsObject;
+import org.opencms.main.CmsIllegalArgumentException;
+import org.opencms.main.CmsLog;
 import org.opencms.report.CmsLogReport;
 import org.opencms.scheduler.I_CmsScheduledJob;
 import org.opencms.util.CmsStringUtil;
@@ -36,6 +39,8 @@ import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.Map;
 
+import org.apache.commons.logging.Log;
+
 /**
  * A schedulable OpenCms job to clear the history.<p>
  *
@@ -55,6 +60,18 @@ import java.util.Map;
  * <dd>Number/Integer to configure the number of days the versions of deleted resources will
  * be kept. That means that all versions wich are older than the specified number will be deleted.
  * This parameter is optional and only makes sense if the clearDeleted parameter is set to true.</dd>
+ * <dt><code>partitions={Number/Integer}</code></dt>
+ * <dd>The number of partitions by resource id that are processed in parallel. The default is 1.</dd>
+ * <dt><code>chunkSize={Number/Integer}</code></dt>
+ * <dd>The number of resources whose versions are deleted with one batch of statements. The default is 100.</dd>
+ * <dt><code>pause={Number/Integer}</code></dt>
+ * <dd>The pause in milliseconds between two chunks. The default is 0.</dd>
+ * <dt><code>throttledHours={start}-{end}</code></dt>
+ * <dd>The hours of the day in which the job is throttled, e.g. <code>8-18</code> for the business hours.
+ * This parameter is optional.</dd>
+ * <dt><code>throttledPause={Number/Integer}</code></dt>
+ * <dd>The pause in milliseconds between two chunks during the throttled hours.
+ * This parameter is optional and only makes sense if the throttledHours parameter is set.</dd>
  * </dl>
  *
  * @since 7.0.0
@@ -70,6 +87,24 @@ public class CmsHistoryClearJob implements I_CmsScheduledJob {
     /** Name of the parameter where to configure the number of days the versions will be kept. */
     public static final String PARAM_KEEPTIMERANGE = "keepTimeRange";
 
+    /** Name of the parameter where to configure the number of resources per chunk. */
+    public static final String PARAM_CHUNKSIZE = "chunkSize";
+
+    /** Name of the parameter where to configure the number of partitions processed in parallel. */
+    public static final String PARAM_PARTITIONS = "partitions";
+
+    /** Name of the parameter where to configure the pause between two chunks. */
+    public static final String PARAM_PAUSE = "pause";
+
+    /** Name of the parameter where to configure the throttled hours. */
+    public static final String PARAM_THROTTLEDHOURS = "throttledHours";
+
+    /** Name of the parameter where to configure the pause between two chunks during the throttled hours. */
+    public static final String PARAM_THROTTLEDPAUSE = "throttledPause";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsHistoryClearJob.class);
+
     /**
      * @see org.opencms.scheduler.I_CmsScheduledJob#launch(org.opencms.file.CmsObject, java.util.Map)
      */
@@ -103,10 +138,59 @@ public class CmsHistoryClearJob implements I_CmsScheduledJob {
         // create a new report
         CmsLogReport report = new CmsLogReport(cms.getRequestContext().getLocale(), CmsHistoryClearJob.class);
 
+        // read the optional parameters for the chunks, partitions and pauses
+        CmsHistoryCompactionSettings settings = new CmsHistoryCompactionSettings();
+        String partitions = parameters.get(PARAM_PARTITIONS);
+        if (!CmsStringUtil.isEmptyOrWhitespaceOnly(partitions)) {
+            settings.setPartitions(Integer.parseInt(partitions.trim()));
+        }
+        String chunkSize = parameters.get(PARAM_CHUNKSIZE);
+        if (!CmsStringUtil.isEmptyOrWhitespaceOnly(chunkSize)) {
+            settings.setChunkSize(Integer.parseInt(chunkSize.trim()));
+        }
+        String pause = parameters.get(PARAM_PAUSE);
+        if (!CmsStringUtil.isEmptyOrWhitespaceOnly(pause)) {
+            settings.setPause(Long.parseLong(pause.trim()));
+        }
+        String throttledHours = parameters.get(PARAM_THROTTLEDHOURS);
+        if (!CmsStringUtil.isEmptyOrWhitespaceOnly(throttledHours)) {
+            setThrottledHours(settings, throttledHours);
+        }
+        String throttledPause = parameters.get(PARAM_THROTTLEDPAUSE);
+        if (!CmsStringUtil.isEmptyOrWhitespaceOnly(throttledPause)) {
+            settings.setThrottledPause(Long.parseLong(throttledPause.trim()));
+        }
+
         // delete the versions
-        cms.deleteHistoricalVersions(keepVersions, keepDeletedVersions, timeDeleted, report);
+        cms.deleteHistoricalVersions(keepVersions, keepDeletedVersions, timeDeleted, settings, report);
 
         return null;
     }
 
+    /**
+     * Sets the throttled hours configured as <code>{start}-{end}</code> in the compaction settings.<p>
+     *
+     * An invalid value is logged and ignored, so the history is still cleared.<p>
+     *
+     * @param settings the compaction settings
+     * @param throttledHours the configured throttled hours
+     */
+    private void setThrottledHours(CmsHistoryCompactionSettings settings, String throttledHours) {
+
+        int pos = throttledHours.indexOf('-');
+        if (pos > 0) {
+            try {
+                settings.setThrottledHours(
+                    Integer.parseInt(throttledHours.substring(0, pos).trim()),
+                    Integer.parseInt(throttledHours.substring(pos + 1).trim()));
+                return;
+            } catch (NumberFormatException e) {
+                // invalid number, logged below
+            } catch (CmsIllegalArgumentException e) {
+                // invalid hour, logged below
+            }
+        }
+        LOG.error(Messages.get().getBundle().key(Messages.LOG_HISTORY_CLEAR_BAD_THROTTLED_HOURS_1, throttledHours));
+    }
+
 }
@@ -43,6 +43,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_DELETE_EXPIRED_END_0 = "RPT_DELETE_EXPIRED_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_HISTORY_CLEAR_BAD_THROTTLED_HOURS_1 = "LOG_HISTORY_CLEAR_BAD_THROTTLED_HOURS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_IMAGE_CACHE_BAD_MAXAGE_2 = "LOG_IMAGE_CACHE_BAD_MAXAGE_2";
 
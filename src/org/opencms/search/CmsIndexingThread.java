@@ -43,6 +43,9 @@ import org.apache.commons.logging.Log;
  * The indexing of a single resource is wrapped into a thread
  * in order to prevent the overall indexer from hanging.<p>
  *
+ * The {@link CmsIndexingThreadManager} does not start the indexing threads on their own,
+ * it executes them as tasks of its pool of worker threads.<p>
+ *
  * @since 6.0.0
  */
 public class CmsIndexingThread extends Thread {
@@ -56,6 +59,9 @@ public class CmsIndexingThread extends Thread {
     /** The counter to output for the report. */
     private int m_count;
 
+    /** The error that occurred while creating the document. */
+    private Throwable m_error;
+
     /** The current index. */
     private CmsSearchIndex m_index;
 
@@ -89,6 +95,16 @@ public class CmsIndexingThread extends Thread {
         m_result = null;
     }
 
+    /**
+     * Returns the error that occurred while creating the document.<p>
+     *
+     * @return the error that occurred while creating the document, or <code>null</code> if there was no error
+     */
+    public Throwable getError() {
+
+        return m_error;
+    }
+
     /**
      * Returns the document created by this indexer thread.<p>
      *
@@ -118,17 +134,20 @@ public class CmsIndexingThread extends Thread {
             docOk = true;
 
             // check if the thread was interrupted
-            if (isInterrupted() && LOG.isDebugEnabled()) {
+            if (Thread.currentThread().isInterrupted() && LOG.isDebugEnabled()) {
                 LOG.debug(
                     Messages.get().getBundle().key(Messages.LOG_ABANDONED_THREAD_FINISHED_1, m_res.getRootPath()));
             }
 
         } catch (CmsIndexNoContentException e) {
             // Ignore exception caused by empty documents, so that the report is not messed up with error message
-            m_report.println(
-                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                I_CmsReport.FORMAT_OK);
+            if (m_report != null) {
+                m_report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            }
         } catch (Throwable exc) {
+            m_error = exc;
             if (m_report != null) {
                 m_report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
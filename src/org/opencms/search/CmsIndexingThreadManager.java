@@ -28,29 +28,167 @@
 package org.opencms.search;
 
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
+import org.opencms.search.extractors.A_CmsTextExtractor;
 
 import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Implements the management of indexing threads.<p>
  *
+ * The documents are extracted concurrently by a bounded pool of worker threads, while the extracted
+ * documents are written to the index by the single thread calling {@link #createIndexingThread(CmsVfsIndexer, I_CmsIndexWriter, CmsResource)},
+ * in the order the resources were passed in.<p>
+ *
+ * If the extraction of a document does not finish within the timeout, the worker is interrupted and abandoned,
+ * and the resource is removed from the index. The pool is enlarged for as long as an abandoned worker
+ * is still busy, so a hanging document does not reduce the number of documents extracted in parallel.<p>
+ *
  * @since 6.0.0
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * A document extraction that has been passed to the worker pool and has not been written yet.<p>
+     */
+    protected class CmsIndexingJob implements Runnable {
+
+        /** State constant: the job is waiting for a worker. */
+        private static final int STATE_QUEUED = 0;
+
+        /** State constant: the job is executed by a worker. */
+        private static final int STATE_RUNNING = 1;
+
+        /** State constant: the job has finished. */
+        private static final int STATE_FINISHED = 2;
+
+        /** State constant: the job has been abandoned after the timeout. */
+        private static final int STATE_ABANDONED = 3;
+
+        /** The future of the job. */
+        protected Future<?> m_future;
+
+        /** The indexer the job was created for. */
+        protected CmsVfsIndexer m_indexer;
+
+        /** The resource to index. */
+        protected CmsResource m_resource;
+
+        /** The time the job was passed to the worker pool. */
+        protected long m_startTime;
+
+        /** The indexing thread that creates the document, executed by a worker of the pool. */
+        protected CmsIndexingThread m_thread;
+
+        /** The index writer to write the document with. */
+        protected I_CmsIndexWriter m_writer;
+
+        /** The state of the job. */
+        private AtomicInteger m_state;
+
+        /**
+         * Creates a new indexing job.<p>
+         *
+         * @param indexer the indexer the job was created for
+         * @param writer the index writer to write the document with
+         * @param resource the resource to index
+         * @param thread the indexing thread that creates the document
+         */
+        protected CmsIndexingJob(
+            CmsVfsIndexer indexer,
+            I_CmsIndexWriter writer,
+            CmsResource resource,
+            CmsIndexingThread thread) {
+
+            m_indexer = indexer;
+            m_writer = writer;
+            m_resource = resource;
+            m_thread = thread;
+            m_state = new AtomicInteger(STATE_QUEUED);
+            m_startTime = System.currentTimeMillis();
+        }
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+
+            if (!m_state.compareAndSet(STATE_QUEUED, STATE_RUNNING)) {
+                // the job has been abandoned before a worker was available
+                return;
+            }
+            try {
+                m_thread.run();
+            } finally {
+                if (!m_state.compareAndSet(STATE_RUNNING, STATE_FINISHED)) {
+                    // the job has been abandoned, release the additional worker
+                    resizePool(-1);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_ABANDONED_THREAD_FINISHED_1,
+                                m_resource.getRootPath()));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Marks the job as abandoned, if it has not finished yet.<p>
+         *
+         * @return <code>true</code> if the job has been abandoned, <code>false</code> if it has finished in the meantime
+         */
+        protected boolean abandon() {
+
+            if (m_state.compareAndSet(STATE_QUEUED, STATE_ABANDONED)) {
+                // the job never occupies a worker
+                m_future.cancel(false);
+                return true;
+            }
+            if (m_state.compareAndSet(STATE_RUNNING, STATE_ABANDONED)) {
+                // keep the number of available workers while the abandoned one is still busy,
+                // the additional worker is released when the job finishes
+                resizePool(1);
+                m_future.cancel(true);
+                return true;
+            }
+            return false;
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
+    /** The maximum number of pending documents per worker thread. */
+    private static final int MAX_PENDING_FACTOR = 4;
+
+    /** The time in seconds idle worker threads are kept alive. */
+    private static final long WORKER_KEEP_ALIVE = 60;
+
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The pool of worker threads extracting the documents. */
+    private ThreadPoolExecutor m_executor;
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
@@ -60,34 +198,65 @@ public class CmsIndexingThreadManager {
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The documents extracted or in extraction, in the order they have to be written. */
+    private LinkedList<CmsIndexingJob> m_pending;
+
+    /** The current number of worker threads, including the ones occupied by abandoned jobs. */
+    private int m_poolSize;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
     /** Overall number of threads started. */
     private int m_startedCounter;
 
+    /** The number of documents extracted in parallel. */
+    private int m_threads;
+
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
+    /** The number of truncated documents when this manager was created. */
+    private long m_truncatedAtStart;
+
+    /** Number of documents written to the index. */
+    private int m_writtenCounter;
+
     /**
-     * Creates and starts a thread manager for indexing threads.<p>
+     * Creates and starts a thread manager for indexing threads,
+     * which extracts one document after the other.<p>
      *
      * @param timeout timeout after a thread is abandoned
      * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     *
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param threads the number of documents to extract in parallel
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int threads) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_threads = Math.max(1, threads);
+        m_pending = new LinkedList<CmsIndexingJob>();
+        m_truncatedAtStart = A_CmsTextExtractor.getTruncatedDocuments();
     }
 
     /**
-     * Creates and starts a new indexing thread for a resource.<p>
+     * Passes the extraction of the document for a resource to the worker pool.<p>
      *
-     * After an indexing thread was started, the manager suspends itself
-     * and waits for an amount of time specified by the <code>timeout</code>
-     * value. If the timeout value is reached, the indexing thread is
-     * aborted by an interrupt signal.<p>
+     * If the maximum number of documents is already being extracted, the manager waits
+     * until the oldest extraction has finished or reached the <code>timeout</code>.
+     * In the latter case the extraction is aborted by an interrupt signal.
+     * All finished documents are written to the index in the order of the resources.<p>
      *
      * @param indexer the VFS indexer to create the index thread for
      * @param writer the index writer that can update the index
@@ -95,71 +264,43 @@ public class CmsIndexingThreadManager {
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
-        I_CmsReport report = indexer.getReport();
         m_startedCounter++;
-        CmsIndexingThread thread = new CmsIndexingThread(
-            indexer.getCms(),
-            res,
-            indexer.getIndex(),
-            m_startedCounter,
-            report);
-        thread.setPriority(Thread.MIN_PRIORITY);
-        thread.start();
-        try {
-            thread.join(m_timeout);
-        } catch (InterruptedException e) {
-            // ignore
-        }
-        if (thread.isAlive()) {
-            // the thread has not finished - so it must be marked as an abandoned thread
-            m_abandonedCounter++;
-            thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
-            }
-        } else {
-            // the thread finished normally
-            m_returnedCounter++;
-        }
-        I_CmsSearchDocument doc = thread.getResult();
-        if (doc != null) {
-            // write the document to the index
-            indexer.updateResource(writer, res.getRootPath(), doc);
-        } else {
-            indexer.deleteResource(writer, new CmsPublishedResource(res));
-        }
-        if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
+        CmsObject cms = indexer.getCms();
+        if (m_threads > 1) {
             try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                            indexer.getIndex().getName(),
-                            indexer.getIndex().getPath()),
-                        e);
-                }
+                // the document factories may change the request context, so each extraction gets its own copy
+                cms = OpenCms.initCmsObject(cms);
+            } catch (CmsException e) {
+                // use the shared context
+                LOG.debug(e.getLocalizedMessage(), e);
             }
         }
+        // the output is written to the report when the document is written, so the lines are not mixed up
+        CmsIndexingThread thread = new CmsIndexingThread(cms, res, indexer.getIndex(), m_startedCounter, null);
+        CmsIndexingJob job = new CmsIndexingJob(indexer, writer, res, thread);
+        submit(job);
+        m_pending.add(job);
+
+        writeFinishedDocuments(false);
+        // limit the number of parallel extractions and the number of extracted documents waiting to be written
+        while ((getExtractingCount() >= m_threads) || (m_pending.size() > (MAX_PENDING_FACTOR * m_threads))) {
+            writeFinishedDocuments(true);
+        }
     }
 
     /**
      * Returns if the indexing manager still have indexing threads.<p>
      *
+     * Before checking, all pending documents are written to the index.<p>
+     *
      * @return true if the indexing manager still have indexing threads
      */
     public boolean isRunning() {
 
+        while (!m_pending.isEmpty()) {
+            writeFinishedDocuments(true);
+        }
+
         if (m_lastLogErrorTime <= 0) {
             m_lastLogErrorTime = System.currentTimeMillis();
             m_lastLogWarnTime = m_lastLogErrorTime;
@@ -221,6 +362,251 @@ public class CmsIndexingThreadManager {
                 // only write to the log if report is not already a log report
                 LOG.info(message.key());
             }
+            long truncated = A_CmsTextExtractor.getTruncatedDocuments() - m_truncatedAtStart;
+            if (truncated > 0) {
+                message = Messages.get().container(Messages.RPT_SEARCH_INDEXING_TRUNCATED_1, new Long(truncated));
+                report.println(message, I_CmsReport.FORMAT_WARNING);
+                if (!(report instanceof CmsLogReport) && LOG.isInfoEnabled()) {
+                    LOG.info(message.key());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the worker threads.<p>
+     *
+     * Workers still busy with abandoned extractions are interrupted. No more documents can be extracted
+     * by this manager afterwards.<p>
+     */
+    public synchronized void shutDown() {
+
+        if (m_executor != null) {
+            m_executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the current number of worker threads, including the ones occupied by abandoned jobs.<p>
+     *
+     * @return the current number of worker threads
+     */
+    protected synchronized int getPoolSize() {
+
+        return m_poolSize;
+    }
+
+    /**
+     * Returns if the worker threads have been stopped and all of them have terminated.<p>
+     *
+     * @return <code>true</code> if the worker threads have been stopped and all of them have terminated
+     */
+    protected synchronized boolean isTerminated() {
+
+        return (m_executor != null) && m_executor.isTerminated();
+    }
+
+    /**
+     * Changes the number of worker threads by the given amount.<p>
+     *
+     * @param delta the number of worker threads to add, or to remove if negative
+     */
+    protected synchronized void resizePool(int delta) {
+
+        m_poolSize += delta;
+        if ((m_executor == null) || m_executor.isShutdown()) {
+            return;
+        }
+        // the maximum pool size must never be lower than the core pool size
+        if (delta > 0) {
+            m_executor.setMaximumPoolSize(m_poolSize);
+            m_executor.setCorePoolSize(m_poolSize);
+        } else {
+            m_executor.setCorePoolSize(m_poolSize);
+            m_executor.setMaximumPoolSize(m_poolSize);
+        }
+    }
+
+    /**
+     * Passes a job to the worker pool.<p>
+     *
+     * @param job the job
+     */
+    protected void submit(CmsIndexingJob job) {
+
+        job.m_future = getExecutor().submit(job);
+    }
+
+    /**
+     * Returns the worker pool, creating it if required.<p>
+     *
+     * @return the worker pool
+     */
+    private synchronized ThreadPoolExecutor getExecutor() {
+
+        if (m_executor == null) {
+            m_poolSize = m_threads;
+            final AtomicInteger count = new AtomicInteger();
+            m_executor = new ThreadPoolExecutor(
+                m_poolSize,
+                m_poolSize,
+                WORKER_KEEP_ALIVE,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Indexing Worker " + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+            m_executor.allowCoreThreadTimeOut(true);
+        }
+        return m_executor;
+    }
+
+    /**
+     * Returns the number of pending documents that are still being extracted.<p>
+     *
+     * @return the number of pending documents that are still being extracted
+     */
+    private int getExtractingCount() {
+
+        int result = 0;
+        for (CmsIndexingJob job : m_pending) {
+            if (!job.m_future.isDone()) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the result of a finished or abandoned job to the index and the report.<p>
+     *
+     * @param job the job
+     * @param abandoned <code>true</code> if the job has been abandoned
+     */
+    private void writeDocument(CmsIndexingJob job, boolean abandoned) {
+
+        CmsVfsIndexer indexer = job.m_indexer;
+        I_CmsReport report = indexer.getReport();
+        String rootPath = job.m_resource.getRootPath();
+        if (report != null) {
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_SUCCESSION_1,
+                    String.valueOf(m_returnedCounter + m_abandonedCounter + 1)),
+                I_CmsReport.FORMAT_NOTE);
+            report.print(Messages.get().container(Messages.RPT_SEARCH_INDEXING_FILE_BEGIN_0), I_CmsReport.FORMAT_NOTE);
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_ARGUMENT_1,
+                    report.removeSiteRoot(rootPath)));
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0),
+                I_CmsReport.FORMAT_DEFAULT);
+        }
+        I_CmsSearchDocument doc = null;
+        if (abandoned) {
+            // the thread has not finished - so it must be marked as an abandoned thread
+            m_abandonedCounter++;
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, rootPath));
+            }
+            if (report != null) {
+                report.print(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                    I_CmsReport.FORMAT_WARNING);
+                report.println(
+                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, rootPath),
+                    I_CmsReport.FORMAT_WARNING);
+            }
+        } else {
+            // the thread finished normally
+            m_returnedCounter++;
+            doc = job.m_thread.getResult();
+            if (report != null) {
+                if (doc != null) {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                        I_CmsReport.FORMAT_OK);
+                } else if (job.m_thread.getError() != null) {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                        I_CmsReport.FORMAT_ERROR);
+                    report.println(
+                        org.opencms.report.Messages.get().container(
+                            org.opencms.report.Messages.RPT_ARGUMENT_1,
+                            job.m_thread.getError().toString()),
+                        I_CmsReport.FORMAT_ERROR);
+                } else {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                        I_CmsReport.FORMAT_NOTE);
+                }
+            }
+        }
+        if (doc != null) {
+            // write the document to the index
+            indexer.updateResource(job.m_writer, rootPath, doc);
+        } else {
+            indexer.deleteResource(job.m_writer, new CmsPublishedResource(job.m_resource));
+        }
+        m_writtenCounter++;
+        if ((m_writtenCounter % m_maxModificationsBeforeCommit) == 0) {
+            try {
+                job.m_writer.commit();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                            indexer.getIndex().getName(),
+                            indexer.getIndex().getPath()),
+                        e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the finished documents at the head of the pending list to the index.<p>
+     *
+     * @param wait if <code>true</code>, waits for the oldest pending document until it has finished
+     *      or reached the timeout
+     */
+    private void writeFinishedDocuments(boolean wait) {
+
+        while (!m_pending.isEmpty()) {
+            CmsIndexingJob job = m_pending.getFirst();
+            boolean abandoned = false;
+            if (!job.m_future.isDone()) {
+                if (!wait) {
+                    return;
+                }
+                long remaining = (job.m_startTime + m_timeout) - System.currentTimeMillis();
+                try {
+                    job.m_future.get(Math.max(1, remaining), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    abandoned = job.abandon();
+                } catch (InterruptedException e) {
+                    // ignore
+                } catch (ExecutionException e) {
+                    // the indexing thread handles all errors on its own
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+                if (!abandoned && !job.m_future.isDone()) {
+                    // interrupted while waiting, try again
+                    continue;
+                }
+                wait = false;
+            }
+            m_pending.removeFirst();
+            writeDocument(job, abandoned);
         }
     }
-}
\ No newline at end of file
+}
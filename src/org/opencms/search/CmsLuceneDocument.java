@@ -39,6 +39,8 @@ import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.fields.CmsSearchFieldConfiguration;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -50,6 +52,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.lucene.document.DateTools;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
@@ -58,6 +62,7 @@ import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.util.BytesRef;
 import org.apache.tika.io.IOUtils;
 
 /**
@@ -80,6 +85,9 @@ public class CmsLuceneDocument implements I_CmsSearchDocument {
      */
     public static final FieldType STORED_NOT_ANALYSED_TYPE;
 
+    /** The charset used to create the digest of the document fields. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
     static {
         STORED_ANALYSED_TYPE = new FieldType();
         STORED_ANALYSED_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
@@ -233,6 +241,34 @@ public class CmsLuceneDocument implements I_CmsSearchDocument {
         }
     }
 
+    /**
+     * @see org.opencms.search.I_CmsSearchDocument#addDigestField()
+     */
+    public void addDigestField() {
+
+        m_doc.removeFields(CmsSearchField.FIELD_DIGEST);
+        MessageDigest digest = DigestUtils.getMd5Digest();
+        for (IndexableField field : m_doc.getFields()) {
+            digest.update(field.name().getBytes(UTF8));
+            digest.update((byte)0);
+            if (field.stringValue() != null) {
+                digest.update(field.stringValue().getBytes(UTF8));
+            } else if (field.binaryValue() != null) {
+                BytesRef bytes = field.binaryValue();
+                digest.update(bytes.bytes, bytes.offset, bytes.length);
+            } else if (field.numericValue() != null) {
+                digest.update(field.numericValue().toString().getBytes(UTF8));
+            } else {
+                // the value is only available as reader or token stream, the document can not be compared
+                return;
+            }
+            digest.update((byte)0);
+            digest.update(Float.toString(field.boost()).getBytes(UTF8));
+            digest.update((byte)0);
+        }
+        m_doc.add(new StoredField(CmsSearchField.FIELD_DIGEST, Hex.encodeHexString(digest.digest())));
+    }
+
     /**
      * @see org.opencms.search.I_CmsSearchDocument#addFileSizeField(int)
      */
@@ -135,6 +135,16 @@ public class CmsLuceneIndexWriter implements I_CmsIndexWriter {
         m_indexWriter.deleteDocuments(term);
     }
 
+    /**
+     * Returns the standard Lucene IndexWriter this writer delegates to.<p>
+     *
+     * @return the standard Lucene IndexWriter this writer delegates to
+     */
+    public IndexWriter getIndexWriter() {
+
+        return m_indexWriter;
+    }
+
     /**
      * @see org.opencms.search.I_CmsIndexWriter#optimize()
      *
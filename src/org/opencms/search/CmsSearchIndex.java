@@ -33,6 +33,7 @@ package org.opencms.search;
 
 import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
@@ -54,7 +55,9 @@ import org.opencms.util.CmsStringUtil;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -90,6 +93,8 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MultiTermQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
@@ -167,6 +172,15 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** Constant for additional parameter for the Lucene index setting. */
     public static final String LUCENE_AUTO_COMMIT = "lucene.AutoCommit";
 
+    /**
+     * Constant for additional parameter for the maximum time in milliseconds a near real-time searcher may lag
+     * behind the index writer (default: 1000), a negative value disables near real-time search.
+     */
+    public static final String LUCENE_NRT_MAX_STALENESS = "lucene.NRTMaxStaleness";
+
+    /** The default maximum time in milliseconds a near real-time searcher may lag behind the index writer. */
+    public static final long LUCENE_NRT_MAX_STALENESS_DEFAULT = 1000;
+
     /** Constant for additional parameter for the Lucene index setting. */
     public static final String LUCENE_RAM_BUFFER_SIZE_MB = "lucene.RAMBufferSizeMB";
 
@@ -200,6 +214,15 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** Offline ("offline") index rebuild mode. */
     public static final String REBUILD_MODE_OFFLINE = "offline";
 
+    /** Constant for additional parameter to enable the rebuild of the index in a shadow index (default: false). */
+    public static final String SHADOW_REINDEXING = A_PARAM_PREFIX + ".useShadowReindexing";
+
+    /** Constant for additional parameter for the pause in milliseconds after each document of a shadow rebuild. */
+    public static final String SHADOW_REINDEXING_PAUSE = A_PARAM_PREFIX + ".shadowReindexingPause";
+
+    /** Constant for additional parameter to skip writing documents that are unchanged in the index (default: true). */
+    public static final String SKIP_UNCHANGED = A_PARAM_PREFIX + ".skipUnchangedDocuments";
+
     /** Constant for additional parameter to enable time range checks (default: true). */
     public static final String TIME_RANGE = A_PARAM_PREFIX + ".checkTimeRange";
 
@@ -287,6 +310,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** The name of this index. */
     private String m_name;
 
+    /** The maximum time in milliseconds the near real-time searcher may lag behind the index writer. */
+    private long m_nrtMaxStaleness;
+
     /** The path where this index stores it's data in the "real" file system. */
     private String m_path;
 
@@ -302,9 +328,30 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** Controls if a resource requires view permission to be displayed in the result list. */
     private boolean m_requireViewPermission;
 
+    /** The near real-time searcher manager, only set while the index writer of this index is kept open. */
+    private SearcherManager m_searcherManager;
+
+    /** The time the near real-time searcher was last refreshed. */
+    private long m_searcherRefreshed;
+
+    /** The Lucene index writer the near real-time searcher manager reads from. */
+    private IndexWriter m_searcherWriter;
+
+    /** Indicates if the index is rebuilt in a shadow index. */
+    private boolean m_shadowReindexing;
+
+    /** The time in milliseconds to pause after each document of a shadow rebuild. */
+    private long m_shadowReindexingPause;
+
+    /** The writer of the shadow index, only set while the shadow rebuild is running. */
+    private volatile CmsShadowIndexWriter m_shadowWriter;
+
     /** The cms specific Similarity implementation. */
     private final Similarity m_sim = new CmsSearchSimilarity();
 
+    /** Indicates if documents that are unchanged in the index are not written again. */
+    private boolean m_skipUnchanged;
+
     /** The list of configured index source names. */
     private List<String> m_sourceNames;
 
@@ -326,7 +373,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         m_extractContent = true;
         m_priority = -1;
         m_createExcerpt = true;
+        m_skipUnchanged = true;
         m_maxHits = MAX_HITS_DEFAULT;
+        m_nrtMaxStaleness = LUCENE_NRT_MAX_STALENESS_DEFAULT;
         m_checkTimeRange = false;
     }
 
@@ -501,6 +550,10 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             m_extractContent = Boolean.valueOf(value).booleanValue();
         } else if (BACKUP_REINDEXING.equals(key)) {
             m_backupReindexing = Boolean.valueOf(value).booleanValue();
+        } else if (SHADOW_REINDEXING.equals(key)) {
+            m_shadowReindexing = Boolean.valueOf(value).booleanValue();
+        } else if (SKIP_UNCHANGED.equals(key)) {
+            m_skipUnchanged = Boolean.valueOf(value).booleanValue();
         } else if (LANGUAGEDETECTION.equals(key)) {
             m_languageDetection = Boolean.valueOf(value).booleanValue();
         } else if (IGNORE_EXPIRATION.equals(key)) {
@@ -546,6 +599,18 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             } catch (NumberFormatException e) {
                 LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
             }
+        } else if (SHADOW_REINDEXING_PAUSE.equals(key)) {
+            try {
+                m_shadowReindexingPause = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
+            }
+        } else if (LUCENE_NRT_MAX_STALENESS.equals(key)) {
+            try {
+                m_nrtMaxStaleness = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
+            }
         }
     }
 
@@ -653,6 +718,15 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         if (isBackupReindexing()) {
             result.put(BACKUP_REINDEXING, String.valueOf(m_backupReindexing));
         }
+        if (isShadowReindexing()) {
+            result.put(SHADOW_REINDEXING, String.valueOf(m_shadowReindexing));
+        }
+        if (m_shadowReindexingPause > 0) {
+            result.put(SHADOW_REINDEXING_PAUSE, String.valueOf(m_shadowReindexingPause));
+        }
+        if (!isSkippingUnchangedDocuments()) {
+            result.put(SKIP_UNCHANGED, String.valueOf(m_skipUnchanged));
+        }
         if (isLanguageDetection()) {
             result.put(LANGUAGEDETECTION, String.valueOf(m_languageDetection));
         }
@@ -665,6 +739,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         if (m_luceneRAMBufferSizeMB != null) {
             result.put(LUCENE_RAM_BUFFER_SIZE_MB, String.valueOf(m_luceneRAMBufferSizeMB));
         }
+        if (m_nrtMaxStaleness != LUCENE_NRT_MAX_STALENESS_DEFAULT) {
+            result.put(LUCENE_NRT_MAX_STALENESS, String.valueOf(m_nrtMaxStaleness));
+        }
         // always write time range check parameter because of logic change in OpenCms 8.0
         result.put(TIME_RANGE, String.valueOf(m_checkTimeRange));
         return result;
@@ -816,6 +893,10 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             try {
                 m_indexWriter.close();
                 m_indexWriter = null;
+                if (m_searcherManager != null) {
+                    // the near real-time searcher depends on the closed writer
+                    indexSearcherOpen(getPath());
+                }
             } catch (IOException e) {
                 // if we can't close the index we are busted!
                 throw new CmsIndexException(
@@ -959,6 +1040,16 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return m_indexSearcher;
     }
 
+    /**
+     * Returns the writer of the running shadow rebuild of this index, which also provides the rebuild progress.<p>
+     *
+     * @return the writer of the running shadow rebuild, or <code>null</code> if no shadow rebuild is running
+     */
+    public CmsShadowIndexWriter getShadowIndexWriter() {
+
+        return m_shadowWriter;
+    }
+
     /**
      * Returns all configured sources names of this search index.<p>
      *
@@ -1203,6 +1294,32 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return m_requireViewPermission;
     }
 
+    /**
+     * Returns <code>true</code> if a full rebuild of this index is done in a shadow index.<p>
+     *
+     * The shadow index is built in a separate directory while this index is still used for searching,
+     * and replaces this index when the rebuild has finished.<p>
+     *
+     * @return <code>true</code> if a full rebuild of this index is done in a shadow index
+     */
+    public boolean isShadowReindexing() {
+
+        return m_shadowReindexing;
+    }
+
+    /**
+     * Returns <code>true</code> if documents that are unchanged in the index are not written again.<p>
+     *
+     * If enabled, each document is stored with a digest of its fields. An incremental update compares
+     * the digest of the new document with the digest stored in the index and skips the write if both are equal.<p>
+     *
+     * @return <code>true</code> if documents that are unchanged in the index are not written again
+     */
+    public boolean isSkippingUnchangedDocuments() {
+
+        return m_skipUnchanged;
+    }
+
     /**
      * Returns <code>true</code> in case this index is updated incremental.<p>
      *
@@ -1295,8 +1412,11 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             // store separate fields query for excerpt highlighting
             Query fieldsQuery = null;
 
-            // get an index searcher that is certainly up to date
-            indexSearcherUpdate();
+            // get an index searcher that is certainly up to date,
+            // a near real-time searcher is only refreshed after the configured staleness has passed
+            if (!isNearRealTimeSearcherFresh()) {
+                indexSearcherUpdate();
+            }
             IndexSearcher searcher = getSearcher();
 
             if (!params.isIgnoreQuery()) {
@@ -1950,54 +2070,35 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      */
     protected I_CmsIndexWriter createIndexWriter(boolean create, I_CmsReport report) throws CmsIndexException {
 
-        IndexWriter indexWriter = null;
-        FSDirectory dir = null;
-        try {
-            File f = new File(getPath());
-            if (!f.exists()) {
-                f = f.getParentFile();
-                if ((f != null) && (!f.exists())) {
-                    f.mkdirs();
-                }
-
-                create = true;
-            }
-
-            dir = FSDirectory.open(Paths.get(getPath()));
-            IndexWriterConfig indexConfig = new IndexWriterConfig(getAnalyzer());
-            //indexConfig.setMergePolicy(mergePolicy);
-
-            if (m_luceneRAMBufferSizeMB != null) {
-                indexConfig.setRAMBufferSizeMB(m_luceneRAMBufferSizeMB.doubleValue());
-            }
-            if (create) {
-                indexConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
-            } else {
-                indexConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
-            }
-            // register the modified default similarity implementation
-            indexConfig.setSimilarity(m_sim);
+        return createLuceneIndexWriter(getPath(), create);
+    }
 
-            indexWriter = new IndexWriter(dir, indexConfig);
-        } catch (Exception e) {
-            if (dir != null) {
-                dir.close();
-            }
-            if (indexWriter != null) {
-                try {
-                    indexWriter.close();
-                } catch (IOException closeExeception) {
-                    throw new CmsIndexException(
-                        Messages.get().container(Messages.ERR_IO_INDEX_WRITER_OPEN_2, getPath(), getName()),
-                        e);
-                }
-            }
-            throw new CmsIndexException(
-                Messages.get().container(Messages.ERR_IO_INDEX_WRITER_OPEN_2, getPath(), getName()),
-                e);
-        }
+    /**
+     * Creates the writer for a shadow rebuild of this index.<p>
+     *
+     * From now on, the incremental updates of this index are recorded by the shadow index writer,
+     * until the shadow index has replaced this index or has been removed.<p>
+     *
+     * @return the writer for the shadow rebuild
+     *
+     * @throws CmsIndexException in case the writer could not be created
+     *
+     * @see #swapShadowIndex()
+     * @see #removeShadowIndex()
+     */
+    protected synchronized CmsShadowIndexWriter createShadowIndexWriter() throws CmsIndexException {
 
-        return new CmsLuceneIndexWriter(indexWriter, this);
+        String shadowPath = getPath() + "_shadow";
+        // remove the left overs of an interrupted shadow rebuild
+        CmsFileUtil.purgeDirectory(new File(shadowPath));
+        IndexSearcher searcher = getSearcher();
+        int expectedDocuments = (searcher != null) ? searcher.getIndexReader().numDocs() : 0;
+        m_shadowWriter = new CmsShadowIndexWriter(
+            createLuceneIndexWriter(shadowPath, true),
+            shadowPath,
+            expectedDocuments,
+            m_shadowReindexingPause);
+        return m_shadowWriter;
     }
 
     /**
@@ -2225,7 +2326,11 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      */
     protected synchronized void indexSearcherClose() {
 
-        indexSearcherClose(m_indexSearcher);
+        if (m_searcherManager != null) {
+            indexSearcherCloseNearRealTime();
+        } else {
+            indexSearcherClose(m_indexSearcher);
+        }
     }
 
     /**
@@ -2254,10 +2359,21 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      * for all searches. However, if the index is updated or changed
      * this searcher instance needs to be re-initialized.<p>
      *
+     * If the index writer of this index is kept open and the path is the path of this index,
+     * a near real-time searcher is opened on the index writer, which also sees the changes
+     * that have not been committed yet.<p>
+     *
      * @param path the path to the index directory
      */
     protected synchronized void indexSearcherOpen(String path) {
 
+        if (m_searcherManager != null) {
+            indexSearcherCloseNearRealTime();
+        }
+        IndexWriter nrtWriter = getNearRealTimeWriter();
+        if ((nrtWriter != null) && path.equals(getPath()) && indexSearcherOpenNearRealTime(nrtWriter)) {
+            return;
+        }
         IndexSearcher oldSearcher = null;
         Directory indexDirectory = null;
         try {
@@ -2272,7 +2388,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 }
                 m_indexSearcher = new IndexSearcher(reader);
                 m_indexSearcher.setSimilarity(m_sim);
-                m_displayFilters = new HashMap<String, Filter>();
+                resetDisplayFilters();
             }
         } catch (IOException e) {
             LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_1, getName()), e);
@@ -2293,10 +2409,17 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /**
      * Reopens the index search reader for this index, required after the index has been changed.<p>
      *
+     * If the index writer of this index is kept open, the near real-time searcher is refreshed
+     * from the index writer instead of reopening the reader from the index directory.<p>
+     *
      * @see #indexSearcherOpen(String)
      */
     protected synchronized void indexSearcherUpdate() {
 
+        if ((m_searcherManager != null) || (getNearRealTimeWriter() != null)) {
+            indexSearcherUpdateNearRealTime();
+            return;
+        }
         IndexSearcher oldSearcher = m_indexSearcher;
         if ((oldSearcher != null) && (oldSearcher.getIndexReader() != null)) {
             // in case there is an index searcher available close it
@@ -2454,6 +2577,29 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         }
     }
 
+    /**
+     * Removes the shadow index of a failed or aborted shadow rebuild.<p>
+     *
+     * This index is not changed and keeps being used for searching.<p>
+     */
+    protected synchronized void removeShadowIndex() {
+
+        CmsShadowIndexWriter shadow = m_shadowWriter;
+        if (shadow == null) {
+            // no shadow rebuild running
+            return;
+        }
+        m_shadowWriter = null;
+        try {
+            shadow.close();
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(Messages.LOG_IO_INDEX_WRITER_CLOSE_2, shadow.getPath(), getName()),
+                e);
+        }
+        CmsFileUtil.purgeDirectory(new File(shadow.getPath()));
+    }
+
     /**
      * Sets the index writer.<p>
      *
@@ -2464,6 +2610,138 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         m_indexWriter = writer;
     }
 
+    /**
+     * Replaces this index with the finished shadow index.<p>
+     *
+     * The directory of this index is renamed and the shadow index directory is renamed to the directory of this index,
+     * so the index is never half copied. If the shadow index can not be moved into place, the directory of this index
+     * is restored and the shadow index is removed. Searches keep using the current index until the switch is done.
+     * The writer of the shadow index must already be closed.<p>
+     *
+     * @return the incremental updates of this index recorded during the shadow rebuild, to be replayed on the new index
+     *
+     * @throws CmsIndexException in case the shadow index could not replace this index
+     */
+    protected synchronized List<List<CmsPublishedResource>> swapShadowIndex() throws CmsIndexException {
+
+        CmsShadowIndexWriter shadow = m_shadowWriter;
+        m_shadowWriter = null;
+        File indexDir = new File(getPath());
+        File shadowDir = new File(shadow.getPath());
+        File oldDir = new File(getPath() + "_old");
+        // remove the left overs of an interrupted swap
+        CmsFileUtil.purgeDirectory(oldDir);
+        boolean searcherClosed = false;
+        try {
+            if (m_indexWriter != null) {
+                // the kept index writer must not write to the replaced index
+                m_indexWriter.close();
+                m_indexWriter = null;
+            }
+            if (indexDir.exists()) {
+                try {
+                    moveDirectory(indexDir, oldDir);
+                } catch (IOException e) {
+                    // some platforms do not allow to rename a directory with open files
+                    indexSearcherClose();
+                    searcherClosed = true;
+                    moveDirectory(indexDir, oldDir);
+                }
+            }
+            try {
+                moveDirectory(shadowDir, indexDir);
+            } catch (IOException e) {
+                if (oldDir.exists()) {
+                    // roll back to the current index
+                    try {
+                        moveDirectory(oldDir, indexDir);
+                    } catch (IOException restoreException) {
+                        LOG.error(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_SHADOW_INDEX_RESTORE_FAILED_2,
+                                getName(),
+                                oldDir.getAbsolutePath()),
+                            restoreException);
+                    }
+                }
+                throw e;
+            }
+        } catch (IOException e) {
+            CmsFileUtil.purgeDirectory(shadowDir);
+            if (searcherClosed) {
+                indexSearcherOpen(getPath());
+            }
+            throw new CmsIndexException(
+                Messages.get().container(Messages.ERR_SHADOW_INDEX_SWAP_3, getName(), shadow.getPath(), getPath()),
+                e);
+        }
+        indexSearcherOpen(getPath());
+        CmsFileUtil.purgeDirectory(oldDir);
+        return shadow.removeUpdates();
+    }
+
+    /**
+     * Creates a new Lucene index writer for the given path.<p>
+     *
+     * @param path the path of the index directory
+     * @param create if <code>true</code> a whole new index is created, if <code>false</code> an existing index is updated
+     *
+     * @return the created new index writer
+     *
+     * @throws CmsIndexException in case the writer could not be created
+     */
+    private I_CmsIndexWriter createLuceneIndexWriter(String path, boolean create) throws CmsIndexException {
+
+        IndexWriter indexWriter = null;
+        FSDirectory dir = null;
+        try {
+            File f = new File(path);
+            if (!f.exists()) {
+                f = f.getParentFile();
+                if ((f != null) && (!f.exists())) {
+                    f.mkdirs();
+                }
+
+                create = true;
+            }
+
+            dir = FSDirectory.open(Paths.get(path));
+            IndexWriterConfig indexConfig = new IndexWriterConfig(getAnalyzer());
+            //indexConfig.setMergePolicy(mergePolicy);
+
+            if (m_luceneRAMBufferSizeMB != null) {
+                indexConfig.setRAMBufferSizeMB(m_luceneRAMBufferSizeMB.doubleValue());
+            }
+            if (create) {
+                indexConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+            } else {
+                indexConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            }
+            // register the modified default similarity implementation
+            indexConfig.setSimilarity(m_sim);
+
+            indexWriter = new IndexWriter(dir, indexConfig);
+        } catch (Exception e) {
+            if (dir != null) {
+                dir.close();
+            }
+            if (indexWriter != null) {
+                try {
+                    indexWriter.close();
+                } catch (IOException closeExeception) {
+                    throw new CmsIndexException(
+                        Messages.get().container(Messages.ERR_IO_INDEX_WRITER_OPEN_2, path, getName()),
+                        e);
+                }
+            }
+            throw new CmsIndexException(
+                Messages.get().container(Messages.ERR_IO_INDEX_WRITER_OPEN_2, path, getName()),
+                e);
+        }
+
+        return new CmsLuceneIndexWriter(indexWriter, this);
+    }
+
     private Map<String, Type> createUninvertingMap() {
 
         Map<String, UninvertingReader.Type> uninvertingMap = new HashMap<String, UninvertingReader.Type>();
@@ -2472,4 +2750,131 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return uninvertingMap;
     }
 
+    /**
+     * Returns the open Lucene index writer of this index a near real-time searcher can be opened on.<p>
+     *
+     * @return the open Lucene index writer, or <code>null</code> if there is none or near real-time search is disabled
+     */
+    private IndexWriter getNearRealTimeWriter() {
+
+        if ((m_nrtMaxStaleness >= 0) && (m_indexWriter instanceof CmsLuceneIndexWriter)) {
+            IndexWriter writer = ((CmsLuceneIndexWriter)m_indexWriter).getIndexWriter();
+            if (writer.isOpen()) {
+                return writer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Releases the near real-time searcher and closes the searcher manager.<p>
+     */
+    private void indexSearcherCloseNearRealTime() {
+
+        try {
+            m_searcherManager.release(m_indexSearcher);
+            m_searcherManager.close();
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_CLOSE_1, getName()), e);
+        }
+        m_indexSearcher = null;
+        m_searcherManager = null;
+        m_searcherWriter = null;
+    }
+
+    /**
+     * Opens a near real-time searcher on the given Lucene index writer.<p>
+     *
+     * @param writer the Lucene index writer to open the searcher on
+     *
+     * @return <code>true</code> if the searcher was opened
+     */
+    private boolean indexSearcherOpenNearRealTime(IndexWriter writer) {
+
+        try {
+            DirectoryReader reader = UninvertingReader.wrap(DirectoryReader.open(writer, true), createUninvertingMap());
+            // the searcher manager reopens the wrapped reader, so the uninverting mappings are kept on refresh
+            SearcherManager manager = new SearcherManager(reader, new SearcherFactory() {
+
+                @Override
+                public IndexSearcher newSearcher(IndexReader newReader, IndexReader previousReader) {
+
+                    IndexSearcher searcher = new IndexSearcher(newReader);
+                    searcher.setSimilarity(m_sim);
+                    return searcher;
+                }
+            });
+            IndexSearcher oldSearcher = m_indexSearcher;
+            m_indexSearcher = manager.acquire();
+            m_searcherManager = manager;
+            m_searcherWriter = writer;
+            m_searcherRefreshed = System.currentTimeMillis();
+            resetDisplayFilters();
+            indexSearcherClose(oldSearcher);
+            return true;
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_1, getName()), e);
+        }
+        return false;
+    }
+
+    /**
+     * Refreshes the near real-time searcher, or opens or closes it if the index writer has changed.<p>
+     */
+    private void indexSearcherUpdateNearRealTime() {
+
+        if ((m_searcherManager == null) || (m_searcherWriter != getNearRealTimeWriter())) {
+            // the index writer has been opened, replaced or closed
+            indexSearcherOpen(getPath());
+            return;
+        }
+        try {
+            m_searcherManager.maybeRefreshBlocking();
+            IndexSearcher searcher = m_searcherManager.acquire();
+            if (searcher != m_indexSearcher) {
+                IndexSearcher oldSearcher = m_indexSearcher;
+                m_indexSearcher = searcher;
+                m_searcherManager.release(oldSearcher);
+            } else {
+                m_searcherManager.release(searcher);
+            }
+            m_searcherRefreshed = System.currentTimeMillis();
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_REOPEN_1, getName()), e);
+        }
+    }
+
+    /**
+     * Checks if the near real-time searcher of this index has been refreshed within the configured time.<p>
+     *
+     * @return <code>true</code> if the near real-time searcher can be used without refresh
+     */
+    private synchronized boolean isNearRealTimeSearcherFresh() {
+
+        return (m_searcherManager != null)
+            && (m_searcherWriter == getNearRealTimeWriter())
+            && ((System.currentTimeMillis() - m_searcherRefreshed) < m_nrtMaxStaleness);
+    }
+
+    /**
+     * Renames the given directory.<p>
+     *
+     * @param source the directory to rename
+     * @param target the new name of the directory, must not exist
+     *
+     * @throws IOException in case the directory could not be renamed
+     */
+    private void moveDirectory(File source, File target) throws IOException {
+
+        Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Discards the cached display filters, required whenever a new index searcher is opened.<p>
+     */
+    private void resetDisplayFilters() {
+
+        m_displayFilters = new HashMap<String, Filter>();
+    }
+
 }
@@ -57,6 +57,7 @@ import org.opencms.search.documents.A_CmsVfsDocument;
 import org.opencms.search.documents.CmsExtractionResultCache;
 import org.opencms.search.documents.I_CmsDocumentFactory;
 import org.opencms.search.documents.I_CmsTermHighlighter;
+import org.opencms.search.extractors.A_CmsTextExtractor;
 import org.opencms.search.fields.CmsLuceneField;
 import org.opencms.search.fields.CmsLuceneFieldConfiguration;
 import org.opencms.search.fields.CmsSearchField;
@@ -699,6 +700,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** A list of search indexes. */
     private List<CmsSearchIndex> m_indexes;
 
+    /** The configured number of documents to extract in parallel while indexing, 0 for the number of processors. */
+    private int m_indexingThreads;
+
     /** Seconds to wait for an index lock. */
     private int m_indexLockMaxWaitSeconds = 10;
 
@@ -726,6 +730,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The Solr configuration. */
     private CmsSolrConfiguration m_solrConfig;
 
+    /** The thread managers of the currently running index updates. */
+    private Set<CmsIndexingThreadManager> m_threadManagers;
+
     /** Timeout for abandoning indexing thread. */
     private long m_timeout;
 
@@ -740,6 +747,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_indexes = new ArrayList<CmsSearchIndex>();
         m_indexSources = new TreeMap<String, CmsSearchIndexSource>();
         m_offlineHandler = new CmsSearchOfflineHandler();
+        m_threadManagers = Collections.synchronizedSet(new HashSet<CmsIndexingThreadManager>());
         m_extractionCacheMaxAge = DEFAULT_EXTRACTION_CACHE_MAX_AGE;
         m_maxExcerptLength = DEFAULT_EXCERPT_LENGTH;
         m_offlineUpdateFrequency = DEFAULT_OFFLINE_UPDATE_FREQNENCY;
@@ -1000,6 +1008,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_EVENT_CLEAR_CACHES_0), new Exception());
                 }
+                for (CmsSolrIndex solrIndex : getAllSolrIndexes()) {
+                    solrIndex.getResultCache().clear();
+                }
                 break;
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
                 // event data contains a list of the published resources
@@ -1008,6 +1019,10 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_EVENT_PUBLISH_PROJECT_1, publishHistoryId));
                 }
                 updateAllIndexes(m_adminCms, publishHistoryId, getEventReport(event));
+                // permission changes of published resources do not necessarily change the indexed documents
+                for (CmsSolrIndex solrIndex : getAllSolrIndexes()) {
+                    solrIndex.getResultCache().clear();
+                }
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(
                         Messages.get().getBundle().key(
@@ -1200,6 +1215,26 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return m_extractionCacheMaxAge;
     }
 
+    /**
+     * Returns the maximum number of bytes read from a document for text extraction.<p>
+     *
+     * @return the maximum number of bytes read from a document, <code>0</code> for unlimited
+     */
+    public long getExtractionMaxBytes() {
+
+        return A_CmsTextExtractor.getMaxBytes();
+    }
+
+    /**
+     * Returns the maximum number of characters extracted from a document.<p>
+     *
+     * @return the maximum number of characters extracted from a document, <code>0</code> for unlimited
+     */
+    public int getExtractionMaxChars() {
+
+        return A_CmsTextExtractor.getMaxChars();
+    }
+
     /**
      * Returns the search field configuration with the given name.<p>
      *
@@ -1299,6 +1334,17 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return null;
     }
 
+    /**
+     * Returns the configured number of documents to extract in parallel while indexing.<p>
+     *
+     * @return the configured number of documents to extract in parallel, or <code>0</code> if the
+     *      number of available processors is used
+     */
+    public int getIndexingThreads() {
+
+        return m_indexingThreads;
+    }
+
     /**
      * Returns the seconds to wait for an index lock during an update operation.<p>
      *
@@ -1644,34 +1690,29 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     public void rebuildAllIndexes(I_CmsReport report) throws CmsException {
 
-        try {
-            SEARCH_MANAGER_LOCK.lock();
-
-            CmsMessageContainer container = null;
-            for (int i = 0, n = m_indexes.size(); i < n; i++) {
-                // iterate all configured search indexes
-                CmsSearchIndex searchIndex = m_indexes.get(i);
-                try {
-                    // update the index
-                    updateIndex(searchIndex, report, null);
-                } catch (CmsException e) {
-                    container = new CmsMessageContainer(
-                        Messages.get(),
-                        Messages.ERR_INDEX_REBUILD_ALL_1,
-                        new Object[] {searchIndex.getName()});
-                    LOG.error(
-                        Messages.get().getBundle().key(Messages.ERR_INDEX_REBUILD_ALL_1, searchIndex.getName()),
-                        e);
-                }
-            }
-            // clean up the extraction result cache
-            cleanExtractionCache();
-            if (container != null) {
-                // throw stored exception
-                throw new CmsSearchException(container);
+        // the lock is acquired for each index, so it is not held while an index is rebuilt in a shadow index
+        CmsMessageContainer container = null;
+        for (int i = 0, n = m_indexes.size(); i < n; i++) {
+            // iterate all configured search indexes
+            CmsSearchIndex searchIndex = m_indexes.get(i);
+            try {
+                // update the index
+                updateIndex(searchIndex, report, null);
+            } catch (CmsException e) {
+                container = new CmsMessageContainer(
+                    Messages.get(),
+                    Messages.ERR_INDEX_REBUILD_ALL_1,
+                    new Object[] {searchIndex.getName()});
+                LOG.error(
+                    Messages.get().getBundle().key(Messages.ERR_INDEX_REBUILD_ALL_1, searchIndex.getName()),
+                    e);
             }
-        } finally {
-            SEARCH_MANAGER_LOCK.unlock();
+        }
+        // clean up the extraction result cache
+        cleanExtractionCache();
+        if (container != null) {
+            // throw stored exception
+            throw new CmsSearchException(container);
         }
     }
 
@@ -1685,17 +1726,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     public void rebuildIndex(String indexName, I_CmsReport report) throws CmsException {
 
-        try {
-            SEARCH_MANAGER_LOCK.lock();
-            // get the search index by name
-            CmsSearchIndex index = getIndex(indexName);
-            // update the index
-            updateIndex(index, report, null);
-            // clean up the extraction result cache
-            cleanExtractionCache();
-        } finally {
-            SEARCH_MANAGER_LOCK.unlock();
-        }
+        // get the search index by name
+        CmsSearchIndex index = getIndex(indexName);
+        // update the index
+        updateIndex(index, report, null);
+        // clean up the extraction result cache
+        cleanExtractionCache();
     }
 
     /**
@@ -1708,27 +1744,22 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     public void rebuildIndexes(List<String> indexNames, I_CmsReport report) throws CmsException {
 
-        try {
-            SEARCH_MANAGER_LOCK.lock();
-            Iterator<String> i = indexNames.iterator();
-            while (i.hasNext()) {
-                String indexName = i.next();
-                // get the search index by name
-                CmsSearchIndex index = getIndex(indexName);
-                if (index != null) {
-                    // update the index
-                    updateIndex(index, report, null);
-                } else {
-                    if (LOG.isWarnEnabled()) {
-                        LOG.warn(Messages.get().getBundle().key(Messages.LOG_NO_INDEX_WITH_NAME_1, indexName));
-                    }
+        Iterator<String> i = indexNames.iterator();
+        while (i.hasNext()) {
+            String indexName = i.next();
+            // get the search index by name
+            CmsSearchIndex index = getIndex(indexName);
+            if (index != null) {
+                // update the index
+                updateIndex(index, report, null);
+            } else {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(Messages.get().getBundle().key(Messages.LOG_NO_INDEX_WITH_NAME_1, indexName));
                 }
             }
-            // clean up the extraction result cache
-            cleanExtractionCache();
-        } finally {
-            SEARCH_MANAGER_LOCK.unlock();
         }
+        // clean up the extraction result cache
+        cleanExtractionCache();
     }
 
     /**
@@ -2080,6 +2111,60 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the maximum number of bytes read from a document for text extraction.<p>
+     *
+     * Larger documents are only partially extracted.<p>
+     *
+     * @param maxBytes the maximum number of bytes read from a document, <code>0</code> for unlimited
+     */
+    public void setExtractionMaxBytes(long maxBytes) {
+
+        A_CmsTextExtractor.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Sets the maximum number of bytes read from a document for text extraction as a String.<p>
+     *
+     * @param value the maximum number of bytes read from a document
+     */
+    public void setExtractionMaxBytes(String value) {
+
+        try {
+            setExtractionMaxBytes(Long.parseLong(value.trim()));
+        } catch (Exception e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_PARSE_EXTRACTION_MAX_BYTES_FAILED_1, value), e);
+            setExtractionMaxBytes(0);
+        }
+    }
+
+    /**
+     * Sets the maximum number of characters extracted from a document.<p>
+     *
+     * The text of larger documents is truncated.<p>
+     *
+     * @param maxChars the maximum number of characters extracted from a document, <code>0</code> for unlimited
+     */
+    public void setExtractionMaxChars(int maxChars) {
+
+        A_CmsTextExtractor.setMaxChars(maxChars);
+    }
+
+    /**
+     * Sets the maximum number of characters extracted from a document as a String.<p>
+     *
+     * @param value the maximum number of characters extracted from a document
+     */
+    public void setExtractionMaxChars(String value) {
+
+        try {
+            setExtractionMaxChars(Integer.parseInt(value.trim()));
+        } catch (Exception e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_PARSE_EXTRACTION_MAX_CHARS_FAILED_1, value), e);
+            setExtractionMaxChars(0);
+        }
+    }
+
     /**
      * Sets the unlock mode during indexing.<p>
      *
@@ -2107,6 +2192,32 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the number of documents to extract in parallel while indexing.<p>
+     *
+     * @param indexingThreads the number of documents to extract in parallel,
+     *      <code>0</code> to use the number of available processors
+     */
+    public void setIndexingThreads(int indexingThreads) {
+
+        m_indexingThreads = Math.max(0, indexingThreads);
+    }
+
+    /**
+     * Sets the number of documents to extract in parallel while indexing as a string.<p>
+     *
+     * @param value the number of documents to extract in parallel
+     */
+    public void setIndexingThreads(String value) {
+
+        try {
+            setIndexingThreads(Integer.parseInt(value.trim()));
+        } catch (Exception e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_PARSE_INDEXING_THREADS_FAILED_1, value), e);
+            setIndexingThreads(0);
+        }
+    }
+
     /**
      * Sets the seconds to wait for an index lock during an update operation.<p>
      *
@@ -2298,6 +2409,20 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
         m_indexes.clear();
 
+        // stop the workers of index updates that are still running
+        List<CmsIndexingThreadManager> threadManagers;
+        synchronized (m_threadManagers) {
+            threadManagers = new ArrayList<CmsIndexingThreadManager>(m_threadManagers);
+            m_threadManagers.clear();
+        }
+        for (CmsIndexingThreadManager threadManager : threadManagers) {
+            threadManager.shutDown();
+        }
+
+        if (m_extractionResultCache != null) {
+            m_extractionResultCache.shutDown();
+        }
+
         shutDownSolrContainer();
 
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -2353,8 +2478,13 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected void cleanExtractionCache() {
 
-        // clean up the extraction result cache
-        m_extractionResultCache.cleanCache(m_extractionCacheMaxAge);
+        try {
+            SEARCH_MANAGER_LOCK.lock();
+            // clean up the extraction result cache
+            m_extractionResultCache.cleanCache(m_extractionCacheMaxAge);
+        } finally {
+            SEARCH_MANAGER_LOCK.unlock();
+        }
     }
 
     /**
@@ -2485,7 +2615,13 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected CmsIndexingThreadManager getThreadManager() {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        int threads = m_indexingThreads > 0 ? m_indexingThreads : Runtime.getRuntime().availableProcessors();
+        CmsIndexingThreadManager threadManager = new CmsIndexingThreadManager(
+            m_timeout,
+            m_maxModificationsBeforeCommit,
+            threads);
+        m_threadManagers.add(threadManager);
+        return threadManager;
     }
 
     /**
@@ -2604,6 +2740,17 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Stops the worker threads of the given thread manager after an index update has finished.<p>
+     *
+     * @param threadManager the thread manager returned by {@link #getThreadManager()}
+     */
+    protected void releaseThreadManager(CmsIndexingThreadManager threadManager) {
+
+        m_threadManagers.remove(threadManager);
+        threadManager.shutDown();
+    }
+
     /**
      * Incrementally updates all indexes that have their rebuild mode set to <code>"auto"</code>
      * after resources have been published.<p>
@@ -2732,26 +2879,32 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     protected void updateIndex(CmsSearchIndex index, I_CmsReport report, List<CmsPublishedResource> resourcesToIndex)
     throws CmsException {
 
-        try {
-            SEARCH_MANAGER_LOCK.lock();
+        // copy the stored admin context for the indexing
+        CmsObject cms = OpenCms.initCmsObject(m_adminCms);
+        // make sure a report is available
+        if (report == null) {
+            report = new CmsLogReport(cms.getRequestContext().getLocale(), CmsSearchManager.class);
+        }
 
-            // copy the stored admin context for the indexing
-            CmsObject cms = OpenCms.initCmsObject(m_adminCms);
-            // make sure a report is available
-            if (report == null) {
-                report = new CmsLogReport(cms.getRequestContext().getLocale(), CmsSearchManager.class);
-            }
+        // check if the index has been configured correctly
+        if (!index.checkConfiguration(cms)) {
+            // the index is disabled
+            return;
+        }
 
-            // check if the index has been configured correctly
-            if (!index.checkConfiguration(cms)) {
-                // the index is disabled
-                return;
-            }
+        // set site root and project for this index
+        cms.getRequestContext().setSiteRoot("/");
+        // switch to the index project
+        cms.getRequestContext().setCurrentProject(cms.readProject(index.getProject()));
 
-            // set site root and project for this index
-            cms.getRequestContext().setSiteRoot("/");
-            // switch to the index project
-            cms.getRequestContext().setCurrentProject(cms.readProject(index.getProject()));
+        if (((resourcesToIndex == null) || resourcesToIndex.isEmpty()) && index.isShadowReindexing()) {
+            // rebuild the complete index in a shadow index, the index is still used until the rebuild has finished
+            updateIndexShadow(cms, index, report);
+            return;
+        }
+
+        try {
+            SEARCH_MANAGER_LOCK.lock();
 
             if ((resourcesToIndex == null) || resourcesToIndex.isEmpty()) {
                 // rebuild the complete index
@@ -2850,6 +3003,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                         I_CmsReport.FORMAT_HEADLINE);
 
                 } finally {
+                    releaseThreadManager(threadManager);
                     if (writer != null) {
                         try {
                             writer.close();
@@ -2905,6 +3059,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         try {
             SEARCH_MANAGER_LOCK.lock();
 
+            CmsShadowIndexWriter shadowWriter = index.getShadowIndexWriter();
+            if (shadowWriter != null) {
+                // the index is rebuilt in a shadow index, which has to receive this update as well
+                shadowWriter.addUpdate(resourcesToIndex);
+            }
+
             // update the existing index
             List<CmsSearchIndexUpdateData> updateCollections = new ArrayList<CmsSearchIndexUpdateData>();
 
@@ -2956,26 +3116,29 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     if (hasResourcesToUpdate) {
                         // create a new thread manager
                         CmsIndexingThreadManager threadManager = getThreadManager();
-
-                        Iterator<CmsSearchIndexUpdateData> i = updateCollections.iterator();
-                        while (i.hasNext()) {
-                            CmsSearchIndexUpdateData updateCollection = i.next();
-                            if (updateCollection.hasResourceToUpdate()) {
-                                updateCollection.getIndexer().updateResources(
-                                    writer,
-                                    threadManager,
-                                    updateCollection.getResourcesToUpdate());
+                        try {
+                            Iterator<CmsSearchIndexUpdateData> i = updateCollections.iterator();
+                            while (i.hasNext()) {
+                                CmsSearchIndexUpdateData updateCollection = i.next();
+                                if (updateCollection.hasResourceToUpdate()) {
+                                    updateCollection.getIndexer().updateResources(
+                                        writer,
+                                        threadManager,
+                                        updateCollection.getResourcesToUpdate());
+                                }
                             }
-                        }
 
-                        // wait for indexing threads to finish
-                        while (threadManager.isRunning()) {
-                            try {
-                                Thread.sleep(500);
-                            } catch (InterruptedException e) {
-                                // just continue with the loop after interruption
-                                LOG.info(e.getLocalizedMessage(), e);
+                            // wait for indexing threads to finish
+                            while (threadManager.isRunning()) {
+                                try {
+                                    Thread.sleep(500);
+                                } catch (InterruptedException e) {
+                                    // just continue with the loop after interruption
+                                    LOG.info(e.getLocalizedMessage(), e);
+                                }
                             }
+                        } finally {
+                            releaseThreadManager(threadManager);
                         }
                     }
                 } finally {
@@ -3039,6 +3202,123 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Rebuilds the given index in a shadow index.<p>
+     *
+     * While the shadow index is built, the index is still used for searching and the search manager lock
+     * is not held, so the index keeps being updated incrementally. These incremental updates are recorded
+     * and replayed after the finished shadow index has replaced the index.
+     * The rebuild runs with minimum thread priority and can be throttled further with the
+     * {@link CmsSearchIndex#SHADOW_REINDEXING_PAUSE} parameter of the index.
+     * This method must not be called while the search manager lock is held.<p>
+     *
+     * @param cms the OpenCms user context to use for accessing the VFS
+     * @param index the index to rebuild
+     * @param report the report to write output messages to
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void updateIndexShadow(CmsObject cms, CmsSearchIndex index, I_CmsReport report) throws CmsException {
+
+        CmsShadowIndexWriter writer;
+        try {
+            SEARCH_MANAGER_LOCK.lock();
+            if (index.getShadowIndexWriter() != null) {
+                report.println(
+                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_SHADOW_RUNNING_1, index.getName()),
+                    I_CmsReport.FORMAT_WARNING);
+                return;
+            }
+            // from now on the incremental updates of the index are recorded
+            writer = index.createShadowIndexWriter();
+        } finally {
+            SEARCH_MANAGER_LOCK.unlock();
+        }
+        report.println(
+            Messages.get().container(Messages.RPT_SEARCH_INDEXING_SHADOW_BEGIN_1, index.getName()),
+            I_CmsReport.FORMAT_HEADLINE);
+
+        // create a new thread manager for the indexing threads
+        CmsIndexingThreadManager threadManager = getThreadManager();
+        int oldPriority = Thread.currentThread().getPriority();
+        boolean finished = false;
+        try {
+            Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+
+            // iterate all configured index sources of this index
+            Iterator<CmsSearchIndexSource> sources = index.getSources().iterator();
+            while (sources.hasNext()) {
+                // get the next index source
+                CmsSearchIndexSource source = sources.next();
+                // create the indexer
+                I_CmsIndexer indexer = source.getIndexer().newInstance(cms, report, index);
+                // new index creation, use all resources from the index source
+                indexer.rebuildIndex(writer, threadManager, source);
+
+                // wait for indexing threads to finish
+                while (threadManager.isRunning()) {
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        // just continue with the loop after interruption
+                        LOG.info(e.getLocalizedMessage(), e);
+                    }
+                }
+            }
+            try {
+                writer.optimize();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_IO_INDEX_WRITER_OPTIMIZE_2,
+                            index.getName(),
+                            writer.getPath()),
+                        e);
+                }
+            }
+            try {
+                // closing the writer commits the shadow index
+                writer.close();
+            } catch (IOException e) {
+                throw new CmsIndexException(
+                    Messages.get().container(Messages.LOG_IO_INDEX_WRITER_CLOSE_2, writer.getPath(), index.getName()),
+                    e);
+            }
+            finished = true;
+        } finally {
+            releaseThreadManager(threadManager);
+            Thread.currentThread().setPriority(oldPriority);
+            if (!finished) {
+                // keep the current index
+                index.removeShadowIndex();
+            }
+        }
+
+        try {
+            // no incremental updates can happen while the index is switched and the recorded updates are replayed
+            SEARCH_MANAGER_LOCK.lock();
+            List<List<CmsPublishedResource>> updates = index.swapShadowIndex();
+            report.println(
+                Messages.get().container(
+                    Messages.RPT_SEARCH_INDEXING_SHADOW_REPLAY_2,
+                    index.getName(),
+                    Integer.valueOf(updates.size())),
+                I_CmsReport.FORMAT_HEADLINE);
+            for (List<CmsPublishedResource> update : updates) {
+                updateIndexIncremental(cms, index, report, update);
+            }
+        } finally {
+            SEARCH_MANAGER_LOCK.unlock();
+        }
+        report.println(
+            Messages.get().container(Messages.RPT_SEARCH_INDEXING_REBUILD_END_1, index.getName()),
+            I_CmsReport.FORMAT_HEADLINE);
+
+        // show information about indexing runtime
+        threadManager.reportStatistics(report);
+    }
+
     /**
      * Checks if the given containerpage is used as a detail containers and adds the related detail content to the resource set.<p>
      *
@@ -0,0 +1,228 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.db.CmsPublishedResource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index writer for the shadow rebuild of a search index.<p>
+ *
+ * The shadow index is built in a separate directory while the current index is still used for searching.
+ * This writer delegates to the writer of the shadow index, throttles the rebuild by pausing after each
+ * written document and keeps track of the rebuild progress.
+ * The incremental updates of the current index done during the rebuild are recorded,
+ * so they can be replayed on the shadow index after it has replaced the current index.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsShadowIndexWriter implements I_CmsIndexWriter {
+
+    /** The writer of the shadow index. */
+    private final I_CmsIndexWriter m_delegate;
+
+    /** The number of documents written to the shadow index. */
+    private volatile int m_documentCount;
+
+    /** The expected number of documents, taken from the current index. */
+    private final int m_expectedDocumentCount;
+
+    /** The path of the shadow index. */
+    private final String m_path;
+
+    /** The time in milliseconds to pause after each written document. */
+    private final long m_pause;
+
+    /** The time the rebuild was started. */
+    private final long m_startTime;
+
+    /** The incremental updates of the current index done during the rebuild. */
+    private final List<List<CmsPublishedResource>> m_updates;
+
+    /**
+     * Creates a new shadow index writer.<p>
+     *
+     * @param delegate the writer of the shadow index
+     * @param path the path of the shadow index
+     * @param expectedDocumentCount the expected number of documents
+     * @param pause the time in milliseconds to pause after each written document
+     */
+    public CmsShadowIndexWriter(I_CmsIndexWriter delegate, String path, int expectedDocumentCount, long pause) {
+
+        m_delegate = delegate;
+        m_path = path;
+        m_expectedDocumentCount = expectedDocumentCount;
+        m_pause = pause;
+        m_startTime = System.currentTimeMillis();
+        m_updates = new ArrayList<List<CmsPublishedResource>>();
+    }
+
+    /**
+     * @see org.opencms.search.I_CmsIndexWriter#close()
+     */
+    public void close() throws IOException {
+
+        m_delegate.close();
+    }
+
+    /**
+     * @see org.opencms.search.I_CmsIndexWriter#commit()
+     */
+    public void commit() throws IOException {
+
+        m_delegate.commit();
+    }
+
+    /**
+     * @see org.opencms.search.I_CmsIndexWriter#deleteDocument(org.opencms.db.CmsPublishedResource)
+     */
+    public void deleteDocument(CmsPublishedResource resource) throws IOException {
+
+        m_delegate.deleteDocument(resource);
+    }
+
+    /**
+     * Returns the number of documents written to the shadow index.<p>
+     *
+     * @return the number of documents written to the shadow index
+     */
+    public int getDocumentCount() {
+
+        return m_documentCount;
+    }
+
+    /**
+     * Returns the expected number of documents, which is the number of documents in the current index.<p>
+     *
+     * @return the expected number of documents
+     */
+    public int getExpectedDocumentCount() {
+
+        return m_expectedDocumentCount;
+    }
+
+    /**
+     * Returns the path of the shadow index.<p>
+     *
+     * @return the path of the shadow index
+     */
+    public String getPath() {
+
+        return m_path;
+    }
+
+    /**
+     * Returns the estimated progress of the rebuild in percent.<p>
+     *
+     * Since the number of documents is only estimated, the progress stays at 99 percent
+     * until the rebuild has finished.<p>
+     *
+     * @return the estimated progress of the rebuild in percent
+     */
+    public int getProgress() {
+
+        if (m_expectedDocumentCount <= 0) {
+            return 0;
+        }
+        return (int)Math.min(99, (100L * m_documentCount) / m_expectedDocumentCount);
+    }
+
+    /**
+     * Returns the estimated remaining time of the rebuild in milliseconds.<p>
+     *
+     * @return the estimated remaining time in milliseconds, or <code>-1</code> if it can not be estimated yet
+     */
+    public long getRemainingTime() {
+
+        int documentCount = m_documentCount;
+        if ((documentCount <= 0) || (m_expectedDocumentCount <= 0)) {
+            return -1;
+        }
+        long elapsed = System.currentTimeMillis() - m_startTime;
+        return Math.max(0, ((elapsed * m_expectedDocumentCount) / documentCount) - elapsed);
+    }
+
+    /**
+     * Returns the time the rebuild was started.<p>
+     *
+     * @return the time the rebuild was started
+     */
+    public long getStartTime() {
+
+        return m_startTime;
+    }
+
+    /**
+     * @see org.opencms.search.I_CmsIndexWriter#optimize()
+     */
+    public void optimize() throws IOException {
+
+        m_delegate.optimize();
+    }
+
+    /**
+     * @see org.opencms.search.I_CmsIndexWriter#updateDocument(java.lang.String, org.opencms.search.I_CmsSearchDocument)
+     */
+    public void updateDocument(String rootPath, I_CmsSearchDocument document) throws IOException {
+
+        m_delegate.updateDocument(rootPath, document);
+        m_documentCount++;
+        if (m_pause > 0) {
+            try {
+                Thread.sleep(m_pause);
+            } catch (InterruptedException e) {
+                // just continue with the rebuild after interruption
+            }
+        }
+    }
+
+    /**
+     * Records an incremental update of the current index, to be replayed on the shadow index.<p>
+     *
+     * @param resources the published resources of the update
+     */
+    protected synchronized void addUpdate(List<CmsPublishedResource> resources) {
+
+        m_updates.add(new ArrayList<CmsPublishedResource>(resources));
+    }
+
+    /**
+     * Returns the recorded incremental updates of the current index and clears the record.<p>
+     *
+     * @return the recorded incremental updates
+     */
+    protected synchronized List<List<CmsPublishedResource>> removeUpdates() {
+
+        List<List<CmsPublishedResource>> result = new ArrayList<List<CmsPublishedResource>>(m_updates);
+        m_updates.clear();
+        return result;
+    }
+}
@@ -35,12 +35,16 @@ import org.opencms.file.CmsResourceFilter;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.report.I_CmsReport;
+import org.opencms.search.fields.CmsSearchField;
 import org.opencms.util.CmsUUID;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 
@@ -60,12 +64,18 @@ public class CmsVfsIndexer implements I_CmsIndexer {
     /** The OpenCms user context to use when reading resources from the VFS during indexing. */
     protected CmsObject m_cms;
 
+    /** The root paths of the resources deleted by this indexer, these documents are always written again. */
+    protected Set<String> m_deletedRootPaths = Collections.synchronizedSet(new HashSet<String>());
+
     /** The index. */
     protected CmsSearchIndex m_index;
 
     /** The report. */
     protected I_CmsReport m_report;
 
+    /** Indicates if this indexer updates an existing index, only then documents may be unchanged in the index. */
+    protected volatile boolean m_updating;
+
     /**
      * @see org.opencms.search.I_CmsIndexer#deleteResources(org.opencms.search.I_CmsIndexWriter, java.util.List)
      */
@@ -242,6 +252,8 @@ public class CmsVfsIndexer implements I_CmsIndexer {
             return;
         }
 
+        m_updating = true;
+
         // contains all resources already updated to avoid multiple updates in case of siblings
         List<String> resourcesAlreadyUpdated = new ArrayList<String>(resourcesToUpdate.size());
 
@@ -306,6 +318,7 @@ public class CmsVfsIndexer implements I_CmsIndexer {
                 LOG.info(Messages.get().getBundle().key(Messages.LOG_DELETING_FROM_INDEX_1, resource.getRootPath()));
             }
             // delete all documents with this term from the index
+            m_deletedRootPaths.add(resource.getRootPath());
             indexWriter.deleteDocument(resource);
         } catch (IOException e) {
             if (LOG.isWarnEnabled()) {
@@ -319,6 +332,31 @@ public class CmsVfsIndexer implements I_CmsIndexer {
         }
     }
 
+    /**
+     * Checks if the given document is unchanged in the index.<p>
+     *
+     * This is the case if the index already contains a document for the root path
+     * with the same digest as the given document.<p>
+     *
+     * @param rootPath the root path of the resource
+     * @param doc the new document for the resource, containing the digest field
+     *
+     * @return <code>true</code> if the given document is unchanged in the index
+     */
+    protected boolean isDocumentUnchanged(String rootPath, I_CmsSearchDocument doc) {
+
+        if (!m_updating || m_deletedRootPaths.contains(rootPath)) {
+            // the document is not (or no longer) in the index
+            return false;
+        }
+        String digest = doc.getFieldValueAsString(CmsSearchField.FIELD_DIGEST);
+        if (digest == null) {
+            return false;
+        }
+        I_CmsSearchDocument indexedDoc = m_index.getDocument(CmsSearchField.FIELD_PATH, rootPath);
+        return (indexedDoc != null) && digest.equals(indexedDoc.getFieldValueAsString(CmsSearchField.FIELD_DIGEST));
+    }
+
     /**
      * Checks if the published resource is inside the time window set with release and expiration date.<p>
      *
@@ -384,6 +422,19 @@ public class CmsVfsIndexer implements I_CmsIndexer {
     protected void updateResource(I_CmsIndexWriter indexWriter, String rootPath, I_CmsSearchDocument doc) {
 
         try {
+            if (m_index.isSkippingUnchangedDocuments()) {
+                doc.addDigestField();
+                if (isDocumentUnchanged(rootPath, doc)) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_INDEX_DOCUMENT_UNCHANGED_2,
+                                rootPath,
+                                m_index.getName()));
+                    }
+                    return;
+                }
+            }
             indexWriter.updateDocument(rootPath, doc);
         } catch (Exception e) {
             if (LOG.isWarnEnabled()) {
@@ -85,6 +85,14 @@ public interface I_CmsSearchDocument {
      */
     void addDateField(String name, long date, boolean analyzed);
 
+    /**
+     * Adds a field with the digest of all other fields of this document.<p>
+     *
+     * The digest is used to detect documents that are unchanged in the index.
+     * No digest is added if the field values of this document can not be read.<p>
+     */
+    void addDigestField();
+
     /**
      * Adds the given file size as field to this document.<p>
      *
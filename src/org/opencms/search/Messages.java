@@ -148,6 +148,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_SEARCHINDEX_CREATE_MISSING_NAME_0 = "ERR_SEARCHINDEX_CREATE_MISSING_NAME_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_SHADOW_INDEX_SWAP_3 = "ERR_SHADOW_INDEX_SWAP_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_SOLR_CORE_CONTAINER_NOT_CREATED_1 = "ERR_SOLR_CORE_CONTAINER_NOT_CREATED_1";
 
@@ -271,6 +274,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INDEX_ACCESS_FAILED_1 = "LOG_INDEX_ACCESS_FAILED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_INDEX_DOCUMENT_UNCHANGED_2 = "LOG_INDEX_DOCUMENT_UNCHANGED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INDEX_WRITER_MSG_CLOSE_2 = "LOG_INDEX_WRITER_MSG_CLOSE_2";
 
@@ -355,6 +361,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PARSE_EXTRACTION_CACHE_AGE_FAILED_2 = "LOG_PARSE_EXTRACTION_CACHE_AGE_FAILED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PARSE_EXTRACTION_MAX_BYTES_FAILED_1 = "LOG_PARSE_EXTRACTION_MAX_BYTES_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PARSE_EXTRACTION_MAX_CHARS_FAILED_1 = "LOG_PARSE_EXTRACTION_MAX_CHARS_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PARSE_INDEXING_THREADS_FAILED_1 = "LOG_PARSE_INDEXING_THREADS_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PARSE_MAXCOMMIT_FAILED_2 = "LOG_PARSE_MAXCOMMIT_FAILED_2";
 
@@ -411,6 +426,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SEARCHING_FAILED_0 = "LOG_SEARCHING_FAILED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SHADOW_INDEX_RESTORE_FAILED_2 = "LOG_SHADOW_INDEX_RESTORE_FAILED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SKIPPED_1 = "LOG_SKIPPED_1";
 
@@ -459,12 +477,24 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_SEARCH_INDEXING_REBUILD_END_1 = "RPT_SEARCH_INDEXING_REBUILD_END_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_SEARCH_INDEXING_SHADOW_BEGIN_1 = "RPT_SEARCH_INDEXING_SHADOW_BEGIN_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_SEARCH_INDEXING_SHADOW_REPLAY_2 = "RPT_SEARCH_INDEXING_SHADOW_REPLAY_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_SEARCH_INDEXING_SHADOW_RUNNING_1 = "RPT_SEARCH_INDEXING_SHADOW_RUNNING_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_SEARCH_INDEXING_STATS_4 = "RPT_SEARCH_INDEXING_STATS_4";
 
     /** Message constant for key in the resource bundle. */
     public static final String RPT_SEARCH_INDEXING_TIMEOUT_1 = "RPT_SEARCH_INDEXING_TIMEOUT_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_SEARCH_INDEXING_TRUNCATED_1 = "RPT_SEARCH_INDEXING_TRUNCATED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_SEARCH_INDEXING_UPDATE_BEGIN_1 = "RPT_SEARCH_INDEXING_UPDATE_BEGIN_1";
 
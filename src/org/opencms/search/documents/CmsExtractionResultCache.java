@@ -27,7 +27,6 @@
 
 package org.opencms.search.documents;
 
-import org.opencms.cache.CmsVfsDiskCache;
 import org.opencms.file.CmsResource;
 import org.opencms.main.CmsLog;
 import org.opencms.search.extractors.CmsExtractionResult;
@@ -36,7 +35,21 @@ import org.opencms.util.CmsFileUtil;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
 
 import org.apache.commons.logging.Log;
 
@@ -57,16 +70,105 @@ import org.apache.commons.logging.Log;
  * project will have a new hash code compared to the online project. If the resource is identical in the online and
  * the offline project, the generated hash codes will be the same.<p>
  *
+ * The extraction results are stored in the compact binary format of {@link CmsExtractionResult#getBytes()},
+ * appended to segment files in the cache repository folder. An index in memory maps the cache names
+ * to the records in the segment files, it is rebuilt from the record headers on first access.
+ * The segment files are read via memory mapping. The time of the last access is stored in the record header,
+ * it is rewritten at most once per {@link #ACCESS_TIME_UPDATE_INTERVAL} when the record is read.
+ * Expired entries are only removed from the index,
+ * segments with too few remaining entries are compacted by copying these entries to the current segment.<p>
+ *
  * @since 6.2.0
  */
 public class CmsExtractionResultCache {
 
+    /**
+     * An entry of the cache index, pointing to a record in a segment file.<p>
+     */
+    private static class CmsCacheEntry {
+
+        /** The checksum of the record data. */
+        final int m_checksum;
+
+        /** The time the entry was last accessed, as stored in the record header. */
+        volatile long m_lastAccess;
+
+        /** The length of the record data. */
+        final int m_length;
+
+        /** The offset of the record data in the segment file. */
+        final int m_offset;
+
+        /** The number of the segment file. */
+        final int m_segment;
+
+        /**
+         * Creates a new cache entry.<p>
+         *
+         * @param segment the number of the segment file
+         * @param offset the offset of the record data in the segment file
+         * @param length the length of the record data
+         * @param checksum the checksum of the record data
+         * @param lastAccess the time the entry was last accessed
+         */
+        CmsCacheEntry(int segment, int offset, int length, int checksum, long lastAccess) {
+
+            m_segment = segment;
+            m_offset = offset;
+            m_length = length;
+            m_checksum = checksum;
+            m_lastAccess = lastAccess;
+        }
+    }
+
+    /** The minimum time in milliseconds between two updates of the access time stored in a record header. */
+    public static final long ACCESS_TIME_UPDATE_INTERVAL = 60L * 1000L;
+
+    /** The file name prefix of the segment files. */
+    public static final String SEGMENT_PREFIX = "segment_";
+
+    /** The file name suffix of the segment files. */
+    public static final String SEGMENT_SUFFIX = ".seg";
+
+    /** The share of remaining data below which a segment file is compacted. */
+    private static final float COMPACTION_THRESHOLD = 0.5f;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsExtractionResultCache.class);
 
+    /** The size of a segment file after which a new segment file is started. */
+    private static final long MAX_SEGMENT_SIZE = 64L * 1024L * 1024L;
+
+    /** The size of the record header: marker, time, key length, data length and checksum. */
+    private static final int RECORD_HEADER_SIZE = 24;
+
+    /** The marker at the start of each record in a segment file ("OCXR"). */
+    private static final int RECORD_MARKER = 0x4F435852;
+
+    /** The charset of the cache names in the segment files. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Indicates if the cache repository contains cache files of the format used by older versions. */
+    private boolean m_hasLegacyFiles;
+
+    /** The cache index, mapping the cache names to the records in the segment files. */
+    private ConcurrentMap<String, CmsCacheEntry> m_index;
+
+    /** Indicates if the cache index has been loaded. */
+    private volatile boolean m_loaded;
+
+    /** The memory mapped segment files by segment number. */
+    private Map<Integer, MappedByteBuffer> m_mappedSegments;
+
     /** The name of the cache base repository folder in the RFS. */
     private String m_rfsRepository;
 
+    /** The segment file new records are appended to. */
+    private RandomAccessFile m_segmentFile;
+
+    /** The number of the segment file new records are appended to. */
+    private int m_segmentNumber;
+
     /**
      * Creates a new disk cache.<p>
      *
@@ -77,46 +179,68 @@ public class CmsExtractionResultCache {
 
         // normalize the given folder name
         m_rfsRepository = CmsFileUtil.normalizePath(basepath + foldername + File.separatorChar);
+        m_index = new ConcurrentHashMap<String, CmsCacheEntry>();
+        m_mappedSegments = new ConcurrentHashMap<Integer, MappedByteBuffer>();
     }
 
     /**
      * Removes all expired extraction result cache entries from the RFS cache.<p>
      *
-     * @param maxAge the maximum age of the extraction result cache files in hours (or fractions of hours)
+     * Segment files without remaining entries are deleted, segment files with only few remaining entries
+     * are compacted.<p>
+     *
+     * @param maxAge the maximum age of the extraction result cache entries in hours (or fractions of hours)
      *
-     * @return the total number of deleted resources
+     * @return the total number of deleted entries
      */
     public synchronized int cleanCache(float maxAge) {
 
-        // calculate oldest possible date for the cache files
+        // calculate oldest possible date for the cache entries
         long expireDate = System.currentTimeMillis() - (long)(maxAge * 60.0f * 60.0f * 1000.0f);
-        File basedir = new File(m_rfsRepository);
-        // perform the cache cleanup
+        loadIndex();
         int count = 0;
-        if (basedir.canRead() && basedir.isDirectory()) {
-            File[] files = basedir.listFiles();
-            if (files != null) {
-                for (int i = 0; i < files.length; i++) {
-                    File f = files[i];
-                    if (f.canWrite()) {
-                        if (f.lastModified() < expireDate) {
-                            try {
-                                f.delete();
-                                count++;
-                            } catch (Exception e) {
-                                if (LOG.isWarnEnabled()) {
-                                    LOG.warn(
-                                        Messages.get().getBundle().key(
-                                            Messages.LOG_EXCERPT_CACHE_DELETE_ERROR_1,
-                                            f.getAbsolutePath()),
-                                        e);
-                                }
-                            }
-                        }
-                    }
+        // remove the expired entries from the index and collect the remaining entries per segment
+        Map<Integer, List<String>> segmentKeys = new HashMap<Integer, List<String>>();
+        Map<Integer, Long> segmentSizes = new HashMap<Integer, Long>();
+        Iterator<Map.Entry<String, CmsCacheEntry>> i = m_index.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry<String, CmsCacheEntry> e = i.next();
+            CmsCacheEntry entry = e.getValue();
+            if (entry.m_lastAccess < expireDate) {
+                i.remove();
+                count++;
+            } else {
+                Integer segment = Integer.valueOf(entry.m_segment);
+                List<String> keys = segmentKeys.get(segment);
+                if (keys == null) {
+                    keys = new ArrayList<String>();
+                    segmentKeys.put(segment, keys);
+                    segmentSizes.put(segment, Long.valueOf(0));
                 }
+                keys.add(e.getKey());
+                segmentSizes.put(
+                    segment,
+                    Long.valueOf(segmentSizes.get(segment).longValue() + RECORD_HEADER_SIZE + entry.m_length));
             }
         }
+        // delete or compact the segments with too few remaining entries
+        File basedir = new File(m_rfsRepository);
+        for (Integer segment : getSegmentNumbers(basedir)) {
+            if ((m_segmentFile != null) && (segment.intValue() == m_segmentNumber)) {
+                // never compact the segment new records are appended to
+                continue;
+            }
+            File f = getSegmentFile(segment.intValue());
+            Long remainingSize = segmentSizes.get(segment);
+            if (remainingSize == null) {
+                deleteSegment(segment, f);
+            } else if (remainingSize.longValue() < (f.length() * COMPACTION_THRESHOLD)) {
+                compactSegment(segment, f, segmentKeys.get(segment));
+            }
+        }
+        if (m_hasLegacyFiles) {
+            count += cleanLegacyFiles(basedir, expireDate);
+        }
         return count;
     }
 
@@ -160,30 +284,32 @@ public class CmsExtractionResultCache {
     }
 
     /**
-     * Returns the extraction result in the requested file in the disk cache, or <code>null</code> if the
-     * file is not found in the cache, or is found but out-dated.<p>
+     * Returns the extraction result with the requested name from the disk cache, or <code>null</code> if the
+     * extraction result is not found in the cache.<p>
      *
-     * @param rfsName the file RFS name to look up in the cache
+     * @param rfsName the RFS name to look up in the cache
      *
-     * @return the extraction result stored in the requested file in the RFS disk cache, or <code>null</code>
+     * @return the extraction result stored under the requested name in the RFS disk cache, or <code>null</code>
      */
     public CmsExtractionResult getCacheObject(String rfsName) {
 
-        try {
-            File f = new File(rfsName);
-            if (f.exists()) {
-                long age = f.lastModified();
-                if ((System.currentTimeMillis() - age) > 3600000) {
-                    // file has not been touched for 1 hour, touch the file with the current date
-                    f.setLastModified(System.currentTimeMillis());
+        loadIndex();
+        String key = getKey(rfsName);
+        CmsCacheEntry entry = m_index.get(key);
+        if (entry != null) {
+            byte[] data = readRecord(entry);
+            if (data != null) {
+                long time = System.currentTimeMillis();
+                if ((time - entry.m_lastAccess) >= ACCESS_TIME_UPDATE_INTERVAL) {
+                    updateAccessTime(key, entry, time);
                 }
-                byte[] byteContent = CmsFileUtil.readFile(f);
-                return CmsExtractionResult.fromBytes(byteContent);
+                return CmsExtractionResult.fromBytes(data);
             }
-        } catch (IOException e) {
-            // unable to read content
+            // the entry may have been replaced in the meantime, e.g. by a compaction
+            m_index.remove(key, entry);
+        } else if (m_hasLegacyFiles) {
+            return getLegacyCacheObject(rfsName);
         }
-        // this code can be reached only in case of an error
         return null;
     }
 
@@ -200,7 +326,7 @@ public class CmsExtractionResultCache {
     /**
      * Serializes the given extraction result and saves it in the disk cache.<p>
      *
-     * @param rfsName the RFS name of the file to save the extraction result in
+     * @param rfsName the RFS name to save the extraction result under
      * @param content the extraction result to serialize and save
      *
      * @throws IOException in case of disk access errors
@@ -209,7 +335,467 @@ public class CmsExtractionResultCache {
 
         byte[] byteContent = content.getBytes();
         if (byteContent != null) {
-            CmsVfsDiskCache.saveFile(rfsName, byteContent);
+            loadIndex();
+            appendRecord(getKey(rfsName), byteContent, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Closes the segment file new records are appended to.<p>
+     */
+    public synchronized void shutDown() {
+
+        closeSegmentFile();
+        m_mappedSegments.clear();
+    }
+
+    /**
+     * Appends a record to the current segment file and adds it to the cache index.<p>
+     *
+     * @param key the cache key
+     * @param data the record data
+     * @param time the last access time to store with the record
+     *
+     * @throws IOException in case of disk access errors
+     */
+    private synchronized void appendRecord(String key, byte[] data, long time) throws IOException {
+
+        if ((m_segmentFile == null) || (m_segmentFile.length() >= MAX_SEGMENT_SIZE)) {
+            openNextSegmentFile();
+        }
+        byte[] keyBytes = key.getBytes(UTF8);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        int checksum = (int)crc.getValue();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length + data.length);
+        record.putInt(RECORD_MARKER);
+        record.putLong(time);
+        record.putInt(keyBytes.length);
+        record.putInt(data.length);
+        record.putInt(checksum);
+        record.put(keyBytes);
+        record.put(data);
+        record.flip();
+        long position = m_segmentFile.length();
+        FileChannel channel = m_segmentFile.getChannel();
+        channel.position(position);
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        m_index.put(
+            key,
+            new CmsCacheEntry(
+                m_segmentNumber,
+                (int)(position + RECORD_HEADER_SIZE + keyBytes.length),
+                data.length,
+                checksum,
+                time));
+    }
+
+    /**
+     * Deletes the expired cache files of the format used by older versions.<p>
+     *
+     * @param basedir the cache repository folder
+     * @param expireDate the oldest possible date for the cache files
+     *
+     * @return the number of deleted files
+     */
+    private int cleanLegacyFiles(File basedir, long expireDate) {
+
+        int count = 0;
+        boolean remaining = false;
+        File[] files = basedir.listFiles();
+        if (files != null) {
+            for (int i = 0; i < files.length; i++) {
+                File f = files[i];
+                if (!f.getName().endsWith(".ext")) {
+                    continue;
+                }
+                if (f.canWrite() && (f.lastModified() < expireDate)) {
+                    if (f.delete()) {
+                        count++;
+                        continue;
+                    }
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_EXCERPT_CACHE_DELETE_ERROR_1,
+                                f.getAbsolutePath()));
+                    }
+                }
+                remaining = true;
+            }
+        }
+        m_hasLegacyFiles = remaining;
+        return count;
+    }
+
+    /**
+     * Closes the segment file new records are appended to.<p>
+     */
+    private void closeSegmentFile() {
+
+        if (m_segmentFile != null) {
+            try {
+                m_segmentFile.close();
+            } catch (IOException e) {
+                // ignore, the file was only written
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+            m_segmentFile = null;
+        }
+    }
+
+    /**
+     * Compacts a segment file by appending its remaining records to the current segment file
+     * and deleting it afterwards.<p>
+     *
+     * @param segment the segment number
+     * @param f the segment file
+     * @param keys the cache keys of the remaining records
+     */
+    private void compactSegment(Integer segment, File f, List<String> keys) {
+
+        int moved = 0;
+        for (String key : keys) {
+            CmsCacheEntry entry = m_index.get(key);
+            if ((entry == null) || (entry.m_segment != segment.intValue())) {
+                continue;
+            }
+            byte[] data = readRecord(entry);
+            if (data == null) {
+                m_index.remove(key, entry);
+                continue;
+            }
+            try {
+                appendRecord(key, data, entry.m_lastAccess);
+                moved++;
+            } catch (IOException e) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_EXTRACTION_CACHE_SEGMENT_ERROR_1,
+                        getSegmentFile(m_segmentNumber).getAbsolutePath()),
+                    e);
+                // keep the segment, the remaining records are still valid
+                return;
+            }
+        }
+        deleteSegment(segment, f);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXTRACTION_CACHE_COMPACTED_2,
+                    f.getAbsolutePath(),
+                    Integer.valueOf(moved)));
+        }
+    }
+
+    /**
+     * Deletes a segment file that has no remaining records in the cache index.<p>
+     *
+     * @param segment the segment number
+     * @param f the segment file
+     */
+    private void deleteSegment(Integer segment, File f) {
+
+        m_mappedSegments.remove(segment);
+        if (f.exists() && !f.delete()) {
+            // the file may still be mapped, it is deleted with the next cleanup
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_EXCERPT_CACHE_DELETE_ERROR_1, f.getAbsolutePath()));
+            }
+        }
+    }
+
+    /**
+     * Returns the cache key for the given RFS name.<p>
+     *
+     * @param rfsName the RFS name
+     *
+     * @return the cache key
+     */
+    private String getKey(String rfsName) {
+
+        String key = rfsName;
+        if (key.startsWith(m_rfsRepository)) {
+            key = key.substring(m_rfsRepository.length());
+        }
+        while (key.startsWith("/")) {
+            key = key.substring(1);
+        }
+        return key;
+    }
+
+    /**
+     * Reads an extraction result from a cache file of the format used by older versions,
+     * and moves it to the current segment file.<p>
+     *
+     * @param rfsName the RFS name of the cache file
+     *
+     * @return the extraction result, or <code>null</code> if not found
+     */
+    private CmsExtractionResult getLegacyCacheObject(String rfsName) {
+
+        File f = new File(rfsName);
+        if (!f.exists()) {
+            return null;
+        }
+        try {
+            CmsExtractionResult result = CmsExtractionResult.fromBytes(CmsFileUtil.readFile(f));
+            if (result != null) {
+                saveCacheObject(rfsName, result);
+                f.delete();
+            }
+            return result;
+        } catch (IOException e) {
+            // unable to read content
+            return null;
+        }
+    }
+
+    /**
+     * Returns the memory mapped segment file, mapping it again if it is shorter than the required size.<p>
+     *
+     * @param segment the segment number
+     * @param requiredSize the required size of the mapped segment
+     *
+     * @return the memory mapped segment file, or <code>null</code> if the segment file is missing or too short
+     */
+    private MappedByteBuffer getMappedSegment(int segment, long requiredSize) {
+
+        Integer key = Integer.valueOf(segment);
+        MappedByteBuffer buffer = m_mappedSegments.get(key);
+        if ((buffer == null) || (buffer.capacity() < requiredSize)) {
+            buffer = mapSegment(getSegmentFile(segment));
+            if (buffer == null) {
+                return null;
+            }
+            m_mappedSegments.put(key, buffer);
+        }
+        return buffer.capacity() < requiredSize ? null : buffer;
+    }
+
+    /**
+     * Returns the segment file with the given number.<p>
+     *
+     * @param segment the segment number
+     *
+     * @return the segment file
+     */
+    private File getSegmentFile(int segment) {
+
+        return new File(m_rfsRepository, SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Returns the numbers of the segment files in the given folder, in ascending order.<p>
+     *
+     * @param basedir the cache repository folder
+     *
+     * @return the numbers of the segment files
+     */
+    private TreeSet<Integer> getSegmentNumbers(File basedir) {
+
+        TreeSet<Integer> result = new TreeSet<Integer>();
+        String[] names = basedir.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        result.add(
+                            Integer.valueOf(
+                                name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        // not a segment file
+                    }
+                } else if (name.endsWith(".ext")) {
+                    m_hasLegacyFiles = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the cache index from the record headers of the segment files, if not already done.<p>
+     */
+    private void loadIndex() {
+
+        if (m_loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (m_loaded) {
+                return;
+            }
+            for (Integer segment : getSegmentNumbers(new File(m_rfsRepository))) {
+                loadSegment(segment.intValue());
+                m_segmentNumber = segment.intValue();
+            }
+            m_loaded = true;
+        }
+    }
+
+    /**
+     * Adds the records of a segment file to the cache index.<p>
+     *
+     * Reading stops at the first incomplete record, e.g. after a crash while appending.<p>
+     *
+     * @param segment the segment number
+     */
+    private void loadSegment(int segment) {
+
+        MappedByteBuffer buffer = getMappedSegment(segment, 0);
+        if (buffer == null) {
+            return;
+        }
+        ByteBuffer records = buffer.duplicate();
+        int position = 0;
+        int limit = records.capacity();
+        while ((position + RECORD_HEADER_SIZE) <= limit) {
+            records.position(position);
+            if (records.getInt() != RECORD_MARKER) {
+                break;
+            }
+            long time = records.getLong();
+            int keyLength = records.getInt();
+            int dataLength = records.getInt();
+            int checksum = records.getInt();
+            if ((keyLength < 0) || (dataLength < 0) || ((limit - position - RECORD_HEADER_SIZE) < keyLength)) {
+                break;
+            }
+            int dataOffset = position + RECORD_HEADER_SIZE + keyLength;
+            if ((limit - dataOffset) < dataLength) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            records.get(keyBytes);
+            // later records replace earlier records with the same key
+            m_index.put(
+                new String(keyBytes, UTF8),
+                new CmsCacheEntry(segment, dataOffset, dataLength, checksum, time));
+            position = dataOffset + dataLength;
+        }
+    }
+
+    /**
+     * Maps a segment file into memory.<p>
+     *
+     * @param f the segment file
+     *
+     * @return the memory mapped segment file, or <code>null</code> if the file could not be mapped
+     */
+    private MappedByteBuffer mapSegment(File f) {
+
+        if (!f.exists()) {
+            return null;
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(f, "r");
+            // the mapping stays valid after the file has been closed
+            return file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        } catch (IOException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_EXTRACTION_CACHE_SEGMENT_ERROR_1, f.getAbsolutePath()),
+                e);
+            return null;
+        } finally {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment file new records are appended to.<p>
+     *
+     * @throws IOException in case of disk access errors
+     */
+    private void openNextSegmentFile() throws IOException {
+
+        closeSegmentFile();
+        File basedir = new File(m_rfsRepository);
+        if (!basedir.exists()) {
+            basedir.mkdirs();
+        }
+        File f;
+        do {
+            m_segmentNumber++;
+            f = getSegmentFile(m_segmentNumber);
+        } while (f.exists());
+        m_segmentFile = new RandomAccessFile(f, "rw");
+    }
+
+    /**
+     * Reads the data of a record from the memory mapped segment file.<p>
+     *
+     * @param entry the cache entry of the record
+     *
+     * @return the record data, or <code>null</code> if the record is missing or corrupt
+     */
+    private byte[] readRecord(CmsCacheEntry entry) {
+
+        MappedByteBuffer buffer = getMappedSegment(entry.m_segment, (long)entry.m_offset + entry.m_length);
+        if (buffer == null) {
+            return null;
+        }
+        ByteBuffer record = buffer.duplicate();
+        record.position(entry.m_offset);
+        byte[] data = new byte[entry.m_length];
+        record.get(data);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return ((int)crc.getValue()) == entry.m_checksum ? data : null;
+    }
+
+    /**
+     * Stores the given time as last access time in the record header of the given cache entry.<p>
+     *
+     * @param key the cache key
+     * @param entry the cache entry
+     * @param time the time of the access
+     */
+    private synchronized void updateAccessTime(String key, CmsCacheEntry entry, long time) {
+
+        if (m_index.get(key) != entry) {
+            // the record has been replaced, moved or removed in the meantime
+            return;
+        }
+        File f = getSegmentFile(entry.m_segment);
+        if (!f.exists()) {
+            return;
+        }
+        long position = (long)entry.m_offset - key.getBytes(UTF8).length - RECORD_HEADER_SIZE;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.putLong(time);
+        header.flip();
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(f, "rw");
+            FileChannel channel = file.getChannel();
+            // the time follows the record marker
+            long timePosition = position + 4;
+            while (header.hasRemaining()) {
+                timePosition += channel.write(header, timePosition);
+            }
+            entry.m_lastAccess = time;
+        } catch (IOException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_EXTRACTION_CACHE_SEGMENT_ERROR_1, f.getAbsolutePath()),
+                e);
+        } finally {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
         }
     }
-}
\ No newline at end of file
+}
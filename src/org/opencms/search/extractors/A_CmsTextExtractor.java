@@ -27,29 +27,220 @@
 
 package org.opencms.search.extractors;
 
+import org.opencms.main.CmsLog;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.logging.Log;
 import org.apache.tika.metadata.DublinCore;
 import org.apache.tika.metadata.MSOffice;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.WriteOutContentHandler;
 
 /**
  * Base utility class that allows extraction of the indexable "plain" text from a given document format.<p>
  *
+ * The number of bytes read from a document and the number of characters extracted from it can be limited,
+ * see {@link #setMaxBytes(long)} and {@link #setMaxChars(int)}. The text of a document exceeding a limit
+ * is truncated, the number of truncated documents is available from {@link #getTruncatedDocuments()}.<p>
+ *
  * @since 6.0.0
  */
 public abstract class A_CmsTextExtractor implements I_CmsTextExtractor {
 
+    /**
+     * Input stream that ends after a maximum number of bytes and remembers if there was more content.<p>
+     */
+    private static class CmsLimitedInputStream extends FilterInputStream {
+
+        /** The number of bytes that may still be read. */
+        private long m_remaining;
+
+        /** Indicates if the stream has more content than the maximum number of bytes. */
+        private boolean m_truncated;
+
+        /**
+         * Creates a new limited input stream.<p>
+         *
+         * @param in the input stream to read from
+         * @param maxBytes the maximum number of bytes to read
+         */
+        CmsLimitedInputStream(InputStream in, long maxBytes) {
+
+            super(in);
+            m_remaining = maxBytes;
+        }
+
+        /**
+         * @see java.io.FilterInputStream#available()
+         */
+        @Override
+        public int available() throws IOException {
+
+            return (int)Math.min(super.available(), m_remaining);
+        }
+
+        /**
+         * @see java.io.FilterInputStream#markSupported()
+         */
+        @Override
+        public boolean markSupported() {
+
+            return false;
+        }
+
+        /**
+         * @see java.io.FilterInputStream#read()
+         */
+        @Override
+        public int read() throws IOException {
+
+            if (isLimitReached()) {
+                return -1;
+            }
+            int result = super.read();
+            if (result >= 0) {
+                m_remaining--;
+            }
+            return result;
+        }
+
+        /**
+         * @see java.io.FilterInputStream#read(byte[], int, int)
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+
+            if (len == 0) {
+                return 0;
+            }
+            if (isLimitReached()) {
+                return -1;
+            }
+            int result = super.read(b, off, (int)Math.min(len, m_remaining));
+            if (result > 0) {
+                m_remaining -= result;
+            }
+            return result;
+        }
+
+        /**
+         * @see java.io.FilterInputStream#skip(long)
+         */
+        @Override
+        public long skip(long n) throws IOException {
+
+            long result = super.skip(Math.min(n, m_remaining));
+            m_remaining -= result;
+            return result;
+        }
+
+        /**
+         * Returns if the stream had more content than the maximum number of bytes.<p>
+         *
+         * @return <code>true</code> if the stream had more content than the maximum number of bytes
+         */
+        boolean isTruncated() {
+
+            return m_truncated;
+        }
+
+        /**
+         * Checks if the maximum number of bytes has been read, and if so, if the stream has more content.<p>
+         *
+         * @return <code>true</code> if the maximum number of bytes has been read
+         *
+         * @throws IOException if reading from the stream fails
+         */
+        private boolean isLimitReached() throws IOException {
+
+            if (m_remaining > 0) {
+                return false;
+            }
+            if (!m_truncated && (super.read() >= 0)) {
+                m_truncated = true;
+            }
+            return true;
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(A_CmsTextExtractor.class);
+
+    /** The number of documents truncated because they exceeded the maximum number of bytes or characters. */
+    private static final AtomicLong TRUNCATED_DOCUMENTS = new AtomicLong();
+
+    /** The maximum number of bytes read from a document, 0 for unlimited. */
+    private static volatile long m_maxBytes;
+
+    /** The maximum number of characters extracted from a document, 0 for unlimited. */
+    private static volatile int m_maxChars;
+
+    /**
+     * Returns the maximum number of bytes read from a document.<p>
+     *
+     * @return the maximum number of bytes read from a document, <code>0</code> for unlimited
+     */
+    public static long getMaxBytes() {
+
+        return m_maxBytes;
+    }
+
+    /**
+     * Returns the maximum number of characters extracted from a document.<p>
+     *
+     * @return the maximum number of characters extracted from a document, <code>0</code> for unlimited
+     */
+    public static int getMaxChars() {
+
+        return m_maxChars;
+    }
+
+    /**
+     * Returns the number of documents truncated because they exceeded the maximum number of bytes or characters.<p>
+     *
+     * @return the number of truncated documents
+     */
+    public static long getTruncatedDocuments() {
+
+        return TRUNCATED_DOCUMENTS.get();
+    }
+
+    /**
+     * Sets the maximum number of bytes read from a document.<p>
+     *
+     * Formats that can not be parsed without their end, like PDF, usually yield no text at all
+     * if they exceed the maximum number of bytes.<p>
+     *
+     * @param maxBytes the maximum number of bytes read from a document, <code>0</code> for unlimited
+     */
+    public static void setMaxBytes(long maxBytes) {
+
+        m_maxBytes = Math.max(0, maxBytes);
+    }
+
+    /**
+     * Sets the maximum number of characters extracted from a document.<p>
+     *
+     * @param maxChars the maximum number of characters extracted from a document, <code>0</code> for unlimited
+     */
+    public static void setMaxChars(int maxChars) {
+
+        m_maxChars = Math.max(0, maxChars);
+    }
+
     /**
      * @see org.opencms.search.extractors.I_CmsTextExtractor#extractText(byte[])
      */
@@ -83,8 +274,18 @@ public abstract class A_CmsTextExtractor implements I_CmsTextExtractor {
      */
     public I_CmsExtractionResult extractText(InputStream in, String encoding) throws Exception {
 
-        // read the byte content
-        byte[] text = CmsFileUtil.readFully(in);
+        // read the byte content, but not more than the maximum number of bytes
+        byte[] text;
+        long maxBytes = m_maxBytes;
+        if (maxBytes > 0) {
+            CmsLimitedInputStream limitedIn = new CmsLimitedInputStream(in, maxBytes);
+            text = CmsFileUtil.readFully(limitedIn);
+            if (limitedIn.isTruncated()) {
+                countTruncatedDocument();
+            }
+        } else {
+            text = CmsFileUtil.readFully(in);
+        }
         // call byte array based method of extraction
         return extractText(text, encoding);
     }
@@ -125,15 +326,42 @@ public abstract class A_CmsTextExtractor implements I_CmsTextExtractor {
 
         LinkedHashMap<String, String> contentItems = new LinkedHashMap<String, String>();
 
+        // the text is written to the writer while parsing, the handler stops the parser at the maximum characters
+        long maxBytes = m_maxBytes;
+        int maxChars = m_maxChars;
         StringWriter writer = new StringWriter();
-        BodyContentHandler handler = new BodyContentHandler(writer);
+        WriteOutContentHandler limitHandler = new WriteOutContentHandler(writer, maxChars > 0 ? maxChars : -1);
+        BodyContentHandler handler = new BodyContentHandler(limitHandler);
         Metadata meta = new Metadata();
         ParseContext context = new ParseContext();
 
-        parser.parse(in, handler, meta, context);
-        in.close();
+        CmsLimitedInputStream limitedIn = maxBytes > 0 ? new CmsLimitedInputStream(in, maxBytes) : null;
+        try {
+            parser.parse(limitedIn != null ? limitedIn : in, handler, meta, context);
+            if ((limitedIn != null) && limitedIn.isTruncated()) {
+                countTruncatedDocument();
+            }
+        } catch (Exception e) {
+            if (limitHandler.isWriteLimitReached(e)) {
+                // the text extracted so far is used
+                countTruncatedDocument();
+            } else if ((limitedIn != null) && limitedIn.isTruncated()) {
+                // formats like PDF can not be parsed without their end, usually no text has been extracted then,
+                // the document is still indexed with whatever text and meta data the parser has produced
+                countTruncatedDocument();
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_EXTRACT_TEXT_TRUNCATED_1, new Long(maxBytes)), e);
+            } else {
+                throw e;
+            }
+        } finally {
+            in.close();
+        }
 
         String result = writer.toString();
+        if ((maxChars > 0) && (result.length() > maxChars)) {
+            // the handler does not count ignorable whitespace
+            result = result.substring(0, maxChars);
+        }
 
         // add the main document text
         StringBuffer content = new StringBuffer(result);
@@ -162,6 +390,25 @@ public abstract class A_CmsTextExtractor implements I_CmsTextExtractor {
         return new CmsExtractionResult(content.toString(), contentItems);
     }
 
+    /**
+     * Returns the given text cut to the maximum number of characters extracted from a document.<p>
+     *
+     * Extractors not writing the text incrementally with {@link #extractText(InputStream, Parser)}
+     * use this to apply the character limit and count the truncated documents.<p>
+     *
+     * @param text the extracted text
+     *
+     * @return the text cut to the maximum number of characters
+     */
+    protected String limitChars(String text) {
+
+        if ((m_maxChars > 0) && (text != null) && (text.length() > m_maxChars)) {
+            countTruncatedDocument();
+            return text.substring(0, m_maxChars);
+        }
+        return text;
+    }
+
     /**
      * Removes "unwanted" control chars from the given content.<p>
      *
@@ -240,4 +487,12 @@ public abstract class A_CmsTextExtractor implements I_CmsTextExtractor {
 
         return result.toString();
     }
+
+    /**
+     * Counts a document truncated because it exceeded the maximum number of bytes or characters.<p>
+     */
+    private void countTruncatedDocument() {
+
+        TRUNCATED_DOCUMENTS.incrementAndGet();
+    }
 }
\ No newline at end of file
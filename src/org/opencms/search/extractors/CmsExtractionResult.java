@@ -27,13 +27,18 @@
 
 package org.opencms.search.extractors;
 
+import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.util.CmsStringUtil;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -42,6 +47,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * The result of a document text extraction.<p>
@@ -53,9 +60,18 @@ import java.util.Map;
  */
 public class CmsExtractionResult implements I_CmsExtractionResult, Serializable {
 
+    /** The marker at the start of an extraction result in the compact binary format ("OCER"). */
+    private static final int FORMAT_MARKER = 0x4F434552;
+
+    /** The version of the compact binary format. */
+    private static final byte FORMAT_VERSION = 1;
+
     /** UID required for safe serialization. */
     private static final long serialVersionUID = 1465447302192195154L;
 
+    /** The charset of the texts in the compact binary format. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
     /** The extracted individual content items. */
     private Map<Locale, LinkedHashMap<String, String>> m_contentItems;
 
@@ -102,6 +118,14 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
 
     }
 
+    /**
+     * Creates a new, empty extraction result to be filled from the compact binary format.<p>
+     */
+    private CmsExtractionResult() {
+
+        // fields are set by readCompact()
+    }
+
     /**
      * Creates a new extraction result without meta information and without additional fields.<p>
      *
@@ -157,12 +181,27 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
     /**
      * Creates an extraction result from a serialized byte array.<p>
      *
+     * Both the compact binary format written by {@link #getBytes()} and the
+     * Java serialization used by older versions are supported.<p>
+     *
      * @param bytes the serialized version of the extraction result
      *
      * @return extraction result created from the serialized byte array
      */
     public static final CmsExtractionResult fromBytes(byte[] bytes) {
 
+        if (isCompactFormat(bytes)) {
+            try {
+                CmsExtractionResult result = readCompact(bytes);
+                if (result != null) {
+                    result.m_serializedVersion = bytes;
+                }
+                return result;
+            } catch (IOException e) {
+                // ignore, the bytes are no valid extraction result
+                return null;
+            }
+        }
         Object obj = null;
         if (bytes != null) {
             // create an object out of the byte array
@@ -184,6 +223,23 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
     }
 
     /**
+     * Checks if the given bytes contain an extraction result in the compact binary format.<p>
+     *
+     * @param bytes the bytes to check
+     *
+     * @return <code>true</code> if the given bytes contain an extraction result in the compact binary format
+     */
+    public static boolean isCompactFormat(byte[] bytes) {
+
+        return (bytes != null) && (bytes.length > 4) && (ByteBuffer.wrap(bytes).getInt() == FORMAT_MARKER);
+    }
+
+    /**
+     * Returns this extraction result in a compact, versioned binary format.<p>
+     *
+     * The format starts with a marker and the format version, followed by the
+     * deflate compressed locales, content items and field mappings as length prefixed UTF-8 texts.<p>
+     *
      * @see org.opencms.search.extractors.I_CmsExtractionResult#getBytes()
      */
     public byte[] getBytes() {
@@ -193,12 +249,33 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
             return m_serializedVersion;
         }
         try {
-            // serialize this object and return
-            ByteArrayOutputStream out = new ByteArrayOutputStream(512);
-            ObjectOutputStream oout = new ObjectOutputStream(out);
-            oout.writeObject(this);
-            oout.close();
-            m_serializedVersion = out.toByteArray();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            DataOutputStream header = new DataOutputStream(bytes);
+            header.writeInt(FORMAT_MARKER);
+            header.writeByte(FORMAT_VERSION);
+            header.flush();
+            DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes));
+            writeString(out, m_defaultLocale == null ? null : m_defaultLocale.toString());
+            out.writeInt(m_locales.size());
+            for (Locale locale : m_locales) {
+                writeString(out, locale == null ? null : locale.toString());
+            }
+            out.writeInt(m_contentItems.size());
+            for (Map.Entry<Locale, LinkedHashMap<String, String>> localeItems : m_contentItems.entrySet()) {
+                writeString(out, localeItems.getKey() == null ? null : localeItems.getKey().toString());
+                out.writeInt(localeItems.getValue().size());
+                for (Map.Entry<String, String> item : localeItems.getValue().entrySet()) {
+                    writeString(out, item.getKey());
+                    writeString(out, item.getValue());
+                }
+            }
+            out.writeInt(m_fieldMappings.size());
+            for (Map.Entry<String, String> mapping : m_fieldMappings.entrySet()) {
+                writeString(out, mapping.getKey());
+                writeString(out, mapping.getValue());
+            }
+            out.close();
+            m_serializedVersion = bytes.toByteArray();
         } catch (Exception e) {
             // ignore, serialized version will be null
         }
@@ -331,6 +408,72 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
         return localeValues;
     }
 
+    /**
+     * Creates an extraction result from the compact binary format.<p>
+     *
+     * @param bytes the extraction result in the compact binary format
+     *
+     * @return the extraction result, or <code>null</code> if the format version is not supported
+     *
+     * @throws IOException in case the bytes are no valid extraction result
+     */
+    private static CmsExtractionResult readCompact(byte[] bytes) throws IOException {
+
+        if (bytes[4] != FORMAT_VERSION) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(
+            new InflaterInputStream(new ByteArrayInputStream(bytes, 5, bytes.length - 5)));
+        try {
+            CmsExtractionResult result = new CmsExtractionResult();
+            result.m_defaultLocale = toLocale(readString(in));
+            int localeCount = in.readInt();
+            result.m_locales = new HashSet<Locale>();
+            for (int i = 0; i < localeCount; i++) {
+                result.m_locales.add(toLocale(readString(in)));
+            }
+            int itemLocaleCount = in.readInt();
+            result.m_contentItems = new LinkedHashMap<Locale, LinkedHashMap<String, String>>(itemLocaleCount);
+            for (int i = 0; i < itemLocaleCount; i++) {
+                Locale locale = toLocale(readString(in));
+                int itemCount = in.readInt();
+                LinkedHashMap<String, String> items = new LinkedHashMap<String, String>(itemCount);
+                for (int j = 0; j < itemCount; j++) {
+                    items.put(readString(in), readString(in));
+                }
+                result.m_contentItems.put(locale, items);
+            }
+            int mappingCount = in.readInt();
+            result.m_fieldMappings = new HashMap<String, String>(mappingCount);
+            for (int i = 0; i < mappingCount; i++) {
+                result.m_fieldMappings.put(readString(in), readString(in));
+            }
+            return result;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads a nullable string written by {@link #writeString(DataOutputStream, String)}.<p>
+     *
+     * @param in the stream to read from
+     *
+     * @return the string read, may be <code>null</code>
+     *
+     * @throws IOException in case of read errors
+     */
+    private static String readString(DataInputStream in) throws IOException {
+
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
     /** Replaces all <code>null</code> values with empty maps.
      * @param multilingualContentItems the map where replacement should take place
      * @return the map with all <code>null</code> values replaced with empty maps.
@@ -345,4 +488,35 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
         }
         return multilingualContentItems;
     }
+
+    /**
+     * Returns the locale for the given locale name.<p>
+     *
+     * @param localeName the locale name, may be <code>null</code>
+     *
+     * @return the locale, or <code>null</code> if the locale name is <code>null</code>
+     */
+    private static Locale toLocale(String localeName) {
+
+        return localeName == null ? null : CmsLocaleManager.getLocale(localeName);
+    }
+
+    /**
+     * Writes a nullable string as length prefixed UTF-8 bytes.<p>
+     *
+     * @param out the stream to write to
+     * @param value the string to write, may be <code>null</code>
+     *
+     * @throws IOException in case of write errors
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
 }
\ No newline at end of file
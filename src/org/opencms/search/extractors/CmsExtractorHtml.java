@@ -80,6 +80,7 @@ public final class CmsExtractorHtml extends A_CmsTextExtractor {
             }
             result = CmsHtmlExtractor.extractText(in, encoding);
             result = removeControlChars(result);
+            result = limitChars(result);
         } catch (Exception e) {
             if (LOG.isErrorEnabled()) {
                 LOG.error(Messages.get().container(Messages.LOG_EXTRACT_TEXT_ERROR_0), e);
@@ -90,6 +90,7 @@ public final class CmsExtractorOpenOffice extends A_CmsTextExtractor {
             }
         }
         result = removeControlChars(result);
+        result = limitChars(result);
         return new CmsExtractionResult(result);
     }
 
@@ -117,6 +118,10 @@ public final class CmsExtractorOpenOffice extends A_CmsTextExtractor {
                 text = " " + text + " ";
                 resultBuffer.append(text);
             }
+            if ((getMaxChars() > 0) && (resultBuffer.length() > getMaxChars())) {
+                // the text is cut to the maximum later, no need to collect more
+                break;
+            }
         }
         return resultBuffer.toString();
     }
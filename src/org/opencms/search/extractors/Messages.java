@@ -40,6 +40,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXTRACT_TEXT_ERROR_0 = "LOG_EXTRACT_TEXT_ERROR_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXTRACT_TEXT_TRUNCATED_1 = "LOG_EXTRACT_TEXT_TRUNCATED_1";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.search.extractors.messages";
 
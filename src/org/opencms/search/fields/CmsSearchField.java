@@ -92,6 +92,9 @@ public class CmsSearchField implements Serializable {
     /** Name of the field that usually contains the value of the "Description" property of the document (optional). */
     public static final String FIELD_DESCRIPTION = "description";
 
+    /** Name of the field that contains the digest of all other document fields, used to detect unchanged documents. */
+    public static final String FIELD_DIGEST = "digest_s";
+
     /** Name of the dynamic exact field. */
     public static final String FIELD_DYNAMIC_EXACT = "_exact";
 
@@ -146,6 +149,9 @@ public class CmsSearchField implements Serializable {
      */
     public static final String FIELD_PRIORITY = "priority";
 
+    /** Name of the field that contains the ids of the principals with read permission on the document. */
+    public static final String FIELD_READ_PRINCIPALS = "read_principals";
+
     /** Name of the field that contains the resource locales of the document. */
     public static final String FIELD_RESOURCE_LOCALES = "res_locales";
 
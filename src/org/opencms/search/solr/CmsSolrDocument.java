@@ -43,6 +43,8 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -52,7 +54,10 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.TreeSet;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.logging.Log;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
@@ -77,6 +82,9 @@ public class CmsSolrDocument implements I_CmsSearchDocument {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSolrDocument.class);
 
+    /** The charset used to create the digest of the document fields. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
     /** The Solr document. */
     private SolrInputDocument m_doc;
 
@@ -157,6 +165,36 @@ public class CmsSolrDocument implements I_CmsSearchDocument {
         }
     }
 
+    /**
+     * @see org.opencms.search.I_CmsSearchDocument#addDigestField()
+     */
+    public void addDigestField() {
+
+        m_doc.removeField(CmsSearchField.FIELD_DIGEST);
+        MessageDigest digest = DigestUtils.getMd5Digest();
+        // the field order of a Solr input document depends on the order the fields have been added
+        for (String name : new TreeSet<String>(m_doc.getFieldNames())) {
+            digest.update(name.getBytes(UTF8));
+            digest.update((byte)0);
+            Collection<Object> values = m_doc.getFieldValues(name);
+            if (values != null) {
+                for (Object value : values) {
+                    if (value instanceof ByteBuffer) {
+                        digest.update(((ByteBuffer)value).duplicate());
+                    } else if (value instanceof byte[]) {
+                        digest.update((byte[])value);
+                    } else if (value instanceof Date) {
+                        digest.update(String.valueOf(((Date)value).getTime()).getBytes(UTF8));
+                    } else if (value != null) {
+                        digest.update(value.toString().getBytes(UTF8));
+                    }
+                    digest.update((byte)0);
+                }
+            }
+        }
+        m_doc.setField(CmsSearchField.FIELD_DIGEST, Hex.encodeHexString(digest.digest()));
+    }
+
     /**
      * Adds the given document dependency to this document.<p>
      *
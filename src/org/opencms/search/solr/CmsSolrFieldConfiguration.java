@@ -55,7 +55,11 @@ import org.opencms.search.fields.CmsSearchFieldConfiguration;
 import org.opencms.search.fields.CmsSearchFieldMapping;
 import org.opencms.search.fields.CmsSearchFieldMappingType;
 import org.opencms.search.fields.I_CmsSearchFieldMapping;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionSetCustom;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.containerpage.CmsContainerElementBean;
 import org.opencms.xml.containerpage.CmsContainerPageBean;
@@ -225,6 +229,9 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         } else {
             document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_SEARCH_CHANNEL), "content");
         }
+        if ((getIndex() instanceof CmsSolrIndex) && ((CmsSolrIndex)getIndex()).isPrincipalFiltering()) {
+            appendReadPrincipals(document, cms, resource);
+        }
 
         return document;
     }
@@ -639,6 +646,26 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         return result;
     }
 
+    /**
+     * Returns the ids of all principals with read permission in the given access control list.<p>
+     *
+     * Entries granting read permission to all others are returned with the id of the "all others" principal.<p>
+     *
+     * @param acl the access control list of a resource, including the inherited entries
+     *
+     * @return the ids of the principals with read permission
+     */
+    protected List<String> getReadPrincipals(CmsAccessControlList acl) {
+
+        List<String> result = new ArrayList<String>();
+        for (Map.Entry<CmsUUID, CmsPermissionSetCustom> entry : acl.getPermissionMap().entrySet()) {
+            if ((entry.getValue().getPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                result.add(entry.getKey().toString());
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns the search field mappings declared within the XSD.<p>
      *
@@ -740,6 +767,9 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         sfield = new CmsSolrField(CmsSearchField.FIELD_SEARCH_CHANNEL, null, null, null, 0);
         m_solrFields.put(sfield.getName(), sfield);
 
+        sfield = new CmsSolrField(CmsSearchField.FIELD_READ_PRINCIPALS, null, null, null, 0);
+        m_solrFields.put(sfield.getName(), sfield);
+
         /*
          * Fields with mapping
          */
@@ -796,6 +826,28 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         getFields().addAll(m_solrFields.values());
     }
 
+    /**
+     * Appends the ids of all principals with read permission on the resource to the document.<p>
+     *
+     * The permissions are read from the access control list of the resource including the inherited entries.
+     * Entries granting read permission to all others are indexed with the id of the "all others" principal.<p>
+     *
+     * @param document the document to append the principals to
+     * @param cms the CMS context used to read the access control list
+     * @param resource the resource the document is created for
+     */
+    private void appendReadPrincipals(I_CmsSearchDocument document, CmsObject cms, CmsResource resource) {
+
+        try {
+            CmsAccessControlList acl = cms.getAccessControlList(cms.getSitePath(resource));
+            for (String principal : getReadPrincipals(acl)) {
+                document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_READ_PRINCIPALS), principal);
+            }
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+        }
+    }
+
     /**
      * Returns <code>true</code> if at least one of the index sources uses a VFS indexer that is able
      * to index locale dependent resources.<p>
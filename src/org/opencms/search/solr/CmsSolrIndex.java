@@ -33,10 +33,12 @@ package org.opencms.search.solr;
 
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.CmsUser;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
@@ -46,6 +48,7 @@ import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.report.I_CmsReport;
+import org.opencms.search.CmsIndexException;
 import org.opencms.search.CmsSearchException;
 import org.opencms.search.CmsSearchIndex;
 import org.opencms.search.CmsSearchIndexSource;
@@ -60,10 +63,12 @@ import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.galleries.CmsGallerySearchParameters;
 import org.opencms.search.galleries.CmsGallerySearchResult;
 import org.opencms.search.galleries.CmsGallerySearchResultList;
+import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.io.IOException;
 import java.io.OutputStreamWriter;
@@ -71,9 +76,13 @@ import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import javax.servlet.ServletResponse;
 
@@ -105,7 +114,9 @@ import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.DocListAndSet;
 import org.apache.solr.search.DocSlice;
 import org.apache.solr.search.QParser;
+import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.util.FastWriter;
+import org.apache.solr.util.RefCounted;
 
 /**
  * Implements the search within an Solr index.<p>
@@ -120,18 +131,51 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The name of the default Solr Online index. */
     public static final String DEFAULT_INDEX_NAME_ONLINE = "Solr Online";
 
+    /** Constant for additional parameter for the number of documents sent to Solr in one request (default: 100). */
+    public static final String INDEX_BATCH_SIZE = "search.solr.indexBatchSize";
+
+    /** Constant for additional parameter for the maximum number of batches waiting to be sent to Solr (default: 4). */
+    public static final String INDEX_MAX_PENDING_BATCHES = "search.solr.indexMaxPendingBatches";
+
+    /** Constant for additional parameter to limit the number of concurrently executed searches (default: unlimited). */
+    public static final String MAX_CONCURRENT_SEARCHES = "search.solr.maxConcurrentSearches";
+
     /** Constant for additional parameter to set the post processor class name. */
     public static final String POST_PROCESSOR = "search.solr.postProcessor";
 
+    /** Constant for additional parameter to filter the results by the read principals in Solr (default: false). */
+    public static final String PRINCIPAL_FILTER = "search.solr.usePrincipalFilter";
+
     /** The solr exclude property. */
     public static final String PROPERTY_SEARCH_EXCLUDE_VALUE_SOLR = "solr";
 
+    /** Constant for additional parameter for the maximum age of cached results in milliseconds (default: 60000). */
+    public static final String RESULT_CACHE_MAX_AGE = "search.solr.resultCacheMaxAge";
+
+    /** The default maximum age of cached results in milliseconds. */
+    public static final long RESULT_CACHE_MAX_AGE_DEFAULT = 60000;
+
+    /** Constant for additional parameter for the number of cached result lists (default: 0, no caching). */
+    public static final String RESULT_CACHE_SIZE = "search.solr.resultCacheSize";
+
     /** Indicates the maximum number of documents from the complete result set to return. */
     public static final int ROWS_MAX = 50;
 
+    /** Constant for additional parameter for the time in milliseconds a search may wait for execution. */
+    public static final String SEARCH_QUEUE_TIMEOUT = "search.solr.searchQueueTimeout";
+
+    /** The default time in milliseconds a search may wait for execution. */
+    public static final long SEARCH_QUEUE_TIMEOUT_DEFAULT = 30000;
+
     /** A constant for debug formatting output. */
     protected static final int DEBUG_PADDING_RIGHT = 50;
 
+    /** The factor the requested rows are expanded by if the results are already filtered by the read principals. */
+    private static final int EXPAND_ROWS_FILTERED = 2;
+
+    /** The factor the requested rows are expanded by if all permissions are checked after the query. */
+    private static final int EXPAND_ROWS_UNFILTERED = 5;
+
     /** The name for the parameters key of the response header. */
     private static final String HEADER_PARAMS_NAME = "params";
 
@@ -177,6 +221,33 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The core name for the index. */
     private String m_coreName;
 
+    /** The number of documents sent to Solr in one request. */
+    private int m_indexBatchSize = CmsSolrIndexWriter.DEFAULT_BATCH_SIZE;
+
+    /** The maximum number of batches waiting to be sent to Solr. */
+    private int m_indexMaxPendingBatches = CmsSolrIndexWriter.DEFAULT_MAX_PENDING_BATCHES;
+
+    /** The maximum number of concurrently executed searches, a value &lt;= 0 means unlimited. */
+    private int m_maxConcurrentSearches;
+
+    /** Indicates if the search results are filtered by the read principals in Solr. */
+    private boolean m_principalFilter;
+
+    /** The cache for the result lists. */
+    private CmsSolrResultCache m_resultCache = new CmsSolrResultCache(0, RESULT_CACHE_MAX_AGE_DEFAULT);
+
+    /** The maximum age of cached results in milliseconds. */
+    private long m_resultCacheMaxAge = RESULT_CACHE_MAX_AGE_DEFAULT;
+
+    /** The number of cached result lists. */
+    private int m_resultCacheSize;
+
+    /** The time in milliseconds a search may wait for execution. */
+    private long m_searchQueueTimeout = SEARCH_QUEUE_TIMEOUT_DEFAULT;
+
+    /** The limiter for the concurrently executed searches. */
+    private CmsSolrSearchLimiter m_searchLimiter = new CmsSolrSearchLimiter(0, SEARCH_QUEUE_TIMEOUT_DEFAULT);
+
     /**
      * Default constructor.<p>
      */
@@ -236,6 +307,74 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     LOG.error(ex.getMessage(), ex);
                 }
             }
+        } else if (PRINCIPAL_FILTER.equals(key)) {
+            m_principalFilter = Boolean.valueOf(value).booleanValue();
+        } else if (INDEX_BATCH_SIZE.equals(key)) {
+            try {
+                m_indexBatchSize = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(
+                    org.opencms.search.Messages.get().getBundle().key(
+                        org.opencms.search.Messages.LOG_INVALID_PARAM_3,
+                        value,
+                        key,
+                        getName()));
+            }
+        } else if (INDEX_MAX_PENDING_BATCHES.equals(key)) {
+            try {
+                m_indexMaxPendingBatches = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(
+                    org.opencms.search.Messages.get().getBundle().key(
+                        org.opencms.search.Messages.LOG_INVALID_PARAM_3,
+                        value,
+                        key,
+                        getName()));
+            }
+        } else if (MAX_CONCURRENT_SEARCHES.equals(key)) {
+            try {
+                m_maxConcurrentSearches = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(
+                    org.opencms.search.Messages.get().getBundle().key(
+                        org.opencms.search.Messages.LOG_INVALID_PARAM_3,
+                        value,
+                        key,
+                        getName()));
+            }
+        } else if (RESULT_CACHE_SIZE.equals(key)) {
+            try {
+                m_resultCacheSize = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(
+                    org.opencms.search.Messages.get().getBundle().key(
+                        org.opencms.search.Messages.LOG_INVALID_PARAM_3,
+                        value,
+                        key,
+                        getName()));
+            }
+        } else if (RESULT_CACHE_MAX_AGE.equals(key)) {
+            try {
+                m_resultCacheMaxAge = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(
+                    org.opencms.search.Messages.get().getBundle().key(
+                        org.opencms.search.Messages.LOG_INVALID_PARAM_3,
+                        value,
+                        key,
+                        getName()));
+            }
+        } else if (SEARCH_QUEUE_TIMEOUT.equals(key)) {
+            try {
+                m_searchQueueTimeout = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(
+                    org.opencms.search.Messages.get().getBundle().key(
+                        org.opencms.search.Messages.LOG_INVALID_PARAM_3,
+                        value,
+                        key,
+                        getName()));
+            }
         }
         super.addConfigurationParameter(key, value);
     }
@@ -257,7 +396,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
     @Override
     public I_CmsIndexWriter createIndexWriter(boolean create, I_CmsReport report) {
 
-        return new CmsSolrIndexWriter(m_solr, this);
+        return new CmsSolrIndexWriter(m_solr, this, report);
     }
 
     /**
@@ -314,6 +453,27 @@ public class CmsSolrIndex extends CmsSearchIndex {
         if (getPostProcessor() != null) {
             result.put(POST_PROCESSOR, getPostProcessor().getClass().getName());
         }
+        if (m_principalFilter) {
+            result.put(PRINCIPAL_FILTER, String.valueOf(m_principalFilter));
+        }
+        if (m_indexBatchSize != CmsSolrIndexWriter.DEFAULT_BATCH_SIZE) {
+            result.put(INDEX_BATCH_SIZE, String.valueOf(m_indexBatchSize));
+        }
+        if (m_indexMaxPendingBatches != CmsSolrIndexWriter.DEFAULT_MAX_PENDING_BATCHES) {
+            result.put(INDEX_MAX_PENDING_BATCHES, String.valueOf(m_indexMaxPendingBatches));
+        }
+        if (m_maxConcurrentSearches > 0) {
+            result.put(MAX_CONCURRENT_SEARCHES, String.valueOf(m_maxConcurrentSearches));
+        }
+        if (m_searchQueueTimeout != SEARCH_QUEUE_TIMEOUT_DEFAULT) {
+            result.put(SEARCH_QUEUE_TIMEOUT, String.valueOf(m_searchQueueTimeout));
+        }
+        if (m_resultCacheSize > 0) {
+            result.put(RESULT_CACHE_SIZE, String.valueOf(m_resultCacheSize));
+        }
+        if (m_resultCacheMaxAge != RESULT_CACHE_MAX_AGE_DEFAULT) {
+            result.put(RESULT_CACHE_MAX_AGE, String.valueOf(m_resultCacheMaxAge));
+        }
         return result;
     }
 
@@ -332,7 +492,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
      * @see org.opencms.search.CmsSearchIndex#getDocument(java.lang.String, java.lang.String)
      */
     @Override
-    public synchronized I_CmsSearchDocument getDocument(String fieldname, String term) {
+    public I_CmsSearchDocument getDocument(String fieldname, String term) {
 
         try {
             SolrQuery query = new SolrQuery();
@@ -343,7 +503,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
             }
             QueryResponse res = m_solr.query(query);
             if (res != null) {
-                SolrDocumentList sdl = m_solr.query(query).getResults();
+                SolrDocumentList sdl = res.getResults();
                 if ((sdl.getNumFound() > 0L) && (sdl.get(0) != null)) {
                     return new CmsSolrDocument(sdl.get(0));
                 }
@@ -378,6 +538,41 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return null;
     }
 
+    /**
+     * Returns the number of documents sent to Solr in one request.<p>
+     *
+     * @return the number of documents sent to Solr in one request
+     */
+    public int getIndexBatchSize() {
+
+        return m_indexBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of batches waiting to be sent to Solr.<p>
+     *
+     * @return the maximum number of batches waiting to be sent to Solr
+     */
+    public int getIndexMaxPendingBatches() {
+
+        return m_indexMaxPendingBatches;
+    }
+
+    /**
+     * Passes the current report to a re-used writer, so the throughput of the current update is reported.<p>
+     *
+     * @see org.opencms.search.CmsSearchIndex#getIndexWriter(org.opencms.report.I_CmsReport, boolean)
+     */
+    @Override
+    public I_CmsIndexWriter getIndexWriter(I_CmsReport report, boolean create) throws CmsIndexException {
+
+        I_CmsIndexWriter writer = super.getIndexWriter(report, create);
+        if (writer instanceof CmsSolrIndexWriter) {
+            ((CmsSolrIndexWriter)writer).setReport(report);
+        }
+        return writer;
+    }
+
     /**
      * Returns the language locale for the given resource in this index.<p>
      *
@@ -416,6 +611,26 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return m_postProcessor;
     }
 
+    /**
+     * Returns the cache for the permission checked and post processed result lists of this index.<p>
+     *
+     * @return the cache for the result lists
+     */
+    public CmsSolrResultCache getResultCache() {
+
+        return m_resultCache;
+    }
+
+    /**
+     * Returns the limiter for the concurrently executed searches, which also provides the queue time metrics.<p>
+     *
+     * @return the limiter for the concurrently executed searches
+     */
+    public CmsSolrSearchLimiter getSearchLimiter() {
+
+        return m_searchLimiter;
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#initialize()
      */
@@ -424,6 +639,8 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
         super.initialize();
         getFieldConfiguration().init();
+        m_searchLimiter = new CmsSolrSearchLimiter(m_maxConcurrentSearches, m_searchQueueTimeout);
+        m_resultCache = new CmsSolrResultCache(m_resultCacheSize, m_resultCacheMaxAge);
         try {
             OpenCms.getSearchManager().registerSolrIndex(this);
         } catch (CmsConfigurationException ex) {
@@ -440,6 +657,33 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return null == m_solr;
     }
 
+    /**
+     * Returns <code>true</code> if the search results are filtered by the read principals in Solr.<p>
+     *
+     * If enabled, the ids of all principals granted read permission are indexed for each document
+     * and each query is restricted to the documents readable by the current user or the user's groups or roles.
+     * The permission check of the found documents is still performed, but hardly drops any documents.<p>
+     *
+     * Since folders are not indexed, changing the permissions of a folder requires a rebuild of the index.<p>
+     *
+     * @return <code>true</code> if the search results are filtered by the read principals in Solr
+     */
+    public boolean isPrincipalFiltering() {
+
+        return m_principalFilter;
+    }
+
+    /**
+     * Shadow re-indexing is not supported for Solr indexes, they are always rebuilt in their core.<p>
+     *
+     * @see org.opencms.search.CmsSearchIndex#isShadowReindexing()
+     */
+    @Override
+    public boolean isShadowReindexing() {
+
+        return false;
+    }
+
     /**
      * Not yet implemented for Solr.<p>
      *
@@ -453,7 +697,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
      */
     @Override
     @Deprecated
-    public synchronized CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) {
+    public CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) {
 
         throw new UnsupportedOperationException();
     }
@@ -582,6 +826,34 @@ public class CmsSolrIndex extends CmsSearchIndex {
         if (!ignoreSearchExclude) {
             query.addFilterQuery(CmsSearchField.FIELD_SEARCH_EXCLUDE + ":\"false\"");
         }
+        int expandRows = EXPAND_ROWS_UNFILTERED;
+        if (m_principalFilter && isCheckingPermissions()) {
+            String principalFilter = createPrincipalFilterQuery(cms);
+            if (principalFilter != null) {
+                query.addFilterQuery(principalFilter);
+                // only few documents will fail the permission check, so there is no need to fetch that many
+                expandRows = EXPAND_ROWS_FILTERED;
+            }
+        }
+
+        // look up the result in the cache, unless the Solr response has to be written
+        CmsSolrResultCache resultCache = m_resultCache;
+        String cacheKey = null;
+        long indexVersion = -1;
+        if (resultCache.isEnabled() && (response == null)) {
+            indexVersion = getIndexVersion();
+            if (indexVersion >= 0) {
+                cacheKey = CmsSolrResultCache.createKey(cms, query, ignoreMaxRows, filter);
+                CmsSolrResultList cachedResult = resultCache.get(cacheKey, indexVersion);
+                if (cachedResult != null) {
+                    return cachedResult;
+                }
+            }
+        }
+
+        // wait until the search may be executed, the limiter is kept for the release
+        CmsSolrSearchLimiter limiter = m_searchLimiter;
+        limiter.acquire(getName());
 
         int previousPriority = Thread.currentThread().getPriority();
         long startTime = System.currentTimeMillis();
@@ -619,7 +891,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
             // set the start to '0' and expand the rows before performing the query
             query.setStart(new Integer(0));
-            query.setRows(new Integer((5 * rows * page) + start));
+            query.setRows(new Integer((expandRows * rows * page) + start));
 
             // perform the Solr query and remember the original Solr response
             QueryResponse queryResponse = m_solr.query(query);
@@ -853,6 +1125,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     core.close();
                 }
             }
+            if (cacheKey != null) {
+                resultCache.put(cacheKey, indexVersion, result);
+            }
             return result;
         } catch (Exception e) {
             throw new CmsSearchException(
@@ -867,6 +1142,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
             }
             // re-set thread to previous priority
             Thread.currentThread().setPriority(previousPriority);
+            limiter.release();
         }
 
     }
@@ -950,6 +1226,16 @@ public class CmsSolrIndex extends CmsSearchIndex {
         m_postProcessor = postProcessor;
     }
 
+    /**
+     * Sets the limiter for the concurrently executed searches.<p>
+     *
+     * @param searchLimiter the limiter for the concurrently executed searches
+     */
+    public void setSearchLimiter(CmsSolrSearchLimiter searchLimiter) {
+
+        m_searchLimiter = searchLimiter;
+    }
+
     /**
      * Sets the Solr server used by this index.<p>
      *
@@ -1113,6 +1399,29 @@ public class CmsSolrIndex extends CmsSearchIndex {
         // nothing to do here
     }
 
+    /**
+     * Returns the filter query matching the documents readable by one of the given principals,
+     * and the documents indexed without read principals.<p>
+     *
+     * @param principals the ids of the principals, including the "all others" principal if required
+     *
+     * @return the filter query
+     */
+    protected static String getPrincipalFilterQuery(Collection<CmsUUID> principals) {
+
+        StringBuffer result = new StringBuffer(64 * principals.size());
+        result.append(CmsSearchField.FIELD_READ_PRINCIPALS).append(":(");
+        Iterator<CmsUUID> it = principals.iterator();
+        while (it.hasNext()) {
+            result.append('"').append(it.next()).append('"');
+            if (it.hasNext()) {
+                result.append(" OR ");
+            }
+        }
+        result.append(") OR (*:* -").append(CmsSearchField.FIELD_READ_PRINCIPALS).append(":[* TO *])");
+        return result.toString();
+    }
+
     /**
      * Checks if the given resource should be indexed by this index or not.<p>
      *
@@ -1162,6 +1471,48 @@ public class CmsSolrIndex extends CmsSearchIndex {
         }
     }
 
+    /**
+     * Creates the filter query restricting the results to the documents readable by the current user.<p>
+     *
+     * The filter matches the documents granting read permission to the user, one of the user's groups or roles
+     * or to all others, and the documents indexed without read principals. The filter may match documents the
+     * user is not allowed to read, e.g. if the read permission is denied for one of the user's groups, so the
+     * permission check of the found documents is still required.<p>
+     *
+     * @param cms the CMS object initialized with the current request context / user
+     *
+     * @return the filter query, or <code>null</code> if the results can not be filtered for the current user
+     */
+    private String createPrincipalFilterQuery(CmsObject cms) {
+
+        CmsUser user = cms.getRequestContext().getCurrentUser();
+        Set<CmsUUID> principals = new LinkedHashSet<CmsUUID>();
+        principals.add(user.getId());
+        principals.add(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID);
+        try {
+            for (CmsGroup group : cms.getGroupsOfUser(user.getName(), false)) {
+                principals.add(group.getId());
+            }
+            for (CmsRole role : OpenCms.getRoleManager().getRolesOfUser(
+                cms,
+                user.getName(),
+                "",
+                true,
+                false,
+                true)) {
+                if (CmsRole.VFS_MANAGER.getRoleName().equals(role.getRoleName())) {
+                    // the user ignores the permissions of the resources in at least one organizational unit
+                    return null;
+                }
+                principals.add(role.getId());
+            }
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return null;
+        }
+        return getPrincipalFilterQuery(principals);
+    }
+
     /**
      * Generates a valid core name from the provided name (the index name).
      * @param name the index name.
@@ -1176,6 +1527,33 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return null;
     }
 
+    /**
+     * Returns the version of the index reader currently used for searching.<p>
+     *
+     * The version changes whenever committed changes become visible for searching.<p>
+     *
+     * @return the version of the index reader, or -1 if the version is not available for the Solr server
+     */
+    private long getIndexVersion() {
+
+        if (m_solr instanceof EmbeddedSolrServer) {
+            SolrCore core = ((EmbeddedSolrServer)m_solr).getCoreContainer().getCore(getCoreName());
+            if (core != null) {
+                try {
+                    RefCounted<SolrIndexSearcher> searcher = core.getSearcher();
+                    try {
+                        return searcher.get().getIndexReader().getVersion();
+                    } finally {
+                        searcher.decref();
+                    }
+                } finally {
+                    core.close();
+                }
+            }
+        }
+        return -1;
+    }
+
     /**
      * Updates the core name to be in sync with the index name.
      */
@@ -34,10 +34,21 @@ package org.opencms.search.solr;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.report.I_CmsReport;
 import org.opencms.search.I_CmsIndexWriter;
 import org.opencms.search.I_CmsSearchDocument;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.solr.client.solrj.SolrClient;
@@ -48,23 +59,75 @@ import org.apache.solr.common.SolrInputDocument;
 /**
  * Implements the index writer for the Solr server used by OpenCms.<p>
  *
+ * The documents to add and delete are buffered and sent to Solr in batches by a background thread, so the
+ * extraction of the next documents does not wait for Solr. The number of batches waiting to be sent is bounded,
+ * if the limit is reached adding further documents blocks until Solr has caught up.<p>
+ *
+ * A {@link #commit()} sends all buffered documents and performs a soft commit, which makes the changes
+ * visible for searching. The changes are made durable by hard commits, which are performed periodically
+ * after the configured Solr commit time and when the writer is closed.<p>
+ *
+ * If Solr rejects a document of a batch, the documents of the batch are added one by one, and only the rejected
+ * documents are logged and skipped. Other errors while sending a batch are thrown by the next call of the writer.<p>
+ *
  * @since 8.5.0
  */
 public class CmsSolrIndexWriter implements I_CmsIndexWriter {
 
+    /** The default number of documents sent to Solr in one request. */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** The default maximum number of batches waiting to be sent to Solr. */
+    public static final int DEFAULT_MAX_PENDING_BATCHES = 4;
+
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsSolrIndexWriter.class);
 
-    /** The time to wait before a commit is sent to the Solr index.  */
-    private int m_commitMs = new Long(
-        OpenCms.getSearchManager().getSolrServerConfiguration().getSolrCommitMs()).intValue();
+    /** The documents to add with the next batch. */
+    private List<SolrInputDocument> m_addBuffer;
+
+    /** The root paths of the documents to add with the next batch, in the order of the documents. */
+    private Set<String> m_addPaths;
+
+    /** The number of documents sent to Solr in one request. */
+    private int m_batchSize;
+
+    /** The time to wait before a hard commit is sent to the Solr index.  */
+    private int m_commitMs;
+
+    /** The ids of the documents to delete with the next batch. */
+    private List<String> m_deleteBuffer;
+
+    /** The number of documents added or deleted since the last commit. */
+    private int m_documentCount;
+
+    /** The first error that occurred while sending a batch. */
+    private volatile IOException m_error;
+
+    /** Indicates if there are soft committed changes not yet made durable by a hard commit. */
+    private AtomicBoolean m_hardCommitRequired;
 
     /** The Solr index. */
     private CmsSolrIndex m_index;
 
+    /** The maximum number of batches waiting to be sent. */
+    private int m_maxPendingBatches;
+
+    /** Limits the number of batches waiting to be sent. */
+    private Semaphore m_pendingBatches;
+
+    /** The report to write the throughput to. */
+    private I_CmsReport m_report;
+
+    /** The thread sending the batches and performing the hard commits, created on demand. */
+    private ScheduledExecutorService m_sender;
+
     /** The Solr client. */
     private SolrClient m_server;
 
+    /** The time the first document after the last commit was buffered. */
+    private long m_startTime;
+
     /**
      * Constructor to create a Solr index writer.<p>
      *
@@ -87,8 +150,48 @@ public class CmsSolrIndexWriter implements I_CmsIndexWriter {
      */
     public CmsSolrIndexWriter(SolrClient client, CmsSolrIndex index) {
 
+        this(client, index, null);
+    }
+
+    /**
+     * Creates a new index writer for the provided OpenCms search index instance.<p>
+     *
+     * @param client the Solr client to send the documents to
+     * @param index the OpenCms search index instance this writer to supposed to write to
+     * @param report the report to write the throughput to, may be <code>null</code>
+     */
+    public CmsSolrIndexWriter(SolrClient client, CmsSolrIndex index, I_CmsReport report) {
+
+        this(
+            client,
+            index,
+            report,
+            new Long(OpenCms.getSearchManager().getSolrServerConfiguration().getSolrCommitMs()).intValue());
+    }
+
+    /**
+     * Creates a new index writer for the provided OpenCms search index instance with the given hard commit time.<p>
+     *
+     * @param client the Solr client to send the documents to
+     * @param index the OpenCms search index instance this writer to supposed to write to
+     * @param report the report to write the throughput to, may be <code>null</code>
+     * @param commitMs the time in milliseconds between the periodic hard commits, no periodic hard commits if 0
+     */
+    protected CmsSolrIndexWriter(SolrClient client, CmsSolrIndex index, I_CmsReport report, int commitMs) {
+
         m_index = index;
+        m_commitMs = commitMs;
         m_server = client;
+        m_report = report;
+        m_batchSize = index != null ? Math.max(index.getIndexBatchSize(), 1) : DEFAULT_BATCH_SIZE;
+        m_maxPendingBatches = index != null
+        ? Math.max(index.getIndexMaxPendingBatches(), 1)
+        : DEFAULT_MAX_PENDING_BATCHES;
+        m_pendingBatches = new Semaphore(m_maxPendingBatches);
+        m_addBuffer = new ArrayList<SolrInputDocument>();
+        m_addPaths = new LinkedHashSet<String>();
+        m_deleteBuffer = new ArrayList<String>();
+        m_hardCommitRequired = new AtomicBoolean();
         if (m_index != null) {
             LOG.info(
                 Messages.get().getBundle().key(
@@ -99,29 +202,71 @@ public class CmsSolrIndexWriter implements I_CmsIndexWriter {
     }
 
     /**
+     * Sends all buffered documents, performs a hard commit and stops the background thread.<p>
+     *
      * @see org.opencms.search.I_CmsIndexWriter#close()
      */
-    public void close() {
+    public void close() throws IOException {
 
-        // nothing to do here
+        ScheduledExecutorService sender;
+        synchronized (this) {
+            flush();
+            sender = m_sender;
+            m_sender = null;
+        }
+        if (sender != null) {
+            sender.shutdown();
+            try {
+                sender.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (m_server != null) {
+            hardCommit();
+        }
+        checkError();
     }
 
     /**
+     * Sends all buffered documents and performs a soft commit, so the changes become visible for searching.<p>
+     *
      * @see org.opencms.search.I_CmsIndexWriter#commit()
      */
     public void commit() throws IOException {
 
         if ((m_server != null) && (m_index != null)) {
+            int documentCount;
+            long startTime;
+            synchronized (this) {
+                flush();
+                waitForPendingBatches();
+                documentCount = m_documentCount;
+                startTime = m_startTime;
+                m_documentCount = 0;
+            }
+            checkError();
             try {
                 LOG.info(
                     Messages.get().getBundle().key(
                         Messages.LOG_SOLR_WRITER_COMMIT_2,
                         m_index.getName(),
                         m_index.getPath()));
-                m_server.commit();
+                m_server.commit(true, true, true);
+                m_hardCommitRequired.set(true);
             } catch (SolrServerException e) {
                 throw new IOException(e.getLocalizedMessage(), e);
             }
+            if ((m_report != null) && (documentCount > 0)) {
+                long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+                m_report.println(
+                    Messages.get().container(
+                        Messages.RPT_SOLR_WRITER_THROUGHPUT_3,
+                        Integer.valueOf(documentCount),
+                        Long.valueOf(duration),
+                        Long.valueOf((documentCount * 1000L) / duration)),
+                    I_CmsReport.FORMAT_NOTE);
+            }
         }
     }
 
@@ -133,6 +278,14 @@ public class CmsSolrIndexWriter implements I_CmsIndexWriter {
     public void deleteAllDocuments() throws IOException {
 
         if ((m_server != null) && (m_index != null)) {
+            synchronized (this) {
+                // buffered changes must not be applied after the deletion
+                m_addBuffer.clear();
+                m_addPaths.clear();
+                m_deleteBuffer.clear();
+                waitForPendingBatches();
+            }
+            checkError();
             try {
                 LOG.info(
                     Messages.get().getBundle().key(
@@ -149,21 +302,24 @@ public class CmsSolrIndexWriter implements I_CmsIndexWriter {
     /**
      * @see org.opencms.search.I_CmsIndexWriter#deleteDocument(org.opencms.db.CmsPublishedResource)
      */
-    public void deleteDocument(CmsPublishedResource resource) throws IOException {
+    public synchronized void deleteDocument(CmsPublishedResource resource) throws IOException {
 
         if ((m_server != null) && (m_index != null)) {
-            try {
-                LOG.info(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_SOLR_WRITER_DOC_DELETE_3,
-                        resource.getRootPath(),
-                        m_index.getName(),
-                        m_index.getPath()));
-                m_server.deleteById(resource.getStructureId().toString(), m_commitMs);
-            } catch (SolrServerException e) {
-                throw new IOException(e.getLocalizedMessage(), e);
-            } catch (SolrException e) {
-                throw new IOException(e.getLocalizedMessage(), e);
+            checkError();
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_SOLR_WRITER_DOC_DELETE_3,
+                    resource.getRootPath(),
+                    m_index.getName(),
+                    m_index.getPath()));
+            if (!m_addBuffer.isEmpty()) {
+                // keep the order of the operations
+                flush();
+            }
+            startCounting();
+            m_deleteBuffer.add(resource.getStructureId().toString());
+            if (m_deleteBuffer.size() >= m_batchSize) {
+                flush();
             }
         }
     }
@@ -177,31 +333,271 @@ public class CmsSolrIndexWriter implements I_CmsIndexWriter {
         // should be configured within solrconfig.xml
     }
 
+    /**
+     * Sets the report to write the throughput to.<p>
+     *
+     * @param report the report to write the throughput to
+     */
+    public void setReport(I_CmsReport report) {
+
+        m_report = report;
+    }
+
     /**
      * @see org.opencms.search.I_CmsIndexWriter#updateDocument(java.lang.String, org.opencms.search.I_CmsSearchDocument)
      */
-    public void updateDocument(String rootPath, I_CmsSearchDocument document) throws IOException {
+    public synchronized void updateDocument(String rootPath, I_CmsSearchDocument document) throws IOException {
 
         if ((m_server != null) && (m_index != null)) {
 
             if (document.getDocument() != null) {
+                checkError();
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_SOLR_WRITER_DOC_UPDATE_3,
+                        rootPath,
+                        m_index.getName(),
+                        m_index.getPath()));
+                if (!m_deleteBuffer.isEmpty() || m_addPaths.contains(rootPath)) {
+                    // keep the order of the operations
+                    flush();
+                }
+                startCounting();
+                m_addBuffer.add((SolrInputDocument)document.getDocument());
+                m_addPaths.add(rootPath);
+                if (m_addBuffer.size() >= m_batchSize) {
+                    flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the documents of a batch one by one, logging and skipping the documents rejected by Solr.<p>
+     *
+     * @param docs the documents to add
+     * @param rootPaths the root paths of the documents to add
+     *
+     * @throws SolrServerException if Solr could not be reached
+     * @throws IOException if the communication with Solr failed
+     */
+    private void addSeparately(List<SolrInputDocument> docs, List<String> rootPaths)
+    throws SolrServerException, IOException {
+
+        for (int i = 0; i < docs.size(); i++) {
+            try {
+                m_server.add(docs.get(i));
+            } catch (SolrException e) {
+                LOG.error(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_SOLR_WRITER_DOC_REJECTED_3,
+                        rootPaths.get(i),
+                        m_index.getName(),
+                        m_index.getPath()),
+                    e);
+            }
+        }
+    }
+
+    /**
+     * Throws the first error that occurred while sending a batch.<p>
+     *
+     * @throws IOException the first error that occurred while sending a batch
+     */
+    private void checkError() throws IOException {
+
+        IOException error = m_error;
+        if (error != null) {
+            m_error = null;
+            throw error;
+        }
+    }
+
+    /**
+     * Creates the query deleting all documents with one of the given root paths.<p>
+     *
+     * @param rootPaths the root paths
+     *
+     * @return the query deleting all documents with one of the given root paths
+     */
+    private String createPathQuery(Set<String> rootPaths) {
+
+        StringBuffer result = new StringBuffer(64 * rootPaths.size());
+        result.append("path:(");
+        boolean first = true;
+        for (String rootPath : rootPaths) {
+            if (!first) {
+                result.append(" OR ");
+            }
+            result.append('"').append(rootPath).append('"');
+            first = false;
+        }
+        result.append(')');
+        return result.toString();
+    }
+
+    /**
+     * Hands the buffered documents to the background thread for sending.<p>
+     *
+     * Blocks if the maximum number of batches is already waiting to be sent.<p>
+     *
+     * @throws IOException if the current thread is interrupted while waiting
+     */
+    private void flush() throws IOException {
+
+        if (m_addBuffer.isEmpty() && m_deleteBuffer.isEmpty()) {
+            return;
+        }
+        final List<SolrInputDocument> docs = new ArrayList<SolrInputDocument>(m_addBuffer);
+        final List<String> rootPaths = new ArrayList<String>(m_addPaths);
+        final String pathQuery = m_addPaths.isEmpty() ? null : createPathQuery(m_addPaths);
+        final List<String> deleteIds = new ArrayList<String>(m_deleteBuffer);
+        m_addBuffer.clear();
+        m_addPaths.clear();
+        m_deleteBuffer.clear();
+        try {
+            m_pendingBatches.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e.getLocalizedMessage(), e);
+        }
+        getSender().execute(new Runnable() {
+
+            public void run() {
+
                 try {
-                    m_server.deleteByQuery("path:\"" + rootPath + "\"", m_commitMs);
-                } catch (Exception e1) {
-                    LOG.error(e1.getLocalizedMessage(), e1);
+                    sendBatch(docs, rootPaths, pathQuery, deleteIds);
+                } finally {
+                    m_pendingBatches.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the thread sending the batches, creating it if required.<p>
+     *
+     * @return the thread sending the batches
+     */
+    private ScheduledExecutorService getSender() {
+
+        if (m_sender == null) {
+            final String name = "OpenCms: Solr Index Writer " + (m_index != null ? m_index.getName() : "");
+            ScheduledThreadPoolExecutor sender = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, name);
+                    thread.setDaemon(true);
+                    return thread;
                 }
+            });
+            // stop the periodic hard commits when the writer is closed
+            sender.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+            if (m_commitMs > 0) {
+                sender.scheduleWithFixedDelay(new Runnable() {
+
+                    public void run() {
+
+                        hardCommit();
+                    }
+                }, m_commitMs, m_commitMs, TimeUnit.MILLISECONDS);
+            }
+            m_sender = sender;
+        }
+        return m_sender;
+    }
+
+    /**
+     * Performs a hard commit if there are soft committed changes, making them durable.<p>
+     */
+    private void hardCommit() {
+
+        if (m_hardCommitRequired.compareAndSet(true, false)) {
+            try {
+                m_server.commit(true, false, false);
+            } catch (Exception e) {
+                m_hardCommitRequired.set(true);
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Sends a batch to Solr, called by the background thread.<p>
+     *
+     * @param docs the documents to add
+     * @param rootPaths the root paths of the documents to add
+     * @param pathQuery the query deleting the existing documents with the root paths of the added documents
+     * @param deleteIds the ids of the documents to delete
+     */
+    private void sendBatch(
+        List<SolrInputDocument> docs,
+        List<String> rootPaths,
+        String pathQuery,
+        List<String> deleteIds) {
+
+        try {
+            if (!deleteIds.isEmpty()) {
+                m_server.deleteById(deleteIds);
+            }
+            if (pathQuery != null) {
+                // a separate request is required, since Solr applies the deletions of a request after the additions
+                m_server.deleteByQuery(pathQuery);
+            }
+            if (!docs.isEmpty()) {
                 try {
-                    LOG.info(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_SOLR_WRITER_DOC_UPDATE_3,
-                            rootPath,
-                            m_index.getName(),
-                            m_index.getPath()));
-                    m_server.add((SolrInputDocument)document.getDocument(), m_commitMs);
-                } catch (SolrServerException e) {
-                    throw new IOException(e.getLocalizedMessage(), e);
+                    m_server.add(docs);
+                } catch (SolrException e) {
+                    // a document was rejected, so add the documents one by one to skip only the rejected ones
+                    addSeparately(docs, rootPaths);
                 }
             }
+        } catch (SolrServerException e) {
+            setError(new IOException(e.getLocalizedMessage(), e));
+        } catch (SolrException e) {
+            setError(new IOException(e.getLocalizedMessage(), e));
+        } catch (IOException e) {
+            setError(e);
+        }
+    }
+
+    /**
+     * Remembers the first error that occurred while sending a batch.<p>
+     *
+     * @param error the error
+     */
+    private void setError(IOException error) {
+
+        LOG.error(error.getLocalizedMessage(), error);
+        if (m_error == null) {
+            m_error = error;
+        }
+    }
+
+    /**
+     * Counts a buffered document for the throughput report.<p>
+     */
+    private void startCounting() {
+
+        if (m_documentCount == 0) {
+            m_startTime = System.currentTimeMillis();
+        }
+        m_documentCount++;
+    }
+
+    /**
+     * Waits until all batches have been sent.<p>
+     *
+     * @throws IOException if the current thread is interrupted while waiting
+     */
+    private void waitForPendingBatches() throws IOException {
+
+        if (m_sender == null) {
+            return;
         }
+        // new batches are only added by the thread holding the lock, so all permits are returned eventually
+        m_pendingBatches.acquireUninterruptibly(m_maxPendingBatches);
+        m_pendingBatches.release(m_maxPendingBatches);
     }
 }
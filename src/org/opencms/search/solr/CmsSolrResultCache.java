@@ -0,0 +1,300 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.common.params.CommonParams;
+
+/**
+ * Caches the permission checked and post processed result lists of a Solr index.<p>
+ *
+ * The results are cached per normalized query and permission class of the user. The permission class
+ * consists of the user, the project and the site, since access control entries can be granted to single users
+ * and the post processors may generate site dependent values.<p>
+ *
+ * Each cached result is tagged with the version of the index reader the search was started with.
+ * As soon as the index has committed changes, e.g. after a publish, the version changes and all cached
+ * results are discarded. Since resources may become released or expired without any change of the index,
+ * the cached results additionally expire after a maximum age.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsSolrResultCache {
+
+    /**
+     * A cached result list.<p>
+     */
+    private static class CmsCacheEntry {
+
+        /** The time the result has been cached. */
+        long m_created;
+
+        /** The cached result list. */
+        CmsSolrResultList m_result;
+
+        /**
+         * Creates a new cache entry.<p>
+         *
+         * @param result the result list to cache
+         */
+        CmsCacheEntry(CmsSolrResultList result) {
+
+            m_result = result;
+            m_created = System.currentTimeMillis();
+        }
+    }
+
+    /** The cached result lists. */
+    private Map<String, CmsCacheEntry> m_entries;
+
+    /** The number of cache hits. */
+    private AtomicLong m_hits;
+
+    /** The number of times the cache has been invalidated. */
+    private AtomicLong m_invalidations;
+
+    /** The maximum age of the cached results in milliseconds. */
+    private long m_maxAge;
+
+    /** The maximum number of cached results. */
+    private int m_maxSize;
+
+    /** The number of cache misses. */
+    private AtomicLong m_misses;
+
+    /** The index version the cached results belong to. */
+    private volatile long m_version;
+
+    /**
+     * Creates a new result cache.<p>
+     *
+     * @param maxSize the maximum number of cached results
+     * @param maxAge the maximum age of the cached results in milliseconds
+     */
+    public CmsSolrResultCache(int maxSize, long maxAge) {
+
+        m_maxSize = maxSize;
+        m_maxAge = maxAge;
+        m_entries = Collections.synchronizedMap(
+            CmsCollectionsGenericWrapper.<String, CmsCacheEntry> createLRUMap(Math.max(maxSize, 1)));
+        m_hits = new AtomicLong();
+        m_invalidations = new AtomicLong();
+        m_misses = new AtomicLong();
+        m_version = -1;
+    }
+
+    /**
+     * Creates the cache key for a search.<p>
+     *
+     * The parameters of the query are sorted by name and the filter queries by value,
+     * so queries only differing in the order of their parameters share the same key.<p>
+     *
+     * @param cms the CMS context of the user performing the search
+     * @param query the query including all filter queries added for the search
+     * @param ignoreMaxRows if the maximum number of rows is ignored
+     * @param filter the resource filter used for the permission check, may be <code>null</code>
+     *
+     * @return the cache key
+     */
+    public static String createKey(CmsObject cms, SolrQuery query, boolean ignoreMaxRows, CmsResourceFilter filter) {
+
+        CmsRequestContext context = cms.getRequestContext();
+        StringBuffer result = new StringBuffer(256);
+        result.append(context.getCurrentUser().getId());
+        result.append('|').append(context.getCurrentProject().getUuid());
+        result.append('|').append(context.getSiteRoot());
+        result.append('|').append(ignoreMaxRows);
+        result.append('|').append(filter == null ? "" : filter.getCacheId());
+        for (String name : new TreeSet<String>(query.getParameterNames())) {
+            String[] values = query.getParams(name);
+            if (values == null) {
+                continue;
+            }
+            List<String> valueList = new ArrayList<String>(Arrays.asList(values));
+            if (CommonParams.FQ.equals(name)) {
+                // the order of the filter queries does not change the result
+                Collections.sort(valueList);
+            }
+            for (String value : valueList) {
+                result.append('&').append(name).append('=').append(value);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Discards all cached results.<p>
+     */
+    public void clear() {
+
+        synchronized (m_entries) {
+            m_entries.clear();
+            m_invalidations.incrementAndGet();
+            m_version = -1;
+        }
+    }
+
+    /**
+     * Returns a copy of the cached result list for the given key.<p>
+     *
+     * If the given index version is newer than the version of the cached results, all cached results are discarded.<p>
+     *
+     * @param key the cache key created with {@link #createKey(CmsObject, SolrQuery, boolean, CmsResourceFilter)}
+     * @param version the current version of the index
+     *
+     * @return a copy of the cached result list, or <code>null</code> if no valid result is cached
+     */
+    public CmsSolrResultList get(String key, long version) {
+
+        if (version != m_version) {
+            synchronized (m_entries) {
+                // the index version only increases, a lower version belongs to a search started before a commit
+                if (version > m_version) {
+                    m_entries.clear();
+                    m_invalidations.incrementAndGet();
+                    m_version = version;
+                }
+            }
+            m_misses.incrementAndGet();
+            return null;
+        }
+        CmsCacheEntry entry = m_entries.get(key);
+        if ((entry != null) && ((System.currentTimeMillis() - entry.m_created) > m_maxAge)) {
+            m_entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            m_misses.incrementAndGet();
+            return null;
+        }
+        m_hits.incrementAndGet();
+        return new CmsSolrResultList(entry.m_result);
+    }
+
+    /**
+     * Returns the number of cache hits.<p>
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the number of times the cache has been invalidated.<p>
+     *
+     * @return the number of times the cache has been invalidated
+     */
+    public long getInvalidations() {
+
+        return m_invalidations.get();
+    }
+
+    /**
+     * Returns the maximum age of the cached results in milliseconds.<p>
+     *
+     * @return the maximum age of the cached results in milliseconds
+     */
+    public long getMaxAge() {
+
+        return m_maxAge;
+    }
+
+    /**
+     * Returns the maximum number of cached results.<p>
+     *
+     * @return the maximum number of cached results
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the number of cache misses.<p>
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Returns the number of currently cached results.<p>
+     *
+     * @return the number of currently cached results
+     */
+    public int getSize() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * Returns if results are cached at all.<p>
+     *
+     * @return <code>true</code> if results are cached
+     */
+    public boolean isEnabled() {
+
+        return m_maxSize > 0;
+    }
+
+    /**
+     * Caches a copy of the result list.<p>
+     *
+     * The result is not cached if the index has changed since the search was started.<p>
+     *
+     * @param key the cache key created with {@link #createKey(CmsObject, SolrQuery, boolean, CmsResourceFilter)}
+     * @param version the version of the index the search was started with
+     * @param result the result list to cache
+     */
+    public void put(String key, long version, CmsSolrResultList result) {
+
+        CmsCacheEntry entry = new CmsCacheEntry(new CmsSolrResultList(result));
+        synchronized (m_entries) {
+            if (version == m_version) {
+                m_entries.put(key, entry);
+            }
+        }
+    }
+}
@@ -63,6 +63,31 @@ public class CmsSolrResultList extends ArrayList<CmsSearchResource> {
     /** The count of visible documents. */
     private long m_visibleHitCount;
 
+    /**
+     * Creates a copy of the given result list.<p>
+     *
+     * The copy shares the search resources and the query response with the given list.<p>
+     *
+     * @param resultList the result list to copy
+     */
+    public CmsSolrResultList(CmsSolrResultList resultList) {
+
+        super(resultList);
+
+        m_query = resultList.m_query;
+        m_startTime = resultList.m_startTime;
+        m_highlightEndTime = resultList.m_highlightEndTime;
+        m_rows = resultList.m_rows;
+        m_end = resultList.m_end;
+        m_page = resultList.m_page;
+        m_visibleHitCount = resultList.m_visibleHitCount;
+
+        m_resultDocuments = resultList.m_resultDocuments;
+        m_queryResponse = resultList.m_queryResponse;
+
+        m_highlighting = resultList.m_highlighting;
+    }
+
     /**
      * The public constructor.<p>
      *
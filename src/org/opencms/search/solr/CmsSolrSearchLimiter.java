@@ -0,0 +1,247 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.search.CmsSearchException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of searches executed concurrently on a Solr index and collects the queue time metrics.<p>
+ *
+ * Searches exceeding the limit wait in a fair queue. If a search can not start within the configured timeout,
+ * it is rejected with a {@link CmsSearchException}.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsSolrSearchLimiter {
+
+    /** The number of searches currently executed. */
+    private AtomicInteger m_activeSearches;
+
+    /** The maximum number of concurrent searches, a value &lt;= 0 means unlimited. */
+    private int m_maxConcurrentSearches;
+
+    /** The maximum time in milliseconds a search has waited in the queue. */
+    private AtomicLong m_maxQueueTime;
+
+    /** The semaphore limiting the concurrent searches, or <code>null</code> if unlimited. */
+    private Semaphore m_permits;
+
+    /** The number of searches that had to wait in the queue. */
+    private AtomicLong m_queuedSearches;
+
+    /** The time in milliseconds a search may wait in the queue. */
+    private long m_queueTimeout;
+
+    /** The number of searches rejected because of a queue timeout. */
+    private AtomicLong m_rejectedSearches;
+
+    /** The number of started searches. */
+    private AtomicLong m_searches;
+
+    /** The total time in milliseconds the searches have waited in the queue. */
+    private AtomicLong m_totalQueueTime;
+
+    /**
+     * Creates a new search limiter.<p>
+     *
+     * @param maxConcurrentSearches the maximum number of concurrent searches, a value &lt;= 0 means unlimited
+     * @param queueTimeout the time in milliseconds a search may wait in the queue
+     */
+    public CmsSolrSearchLimiter(int maxConcurrentSearches, long queueTimeout) {
+
+        m_maxConcurrentSearches = maxConcurrentSearches;
+        m_queueTimeout = queueTimeout;
+        if (maxConcurrentSearches > 0) {
+            m_permits = new Semaphore(maxConcurrentSearches, true);
+        }
+        m_activeSearches = new AtomicInteger();
+        m_maxQueueTime = new AtomicLong();
+        m_queuedSearches = new AtomicLong();
+        m_rejectedSearches = new AtomicLong();
+        m_searches = new AtomicLong();
+        m_totalQueueTime = new AtomicLong();
+    }
+
+    /**
+     * Waits until the search may be executed.<p>
+     *
+     * Each successful call has to be followed by a call to {@link #release()}.<p>
+     *
+     * @param indexName the name of the index, used for the error message
+     *
+     * @throws CmsSearchException if the search could not start within the queue timeout
+     */
+    public void acquire(String indexName) throws CmsSearchException {
+
+        if (m_permits != null) {
+            if (!m_permits.tryAcquire()) {
+                m_queuedSearches.incrementAndGet();
+                long start = System.currentTimeMillis();
+                boolean acquired = false;
+                try {
+                    acquired = m_permits.tryAcquire(m_queueTimeout, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                long queueTime = System.currentTimeMillis() - start;
+                m_totalQueueTime.addAndGet(queueTime);
+                updateMaxQueueTime(queueTime);
+                if (!acquired) {
+                    m_rejectedSearches.incrementAndGet();
+                    throw new CmsSearchException(
+                        Messages.get().container(
+                            Messages.LOG_SOLR_ERR_SEARCH_QUEUE_TIMEOUT_2,
+                            indexName,
+                            Long.valueOf(queueTime)));
+                }
+            }
+        }
+        m_searches.incrementAndGet();
+        m_activeSearches.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of searches currently executed.<p>
+     *
+     * @return the number of searches currently executed
+     */
+    public int getActiveSearches() {
+
+        return m_activeSearches.get();
+    }
+
+    /**
+     * Returns the average time in milliseconds the queued searches have waited.<p>
+     *
+     * @return the average time in milliseconds the queued searches have waited
+     */
+    public double getAverageQueueTime() {
+
+        long queued = m_queuedSearches.get();
+        return queued > 0 ? (double)m_totalQueueTime.get() / queued : 0;
+    }
+
+    /**
+     * Returns the maximum number of concurrent searches.<p>
+     *
+     * @return the maximum number of concurrent searches, a value &lt;= 0 means unlimited
+     */
+    public int getMaxConcurrentSearches() {
+
+        return m_maxConcurrentSearches;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a search has waited in the queue.<p>
+     *
+     * @return the maximum time in milliseconds a search has waited in the queue
+     */
+    public long getMaxQueueTime() {
+
+        return m_maxQueueTime.get();
+    }
+
+    /**
+     * Returns the number of searches that had to wait in the queue.<p>
+     *
+     * @return the number of searches that had to wait in the queue
+     */
+    public long getQueuedSearches() {
+
+        return m_queuedSearches.get();
+    }
+
+    /**
+     * Returns the time in milliseconds a search may wait in the queue.<p>
+     *
+     * @return the time in milliseconds a search may wait in the queue
+     */
+    public long getQueueTimeout() {
+
+        return m_queueTimeout;
+    }
+
+    /**
+     * Returns the number of searches rejected because of a queue timeout.<p>
+     *
+     * @return the number of searches rejected because of a queue timeout
+     */
+    public long getRejectedSearches() {
+
+        return m_rejectedSearches.get();
+    }
+
+    /**
+     * Returns the number of started searches.<p>
+     *
+     * @return the number of started searches
+     */
+    public long getSearches() {
+
+        return m_searches.get();
+    }
+
+    /**
+     * Returns the total time in milliseconds the searches have waited in the queue.<p>
+     *
+     * @return the total time in milliseconds the searches have waited in the queue
+     */
+    public long getTotalQueueTime() {
+
+        return m_totalQueueTime.get();
+    }
+
+    /**
+     * Signals that a search started with {@link #acquire(String)} has finished.<p>
+     */
+    public void release() {
+
+        m_activeSearches.decrementAndGet();
+        if (m_permits != null) {
+            m_permits.release();
+        }
+    }
+
+    /**
+     * Updates the maximum queue time.<p>
+     *
+     * @param queueTime the time in milliseconds a search has waited in the queue
+     */
+    private void updateMaxQueueTime(long queueTime) {
+
+        long max = m_maxQueueTime.get();
+        while ((queueTime > max) && !m_maxQueueTime.compareAndSet(max, queueTime)) {
+            max = m_maxQueueTime.get();
+        }
+    }
+}
@@ -45,6 +45,9 @@ import org.apache.solr.common.SolrInputDocument;
  * NOTE: Currently it is only possible to use this interface
  * if you run an embedded Solr server instance.<p>
  *
+ * Since the searches of an index are executed concurrently, the post processor
+ * is shared by parallel searches and has to be thread safe.<p>
+ *
  * @since 8.5.0
  */
 public interface I_CmsSolrPostSearchProcessor {
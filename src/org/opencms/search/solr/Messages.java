@@ -61,6 +61,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_ERR_SEARCH_PERMISSION_VIOLATION_2 = "LOG_SOLR_ERR_SEARCH_PERMISSION_VIOLATION_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_ERR_SEARCH_QUEUE_TIMEOUT_2 = "LOG_SOLR_ERR_SEARCH_QUEUE_TIMEOUT_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_ERR_SPELL_EXECUTION_FAILD_1 = "LOG_SOLR_ERR_SPELL_EXECUTION_FAILD_1";
 
@@ -82,6 +85,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_WRITER_DOC_DELETE_3 = "LOG_SOLR_WRITER_DOC_DELETE_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_WRITER_DOC_REJECTED_3 = "LOG_SOLR_WRITER_DOC_REJECTED_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_WRITER_DOC_UPDATE_3 = "LOG_SOLR_WRITER_DOC_UPDATE_3";
 
@@ -91,6 +97,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_ERR_MAPPING_TO_INTERNALLY_USED_FIELD_3 = "LOG_SOLR_ERR_MAPPING_TO_INTERNALLY_USED_FIELD_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_SOLR_WRITER_THROUGHPUT_3 = "RPT_SOLR_WRITER_THROUGHPUT_3";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.search.solr.messages";
 
@@ -37,6 +37,7 @@ import org.opencms.main.CmsContextInfo;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsPermissionSet;
 import org.opencms.security.CmsRole;
@@ -213,6 +214,7 @@ public final class CmsSiteManagerImpl {
         // re-initialize, will freeze the state when finished
         initialize(cms);
         OpenCms.writeConfiguration(CmsSystemConfiguration.class);
+        fireSitesChanged();
     }
 
     /**
@@ -1028,6 +1030,7 @@ public final class CmsSiteManagerImpl {
         // re-initialize, will freeze the state when finished
         initialize(cms);
         OpenCms.writeConfiguration(CmsSystemConfiguration.class);
+        fireSitesChanged();
     }
 
     /**
@@ -1102,6 +1105,7 @@ public final class CmsSiteManagerImpl {
         setDefaultUri(clone.readResource(defaulrUri).getRootPath());
         setSharedFolder(clone.readResource(sharedFolder).getRootPath());
         m_frozen = true;
+        fireSitesChanged();
     }
 
     /**
@@ -1166,6 +1170,17 @@ public final class CmsSiteManagerImpl {
         setSiteMatcherSites(siteMatcherSites);
     }
 
+    /**
+     * Clears the online caches after the site configuration has been changed,
+     * since they contain links that have been created with the previous site configuration.<p>
+     */
+    private void fireSitesChanged() {
+
+        if (OpenCms.getRunLevel() > OpenCms.RUNLEVEL_1_CORE_OBJECT) {
+            OpenCms.fireCmsEvent(I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES, null);
+        }
+    }
+
     /**
      * Returns the site matcher for the given request.<p>
      *
@@ -98,13 +98,15 @@ public abstract class A_CmsStaticExportHandler implements I_CmsStaticExportHandl
 
         /**
          * Accepts the given file if its name starts with the name of of the base file (without extension)
-         * and ends with the extension.<p>
+         * and ends with the extension, or with the extension of a compressed copy.<p>
          *
          * @see java.io.FileFilter#accept(java.io.File)
          */
         public boolean accept(File f) {
 
-            return f.getName().startsWith(m_baseName) && f.getName().endsWith(m_baseExtension);
+            return f.getName().startsWith(m_baseName)
+                && (f.getName().endsWith(m_baseExtension)
+                    || f.getName().endsWith(m_baseExtension + CmsStaticExportFileWriter.SUFFIX_GZIP));
         }
     }
 
@@ -137,48 +139,7 @@ public abstract class A_CmsStaticExportHandler implements I_CmsStaticExportHandl
      */
     public List<CmsPublishedResource> scrubExportFolders(CmsUUID publishHistoryId) {
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_SCRUBBING_EXPORT_FOLDERS_1, publishHistoryId));
-        }
-
-        Set<String> scrubbedFolders = new HashSet<String>();
-        Set<String> scrubbedFiles = new HashSet<String>();
-
-        // get a export user cms context
-        CmsObject cms;
-        try {
-            // this will always use the root site
-            cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
-        } catch (CmsException e) {
-            // this should never happen
-            LOG.error(Messages.get().getBundle().key(Messages.LOG_INIT_FAILED_0), e);
-            return Collections.emptyList();
-        }
-
-        List<CmsPublishedResource> publishedResources;
-        try {
-            publishedResources = cms.readPublishedResources(publishHistoryId);
-        } catch (CmsException e) {
-            LOG.error(
-                Messages.get().getBundle().key(Messages.LOG_READING_CHANGED_RESOURCES_FAILED_1, publishHistoryId),
-                e);
-            return Collections.emptyList();
-        }
-
-        publishedResources = addMovedLinkSources(cms, publishedResources);
-
-        // now iterate the actual resources to be exported
-        Iterator<CmsPublishedResource> itPubRes = publishedResources.iterator();
-        while (itPubRes.hasNext()) {
-            CmsPublishedResource res = itPubRes.next();
-            if (res.getState().isUnchanged()) {
-                // unchanged resources don't need to be deleted
-                continue;
-            }
-
-            scrubResource(cms, res, scrubbedFolders, scrubbedFiles);
-        }
-        return publishedResources;
+        return scrubExportFolders(publishHistoryId, null);
     }
 
     /**
@@ -321,7 +282,8 @@ public abstract class A_CmsStaticExportHandler implements I_CmsStaticExportHandl
 
         File rfsFile = new File(rfsFilePath);
 
-        // first delete the base file
+        // first delete the base file and its compressed copy
+        deleteFile(new File(rfsFilePath + CmsStaticExportFileWriter.SUFFIX_GZIP), vfsName);
         deleteFile(rfsFile, vfsName);
 
         // now delete the file parameter variations
@@ -338,6 +300,72 @@ public abstract class A_CmsStaticExportHandler implements I_CmsStaticExportHandl
         }
     }
 
+    /**
+     * Scrubs all files from the export folder that might have been changed,
+     * so that the export is newly created after the next request to the resource.<p>
+     *
+     * The returned list also contains the exported resources that depend on a published resource.
+     * Only the root paths of the published resources themselves are added to the given collection.<p>
+     *
+     * @param publishHistoryId id of the last published project
+     * @param publishedPaths the collection to add the root paths of the published resources to, or <code>null</code>
+     *
+     * @return the list of {@link CmsPublishedResource} objects to export
+     */
+    protected List<CmsPublishedResource> scrubExportFolders(
+        CmsUUID publishHistoryId,
+        Collection<String> publishedPaths) {
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_SCRUBBING_EXPORT_FOLDERS_1, publishHistoryId));
+        }
+
+        Set<String> scrubbedFolders = new HashSet<String>();
+        Set<String> scrubbedFiles = new HashSet<String>();
+
+        // get a export user cms context
+        CmsObject cms;
+        try {
+            // this will always use the root site
+            cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+        } catch (CmsException e) {
+            // this should never happen
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_INIT_FAILED_0), e);
+            return Collections.emptyList();
+        }
+
+        List<CmsPublishedResource> publishedResources;
+        try {
+            publishedResources = cms.readPublishedResources(publishHistoryId);
+        } catch (CmsException e) {
+            LOG.error(
+                Messages.get().getBundle().key(Messages.LOG_READING_CHANGED_RESOURCES_FAILED_1, publishHistoryId),
+                e);
+            return Collections.emptyList();
+        }
+
+        publishedResources = addMovedLinkSources(cms, publishedResources);
+
+        // now iterate the actual resources to be exported
+        Iterator<CmsPublishedResource> itPubRes = publishedResources.iterator();
+        while (itPubRes.hasNext()) {
+            CmsPublishedResource res = itPubRes.next();
+            if (res.getState().isUnchanged()) {
+                // unchanged resources don't need to be deleted
+                continue;
+            }
+
+            scrubResource(cms, res, scrubbedFolders, scrubbedFiles);
+        }
+        if (publishedPaths != null) {
+            for (CmsPublishedResource res : publishedResources) {
+                publishedPaths.add(res.getRootPath());
+            }
+        }
+        // purge the exported files of resources depending on the published resources
+        return purgeIndexedFiles(cms, publishedResources);
+    }
+
     /**
      * Scrub a single file or folder.<p>
      *
@@ -670,6 +698,24 @@ public abstract class A_CmsStaticExportHandler implements I_CmsStaticExportHandl
         return CmsStringUtil.substitute(result, new String(new char[] {File.separatorChar}), "/");
     }
 
+    /**
+     * Checks if the given file is located in one of the given export paths.<p>
+     *
+     * @param rfsFilePath the absolute path of the file
+     * @param exportPaths the export paths
+     *
+     * @return <code>true</code> if the file is located in one of the export paths
+     */
+    private boolean isInExportPath(String rfsFilePath, Set<String> exportPaths) {
+
+        for (String exportPath : exportPaths) {
+            if (rfsFilePath.startsWith(exportPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Purges a list of files from the rfs.<p>
      *
@@ -690,4 +736,61 @@ public abstract class A_CmsStaticExportHandler implements I_CmsStaticExportHandl
             scrubbedFiles.add(rfsName);
         }
     }
+
+    /**
+     * Purges the files recorded in the dependency index for the published resources
+     * and for all exported resources that depend on one of them.<p>
+     *
+     * @param cms an export cms object
+     * @param publishedResources the published resources
+     *
+     * @return the published resources, including the exported resources depending on them
+     */
+    private List<CmsPublishedResource> purgeIndexedFiles(
+        CmsObject cms,
+        List<CmsPublishedResource> publishedResources) {
+
+        CmsStaticExportDependencyIndex index = OpenCms.getStaticExportManager().getDependencyIndex();
+        Set<String> publishedPaths = new HashSet<String>();
+        Set<String> changedPaths = new HashSet<String>();
+        for (CmsPublishedResource res : publishedResources) {
+            publishedPaths.add(res.getRootPath());
+            if (!res.getState().isUnchanged()) {
+                changedPaths.add(res.getRootPath());
+            }
+        }
+        Set<String> dependents = index.getDependents(changedPaths);
+        Set<String> vfsNames = new HashSet<String>(changedPaths);
+        vfsNames.addAll(dependents);
+        Set<String> exportPaths = OpenCms.getStaticExportManager().getExportPaths();
+        for (String vfsName : vfsNames) {
+            Set<String> keptFiles = new HashSet<String>();
+            for (String rfsFilePath : index.removeResource(vfsName)) {
+                if (isInExportPath(rfsFilePath, exportPaths)) {
+                    purgeFile(rfsFilePath, vfsName);
+                } else {
+                    // the files outside of the current export paths are not touched,
+                    // but kept in the index so they can be purged after the configuration is restored
+                    keptFiles.add(rfsFilePath);
+                }
+            }
+            for (String rfsFilePath : keptFiles) {
+                index.addFile(vfsName, rfsFilePath);
+            }
+        }
+        dependents.removeAll(publishedPaths);
+        if (dependents.isEmpty()) {
+            return publishedResources;
+        }
+        List<CmsPublishedResource> result = new ArrayList<CmsPublishedResource>(publishedResources);
+        for (String vfsName : dependents) {
+            try {
+                result.add(new CmsPublishedResource(cms.readResource(vfsName)));
+            } catch (CmsException e) {
+                // the dependent resource does not exist any longer, nothing to export
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
+        return result;
+    }
 }
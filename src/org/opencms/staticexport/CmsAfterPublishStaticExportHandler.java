@@ -47,6 +47,7 @@ import org.opencms.workplace.CmsWorkplace;
 import java.io.File;
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -57,9 +58,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.servlet.ServletException;
-import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.logging.Log;
 
@@ -89,6 +90,9 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
     /**
      * Does the actual static export.<p>
      *
+     * The resources are exported in parallel by a pool of worker threads, see {@link CmsStaticExportWorkerPool}.
+     * Resources contained in the given list are exported before the resources that depend on them.<p>
+     *
      * @param resources a list of CmsPublishedREsources to start the static export with
      * @param report an <code>{@link I_CmsReport}</code> instance to print output message, or <code>null</code> to write messages to the log file
      *
@@ -99,70 +103,14 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
     public void doExportAfterPublish(List<CmsPublishedResource> resources, I_CmsReport report)
     throws CmsException, IOException, ServletException {
 
-        boolean templatesFound;
-
-        // export must be done in the context of the export user
-        // this will always use the root site
-        CmsObject cmsExportObject = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
-
-        List<CmsPublishedResource> resourcesToExport = getRelatedResources(cmsExportObject, resources);
-        // first export all non-template resources
-        templatesFound = exportNonTemplateResources(cmsExportObject, resourcesToExport, report);
-        LOG.warn("finished exporting non-template resources. ");
-
-        // export template resources (check "plainoptimization" setting)
-        if ((templatesFound) || (!OpenCms.getStaticExportManager().getQuickPlainExport())) {
-            CmsStaticExportManager manager = OpenCms.getStaticExportManager();
-
-            // build resource filter set
-            Set<String> resourceFilter = new HashSet<String>();
-            for (CmsPublishedResource pubResource : resourcesToExport) {
-                String rfsName = manager.getRfsName(cmsExportObject, pubResource.getRootPath());
-                resourceFilter.add(rfsName.substring(manager.getRfsPrefixForRfsName(rfsName).length()));
+        List<String> publishedPaths = null;
+        if (resources != null) {
+            publishedPaths = new ArrayList<String>(resources.size());
+            for (CmsPublishedResource pubResource : resources) {
+                publishedPaths.add(pubResource.getRootPath());
             }
-
-            long timestamp = 0;
-            List<String> publishedTemplateResources;
-            boolean newTemplateLinksFound;
-            int linkMode = CmsStaticExportManager.EXPORT_LINK_WITHOUT_PARAMETER;
-            do {
-                // get all template resources which are potential candidates for a static export
-                publishedTemplateResources = cmsExportObject.readStaticExportResources(linkMode, timestamp);
-                if (publishedTemplateResources == null) {
-                    break;
-                }
-                newTemplateLinksFound = publishedTemplateResources.size() > 0;
-                if (newTemplateLinksFound) {
-                    if (linkMode == CmsStaticExportManager.EXPORT_LINK_WITHOUT_PARAMETER) {
-                        // first loop, switch mode to parameter links, leave the timestamp unchanged
-                        linkMode = CmsStaticExportManager.EXPORT_LINK_WITH_PARAMETER;
-                        // filter without parameter
-                        publishedTemplateResources.retainAll(resourceFilter);
-                    } else {
-                        // second and subsequent loops, only look for links not already exported
-                        // this can only be the case for a link with parameters
-                        // that was present on a page also generated with parameters
-                        timestamp = System.currentTimeMillis();
-                        // filter with parameter
-                        Iterator<String> itPubTemplates = publishedTemplateResources.iterator();
-                        while (itPubTemplates.hasNext()) {
-                            String rfsName = itPubTemplates.next();
-                            if (!resourceFilter.contains(rfsName.substring(0, rfsName.lastIndexOf('_')))) {
-                                itPubTemplates.remove();
-                            }
-                        }
-                    }
-                    // leave if no template left
-                    if (publishedTemplateResources.isEmpty()) {
-                        break;
-                    }
-                    // export
-                    LOG.warn("exporting template resources. ");
-                    exportTemplateResources(cmsExportObject, publishedTemplateResources, report);
-                }
-                // if no new template links where found we are finished
-            } while (newTemplateLinksFound);
         }
+        doExportAfterPublish(resources, publishedPaths, report);
     }
 
     /**
@@ -232,6 +180,54 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         }
     }
 
+    /**
+     * Creates the worker pool used to export the resources, configured with the number of workers
+     * of the static export manager.<p>
+     *
+     * @return the worker pool
+     */
+    protected CmsStaticExportWorkerPool createWorkerPool() {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        return new CmsStaticExportWorkerPool(manager.getExportWorkers(), manager.getExportWorkersPerHost());
+    }
+
+    /**
+     * Does the actual static export.<p>
+     *
+     * The resources with the given root paths are exported before the other resources,
+     * which are only exported because they depend on them.<p>
+     *
+     * @param resources a list of CmsPublishedResources to start the static export with
+     * @param publishedPaths the root paths of the published resources, or <code>null</code>
+     * @param report an <code>{@link I_CmsReport}</code> instance to print output message, or <code>null</code> to write messages to the log file
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    protected void doExportAfterPublish(
+        List<CmsPublishedResource> resources,
+        Collection<String> publishedPaths,
+        I_CmsReport report)
+    throws CmsException, IOException, ServletException {
+
+        // export must be done in the context of the export user
+        // this will always use the root site
+        CmsObject cmsExportObject = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+
+        CmsStaticExportWorkerPool pool = createWorkerPool();
+        if (publishedPaths != null) {
+            // resources from the publish list are exported before the resources depending on them
+            pool.setPublishedPaths(publishedPaths);
+        }
+        try {
+            doExportAfterPublish(cmsExportObject, resources, report, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     /**
      * Starts the static export on publish.<p>
      *
@@ -269,10 +265,11 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             }
 
             // delete all resources deleted during the publish process, and retrieve the list of resources to actually export
-            List<CmsPublishedResource> publishedResources = scrubExportFolders(publishHistoryId);
+            List<String> publishedPaths = new ArrayList<String>();
+            List<CmsPublishedResource> publishedResources = scrubExportFolders(publishHistoryId, publishedPaths);
 
-            // do the export
-            doExportAfterPublish(publishedResources, report);
+            // do the export, the published resources before the resources depending on them
+            doExportAfterPublish(publishedResources, publishedPaths, report);
         }
 
     }
@@ -295,6 +292,36 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         List<CmsPublishedResource> publishedResources,
         I_CmsReport report) throws CmsException, IOException, ServletException {
 
+        CmsStaticExportWorkerPool pool = createWorkerPool();
+        try {
+            return exportNonTemplateResources(cms, publishedResources, report, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Exports all non template resources found in a list of published resources using the given worker pool.<p>
+     *
+     * Resources already exported by the pool are skipped.<p>
+     *
+     * @param cms the current cms object
+     * @param publishedResources the list of published resources
+     * @param report an I_CmsReport instance to print output message, or null to write messages to the log file
+     * @param pool the worker pool
+     *
+     * @return true if some template resources were found while looping the list of published resources
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    protected boolean exportNonTemplateResources(
+        final CmsObject cms,
+        List<CmsPublishedResource> publishedResources,
+        I_CmsReport report,
+        CmsStaticExportWorkerPool pool) throws CmsException, IOException, ServletException {
+
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_NONTEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
@@ -306,19 +333,15 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                     new Integer(publishedResources.size())));
         }
 
-        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        final CmsStaticExportManager manager = OpenCms.getStaticExportManager();
         List<CmsStaticExportData> resourcesToExport = new ArrayList<CmsStaticExportData>();
         boolean templatesFound = readNonTemplateResourcesToExport(cms, publishedResources, resourcesToExport);
 
-        int count = 1;
-        int size = resourcesToExport.size();
         if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_NUM_EXPORT_1, new Integer(size)));
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_NUM_EXPORT_1, new Integer(resourcesToExport.size())));
         }
         // now do the export
-        Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
-        while (i.hasNext()) {
-            CmsStaticExportData exportData = i.next();
+        for (final CmsStaticExportData exportData : resourcesToExport) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(
                     Messages.get().getBundle().key(
@@ -326,42 +349,28 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                         exportData.getVfsName(),
                         exportData.getRfsName()));
             }
-
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_SUCCESSION_2,
-                    new Integer(count++),
-                    new Integer(size)),
-                I_CmsReport.FORMAT_NOTE);
-            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    exportData.getVfsName()));
-            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            int status = manager.export(null, null, cms, exportData);
-            if (status == HttpServletResponse.SC_OK) {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                    I_CmsReport.FORMAT_OK);
-            } else {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                    I_CmsReport.FORMAT_NOTE);
-            }
-
-            if (LOG.isInfoEnabled()) {
-                Object[] arguments = new Object[] {
-                    exportData.getVfsName(),
-                    exportData.getRfsName(),
-                    new Integer(status)};
-                LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
-            }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
+            pool.addJob(
+                exportData.getRfsName(),
+                exportData.getVfsName(),
+                null,
+                exportData.getVfsName(),
+                new Callable<Integer>() {
+
+                    public Integer call() throws Exception {
+
+                        int status = manager.export(null, null, cms, exportData);
+                        if (LOG.isInfoEnabled()) {
+                            Object[] arguments = new Object[] {
+                                exportData.getVfsName(),
+                                exportData.getRfsName(),
+                                new Integer(status)};
+                            LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+                        }
+                        return new Integer(status);
+                    }
+                });
         }
-
-        resourcesToExport = null;
+        pool.execute(report);
 
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_NONTEMPLATE_RESOURCES_END_0),
@@ -580,11 +589,14 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         urlcon.connect();
         int status = urlcon.getResponseCode();
 
-        if (cookies.length() == 0) {
-            //Now retrieve the cookies. The jsessionid is here
-            cookies.append(urlcon.getHeaderField(HEADER_FIELD_SET_COOKIE));
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
+        // the cookies are shared by the export workers, so only the first response may set them
+        synchronized (cookies) {
+            if (cookies.length() == 0) {
+                //Now retrieve the cookies. The jsessionid is here
+                cookies.append(urlcon.getHeaderField(HEADER_FIELD_SET_COOKIE));
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
+                }
             }
         }
         urlcon.disconnect();
@@ -608,19 +620,45 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
      */
     protected void exportTemplateResources(CmsObject cms, List<String> publishedTemplateResources, I_CmsReport report) {
 
+        CmsStaticExportWorkerPool pool = createWorkerPool();
+        try {
+            exportTemplateResources(cms, publishedTemplateResources, report, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Exports all template resources found in a list of published resources using the given worker pool.<p>
+     *
+     * The resources are requested from the server in parallel, RFS names already exported by the pool are skipped.<p>
+     *
+     * @param cms the cms context, in the root site as Export user
+     * @param publishedTemplateResources list of potential candidates to export
+     * @param report an I_CmsReport instance to print output message, or null to write messages to the log file
+     * @param pool the worker pool
+     */
+    protected void exportTemplateResources(
+        CmsObject cms,
+        List<String> publishedTemplateResources,
+        I_CmsReport report,
+        CmsStaticExportWorkerPool pool) {
+
         CmsStaticExportManager manager = OpenCms.getStaticExportManager();
-        int size = publishedTemplateResources.size();
-        int count = 1;
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_TEMPLATES_1, new Integer(size)));
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXPORT_TEMPLATES_1,
+                    new Integer(publishedTemplateResources.size())));
         }
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
         StringBuffer cookies = new StringBuffer();
-        // now loop through all of them and request them from the server
+        String host = getExportHost();
+        // now loop through all of them and queue the requests to the server
         Iterator<String> i = publishedTemplateResources.iterator();
         while (i.hasNext()) {
             String rfsName = i.next();
@@ -644,68 +682,31 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                     }
                 }
             }
-            if (data != null) {
-                data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        new Integer(count++),
-                        new Integer(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
+            if (data == null) {
                 // no valid resource found for rfs name (already deleted), skip it
                 continue;
             }
+            data.setRfsName(rfsName);
 
+            CmsResource resource = data.getResource();
             try {
-                CmsResource resource = data.getResource();
-                try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
-                    for (String detailPageUri : detailPages) {
-                        String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
-                            data.getVfsName(),
-                            altRfsName,
-                            data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
-                    }
-                } catch (CmsException e) {
-                    LOG.error(e.getLocalizedMessage(), e);
+                Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+                for (String detailPageUri : detailPages) {
+                    String altRfsName = manager.getRfsName(cms, detailPageUri);
+                    CmsStaticExportData detailData = new CmsStaticExportData(
+                        data.getVfsName(),
+                        altRfsName,
+                        data.getResource(),
+                        data.getParameters());
+                    addTemplateJob(pool, detailData, host, cookies);
                 }
-
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            new Integer(status)),
-                        I_CmsReport.FORMAT_OK);
-                }
-            } catch (IOException e) {
-                report.println(e);
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
+            addTemplateJob(pool, data, host, cookies);
         }
+        pool.execute(report);
+
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
             I_CmsReport.FORMAT_HEADLINE);
@@ -782,8 +783,10 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                             match = true;
                         }
                     }
-                    // if one res does not match any rule, then export all files
-                    if (!match) {
+                    // if one res does not match any rule, then export all files, unless configured
+                    // to rely on the dependency index only and the index knows all exported files
+                    CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+                    if (!match && !(manager.isDependencyIndexOnly() && manager.getDependencyIndex().isComplete())) {
                         return getAllResources(cms);
                     }
                 }
@@ -895,4 +898,137 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         return templatesFound;
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds a job requesting a template resource from the server to the worker pool.<p>
+     *
+     * @param pool the worker pool
+     * @param data the export data
+     * @param host the host the request is sent to
+     * @param cookies cookies to keep the session
+     */
+    private void addTemplateJob(
+        CmsStaticExportWorkerPool pool,
+        final CmsStaticExportData data,
+        String host,
+        final StringBuffer cookies) {
+
+        pool.addJob(data.getRfsName(), data.getVfsName(), host, data.getRfsName(), new Callable<Integer>() {
+
+            public Integer call() throws IOException {
+
+                return new Integer(exportTemplateResource(data, cookies));
+            }
+        });
+    }
+
+    /**
+     * Exports the resources related to the given published resources using the given worker pool.<p>
+     *
+     * @param cmsExportObject the cms context of the export user, in the root site
+     * @param resources a list of CmsPublishedResources to start the static export with
+     * @param report an <code>{@link I_CmsReport}</code> instance to print output message
+     * @param pool the worker pool
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    private void doExportAfterPublish(
+        CmsObject cmsExportObject,
+        List<CmsPublishedResource> resources,
+        I_CmsReport report,
+        CmsStaticExportWorkerPool pool) throws CmsException, IOException, ServletException {
+
+        // the statistics only cover this export
+        OpenCms.getStaticExportManager().getExportFileWriter().resetStatistics();
+        List<CmsPublishedResource> resourcesToExport = getRelatedResources(cmsExportObject, resources);
+        // first export all non-template resources
+        boolean templatesFound = exportNonTemplateResources(cmsExportObject, resourcesToExport, report, pool);
+        LOG.warn("finished exporting non-template resources. ");
+
+        // export template resources (check "plainoptimization" setting)
+        if ((templatesFound) || (!OpenCms.getStaticExportManager().getQuickPlainExport())) {
+            CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+
+            // build resource filter set
+            Set<String> resourceFilter = new HashSet<String>();
+            for (CmsPublishedResource pubResource : resourcesToExport) {
+                String rfsName = manager.getRfsName(cmsExportObject, pubResource.getRootPath());
+                resourceFilter.add(rfsName.substring(manager.getRfsPrefixForRfsName(rfsName).length()));
+            }
+
+            long timestamp = 0;
+            List<String> publishedTemplateResources;
+            boolean newTemplateLinksFound;
+            int linkMode = CmsStaticExportManager.EXPORT_LINK_WITHOUT_PARAMETER;
+            do {
+                // get all template resources which are potential candidates for a static export
+                publishedTemplateResources = cmsExportObject.readStaticExportResources(linkMode, timestamp);
+                if (publishedTemplateResources == null) {
+                    break;
+                }
+                newTemplateLinksFound = publishedTemplateResources.size() > 0;
+                if (newTemplateLinksFound) {
+                    if (linkMode == CmsStaticExportManager.EXPORT_LINK_WITHOUT_PARAMETER) {
+                        // first loop, switch mode to parameter links, leave the timestamp unchanged
+                        linkMode = CmsStaticExportManager.EXPORT_LINK_WITH_PARAMETER;
+                        // filter without parameter
+                        publishedTemplateResources.retainAll(resourceFilter);
+                    } else {
+                        // second and subsequent loops, only look for links not already exported
+                        // this can only be the case for a link with parameters
+                        // that was present on a page also generated with parameters
+                        timestamp = System.currentTimeMillis();
+                        // filter with parameter
+                        Iterator<String> itPubTemplates = publishedTemplateResources.iterator();
+                        while (itPubTemplates.hasNext()) {
+                            String rfsName = itPubTemplates.next();
+                            if (!resourceFilter.contains(rfsName.substring(0, rfsName.lastIndexOf('_')))) {
+                                itPubTemplates.remove();
+                            }
+                        }
+                    }
+                    // leave if no template left
+                    if (publishedTemplateResources.isEmpty()) {
+                        break;
+                    }
+                    // export
+                    LOG.warn("exporting template resources. ");
+                    exportTemplateResources(cmsExportObject, publishedTemplateResources, report, pool);
+                }
+                // if no new template links where found we are finished
+            } while (newTemplateLinksFound);
+        }
+        if (LOG.isInfoEnabled()) {
+            CmsStaticExportFileWriter writer = OpenCms.getStaticExportManager().getExportFileWriter();
+            // include the compressed copies still being written
+            writer.flush();
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXPORT_STATISTICS_6,
+                    new Object[] {
+                        new Long(writer.getWrittenFiles()),
+                        new Long(writer.getWrittenBytes()),
+                        new Long(writer.getWriteTime()),
+                        new Long(writer.getCompressedFiles()),
+                        new Long(writer.getCompressedBytes()),
+                        new Long(writer.getCompressionTime())}));
+        }
+    }
+
+    /**
+     * Returns the host the export requests are sent to, used to limit the number of parallel requests.<p>
+     *
+     * @return the host the export requests are sent to
+     */
+    private String getExportHost() {
+
+        String exportUrl = OpenCms.getStaticExportManager().getExportUrl();
+        try {
+            return new URL(exportUrl).getAuthority();
+        } catch (MalformedURLException e) {
+            return exportUrl;
+        }
+    }
+}
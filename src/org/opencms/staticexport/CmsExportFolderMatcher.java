@@ -41,8 +41,8 @@ import java.util.regex.Pattern;
  */
 public class CmsExportFolderMatcher {
 
-    /** Internal array containing the vfs folders that should be exported. */
-    private List<Pattern> m_vfsFolders;
+    /** Matches the vfs folders that should be exported. */
+    private CmsPrefixPatternMatcher m_matcher;
 
     /**
      * Creates a new CmsExportFolderMatcher.<p>
@@ -52,11 +52,12 @@ public class CmsExportFolderMatcher {
      */
     public CmsExportFolderMatcher(List<String> vfsFolders, String checkResource) {
 
-        m_vfsFolders = new ArrayList<Pattern>();
+        List<Pattern> patterns = new ArrayList<Pattern>();
         for (String patternAsString : vfsFolders) {
-            m_vfsFolders.add(Pattern.compile(patternAsString));
+            patterns.add(Pattern.compile(patternAsString));
         }
-        m_vfsFolders.add(Pattern.compile(CmsStringUtil.escapePattern(checkResource)));
+        patterns.add(Pattern.compile(CmsStringUtil.escapePattern(checkResource)));
+        m_matcher = new CmsPrefixPatternMatcher(patterns);
     }
 
     /**
@@ -67,15 +68,6 @@ public class CmsExportFolderMatcher {
      */
     public boolean match(String vfsName) {
 
-        boolean match = false;
-
-        for (int j = 0; j < m_vfsFolders.size(); j++) {
-            Pattern pattern = m_vfsFolders.get(j);
-            match = pattern.matcher(vfsName).matches();
-            if (match) {
-                break;
-            }
-        }
-        return match;
+        return m_matcher.indexOfFirstMatch(vfsName) >= 0;
     }
 }
@@ -29,17 +29,21 @@ package org.opencms.staticexport;
 
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
+import org.opencms.file.CmsRequestContext;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.wrapper.CmsObjectWrapper;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsPermalinkResourceHandler;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.relations.CmsExternalLinksValidationResult;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.site.CmsSite;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsPair;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
@@ -47,6 +51,7 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 
@@ -81,6 +86,12 @@ public class CmsLinkManager {
         }
     }
 
+    /** The number of substituted links read from the cache. */
+    private AtomicLong m_linkCacheHits;
+
+    /** The number of substituted links not found in the cache. */
+    private AtomicLong m_linkCacheMisses;
+
     /** The configured link substitution handler. */
     private I_CmsLinkSubstitutionHandler m_linkSubstitutionHandler;
 
@@ -99,6 +110,8 @@ public class CmsLinkManager {
             // just make very sure that this is not null
             m_linkSubstitutionHandler = new CmsDefaultLinkSubstitutionHandler();
         }
+        m_linkCacheHits = new AtomicLong();
+        m_linkCacheMisses = new AtomicLong();
     }
 
     /**
@@ -286,6 +299,37 @@ public class CmsLinkManager {
         return path;
     }
 
+    /**
+     * Returns the number of substituted links that have been read from the cache.<p>
+     *
+     * @return the number of substituted links that have been read from the cache
+     */
+    public long getLinkCacheHits() {
+
+        return m_linkCacheHits.get();
+    }
+
+    /**
+     * Returns the number of substituted links that have not been found in the cache.<p>
+     *
+     * @return the number of substituted links that have not been found in the cache
+     */
+    public long getLinkCacheMisses() {
+
+        return m_linkCacheMisses.get();
+    }
+
+    /**
+     * Returns the number of currently cached substituted links.<p>
+     *
+     * @return the number of currently cached substituted links
+     */
+    public int getLinkCacheSize() {
+
+        CmsStaticExportManager exportManager = OpenCms.getStaticExportManager();
+        return exportManager == null ? 0 : exportManager.getSubstitutedLinkCacheSize();
+    }
+
     /**
      * Returns the online link for the given resource, with full server prefix.<p>
      *
@@ -616,6 +660,8 @@ public class CmsLinkManager {
 
         OpenCms.getRoleManager().checkRole(cms, CmsRole.ROOT_ADMIN);
         m_linkSubstitutionHandler = linkSubstitutionHandler;
+        // the cached links have been created by the previous handler
+        OpenCms.fireCmsEvent(I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES, null);
     }
 
     /**
@@ -802,12 +848,34 @@ public class CmsLinkManager {
         String targetDetailPage,
         boolean forceSecure) {
 
+        String cacheKey = getLinkCacheKey(cms, link, siteRoot, targetDetailPage, forceSecure);
+        CmsStaticExportManager exportManager = OpenCms.getStaticExportManager();
+        if (cacheKey != null) {
+            CmsPair<String, String> cached = exportManager.getCachedSubstitutedLink(cacheKey);
+            if (cached != null) {
+                m_linkCacheHits.incrementAndGet();
+                if (cached.getSecond() != null) {
+                    // restore the site root override the link substitution handler has set for the link
+                    cms.getRequestContext().setAttribute(
+                        CmsDefaultLinkSubstitutionHandler.OVERRIDE_SITEROOT_PREFIX + cached.getFirst(),
+                        cached.getSecond());
+                }
+                return cached.getFirst();
+            }
+            m_linkCacheMisses.incrementAndGet();
+        }
+        String result;
         if (targetDetailPage != null) {
-            return m_linkSubstitutionHandler.getLink(cms, link, siteRoot, targetDetailPage, forceSecure);
+            result = m_linkSubstitutionHandler.getLink(cms, link, siteRoot, targetDetailPage, forceSecure);
         } else {
-            return m_linkSubstitutionHandler.getLink(cms, link, siteRoot, forceSecure);
+            result = m_linkSubstitutionHandler.getLink(cms, link, siteRoot, forceSecure);
         }
-
+        if ((cacheKey != null) && (result != null)) {
+            String overrideSiteRoot = (String)cms.getRequestContext().getAttribute(
+                CmsDefaultLinkSubstitutionHandler.OVERRIDE_SITEROOT_PREFIX + result);
+            exportManager.cacheSubstitutedLink(cacheKey, CmsPair.create(result, overrideSiteRoot));
+        }
+        return result;
     }
 
     /**
@@ -997,4 +1065,50 @@ public class CmsLinkManager {
         }
         return link;
     }
+
+    /**
+     * Returns the key used to cache the result of the link substitution.<p>
+     *
+     * Links are only cached in the online project. Since the link substitution handler takes the current URI,
+     * site, locale and detail content of the request context as well as the permissions of the current user into
+     * account, these are part of the key.<p>
+     *
+     * @param cms the current OpenCms user context
+     * @param link the link to process
+     * @param siteRoot the site root of the link
+     * @param targetDetailPage the target detail page, may be <code>null</code>
+     * @param forceSecure if the secure server prefix is forced
+     *
+     * @return the cache key, or <code>null</code> if the link must not be cached
+     */
+    private String getLinkCacheKey(
+        CmsObject cms,
+        String link,
+        String siteRoot,
+        String targetDetailPage,
+        boolean forceSecure) {
+
+        if ((cms == null) || (link == null) || (OpenCms.getStaticExportManager() == null)) {
+            return null;
+        }
+        CmsRequestContext context = cms.getRequestContext();
+        if (!context.getCurrentProject().isOnlineProject()
+            || (context.getAttribute(CmsObjectWrapper.ATTRIBUTE_NAME) != null)) {
+            // links rewritten by an object wrapper depend on the wrapper
+            return null;
+        }
+        StringBuffer result = new StringBuffer(128);
+        result.append(context.getCurrentUser().getId());
+        result.append('|').append(context.getSiteRoot());
+        result.append('|').append(context.getUri());
+        result.append('|').append(context.getLocale());
+        result.append('|').append(context.isSecureRequest());
+        result.append('|').append(context.getDetailContentId());
+        result.append('|').append(context.getAttribute(CmsDefaultLinkSubstitutionHandler.ATTR_IS_IMAGE_LINK));
+        result.append('|').append(siteRoot);
+        result.append('|').append(targetDetailPage);
+        result.append('|').append(forceSecure);
+        result.append('|').append(link);
+        return result.toString();
+    }
 }
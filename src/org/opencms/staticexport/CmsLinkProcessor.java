@@ -84,10 +84,10 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     public static final String TAG_PARAM = "PARAM";
 
     /** List of attributes that may contain links for the embed tag. */
-    private static final String[] EMBED_TAG_LINKED_ATTRIBS = new String[] {ATTRIBUTE_SRC, "pluginurl", "pluginspage"};
+    protected static final String[] EMBED_TAG_LINKED_ATTRIBS = new String[] {ATTRIBUTE_SRC, "pluginurl", "pluginspage"};
 
     /** List of attributes that may contain links for the object tag ("codebase" has to be first). */
-    private static final String[] OBJECT_TAG_LINKED_ATTRIBS = new String[] {"codebase", "data", "datasrc"};
+    protected static final String[] OBJECT_TAG_LINKED_ATTRIBS = new String[] {"codebase", "data", "datasrc"};
 
     /** Processing mode "process links". */
     private static final int PROCESS_LINKS = 1;
@@ -113,6 +113,12 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** Another OpenCms context based on the current users OpenCms context, but with the site root set to '/'. */
     private CmsObject m_rootCms;
 
+    /** Indicates if macros are replaced by links with the streaming tokenizer instead of the HTML parser. */
+    private boolean m_streaming;
+
+    /** The tokenizer used to replace macros by links, created on demand. */
+    private CmsLinkTokenizer m_tokenizer;
+
     /**
      * Creates a new link processor.<p>
      *
@@ -139,6 +145,7 @@ public class CmsLinkProcessor extends CmsHtmlParser {
         m_linkTable = linkTable;
         m_encoding = encoding;
         m_relativePath = relativePath;
+        m_streaming = true;
     }
 
     /**
@@ -203,11 +210,27 @@ public class CmsLinkProcessor extends CmsHtmlParser {
         return m_linkTable;
     }
 
+    /**
+     * Returns if macros are replaced by links with the streaming tokenizer instead of the HTML parser.<p>
+     *
+     * @return <code>true</code> if macros are replaced by links with the streaming tokenizer
+     *
+     * @see #setStreaming(boolean)
+     */
+    public boolean isStreaming() {
+
+        return m_streaming;
+    }
+
     /**
      * Starts link processing for the given content in processing mode.<p>
      *
      * Macros are replaced by links.<p>
      *
+     * In streaming mode, the content is not parsed into a node tree, but scanned once by a tokenizer
+     * that only rewrites the link attributes. This requires that the content has been processed
+     * by {@link #replaceLinks(String)} before, which is the case for all stored HTML values.<p>
+     *
      * @param content the content to process
      * @return the processed content with replaced macros
      *
@@ -216,6 +239,12 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     public String processLinks(String content) throws ParserException {
 
         m_mode = PROCESS_LINKS;
+        if (m_streaming) {
+            if (m_tokenizer == null) {
+                m_tokenizer = new CmsLinkTokenizer(this);
+            }
+            return m_tokenizer.process(content);
+        }
         return process(content, m_encoding);
     }
 
@@ -235,6 +264,19 @@ public class CmsLinkProcessor extends CmsHtmlParser {
         return process(content, m_encoding);
     }
 
+    /**
+     * Sets if macros are replaced by links with the streaming tokenizer instead of the HTML parser.<p>
+     *
+     * Streaming is enabled by default. Subclasses overriding the tag processing methods
+     * have to disable it, since the tokenizer does not call these methods.<p>
+     *
+     * @param streaming if macros are replaced by links with the streaming tokenizer
+     */
+    public void setStreaming(boolean streaming) {
+
+        m_streaming = streaming;
+    }
+
     /**
      * Visitor method to process a tag (start).<p>
      *
@@ -261,6 +303,36 @@ public class CmsLinkProcessor extends CmsHtmlParser {
         super.visitTag(tag);
     }
 
+    /**
+     * Returns the link for the given link macro found in an attribute of the given tag.<p>
+     *
+     * @param tagName the upper case name of the tag
+     * @param macro the attribute value containing the link macro
+     *
+     * @return the escaped link, or <code>null</code> if the value is not a macro for a link of the link table
+     */
+    protected String getProcessedLink(String tagName, String macro) {
+
+        CmsLink link = m_linkTable.getLink(CmsMacroResolver.stripMacro(macro));
+        if (link == null) {
+            return null;
+        }
+        // link management check
+        String l = link.getLink(m_cms);
+        if (TAG_PARAM.equals(tagName)) {
+            // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
+            // another solution should be a kind of macro...
+            if (!l.endsWith(CmsRequestUtil.URL_DELIMITER) && !l.endsWith(CmsRequestUtil.PARAMETER_DELIMITER)) {
+                if (l.indexOf(CmsRequestUtil.URL_DELIMITER) > 0) {
+                    l += CmsRequestUtil.PARAMETER_DELIMITER;
+                } else {
+                    l += CmsRequestUtil.URL_DELIMITER;
+                }
+            }
+        }
+        return CmsEncoder.escapeXml(l);
+    }
+
     /**
      * Process an area tag.<p>
      *
@@ -310,24 +382,10 @@ public class CmsLinkProcessor extends CmsHtmlParser {
         switch (m_mode) {
             case PROCESS_LINKS:
                 // macros are replaced with links
-                link = m_linkTable.getLink(CmsMacroResolver.stripMacro(tag.getAttribute(attr)));
-                if (link != null) {
-                    // link management check
-                    String l = link.getLink(m_cms);
-                    if (TAG_PARAM.equals(tag.getTagName())) {
-                        // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
-                        // another solution should be a kind of macro...
-                        if (!l.endsWith(CmsRequestUtil.URL_DELIMITER)
-                            && !l.endsWith(CmsRequestUtil.PARAMETER_DELIMITER)) {
-                            if (l.indexOf(CmsRequestUtil.URL_DELIMITER) > 0) {
-                                l += CmsRequestUtil.PARAMETER_DELIMITER;
-                            } else {
-                                l += CmsRequestUtil.URL_DELIMITER;
-                            }
-                        }
-                    }
+                String target = getProcessedLink(tag.getTagName(), tag.getAttribute(attr));
+                if (target != null) {
                     // set the real target
-                    tag.setAttribute(attr, CmsEncoder.escapeXml(l));
+                    tag.setAttribute(attr, target);
                 }
                 break;
             case REPLACE_LINKS:
@@ -0,0 +1,577 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.util.I_CmsMacroResolver;
+
+/**
+ * Single pass HTML tokenizer that replaces the link macros in the link attributes of a HTML fragment.<p>
+ *
+ * The tokenizer visits the same tags and attributes as the HTML parser based {@link CmsLinkProcessor},
+ * but it does not build a node tree. The input is scanned once, and only the text between the replaced
+ * attribute values is copied to a buffer that is reused for all fragments processed with the same instance.
+ * If no attribute is replaced, the input is returned unchanged.<p>
+ *
+ * Unlike the HTML parser, the tokenizer does not add missing end tags. It is therefore only used
+ * for HTML that has already been processed by the HTML parser when the links were replaced by macros.<p>
+ *
+ * Instances are not thread safe.<p>
+ *
+ * @since 10.5.0
+ */
+final class CmsLinkTokenizer {
+
+    /** Constant for the attribute name. */
+    private static final String ATTRIBUTE_CODEBASE = "codebase";
+
+    /** Initial number of attributes per tag the buffers are created for. */
+    private static final int INITIAL_ATTRIBUTES = 8;
+
+    /** The maximum capacity of the buffer kept for the next fragment. */
+    private static final int MAX_BUFFER_CAPACITY = 256 * 1024;
+
+    /** Constant for the tag name. */
+    private static final String TAG_A = "A";
+
+    /** Constant for the tag name. */
+    private static final String TAG_IMG = "IMG";
+
+    /** Constant for the tag name. */
+    private static final String TAG_OBJECT = "OBJECT";
+
+    /** Constant for the tag name. */
+    private static final String TAG_SCRIPT = "SCRIPT";
+
+    /** Constant for the tag name. */
+    private static final String TAG_STYLE = "STYLE";
+
+    /** The number of attributes of the current tag. */
+    private int m_attributeCount;
+
+    /** The end positions of the attribute names of the current tag. */
+    private int[] m_attributeNameEnds;
+
+    /** The start positions of the attribute names of the current tag. */
+    private int[] m_attributeNameStarts;
+
+    /** The quote characters of the attribute values of the current tag, or 0 for unquoted values. */
+    private char[] m_attributeQuotes;
+
+    /** The new attribute values of the current tag, <code>null</code> for unchanged values. */
+    private String[] m_attributeReplacements;
+
+    /** The end positions of the attribute values of the current tag. */
+    private int[] m_attributeValueEnds;
+
+    /** The start positions of the attribute values of the current tag, or -1 for attributes without value. */
+    private int[] m_attributeValueStarts;
+
+    /** The buffer the result is written to. */
+    private StringBuilder m_buffer;
+
+    /** The position up to which the input has been copied to the buffer. */
+    private int m_copied;
+
+    /** The HTML fragment currently processed. */
+    private CharSequence m_html;
+
+    /** The length of the HTML fragment currently processed. */
+    private int m_length;
+
+    /** The number of currently open object tags. */
+    private int m_objectDepth;
+
+    /** The link processor used to replace the link macros. */
+    private CmsLinkProcessor m_processor;
+
+    /** Indicates if an attribute value has been replaced in the current fragment. */
+    private boolean m_replaced;
+
+    /**
+     * Creates a new tokenizer.<p>
+     *
+     * @param processor the link processor used to replace the link macros
+     */
+    CmsLinkTokenizer(CmsLinkProcessor processor) {
+
+        m_processor = processor;
+        m_buffer = new StringBuilder(1024);
+        m_attributeNameStarts = new int[INITIAL_ATTRIBUTES];
+        m_attributeNameEnds = new int[INITIAL_ATTRIBUTES];
+        m_attributeValueStarts = new int[INITIAL_ATTRIBUTES];
+        m_attributeValueEnds = new int[INITIAL_ATTRIBUTES];
+        m_attributeQuotes = new char[INITIAL_ATTRIBUTES];
+        m_attributeReplacements = new String[INITIAL_ATTRIBUTES];
+    }
+
+    /**
+     * Replaces the link macros in the given HTML fragment.<p>
+     *
+     * @param html the HTML fragment
+     *
+     * @return the HTML fragment with replaced link macros
+     */
+    String process(CharSequence html) {
+
+        m_html = html;
+        m_length = html.length();
+        m_copied = 0;
+        m_objectDepth = 0;
+        m_replaced = false;
+        if (m_buffer.capacity() > MAX_BUFFER_CAPACITY) {
+            m_buffer = new StringBuilder(1024);
+        }
+        m_buffer.setLength(0);
+        try {
+            int pos = 0;
+            while (pos < m_length) {
+                if (m_html.charAt(pos) == '<') {
+                    pos = processMarkup(pos);
+                } else {
+                    pos++;
+                }
+            }
+            if (!m_replaced) {
+                return html.toString();
+            }
+            m_buffer.append(m_html, m_copied, m_length);
+            return m_buffer.toString();
+        } finally {
+            m_html = null;
+            for (int i = 0; i < m_attributeReplacements.length; i++) {
+                m_attributeReplacements[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Adds an attribute of the current tag.<p>
+     *
+     * @param nameStart the start position of the name
+     * @param nameEnd the end position of the name
+     * @param valueStart the start position of the value, or -1 if the attribute has no value
+     * @param valueEnd the end position of the value
+     * @param quote the quote character of the value, or 0 if the value is not quoted
+     */
+    private void addAttribute(int nameStart, int nameEnd, int valueStart, int valueEnd, char quote) {
+
+        if (m_attributeCount == m_attributeNameStarts.length) {
+            int size = m_attributeCount * 2;
+            m_attributeNameStarts = copyOf(m_attributeNameStarts, size);
+            m_attributeNameEnds = copyOf(m_attributeNameEnds, size);
+            m_attributeValueStarts = copyOf(m_attributeValueStarts, size);
+            m_attributeValueEnds = copyOf(m_attributeValueEnds, size);
+            char[] quotes = new char[size];
+            System.arraycopy(m_attributeQuotes, 0, quotes, 0, m_attributeCount);
+            m_attributeQuotes = quotes;
+            String[] replacements = new String[size];
+            System.arraycopy(m_attributeReplacements, 0, replacements, 0, m_attributeCount);
+            m_attributeReplacements = replacements;
+        }
+        m_attributeNameStarts[m_attributeCount] = nameStart;
+        m_attributeNameEnds[m_attributeCount] = nameEnd;
+        m_attributeValueStarts[m_attributeCount] = valueStart;
+        m_attributeValueEnds[m_attributeCount] = valueEnd;
+        m_attributeQuotes[m_attributeCount] = quote;
+        m_attributeCount++;
+    }
+
+    /**
+     * Returns a copy of the given array with the given size.<p>
+     *
+     * @param array the array to copy
+     * @param size the size of the copy
+     *
+     * @return the copy
+     */
+    private int[] copyOf(int[] array, int size) {
+
+        int[] result = new int[size];
+        System.arraycopy(array, 0, result, 0, m_attributeCount);
+        return result;
+    }
+
+    /**
+     * Returns the index of the first attribute of the current tag with the given name.<p>
+     *
+     * @param name the attribute name
+     *
+     * @return the index of the attribute, or -1 if the tag has no such attribute
+     */
+    private int findAttribute(String name) {
+
+        for (int i = 0; i < m_attributeCount; i++) {
+            if (matches(m_attributeNameStarts[i], m_attributeNameEnds[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position of the given string in the input, starting the search at the given position.<p>
+     *
+     * @param str the string to search for
+     * @param from the start position
+     * @param ignoreCase if the case of letters is ignored
+     *
+     * @return the position of the string, or -1 if it is not found
+     */
+    private int indexOf(String str, int from, boolean ignoreCase) {
+
+        int last = m_length - str.length();
+        for (int i = from; i <= last; i++) {
+            if (ignoreCase ? matches(i, i + str.length(), str) : regionEquals(i, str)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns if the given character terminates an attribute name.<p>
+     *
+     * @param c the character
+     *
+     * @return <code>true</code> if the character terminates an attribute name
+     */
+    private boolean isAttributeNameEnd(char c) {
+
+        return Character.isWhitespace(c) || (c == '=') || (c == '>') || (c == '/') || (c == '"') || (c == '\'');
+    }
+
+    /**
+     * Returns if the given character may be part of a tag name.<p>
+     *
+     * @param c the character
+     *
+     * @return <code>true</code> if the character may be part of a tag name
+     */
+    private boolean isNameChar(char c) {
+
+        return Character.isLetterOrDigit(c) || (c == '-') || (c == ':') || (c == '_') || (c == '.');
+    }
+
+    /**
+     * Returns if the given region of the input equals the given upper case name, ignoring the case.<p>
+     *
+     * @param start the start position of the region
+     * @param end the end position of the region
+     * @param name the upper or lower case name
+     *
+     * @return <code>true</code> if the region matches the name
+     */
+    private boolean matches(int start, int end, String name) {
+
+        if ((end - start) != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = m_html.charAt(start + i);
+            char n = name.charAt(i);
+            if ((c != n) && (Character.toUpperCase(c) != Character.toUpperCase(n))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns if the value needs to be quoted if it replaces an unquoted attribute value.<p>
+     *
+     * @param value the new attribute value
+     *
+     * @return <code>true</code> if the value needs to be quoted
+     */
+    private boolean needsQuotes(String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c) || (c == '>')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the attributes of a tag.<p>
+     *
+     * @param start the position after the tag name
+     *
+     * @return the position after the end of the tag, or -1 if the tag is not terminated
+     */
+    private int parseAttributes(int start) {
+
+        m_attributeCount = 0;
+        int pos = start;
+        while (pos < m_length) {
+            char c = m_html.charAt(pos);
+            if (c == '>') {
+                return pos + 1;
+            }
+            if (Character.isWhitespace(c) || (c == '/')) {
+                pos++;
+                continue;
+            }
+            int nameStart = pos;
+            while ((pos < m_length) && !isAttributeNameEnd(m_html.charAt(pos))) {
+                pos++;
+            }
+            if (pos == nameStart) {
+                // stray character like a quote or an equals sign without attribute name
+                pos++;
+                continue;
+            }
+            int nameEnd = pos;
+            pos = skipWhitespace(pos);
+            if ((pos >= m_length) || (m_html.charAt(pos) != '=')) {
+                addAttribute(nameStart, nameEnd, -1, -1, (char)0);
+                continue;
+            }
+            pos = skipWhitespace(pos + 1);
+            if (pos >= m_length) {
+                return -1;
+            }
+            char quote = m_html.charAt(pos);
+            if ((quote == '"') || (quote == '\'')) {
+                int valueEnd = pos + 1;
+                while ((valueEnd < m_length) && (m_html.charAt(valueEnd) != quote)) {
+                    valueEnd++;
+                }
+                if (valueEnd >= m_length) {
+                    return -1;
+                }
+                addAttribute(nameStart, nameEnd, pos + 1, valueEnd, quote);
+                pos = valueEnd + 1;
+            } else {
+                int valueStart = pos;
+                while ((pos < m_length)
+                    && !Character.isWhitespace(m_html.charAt(pos))
+                    && (m_html.charAt(pos) != '>')) {
+                    pos++;
+                }
+                addAttribute(nameStart, nameEnd, valueStart, pos, (char)0);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces the link macro in the given attribute of the current tag.<p>
+     *
+     * @param tagName the upper case tag name
+     * @param attr the attribute name
+     *
+     * @return <code>true</code> if the tag has a value for the attribute
+     */
+    private boolean processAttribute(String tagName, String attr) {
+
+        int index = findAttribute(attr);
+        if ((index < 0) || (m_attributeValueStarts[index] < 0)) {
+            return false;
+        }
+        int valueStart = m_attributeValueStarts[index];
+        int valueEnd = m_attributeValueEnds[index];
+        // only link macros are replaced, so avoid creating strings for all other values
+        char first = m_html.charAt(valueStart);
+        if (((valueEnd - valueStart) >= 3)
+            && ((first == I_CmsMacroResolver.MACRO_DELIMITER) || (first == I_CmsMacroResolver.MACRO_DELIMITER_OLD))) {
+            String value = m_html.subSequence(valueStart, valueEnd).toString();
+            m_attributeReplacements[index] = m_processor.getProcessedLink(tagName, value);
+        }
+        return true;
+    }
+
+    /**
+     * Processes the markup starting at the given position.<p>
+     *
+     * @param start the position of the opening angle bracket
+     *
+     * @return the position after the markup
+     */
+    private int processMarkup(int start) {
+
+        int pos = start + 1;
+        if (pos >= m_length) {
+            return m_length;
+        }
+        char c = m_html.charAt(pos);
+        if (c == '!') {
+            if (regionEquals(pos, "!--")) {
+                int end = indexOf("-->", pos + 3, false);
+                return end < 0 ? m_length : end + 3;
+            }
+            return skipTo('>', pos);
+        }
+        if (c == '?') {
+            return skipTo('>', pos);
+        }
+        boolean endTag = false;
+        if (c == '/') {
+            endTag = true;
+            pos++;
+        }
+        int nameStart = pos;
+        if ((pos >= m_length) || !Character.isLetter(m_html.charAt(pos))) {
+            // not a tag, treat as text
+            return start + 1;
+        }
+        while ((pos < m_length) && isNameChar(m_html.charAt(pos))) {
+            pos++;
+        }
+        int nameEnd = pos;
+        int end = parseAttributes(pos);
+        if (end < 0) {
+            // unterminated tag, treat as text
+            return start + 1;
+        }
+        if (endTag) {
+            if ((m_objectDepth > 0) && matches(nameStart, nameEnd, TAG_OBJECT)) {
+                m_objectDepth--;
+            }
+            return end;
+        }
+        if (matches(nameStart, nameEnd, TAG_SCRIPT) || matches(nameStart, nameEnd, TAG_STYLE)) {
+            // the content of scripts and styles is not parsed
+            int close = indexOf("</" + m_html.subSequence(nameStart, nameEnd), end, true);
+            return close < 0 ? m_length : close;
+        }
+        boolean changed = false;
+        if (matches(nameStart, nameEnd, TAG_A)) {
+            processAttribute(TAG_A, CmsLinkProcessor.ATTRIBUTE_HREF);
+            changed = true;
+        } else if (matches(nameStart, nameEnd, TAG_IMG)) {
+            processAttribute(TAG_IMG, CmsLinkProcessor.ATTRIBUTE_SRC);
+            changed = true;
+        } else if (matches(nameStart, nameEnd, CmsLinkProcessor.TAG_AREA)) {
+            processAttribute(CmsLinkProcessor.TAG_AREA, CmsLinkProcessor.ATTRIBUTE_HREF);
+            changed = true;
+        } else if (matches(nameStart, nameEnd, CmsLinkProcessor.TAG_EMBED)) {
+            for (String attr : CmsLinkProcessor.EMBED_TAG_LINKED_ATTRIBS) {
+                processAttribute(CmsLinkProcessor.TAG_EMBED, attr);
+            }
+            changed = true;
+        } else if (matches(nameStart, nameEnd, TAG_OBJECT)) {
+            for (String attr : CmsLinkProcessor.OBJECT_TAG_LINKED_ATTRIBS) {
+                if (processAttribute(TAG_OBJECT, attr) && ATTRIBUTE_CODEBASE.equals(attr)) {
+                    // if code base is available, the other attributes are relative to it, so do not process them
+                    break;
+                }
+            }
+            if (m_html.charAt(end - 2) != '/') {
+                m_objectDepth++;
+            }
+            changed = true;
+        } else if ((m_objectDepth > 0) && matches(nameStart, nameEnd, CmsLinkProcessor.TAG_PARAM)) {
+            processAttribute(CmsLinkProcessor.TAG_PARAM, CmsLinkProcessor.ATTRIBUTE_VALUE);
+            changed = true;
+        }
+        if (changed) {
+            writeReplacements();
+        }
+        return end;
+    }
+
+    /**
+     * Returns if the input contains the given string at the given position.<p>
+     *
+     * @param pos the position
+     * @param str the string
+     *
+     * @return <code>true</code> if the input contains the string at the position
+     */
+    private boolean regionEquals(int pos, String str) {
+
+        if ((pos + str.length()) > m_length) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            if (m_html.charAt(pos + i) != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position after the next occurrence of the given character.<p>
+     *
+     * @param c the character
+     * @param from the position to start the search at
+     *
+     * @return the position after the character, or the length of the input if the character is not found
+     */
+    private int skipTo(char c, int from) {
+
+        for (int i = from; i < m_length; i++) {
+            if (m_html.charAt(i) == c) {
+                return i + 1;
+            }
+        }
+        return m_length;
+    }
+
+    /**
+     * Returns the position of the first non whitespace character starting at the given position.<p>
+     *
+     * @param from the position to start at
+     *
+     * @return the position of the first non whitespace character, or the length of the input
+     */
+    private int skipWhitespace(int from) {
+
+        int pos = from;
+        while ((pos < m_length) && Character.isWhitespace(m_html.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Writes the input up to the last replaced attribute value of the current tag to the buffer.<p>
+     */
+    private void writeReplacements() {
+
+        for (int i = 0; i < m_attributeCount; i++) {
+            String replacement = m_attributeReplacements[i];
+            if (replacement == null) {
+                continue;
+            }
+            m_attributeReplacements[i] = null;
+            m_buffer.append(m_html, m_copied, m_attributeValueStarts[i]);
+            if ((m_attributeQuotes[i] == 0) && needsQuotes(replacement)) {
+                m_buffer.append('"').append(replacement).append('"');
+            } else {
+                m_buffer.append(replacement);
+            }
+            m_copied = m_attributeValueEnds[i];
+            m_replaced = true;
+        }
+    }
+}
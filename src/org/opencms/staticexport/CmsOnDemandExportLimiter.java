@@ -0,0 +1,351 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the load caused by the export on demand.<p>
+ *
+ * Concurrent requests for the same RFS name are exported only once: the first request exports the resource,
+ * the other requests wait for this export and deliver its content. The number of parallel exports is limited,
+ * requests wait in a queue of limited length for a free slot. If the queue is full or a request waits too long,
+ * the export is rejected, so the server is not overloaded after the export folders have been purged.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsOnDemandExportLimiter {
+
+    /**
+     * A running export of an RFS name, shared by all requests for this RFS name.<p>
+     */
+    public static class Flight {
+
+        /** The exported content for the requested RFS name. */
+        private volatile byte[] m_content;
+
+        /** Released when the export is finished. */
+        private CountDownLatch m_finished;
+
+        /** The mime type of the exported content. */
+        private volatile String m_mimeType;
+
+        /** The thread exporting the resource. */
+        private Thread m_owner;
+
+        /** The status of the export. */
+        private volatile int m_status;
+
+        /**
+         * Creates a new flight owned by the current thread.<p>
+         */
+        Flight() {
+
+            m_finished = new CountDownLatch(1);
+            m_owner = Thread.currentThread();
+        }
+
+        /**
+         * Returns the exported content for the requested RFS name,
+         * or <code>null</code> if the content is not available.<p>
+         *
+         * @return the exported content for the requested RFS name
+         */
+        public byte[] getContent() {
+
+            return m_content;
+        }
+
+        /**
+         * Returns the mime type of the exported content.<p>
+         *
+         * @return the mime type of the exported content
+         */
+        public String getMimeType() {
+
+            return m_mimeType;
+        }
+
+        /**
+         * Returns the status of the export, the same as the http status codes.<p>
+         *
+         * @return the status of the export
+         */
+        public int getStatus() {
+
+            return m_status;
+        }
+
+        /**
+         * Returns if the current thread exports the resource.<p>
+         *
+         * @return <code>true</code> if the current thread exports the resource
+         */
+        public boolean isLeader() {
+
+            return m_owner == Thread.currentThread();
+        }
+
+        /**
+         * Sets the exported content for the requested RFS name.<p>
+         *
+         * @param content the exported content
+         * @param mimeType the mime type of the exported content
+         */
+        public void setContent(byte[] content, String mimeType) {
+
+            m_content = content;
+            m_mimeType = mimeType;
+        }
+    }
+
+    /** The default number of parallel exports. */
+    public static final int DEFAULT_RENDERS = 8;
+
+    /** The default time to wait for an export, in milliseconds. */
+    public static final long DEFAULT_TIMEOUT = 30000;
+
+    /** The number of requests that may wait for a free slot, per parallel export. */
+    public static final int QUEUED_PER_RENDER = 16;
+
+    /** The running exports, with the RFS name as key. */
+    private ConcurrentMap<String, Flight> m_flights;
+
+    /** The number of requests that have delivered the content of a concurrent export. */
+    private AtomicLong m_joined;
+
+    /** The maximum number of requests waiting for a free slot. */
+    private int m_maxQueued;
+
+    /** The maximum number of parallel exports. */
+    private int m_maxRenders;
+
+    /** The free slots for exports. */
+    private Semaphore m_permits;
+
+    /** The number of requests waiting for a free slot. */
+    private AtomicInteger m_queued;
+
+    /** The number of rejected exports. */
+    private AtomicLong m_rejected;
+
+    /** The time to wait for a free slot or a concurrent export, in milliseconds. */
+    private long m_timeout;
+
+    /**
+     * Creates a new limiter.<p>
+     *
+     * @param maxRenders the maximum number of parallel exports
+     * @param maxQueued the maximum number of requests waiting for a free slot
+     * @param timeout the time to wait for a free slot or a concurrent export, in milliseconds
+     */
+    public CmsOnDemandExportLimiter(int maxRenders, int maxQueued, long timeout) {
+
+        m_maxRenders = Math.max(1, maxRenders);
+        m_maxQueued = Math.max(0, maxQueued);
+        m_timeout = timeout;
+        m_permits = new Semaphore(m_maxRenders, true);
+        m_flights = new ConcurrentHashMap<String, Flight>();
+        m_joined = new AtomicLong();
+        m_queued = new AtomicInteger();
+        m_rejected = new AtomicLong();
+    }
+
+    /**
+     * Waits for a free export slot.<p>
+     *
+     * If a slot has been acquired, it must be freed with {@link #release()} after the export.<p>
+     *
+     * @return <code>true</code> if a slot has been acquired, <code>false</code> if the export is rejected
+     */
+    public boolean acquire() {
+
+        if (m_permits.tryAcquire()) {
+            return true;
+        }
+        if (m_queued.incrementAndGet() > m_maxQueued) {
+            m_queued.decrementAndGet();
+            m_rejected.incrementAndGet();
+            return false;
+        }
+        try {
+            if (m_permits.tryAcquire(m_timeout, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            m_queued.decrementAndGet();
+        }
+        m_rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Returns the export of the given RFS name.<p>
+     *
+     * If no export of the RFS name is running, a new export owned by the current thread is started,
+     * which must be finished with {@link #endFlight(String, Flight, int)}.
+     * Otherwise the running export is returned, see {@link Flight#isLeader()}.<p>
+     *
+     * @param rfsName the RFS name
+     *
+     * @return the export of the given RFS name
+     */
+    public Flight beginFlight(String rfsName) {
+
+        Flight flight = new Flight();
+        Flight running = m_flights.putIfAbsent(rfsName, flight);
+        if (running != null) {
+            return running;
+        }
+        return flight;
+    }
+
+    /**
+     * Finishes an export started with {@link #beginFlight(String)} and releases the waiting requests.<p>
+     *
+     * @param rfsName the RFS name
+     * @param flight the export
+     * @param status the status of the export
+     */
+    public void endFlight(String rfsName, Flight flight, int status) {
+
+        flight.m_status = status;
+        m_flights.remove(rfsName, flight);
+        flight.m_finished.countDown();
+    }
+
+    /**
+     * Returns the number of running exports.<p>
+     *
+     * @return the number of running exports
+     */
+    public int getActiveRenders() {
+
+        return m_maxRenders - m_permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of RFS names currently exported.<p>
+     *
+     * @return the number of RFS names currently exported
+     */
+    public int getInFlight() {
+
+        return m_flights.size();
+    }
+
+    /**
+     * Returns the number of requests that have delivered the content of a concurrent export.<p>
+     *
+     * @return the number of requests that have delivered the content of a concurrent export
+     */
+    public long getJoined() {
+
+        return m_joined.get();
+    }
+
+    /**
+     * Returns the maximum number of requests waiting for a free slot.<p>
+     *
+     * @return the maximum number of requests waiting for a free slot
+     */
+    public int getMaxQueued() {
+
+        return m_maxQueued;
+    }
+
+    /**
+     * Returns the maximum number of parallel exports.<p>
+     *
+     * @return the maximum number of parallel exports
+     */
+    public int getMaxRenders() {
+
+        return m_maxRenders;
+    }
+
+    /**
+     * Returns the number of requests waiting for a free slot.<p>
+     *
+     * @return the number of requests waiting for a free slot
+     */
+    public int getQueueLength() {
+
+        return m_queued.get();
+    }
+
+    /**
+     * Returns the number of rejected exports.<p>
+     *
+     * @return the number of rejected exports
+     */
+    public long getRejected() {
+
+        return m_rejected.get();
+    }
+
+    /**
+     * Frees an export slot acquired with {@link #acquire()}.<p>
+     */
+    public void release() {
+
+        m_permits.release();
+    }
+
+    /**
+     * Waits until the given export, started by another request, is finished.<p>
+     *
+     * @param flight the export to wait for
+     *
+     * @return the exported content, or <code>null</code> if the content is not available in time
+     */
+    public byte[] waitFor(Flight flight) {
+
+        try {
+            if (!flight.m_finished.await(m_timeout, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        byte[] content = flight.getContent();
+        if (content != null) {
+            m_joined.incrementAndGet();
+        }
+        return content;
+    }
+}
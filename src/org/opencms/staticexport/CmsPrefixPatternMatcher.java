@@ -0,0 +1,224 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the first of a list of regular expressions matching a name,
+ * without evaluating the expressions that can not match.<p>
+ *
+ * The literal prefix of every expression, e.g. <code>/sites/default/</code> for <code>/sites/default/.*</code>,
+ * is stored in a prefix tree. For a name, only the expressions whose literal prefix is a prefix of the name
+ * are evaluated, in the order of the list. Expressions without literal prefix are always evaluated.<p>
+ *
+ * Instances are immutable and thread safe.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsPrefixPatternMatcher {
+
+    /**
+     * A node of the prefix tree.<p>
+     */
+    private static class Node {
+
+        /** The indexes of the expressions with a literal prefix ending at this node or one of its parents. */
+        private int[] m_candidates;
+
+        /** The child nodes, with the next character of the prefix as key. */
+        private Map<Character, Node> m_children = new HashMap<Character, Node>();
+
+        /** The indexes of the expressions with a literal prefix ending at this node. */
+        private int[] m_own = new int[0];
+    }
+
+    /** Characters with a special meaning in regular expressions. */
+    private static final String META_CHARACTERS = "\\[](){}.*+?^$|";
+
+    /** Quantifiers that make the preceding character optional. */
+    private static final String OPTIONAL_QUANTIFIERS = "?*{";
+
+    /** The regular expressions. */
+    private Pattern[] m_patterns;
+
+    /** The root node of the prefix tree. */
+    private Node m_root;
+
+    /**
+     * Creates a new matcher for the given regular expressions.<p>
+     *
+     * @param patterns the regular expressions, in the order they are evaluated
+     */
+    public CmsPrefixPatternMatcher(List<Pattern> patterns) {
+
+        m_patterns = patterns.toArray(new Pattern[patterns.size()]);
+        m_root = new Node();
+        for (int i = 0; i < m_patterns.length; i++) {
+            String prefix = getLiteralPrefix(m_patterns[i]);
+            Node node = m_root;
+            for (int j = 0; j < prefix.length(); j++) {
+                Character c = Character.valueOf(prefix.charAt(j));
+                Node child = node.m_children.get(c);
+                if (child == null) {
+                    child = new Node();
+                    node.m_children.put(c, child);
+                }
+                node = child;
+            }
+            node.m_own = Arrays.copyOf(node.m_own, node.m_own.length + 1);
+            node.m_own[node.m_own.length - 1] = i;
+        }
+        initCandidates(m_root, new int[0]);
+    }
+
+    /**
+     * Returns the literal prefix every name matching the given regular expression starts with.<p>
+     *
+     * @param pattern the regular expression
+     *
+     * @return the literal prefix, or an empty String if the expression has no literal prefix
+     */
+    public static String getLiteralPrefix(Pattern pattern) {
+
+        String regex = pattern.pattern();
+        if ((pattern.flags() != 0) || hasTopLevelAlternative(regex)) {
+            // flags or alternatives may allow names with other prefixes
+            return "";
+        }
+        StringBuffer result = new StringBuffer(regex.length());
+        for (int i = regex.startsWith("^") ? 1 : 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (META_CHARACTERS.indexOf(c) >= 0) {
+                if ((OPTIONAL_QUANTIFIERS.indexOf(c) >= 0) && (result.length() > 0)) {
+                    // the last character is optional
+                    result.setLength(result.length() - 1);
+                }
+                break;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the indexes of the regular expressions that can match the given name, in ascending order.<p>
+     *
+     * The returned array must not be changed.<p>
+     *
+     * @param name the name to check
+     *
+     * @return the indexes of the regular expressions that can match the given name
+     */
+    public int[] getCandidates(String name) {
+
+        Node node = m_root;
+        for (int i = 0; i < name.length(); i++) {
+            Node child = node.m_children.get(Character.valueOf(name.charAt(i)));
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        return node.m_candidates;
+    }
+
+    /**
+     * Returns the index of the first regular expression matching the given name.<p>
+     *
+     * @param name the name to check
+     *
+     * @return the index of the first matching regular expression, or <code>-1</code> if none matches
+     */
+    public int indexOfFirstMatch(String name) {
+
+        int[] candidates = getCandidates(name);
+        for (int i = 0; i < candidates.length; i++) {
+            if (m_patterns[candidates[i]].matcher(name).matches()) {
+                return candidates[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if a regular expression contains an alternative that is not enclosed in a group.<p>
+     *
+     * @param regex the regular expression
+     *
+     * @return <code>true</code> if the expression contains an alternative that is not enclosed in a group
+     */
+    private static boolean hasTopLevelAlternative(String regex) {
+
+        int depth = 0;
+        boolean inClass = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                // skip the escaped character
+                i++;
+            } else if (inClass) {
+                inClass = c != ']';
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if ((c == '|') && (depth <= 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calculates the candidates of a node and its children.<p>
+     *
+     * @param node the node
+     * @param parentCandidates the candidates of the parent node
+     */
+    private void initCandidates(Node node, int[] parentCandidates) {
+
+        if (node.m_own.length == 0) {
+            node.m_candidates = parentCandidates;
+        } else {
+            int[] candidates = Arrays.copyOf(parentCandidates, parentCandidates.length + node.m_own.length);
+            System.arraycopy(node.m_own, 0, candidates, parentCandidates.length, node.m_own.length);
+            Arrays.sort(candidates);
+            node.m_candidates = candidates;
+        }
+        for (Node child : node.m_children.values()) {
+            initCandidates(child, node.m_candidates);
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.i18n.CmsEncoder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records which files in the RFS have been exported from which VFS resources,
+ * and which VFS resources the exported resources depend on.<p>
+ *
+ * The index is filled by the {@link CmsStaticExportManager} whenever a resource is exported.
+ * When resources are published, the index returns the exported files of the published resources and the
+ * exported resources that depend on them, so only the affected files need to be deleted or exported again,
+ * without reading all resources of the VFS or walking the export folders.<p>
+ *
+ * The index is <i>complete</i> if it has been filled by a full static export. Only a complete index
+ * knows all exported files, an incomplete index is used in addition to the export rules. Even a complete
+ * index only replaces the full export of a published resource not matched by any export rule if this is
+ * enabled with {@link CmsStaticExportManager#isDependencyIndexOnly()}, because the dependencies only
+ * cover strong relations and not pages listing resources by navigation, collectors or lists.<p>
+ *
+ * All methods are thread safe.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsStaticExportDependencyIndex {
+
+    /** Marker for the complete flag in the index file. */
+    private static final String ENTRY_COMPLETE = "C";
+
+    /** Marker for a dependency in the index file. */
+    private static final String ENTRY_DEPENDENCY = "D";
+
+    /** Marker for an exported file in the index file. */
+    private static final String ENTRY_FILE = "F";
+
+    /** The first line of the index file. */
+    private static final String HEADER = "# OpenCms static export dependency index";
+
+    /** The separator of the values in a line of the index file. */
+    private static final char SEPARATOR = '\t';
+
+    /** Signals if the index has been filled by a full static export. */
+    private boolean m_complete;
+
+    /** The dependencies of the exported resources, with the root path of the exported resource as key. */
+    private Map<String, Set<String>> m_dependencies;
+
+    /** The exported resources depending on a resource, with the root path of the dependency as key. */
+    private Map<String, Set<String>> m_dependents;
+
+    /** The exported RFS files, with the root path of the exported resource as key. */
+    private Map<String, Set<String>> m_files;
+
+    /** Signals if the index has been changed since it was last read or written. */
+    private boolean m_modified;
+
+    /**
+     * Creates a new, empty dependency index.<p>
+     */
+    public CmsStaticExportDependencyIndex() {
+
+        m_files = new HashMap<String, Set<String>>();
+        m_dependencies = new HashMap<String, Set<String>>();
+        m_dependents = new HashMap<String, Set<String>>();
+    }
+
+    /**
+     * Adds a file exported from the given resource.<p>
+     *
+     * @param vfsName the root path of the exported resource
+     * @param rfsFileName the absolute path of the exported file
+     */
+    public synchronized void addFile(String vfsName, String rfsFileName) {
+
+        if (add(m_files, vfsName, rfsFileName)) {
+            m_modified = true;
+        }
+    }
+
+    /**
+     * Removes all entries from the index and resets the complete flag.<p>
+     */
+    public synchronized void clear() {
+
+        m_files.clear();
+        m_dependencies.clear();
+        m_dependents.clear();
+        m_complete = false;
+        m_modified = true;
+    }
+
+    /**
+     * Returns the root paths of the exported resources that depend on one of the given resources.<p>
+     *
+     * @param vfsNames the root paths of the resources to check
+     *
+     * @return the root paths of the exported resources that depend on one of the given resources
+     */
+    public synchronized Set<String> getDependents(Collection<String> vfsNames) {
+
+        Set<String> result = new HashSet<String>();
+        for (String vfsName : vfsNames) {
+            Set<String> dependents = m_dependents.get(vfsName);
+            if (dependents != null) {
+                result.addAll(dependents);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the absolute paths of the files exported from the given resource.<p>
+     *
+     * @param vfsName the root path of the exported resource
+     *
+     * @return the absolute paths of the files exported from the given resource
+     */
+    public synchronized Set<String> getFiles(String vfsName) {
+
+        Set<String> files = m_files.get(vfsName);
+        if (files == null) {
+            return Collections.emptySet();
+        }
+        return new HashSet<String>(files);
+    }
+
+    /**
+     * Returns if the index has been filled by a full static export.<p>
+     *
+     * @return <code>true</code> if the index has been filled by a full static export
+     */
+    public synchronized boolean isComplete() {
+
+        return m_complete;
+    }
+
+    /**
+     * Returns if the index has been changed since it was last read or written.<p>
+     *
+     * @return <code>true</code> if the index has been changed since it was last read or written
+     */
+    public synchronized boolean isModified() {
+
+        return m_modified;
+    }
+
+    /**
+     * Replaces the entries of the index with the entries read from the given file.<p>
+     *
+     * If the file does not exist, the index is cleared.<p>
+     *
+     * @param file the file to read
+     *
+     * @throws IOException if reading the file fails
+     */
+    public synchronized void read(File file) throws IOException {
+
+        clear();
+        if (file.exists()) {
+            Reader reader = new InputStreamReader(new FileInputStream(file), CmsEncoder.ENCODING_UTF_8);
+            BufferedReader in = new BufferedReader(reader);
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    readEntry(line);
+                }
+            } finally {
+                in.close();
+            }
+        }
+        m_modified = false;
+    }
+
+    /**
+     * Changes the paths of all exported files located in the given folder to the new folder.<p>
+     *
+     * This is required when the export folders are renamed after a full static export.<p>
+     *
+     * @param oldFolder the absolute path of the folder the files were exported to
+     * @param newFolder the absolute path of the folder the files are located in now
+     */
+    public synchronized void relocate(String oldFolder, String newFolder) {
+
+        if (oldFolder.equals(newFolder)) {
+            return;
+        }
+        for (Set<String> files : m_files.values()) {
+            Set<String> relocated = new HashSet<String>();
+            Iterator<String> it = files.iterator();
+            while (it.hasNext()) {
+                String file = it.next();
+                if (file.startsWith(oldFolder)) {
+                    it.remove();
+                    relocated.add(newFolder + file.substring(oldFolder.length()));
+                }
+            }
+            if (!relocated.isEmpty()) {
+                files.addAll(relocated);
+                m_modified = true;
+            }
+        }
+    }
+
+    /**
+     * Removes a resource from the index.<p>
+     *
+     * The exported files and the dependencies of the resource are removed,
+     * so the resource is no longer returned as dependent of the resources it depended on.<p>
+     *
+     * @param vfsName the root path of the resource
+     *
+     * @return the absolute paths of the files that were exported from the resource
+     */
+    public synchronized Set<String> removeResource(String vfsName) {
+
+        setDependencies(vfsName, Collections.<String> emptySet());
+        Set<String> files = m_files.remove(vfsName);
+        if (files == null) {
+            return Collections.emptySet();
+        }
+        m_modified = true;
+        return files;
+    }
+
+    /**
+     * Sets the complete flag of the index.<p>
+     *
+     * @param complete <code>true</code> if the index has been filled by a full static export
+     */
+    public synchronized void setComplete(boolean complete) {
+
+        if (m_complete != complete) {
+            m_complete = complete;
+            m_modified = true;
+        }
+    }
+
+    /**
+     * Sets the resources an exported resource depends on, replacing the previous dependencies.<p>
+     *
+     * @param vfsName the root path of the exported resource
+     * @param dependencies the root paths of the resources the exported resource depends on
+     */
+    public synchronized void setDependencies(String vfsName, Collection<String> dependencies) {
+
+        Set<String> previous = m_dependencies.remove(vfsName);
+        if (previous != null) {
+            for (String dependency : previous) {
+                remove(m_dependents, dependency, vfsName);
+            }
+            m_modified = true;
+        }
+        for (String dependency : dependencies) {
+            if (!dependency.equals(vfsName)) {
+                add(m_dependencies, vfsName, dependency);
+                add(m_dependents, dependency, vfsName);
+                m_modified = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of exported resources in the index.<p>
+     *
+     * @return the number of exported resources in the index
+     */
+    public synchronized int size() {
+
+        return m_files.size();
+    }
+
+    /**
+     * Writes the index to the given file.<p>
+     *
+     * The index is written to a temporary file first, which then replaces the given file.<p>
+     *
+     * @param file the file to write
+     *
+     * @throws IOException if writing the file fails
+     */
+    public synchronized void write(File file) throws IOException {
+
+        File folder = file.getAbsoluteFile().getParentFile();
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        File tempFile = new File(folder, file.getName() + ".tmp");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), CmsEncoder.ENCODING_UTF_8);
+        BufferedWriter out = new BufferedWriter(writer);
+        try {
+            out.write(HEADER);
+            out.newLine();
+            writeEntry(out, ENTRY_COMPLETE, String.valueOf(m_complete), "");
+            for (Map.Entry<String, Set<String>> entry : m_files.entrySet()) {
+                for (String rfsFileName : entry.getValue()) {
+                    writeEntry(out, ENTRY_FILE, entry.getKey(), rfsFileName);
+                }
+            }
+            for (Map.Entry<String, Set<String>> entry : m_dependencies.entrySet()) {
+                for (String dependency : entry.getValue()) {
+                    writeEntry(out, ENTRY_DEPENDENCY, entry.getKey(), dependency);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        CmsStaticExportFileWriter.moveFile(tempFile, file);
+        m_modified = false;
+    }
+
+    /**
+     * Adds a value to the set of values stored for the key.<p>
+     *
+     * @param map the map
+     * @param key the key
+     * @param value the value
+     *
+     * @return <code>true</code> if the value was added
+     */
+    private boolean add(Map<String, Set<String>> map, String key, String value) {
+
+        Set<String> values = map.get(key);
+        if (values == null) {
+            values = new HashSet<String>();
+            map.put(key, values);
+        }
+        return values.add(value);
+    }
+
+    /**
+     * Reads a single line of the index file.<p>
+     *
+     * @param line the line
+     */
+    private void readEntry(String line) {
+
+        int first = line.indexOf(SEPARATOR);
+        int second = line.indexOf(SEPARATOR, first + 1);
+        if ((first < 0) || (second < 0)) {
+            // header or invalid line
+            return;
+        }
+        String type = line.substring(0, first);
+        String key = line.substring(first + 1, second);
+        String value = line.substring(second + 1);
+        if (ENTRY_FILE.equals(type)) {
+            add(m_files, key, value);
+        } else if (ENTRY_DEPENDENCY.equals(type)) {
+            add(m_dependencies, key, value);
+            add(m_dependents, value, key);
+        } else if (ENTRY_COMPLETE.equals(type)) {
+            m_complete = Boolean.valueOf(key).booleanValue();
+        }
+    }
+
+    /**
+     * Removes a value from the set of values stored for the key.<p>
+     *
+     * @param map the map
+     * @param key the key
+     * @param value the value
+     */
+    private void remove(Map<String, Set<String>> map, String key, String value) {
+
+        Set<String> values = map.get(key);
+        if ((values != null) && values.remove(value) && values.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Writes a single line of the index file.<p>
+     *
+     * @param out the writer
+     * @param type the type of the entry
+     * @param key the key
+     * @param value the value
+     *
+     * @throws IOException if writing fails
+     */
+    private void writeEntry(BufferedWriter out, String type, String key, String value) throws IOException {
+
+        out.write(type);
+        out.write(SEPARATOR);
+        out.write(key);
+        out.write(SEPARATOR);
+        out.write(value);
+        out.newLine();
+    }
+}
@@ -0,0 +1,517 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.main.CmsLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Writes the files of the static export to the RFS.<p>
+ *
+ * Every file is written to a temporary file in the target folder first, which then replaces the target file
+ * with an atomic rename, so a web server delivering the export folder never reads a partially written file.<p>
+ *
+ * If compression is enabled, a gzip compressed copy with the suffix <code>.gz</code> is written next to
+ * each exported text file by a background thread. Web servers can deliver these copies directly,
+ * e.g. nginx with the <code>gzip_static</code> directive. A compressed copy is always removed
+ * before its file is replaced, so no outdated copy is delivered. A compressed copy is only written
+ * if its file has not been replaced again in the meantime. At most {@link #MAX_PENDING_COMPRESSIONS}
+ * copies wait for the background thread, further writes block until there is room.<p>
+ *
+ * The writer counts the written files and bytes and the time spent, which allows to monitor
+ * the throughput of the static export.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsStaticExportFileWriter {
+
+    /** Value of the export compression setting to write gzip compressed copies of the exported files. */
+    public static final String COMPRESSION_GZIP = "gzip";
+
+    /** Value of the export compression setting to write no compressed copies. */
+    public static final String COMPRESSION_NONE = "none";
+
+    /** The maximum number of compressed copies waiting to be written. */
+    public static final int MAX_PENDING_COMPRESSIONS = 64;
+
+    /** The minimum size of an exported file to write a compressed copy for. */
+    public static final int MIN_COMPRESSION_SIZE = 256;
+
+    /** The suffix of gzip compressed copies. */
+    public static final String SUFFIX_GZIP = ".gz";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsStaticExportFileWriter.class);
+
+    /** The suffix of the temporary files. */
+    private static final String SUFFIX_TEMP = ".tmp";
+
+    /** The number of locks for the exported files. */
+    private static final int LOCK_COUNT = 64;
+
+    /** The number of bytes of the written compressed copies. */
+    private AtomicLong m_compressedBytes;
+
+    /** The number of written compressed copies. */
+    private AtomicLong m_compressedFiles;
+
+    /** The time spent for writing compressed copies, in nanoseconds. */
+    private AtomicLong m_compressionTime;
+
+    /** The executor writing the compressed copies, or <code>null</code> if compression is disabled. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The generation of the last write of the exported files with a pending compressed copy, by path. */
+    private ConcurrentMap<String, Long> m_generations;
+
+    /** The source of the generations of the written files. */
+    private AtomicLong m_lastGeneration;
+
+    /** The locks for replacing an exported file or its compressed copy, selected by the hash of the path. */
+    private Object[] m_locks;
+
+    /** The time spent for writing exported files, in nanoseconds. */
+    private AtomicLong m_writeTime;
+
+    /** The number of bytes of the written exported files. */
+    private AtomicLong m_writtenBytes;
+
+    /** The number of written exported files. */
+    private AtomicLong m_writtenFiles;
+
+    /**
+     * Creates a new file writer.<p>
+     *
+     * @param compress if gzip compressed copies of the exported text files should be written
+     */
+    public CmsStaticExportFileWriter(boolean compress) {
+
+        m_compressedBytes = new AtomicLong();
+        m_compressedFiles = new AtomicLong();
+        m_compressionTime = new AtomicLong();
+        m_generations = new ConcurrentHashMap<String, Long>();
+        m_lastGeneration = new AtomicLong();
+        m_locks = new Object[LOCK_COUNT];
+        for (int i = 0; i < LOCK_COUNT; i++) {
+            m_locks[i] = new Object();
+        }
+        m_writeTime = new AtomicLong();
+        m_writtenBytes = new AtomicLong();
+        m_writtenFiles = new AtomicLong();
+        if (compress) {
+            m_executor = new ThreadPoolExecutor(
+                1,
+                1,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_PENDING_COMPRESSIONS),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Static Export Compression");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new RejectedExecutionHandler() {
+
+                    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+
+                        // wait until there is room in the queue, after a shutdown the caller does the work
+                        if (!executor.isShutdown()) {
+                            try {
+                                executor.getQueue().put(r);
+                                return;
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        r.run();
+                    }
+                });
+        }
+    }
+
+    /**
+     * Returns if a compressed copy is written for files of the given mime type.<p>
+     *
+     * @param mimeType the mime type of the file
+     *
+     * @return <code>true</code> if a compressed copy is written for files of the given mime type
+     */
+    public static boolean isCompressible(String mimeType) {
+
+        if (mimeType == null) {
+            return false;
+        }
+        String type = mimeType.toLowerCase();
+        return type.startsWith("text/")
+            || type.contains("javascript")
+            || type.contains("json")
+            || type.contains("xml")
+            || type.contains("svg");
+    }
+
+    /**
+     * Moves a file to the target, replacing the target if it exists.<p>
+     *
+     * The file is moved with an atomic rename if the file system supports it.<p>
+     *
+     * @param source the file to move
+     * @param target the target file
+     *
+     * @throws IOException if moving the file fails
+     */
+    public static void moveFile(File source, File target) throws IOException {
+
+        try {
+            Files.move(
+                source.toPath(),
+                target.toPath(),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Waits until all compressed copies of the files written so far have been written.<p>
+     */
+    public void flush() {
+
+        if (m_executor == null) {
+            return;
+        }
+        try {
+            m_executor.submit(new Runnable() {
+
+                public void run() {
+
+                    // nothing to do, all previously submitted copies have been written when this runs
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // can not happen, the task does nothing
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the written compressed copies.<p>
+     *
+     * @return the number of bytes of the written compressed copies
+     */
+    public long getCompressedBytes() {
+
+        return m_compressedBytes.get();
+    }
+
+    /**
+     * Returns the number of written compressed copies.<p>
+     *
+     * @return the number of written compressed copies
+     */
+    public long getCompressedFiles() {
+
+        return m_compressedFiles.get();
+    }
+
+    /**
+     * Returns the time spent for writing compressed copies in milliseconds.<p>
+     *
+     * @return the time spent for writing compressed copies in milliseconds
+     */
+    public long getCompressionTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_compressionTime.get());
+    }
+
+    /**
+     * Returns the time spent for writing exported files in milliseconds.<p>
+     *
+     * @return the time spent for writing exported files in milliseconds
+     */
+    public long getWriteTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_writeTime.get());
+    }
+
+    /**
+     * Returns the number of bytes of the written exported files.<p>
+     *
+     * @return the number of bytes of the written exported files
+     */
+    public long getWrittenBytes() {
+
+        return m_writtenBytes.get();
+    }
+
+    /**
+     * Returns the number of written exported files.<p>
+     *
+     * @return the number of written exported files
+     */
+    public long getWrittenFiles() {
+
+        return m_writtenFiles.get();
+    }
+
+    /**
+     * Returns if compressed copies of the exported text files are written.<p>
+     *
+     * @return <code>true</code> if compressed copies of the exported text files are written
+     */
+    public boolean isCompressionEnabled() {
+
+        return m_executor != null;
+    }
+
+    /**
+     * Resets the counted files, bytes and times to zero, to start the statistics of a new export.<p>
+     */
+    public void resetStatistics() {
+
+        m_compressedBytes.set(0);
+        m_compressedFiles.set(0);
+        m_compressionTime.set(0);
+        m_writeTime.set(0);
+        m_writtenBytes.set(0);
+        m_writtenFiles.set(0);
+    }
+
+    /**
+     * Stops the background thread after the pending compressed copies have been written.<p>
+     */
+    public void shutdown() {
+
+        if (m_executor == null) {
+            return;
+        }
+        m_executor.shutdown();
+        try {
+            m_executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes an exported file.<p>
+     *
+     * @param file the file to write
+     * @param content the content of the file
+     * @param mimeType the mime type of the file, used to decide if a compressed copy is written
+     * @param dateLastModified the last modification date to set, or <code>-1</code> to keep the current time
+     *
+     * @throws IOException if writing the file fails
+     */
+    public void write(final File file, final byte[] content, String mimeType, final long dateLastModified)
+    throws IOException {
+
+        long start = System.nanoTime();
+        final String path = file.getPath();
+        boolean compress = (m_executor != null) && (content.length >= MIN_COMPRESSION_SIZE) && isCompressible(mimeType);
+        final Long generation = new Long(m_lastGeneration.incrementAndGet());
+        File tempFile = writeTempFile(file, content, dateLastModified);
+        try {
+            synchronized (getLock(path)) {
+                // invalidates a pending compressed copy of the previous content
+                if (compress) {
+                    m_generations.put(path, generation);
+                } else {
+                    m_generations.remove(path);
+                }
+                File compressedFile = new File(path + SUFFIX_GZIP);
+                if (compressedFile.exists()) {
+                    compressedFile.delete();
+                }
+                moveFile(tempFile, file);
+            }
+        } finally {
+            deleteTempFile(tempFile);
+        }
+        m_writeTime.addAndGet(System.nanoTime() - start);
+        m_writtenBytes.addAndGet(content.length);
+        m_writtenFiles.incrementAndGet();
+
+        if (compress) {
+            m_executor.execute(new Runnable() {
+
+                public void run() {
+
+                    writeCompressed(path, generation, content, dateLastModified);
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes a temporary file if it still exists.<p>
+     *
+     * @param tempFile the temporary file
+     */
+    private void deleteTempFile(File tempFile) {
+
+        if (tempFile.exists()) {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Returns the lock for replacing the exported file with the given path or its compressed copy.<p>
+     *
+     * @param path the path of the exported file
+     *
+     * @return the lock for the exported file
+     */
+    private Object getLock(String path) {
+
+        return m_locks[(path.hashCode() & Integer.MAX_VALUE) % LOCK_COUNT];
+    }
+
+    /**
+     * Writes the gzip compressed copy of an exported file.<p>
+     *
+     * The copy is only written if the exported file has not been written again since the copy was requested,
+     * otherwise the newer write has already removed the outdated copy and requested a new one if needed.<p>
+     *
+     * @param path the path of the exported file
+     * @param generation the generation of the write that requested the copy
+     * @param content the content of the exported file
+     * @param dateLastModified the last modification date to set, or <code>-1</code> to keep the current time
+     */
+    private void writeCompressed(String path, Long generation, byte[] content, long dateLastModified) {
+
+        long start = System.nanoTime();
+        File compressedFile = new File(path + SUFFIX_GZIP);
+        try {
+            if (!generation.equals(m_generations.get(path))) {
+                // the file has been written again in the meantime
+                return;
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 2);
+            GZIPOutputStream out = new GZIPOutputStream(buffer);
+            try {
+                out.write(content);
+            } finally {
+                out.close();
+            }
+            byte[] compressed = buffer.toByteArray();
+            File tempFile = null;
+            if (compressed.length < content.length) {
+                tempFile = writeTempFile(compressedFile, compressed, dateLastModified);
+            }
+            try {
+                synchronized (getLock(path)) {
+                    if (!m_generations.remove(path, generation) || !new File(path).exists()) {
+                        // the file has been written again or deleted in the meantime
+                        return;
+                    }
+                    if (tempFile == null) {
+                        // compression does not pay off, make sure no copy is left
+                        if (compressedFile.exists()) {
+                            compressedFile.delete();
+                        }
+                        return;
+                    }
+                    moveFile(tempFile, compressedFile);
+                }
+            } finally {
+                if (tempFile != null) {
+                    deleteTempFile(tempFile);
+                }
+            }
+            m_compressionTime.addAndGet(System.nanoTime() - start);
+            m_compressedBytes.addAndGet(compressed.length);
+            m_compressedFiles.incrementAndGet();
+        } catch (IOException e) {
+            m_generations.remove(path, generation);
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_WRITE_COMPRESSED_FAILED_1,
+                    compressedFile.getAbsolutePath()),
+                e);
+        }
+    }
+
+    /**
+     * Writes a content to a temporary file in the folder of the target file.<p>
+     *
+     * @param file the target file
+     * @param content the content to write
+     * @param dateLastModified the last modification date to set, or <code>-1</code> to keep the current time
+     *
+     * @return the temporary file
+     *
+     * @throws IOException if writing the file fails
+     */
+    private File writeTempFile(File file, byte[] content, long dateLastModified) throws IOException {
+
+        // the temporary file starts with a dot, so it is not matched as parameter variant of another file
+        File tempFile = File.createTempFile("." + file.getName() + "_", SUFFIX_TEMP, file.getParentFile());
+        try {
+            OutputStream out = new FileOutputStream(tempFile);
+            try {
+                out.write(content);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            deleteTempFile(tempFile);
+            throw e;
+        }
+        if (dateLastModified >= 0) {
+            tempFile.setLastModified(dateLastModified);
+        }
+        return tempFile;
+    }
+}
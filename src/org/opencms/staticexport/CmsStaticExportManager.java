@@ -34,6 +34,7 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.i18n.CmsAcceptLanguageHeaderParser;
@@ -49,6 +50,8 @@ import org.opencms.main.CmsSystemInfo;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.relations.CmsRelation;
+import org.opencms.relations.CmsRelationFilter;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsSecurityException;
@@ -57,24 +60,27 @@ import org.opencms.site.CmsSiteManagerImpl;
 import org.opencms.staticexport.CmsExportname.CmsExportNameComparator;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsMacroResolver;
+import org.opencms.util.CmsPair;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsWorkplace;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.regex.Pattern;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -114,9 +120,15 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Name for the folder default index file. */
     public static final String EXPORT_DEFAULT_FILE = "index_export.html";
 
+    /** Default number of worker threads for the after publish export. */
+    public static final int EXPORT_DEFAULT_WORKERS = 4;
+
     /** Name for the default work path. */
     public static final String EXPORT_DEFAULT_WORKPATH = CmsSystemInfo.FOLDER_WEBINF + "temp";
 
+    /** Name of the dependency index file, relative to the WEB-INF folder. */
+    public static final String EXPORT_DEPENDENCY_INDEX = "staticexport" + File.separatorChar + "dependencies.idx";
+
     /** Flag value for links without parameters. */
     public static final int EXPORT_LINK_WITH_PARAMETER = 2;
 
@@ -141,6 +153,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsStaticExportManager.class);
 
+    /** The maximum number of resources that are followed when reading the dependencies of an exported resource. */
+    private static final int MAX_DEPENDENCIES = 256;
+
     /** HTTP header Accept-Charset. */
     private String m_acceptCharsetHeader;
 
@@ -162,12 +177,27 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Cache for the secure links. */
     private Map<String, String> m_cacheSecureLinks;
 
+    /** Cache for the links substituted by the link manager, with the site root override set for the link. */
+    private Map<String, CmsPair<String, String>> m_cacheSubstitutedLinks;
+
     /** OpenCms default charset header. */
     private String m_defaultAcceptCharsetHeader;
 
     /** OpenCms default locale header. */
     private String m_defaultAcceptLanguageHeader;
 
+    /** The index of the exported files and their dependencies. */
+    private CmsStaticExportDependencyIndex m_dependencyIndex;
+
+    /** Indicates if only the dependency index is used to find the resources to export after publishing. */
+    private Boolean m_dependencyIndexOnly;
+
+    /** The configured compression of the exported files. */
+    private String m_exportCompression;
+
+    /** The writer for the exported files. */
+    private CmsStaticExportFileWriter m_exportFileWriter;
+
     /** Matcher for  selecting those resources which should be part of the static export. */
     private CmsExportFolderMatcher m_exportFolderMatcher;
 
@@ -180,6 +210,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** List of all resources that have the "exportname" property set: &lt;system-wide unique export name, root path&gt;. */
     private Map<CmsExportname, String> m_exportnameResources;
 
+    /** The maximum number of parallel exports on demand. */
+    private Integer m_exportOnDemandWorkers;
+
     /** Indicates if <code>true</code> is the default value for the property "export". */
     private boolean m_exportPropertyDefault;
 
@@ -204,6 +237,12 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Export url to send internal requests to without http://servername. */
     private String m_exportUrlPrefix;
 
+    /** The number of worker threads used by the after publish export. */
+    private Integer m_exportWorkers;
+
+    /** The maximum number of parallel export requests to the same host. */
+    private Integer m_exportWorkersPerHost;
+
     /** Boolean value if the export is a full static export. */
     private boolean m_fullStaticExport;
 
@@ -222,6 +261,12 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Lock object for write access to the {@link #m_exportnameResources} map in {@link #computeVfsExportnames()}. */
     private Object m_lockSetExportnames;
 
+    /** Limits the parallel exports on demand. */
+    private CmsOnDemandExportLimiter m_onDemandExportLimiter;
+
+    /** The root paths of the resources exported on demand whose dependencies have not been read yet. */
+    private Set<String> m_pendingDependencies;
+
     /** Indicates if the quick static export for plain resources is enabled. */
     private boolean m_quickPlainExport;
 
@@ -234,6 +279,12 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Prefix to use for exported files with unsubstituted context values. */
     private String m_rfsPrefixConfigured;
 
+    /** The prefixes of all rfs rules and the default prefix. */
+    private Set<String> m_rfsPrefixes;
+
+    /** Finds the first rfs rule with a source matching a vfs name. */
+    private CmsPrefixPatternMatcher m_rfsRuleMatcher;
+
     /** List of configured rfs rules. */
     private List<CmsStaticExportRfsRule> m_rfsRules;
 
@@ -285,8 +336,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_rfsRules = new ArrayList<CmsStaticExportRfsRule>();
         m_exportRules = new ArrayList<CmsStaticExportExportRule>();
         m_exportTmpRule = new CmsStaticExportExportRule("", "");
+        m_dependencyIndex = new CmsStaticExportDependencyIndex();
+        m_exportFileWriter = new CmsStaticExportFileWriter(false);
+        m_onDemandExportLimiter = new CmsOnDemandExportLimiter(
+            CmsOnDemandExportLimiter.DEFAULT_RENDERS,
+            CmsOnDemandExportLimiter.DEFAULT_RENDERS * CmsOnDemandExportLimiter.QUEUED_PER_RENDER,
+            CmsOnDemandExportLimiter.DEFAULT_TIMEOUT);
+        m_pendingDependencies = new HashSet<String>();
         m_rfsTmpRule = new CmsStaticExportRfsRule("", "", "", "", "", "", null, null);
         m_fullStaticExport = false;
+        updateRfsRuleMatcher();
     }
 
     /**
@@ -382,6 +441,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /**
      * Adds a new rfs rule to the configuration.<p>
      *
+     * If this manager has already been initialized, the export paths and the prefix of the rule
+     * are resolved right away, otherwise this happens in {@link #initialize(CmsObject)}.<p>
+     *
      * @param name the name of the rule
      * @param description the description for the rule
      * @param source the source regex
@@ -414,18 +476,22 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         Boolean relativeLinks = (useRelativeLinks == null ? null : Boolean.valueOf(useRelativeLinks));
         Integer backups = (exportBackups == null ? null : Integer.valueOf(exportBackups));
 
-        m_rfsRules.add(
-            new CmsStaticExportRfsRule(
-                name,
-                description,
-                source,
-                rfsPrefix,
-                exportPath,
-                exportWorkPath,
-                backups,
-                relativeLinks,
-                m_rfsTmpRule.getRelatedSystemResources()));
+        CmsStaticExportRfsRule rule = new CmsStaticExportRfsRule(
+            name,
+            description,
+            source,
+            rfsPrefix,
+            exportPath,
+            exportWorkPath,
+            backups,
+            relativeLinks,
+            m_rfsTmpRule.getRelatedSystemResources());
+        if (m_staticExportPath != null) {
+            initRfsRule(rule);
+        }
+        m_rfsRules.add(rule);
         m_rfsTmpRule = new CmsStaticExportRfsRule("", "", "", "", "", "", null, null);
+        updateRfsRuleMatcher();
     }
 
     /**
@@ -449,6 +515,19 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_cacheOnlineLinks.put(linkName, vfsName);
     }
 
+    /**
+     * Caches a link substituted by the link manager in the online project.<p>
+     *
+     * @param key the cache key
+     * @param link the substituted link, with the site root override set for the link as second value
+     */
+    public void cacheSubstitutedLink(String key, CmsPair<String, String> link) {
+
+        if (m_cacheSubstitutedLinks != null) {
+            m_cacheSubstitutedLinks.put(key, link);
+        }
+    }
+
     /**
      * Implements the CmsEvent interface,
      * the static export properties uses the events to clear
@@ -458,6 +537,19 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      */
     public void cmsEvent(CmsEvent event) {
 
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+                // substituted links are also cached if the static export is disabled
+                m_cacheSubstitutedLinks.clear();
+                break;
+            default:
+                // no operation
+        }
+        if (event.getType() == I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES) {
+            return;
+        }
         if (!isStaticExportEnabled()) {
             if (LOG.isWarnEnabled()) {
                 LOG.warn(Messages.get().getBundle().key(Messages.LOG_STATIC_EXPORT_DISABLED_0));
@@ -490,7 +582,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_EVENT_PUBLISH_PROJECT_1, publishHistoryId));
                 }
                 synchronized (m_lockCmsEvent) {
+                    readPendingDependencies();
                     getHandler().performEventPublishProject(publishHistoryId, report);
+                    writeDependencyIndex();
                 }
                 clearCaches(event);
 
@@ -529,159 +623,48 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     public int export(HttpServletRequest req, HttpServletResponse res, CmsObject cms, CmsStaticExportData data)
     throws CmsException, IOException, ServletException, CmsStaticExportException {
 
-        CmsResource resource = data.getResource();
-        String vfsName = data.getVfsName();
-        String rfsName;
-        if (data.isDetailPage()) {
-            rfsName = CmsStringUtil.joinPaths(data.getRfsName(), CmsStaticExportManager.DEFAULT_FILE);
-        } else if (data.getParameters() != null) {
-            rfsName = data.getRfsName();
-        } else {
-            rfsName = addDefaultFileNameToFolder(data.getRfsName(), resource.isFolder());
-        }
-
-        // cut the site root from the vfsName and switch to the correct site
-        String siteRoot = OpenCms.getSiteManager().getSiteRoot(vfsName);
-
-        CmsI18nInfo i18nInfo = OpenCms.getLocaleManager().getI18nInfo(
-            req,
-            cms.getRequestContext().getCurrentUser(),
-            cms.getRequestContext().getCurrentProject(),
-            vfsName);
-
-        String remoteAddr = m_remoteAddr;
-        if (remoteAddr == null) {
-            remoteAddr = CmsContextInfo.LOCALHOST;
-        }
-
-        if (siteRoot != null) {
-            vfsName = vfsName.substring(siteRoot.length());
-        } else {
-            siteRoot = "/";
-        }
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATIC_EXPORT_SITE_ROOT_2, siteRoot, vfsName));
-        }
-
-        boolean usesSecureSite = (req != null) && OpenCms.getSiteManager().usesSecureSite(req);
-        CmsContextInfo contextInfo = new CmsContextInfo(
-            cms.getRequestContext().getCurrentUser(),
-            cms.getRequestContext().getCurrentProject(),
-            vfsName,
-            cms.getRequestContext().getRequestMatcher(),
-            siteRoot,
-            usesSecureSite,
-            i18nInfo.getLocale(),
-            i18nInfo.getEncoding(),
-            remoteAddr,
-            CmsContextInfo.CURRENT_TIME,
-            cms.getRequestContext().getOuFqn());
-        CmsObject exportCms = OpenCms.initCmsObject(null, contextInfo);
-
-        // only export those resources where the export property is set
-        if (!isExportLink(exportCms, exportCms.getRequestContext().removeSiteRoot(data.getVfsName()))) {
-            // the resource was not used for export, so return HttpServletResponse.SC_SEE_OTHER
-            // as a signal for not exported resource
-            return HttpServletResponse.SC_SEE_OTHER;
-        }
-
-        // this flag signals if the export method is used for "on demand" or "after publish".
-        // if no request and result stream are available, it was called during "export on publish"
-        boolean exportOnDemand = ((req != null) && (res != null));
-        CmsStaticExportResponseWrapper wrapRes = null;
-        if (res != null) {
-            wrapRes = new CmsStaticExportResponseWrapper(res);
-        }
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_SE_RESOURCE_START_1, data));
-        }
-
-        CmsFile file = exportCms.readFile(OpenCms.initResource(exportCms, vfsName, req, wrapRes));
-        vfsName = exportCms.getSitePath(file);
-
-        // check loader id for resource
-        I_CmsResourceLoader loader = OpenCms.getResourceManager().getLoader(file);
-        if ((loader == null) || (!loader.isStaticExportEnabled())) {
-            Object[] arguments = new Object[] {vfsName, new Integer(file.getTypeId())};
-            throw new CmsStaticExportException(
-                Messages.get().container(Messages.ERR_EXPORT_NOT_SUPPORTED_2, arguments));
+        if ((req == null) || (res == null)) {
+            // export after publish, the worker pool already avoids duplicate exports
+            return exportResource(req, res, cms, data, null);
         }
 
-        // ensure we have exactly the same setup as if called "the usual way"
-        // we only have to do this in case of the static export on demand
-        if (exportOnDemand) {
-            String mimetype = OpenCms.getResourceManager().getMimeType(
-                file.getName(),
-                exportCms.getRequestContext().getEncoding());
-            if (wrapRes != null) {
-                wrapRes.setContentType(mimetype);
+        // export on demand, concurrent requests for the same file are exported only once
+        CmsOnDemandExportLimiter.Flight flight = m_onDemandExportLimiter.beginFlight(data.getRfsName());
+        if (!flight.isLeader()) {
+            byte[] content = m_onDemandExportLimiter.waitFor(flight);
+            if (content != null) {
+                // deliver the content exported by the concurrent request
+                res.setContentType(flight.getMimeType());
+                res.setContentLength(content.length);
+                res.getOutputStream().write(content);
+                return flight.getStatus();
             }
-            exportCms.getRequestContext().setUri(vfsName);
+            // the concurrent export failed or took too long, so try to export the resource again
         }
-
-        // do the export
-        int status = -1;
-        List<Locale> locales = OpenCms.getLocaleManager().getDefaultLocales(exportCms, vfsName);
-        boolean exported = false;
-        boolean matched = false;
-        // iterate over all rules
-        Iterator<CmsStaticExportRfsRule> it = getRfsRules().iterator();
-        while (it.hasNext()) {
-            CmsStaticExportRfsRule rule = it.next();
-            // normal case
-            boolean export = rule.getSource().matcher(siteRoot + vfsName).matches();
-            matched |= export;
-            // system folder case
-            export |= (vfsName.startsWith(CmsWorkplace.VFS_PATH_SYSTEM) && rule.match(vfsName));
-            if (export) {
-                // the resource has to exported for this rule
-                CmsObject locCms = exportCms;
-                Locale locale = CmsLocaleManager.getLocale(rule.getName());
-                if (locales.contains(locale)) {
-                    // if the locale is in the default locales for the resource
-                    // so adjust the locale to use for exporting
-                    CmsContextInfo ctxInfo = new CmsContextInfo(exportCms.getRequestContext());
-                    ctxInfo.setLocale(locale);
-                    locCms = OpenCms.initCmsObject(exportCms, ctxInfo);
-                }
-                // read the content in the matching locale
-                byte[] content = loader.export(locCms, file, req, wrapRes);
-                if (content != null) {
-                    // write to rfs
-                    exported = true;
-                    String locRfsName = rfsName;
-                    if (locales.contains(locale)) {
-                        locRfsName = rule.getLocalizedRfsName(rfsName, "/");
-                    }
-                    writeResource(req, rule.getExportPath(), locRfsName, resource, content);
+        int status = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+        boolean acquired = m_onDemandExportLimiter.acquire();
+        try {
+            if (!acquired) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_ON_DEMAND_EXPORT_REJECTED_3,
+                            data.getRfsName(),
+                            new Integer(m_onDemandExportLimiter.getActiveRenders()),
+                            new Integer(m_onDemandExportLimiter.getQueueLength())));
                 }
+                return status;
             }
-        }
-        if (!matched) {
-            // no rule matched
-            String exportPath = getExportPath(siteRoot + vfsName);
-            byte[] content = loader.export(exportCms, file, req, wrapRes);
-            if (content != null) {
-                exported = true;
-                writeResource(req, exportPath, rfsName, resource, content);
+            status = exportResource(req, res, cms, data, flight.isLeader() ? flight : null);
+            return status;
+        } finally {
+            if (acquired) {
+                m_onDemandExportLimiter.release();
             }
-        }
-
-        if (exported) {
-            // get the wrapper status that was set
-            status = (wrapRes != null) ? wrapRes.getStatus() : -1;
-            if (status < 0) {
-                // the status was not set, assume everything is o.k.
-                status = HttpServletResponse.SC_OK;
+            if (flight.isLeader()) {
+                m_onDemandExportLimiter.endFlight(data.getRfsName(), flight, status);
             }
-        } else {
-            // the resource was not written because it was not modified.
-            // set the status to not modified
-            status = HttpServletResponse.SC_NOT_MODIFIED;
         }
-
-        return status;
     }
 
     /**
@@ -706,6 +689,13 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             // set the export path to the export work path
             m_staticExportPath = m_staticExportWorkPath;
         }
+        if (m_useTempDirs || purgeFirst) {
+            // all files are exported again, so the index is filled again
+            m_dependencyIndex.clear();
+            synchronized (m_pendingDependencies) {
+                m_pendingDependencies.clear();
+            }
+        }
 
         // delete all old exports if the purgeFirst flag is set
         if (purgeFirst) {
@@ -732,6 +722,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         // set member to false for further exports
         m_fullStaticExport = false;
 
+        // make sure no compressed files are written to the work folders after they have been renamed
+        m_exportFileWriter.flush();
+
         // check if report contents no errors
         if (m_useTempDirs && !report.hasError()) {
             // backup old export folders for default export
@@ -741,6 +734,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             // change the name of the used temporary export folder to the original default export path
             File staticExportWork = new File(m_staticExportWorkPath);
             staticExportWork.renameTo(new File(m_staticExportPath));
+            m_dependencyIndex.relocate(
+                CmsFileUtil.normalizePath(m_staticExportWorkPath + '/'),
+                CmsFileUtil.normalizePath(m_staticExportPath + '/'));
 
             // backup old export folders of rule based exports
             Iterator<CmsStaticExportRfsRule> it = m_rfsRules.iterator();
@@ -756,11 +752,20 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                         rule.getExportBackups().intValue(),
                         OpenCms.getResourceManager().getFileTranslator().translateResource(rule.getName()));
                     staticExportWorkRule.renameTo(new File(rule.getExportPath()));
+                    m_dependencyIndex.relocate(
+                        CmsFileUtil.normalizePath(rule.getExportWorkPath() + '/'),
+                        CmsFileUtil.normalizePath(rule.getExportPath() + '/'));
                 }
             }
         } else if (report.hasError()) {
             report.println(Messages.get().container(Messages.ERR_EXPORT_NOT_SUCCESSFUL_0), I_CmsReport.FORMAT_WARNING);
+            if (m_useTempDirs) {
+                // the files in the work folders are not used
+                m_dependencyIndex.clear();
+            }
         }
+        m_dependencyIndex.setComplete(!report.hasError());
+        writeDependencyIndex();
     }
 
     /**
@@ -795,6 +800,18 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_cacheOnlineLinks.get(vfsName);
     }
 
+    /**
+     * Returns a link substituted by the link manager in the online project from the cache.<p>
+     *
+     * @param key the cache key
+     *
+     * @return the cached link with the site root override set for the link as second value, or <code>null</code>
+     */
+    public CmsPair<String, String> getCachedSubstitutedLink(String key) {
+
+        return m_cacheSubstitutedLinks == null ? null : m_cacheSubstitutedLinks.get(key);
+    }
+
     /**
      * Returns the key for the online, export and secure cache.<p>
      *
@@ -848,6 +865,26 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_rfsPrefix;
     }
 
+    /**
+     * Returns the index of the exported files and the resources they depend on.<p>
+     *
+     * @return the index of the exported files and the resources they depend on
+     */
+    public CmsStaticExportDependencyIndex getDependencyIndex() {
+
+        return m_dependencyIndex;
+    }
+
+    /**
+     * Returns the configured value of the dependency index only flag, to be used when re-writing the configuration.<p>
+     *
+     * @return the configured value of the dependency index only flag, or <code>null</code> if not configured
+     */
+    public String getDependencyIndexOnlyForConfiguration() {
+
+        return (m_dependencyIndexOnly != null) ? m_dependencyIndexOnly.toString() : null;
+    }
+
     /**
      * Returns the number of stored backups.<p>
      *
@@ -862,6 +899,41 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return EXPORT_DEFAULT_BACKUPS;
     }
 
+    /**
+     * Returns the compression of the exported files, either
+     * <code>{@link CmsStaticExportFileWriter#COMPRESSION_GZIP}</code> or
+     * <code>{@link CmsStaticExportFileWriter#COMPRESSION_NONE}</code>.<p>
+     *
+     * @return the compression of the exported files
+     */
+    public String getExportCompression() {
+
+        if (m_exportCompression != null) {
+            return m_exportCompression;
+        }
+        return CmsStaticExportFileWriter.COMPRESSION_NONE;
+    }
+
+    /**
+     * Returns the configured compression of the exported files, to be used when re-writing the configuration.<p>
+     *
+     * @return the configured compression of the exported files, or <code>null</code> if not configured
+     */
+    public String getExportCompressionForConfiguration() {
+
+        return m_exportCompression;
+    }
+
+    /**
+     * Returns the writer for the exported files, which also provides the statistics of the written files.<p>
+     *
+     * @return the writer for the exported files
+     */
+    public CmsStaticExportFileWriter getExportFileWriter() {
+
+        return m_exportFileWriter;
+    }
+
     /**
      * Returns the export data for the request, if null is returned no export is required.<p>
      *
@@ -990,6 +1062,30 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return Collections.unmodifiableMap(m_exportnameResources);
     }
 
+    /**
+     * Returns the maximum number of resources exported on demand in parallel.<p>
+     *
+     * @return the maximum number of resources exported on demand in parallel
+     */
+    public int getExportOnDemandWorkers() {
+
+        if (m_exportOnDemandWorkers != null) {
+            return m_exportOnDemandWorkers.intValue();
+        }
+        return CmsOnDemandExportLimiter.DEFAULT_RENDERS;
+    }
+
+    /**
+     * Returns the configured maximum number of resources exported on demand in parallel,
+     * to be used when re-writing the configuration.<p>
+     *
+     * @return the configured maximum number of parallel exports on demand, or <code>null</code> if not configured
+     */
+    public Integer getExportOnDemandWorkersForConfiguration() {
+
+        return m_exportOnDemandWorkers;
+    }
+
     /**
      * Returns the export path for the static export, that is the folder where the
      * static exported resources will be written to.<p>
@@ -1013,14 +1109,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      */
     public String getExportPath(String vfsName) {
 
-        if (vfsName != null) {
-            Iterator<CmsStaticExportRfsRule> it = m_rfsRules.iterator();
-            while (it.hasNext()) {
-                CmsStaticExportRfsRule rule = it.next();
-                if (rule.getSource().matcher(vfsName).matches()) {
-                    return rule.getExportPath();
-                }
-            }
+        CmsStaticExportRfsRule rule = getRfsRule(vfsName);
+        if (rule != null) {
+            return rule.getExportPath();
         }
         if (m_useTempDirs && isFullStaticExport()) {
             return getExportWorkPath();
@@ -1043,6 +1134,25 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_staticExportPathConfigured;
     }
 
+    /**
+     * Returns all folders the static export writes to, that is the export path and the export work path
+     * of the static export and of all RFS rules.<p>
+     *
+     * @return all folders the static export writes to
+     */
+    public Set<String> getExportPaths() {
+
+        Set<String> result = new HashSet<String>();
+        result.add(m_staticExportPath);
+        result.add(m_staticExportWorkPath);
+        for (CmsStaticExportRfsRule rule : getRfsRules()) {
+            result.add(rule.getExportPath());
+            result.add(rule.getExportWorkPath());
+        }
+        result.remove(null);
+        return result;
+    }
+
     /**
      * Returns true if the default value for the resource property "export" is true.<p>
      *
@@ -1137,13 +1247,64 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     }
 
     /**
-     * Returns the configured static export handler class.<p>
+     * Returns the number of worker threads used by the after publish export.<p>
      *
-     * If not set, a new <code>{@link CmsAfterPublishStaticExportHandler}</code> is created and returned.<p>
-     *
-     * @return the configured static export handler class
+     * @return the number of worker threads used by the after publish export
      */
-    public I_CmsStaticExportHandler getHandler() {
+    public int getExportWorkers() {
+
+        if (m_exportWorkers != null) {
+            return m_exportWorkers.intValue();
+        }
+        // if workers not configured set to default value
+        return EXPORT_DEFAULT_WORKERS;
+    }
+
+    /**
+     * Returns the number of worker threads used by the after publish export as configured, to be used
+     * when re-writing the configuration.<p>
+     *
+     * @return the configured number of worker threads, or <code>null</code> if not configured
+     */
+    public Integer getExportWorkersForConfiguration() {
+
+        return m_exportWorkers;
+    }
+
+    /**
+     * Returns the maximum number of parallel export requests to the same host.<p>
+     *
+     * If not configured, this is the number of worker threads.<p>
+     *
+     * @return the maximum number of parallel export requests to the same host
+     */
+    public int getExportWorkersPerHost() {
+
+        if (m_exportWorkersPerHost != null) {
+            return m_exportWorkersPerHost.intValue();
+        }
+        return getExportWorkers();
+    }
+
+    /**
+     * Returns the maximum number of parallel export requests to the same host as configured, to be used
+     * when re-writing the configuration.<p>
+     *
+     * @return the configured maximum number of parallel requests per host, or <code>null</code> if not configured
+     */
+    public Integer getExportWorkersPerHostForConfiguration() {
+
+        return m_exportWorkersPerHost;
+    }
+
+    /**
+     * Returns the configured static export handler class.<p>
+     *
+     * If not set, a new <code>{@link CmsAfterPublishStaticExportHandler}</code> is created and returned.<p>
+     *
+     * @return the configured static export handler class
+     */
+    public I_CmsStaticExportHandler getHandler() {
 
         if (m_handler == null) {
             setHandler(CmsOnDemandStaticExportHandler.class.getName());
@@ -1166,6 +1327,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_linkSubstitutionHandler;
     }
 
+    /**
+     * Returns the limiter of the exports on demand, which also provides the number of waiting requests.<p>
+     *
+     * @return the limiter of the exports on demand
+     */
+    public CmsOnDemandExportLimiter getOnDemandExportLimiter() {
+
+        return m_onDemandExportLimiter;
+    }
+
     /**
      * Gets the plain export optimization value as a string representation.<p>
      *
@@ -1337,9 +1508,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         } else {
             // check if we are generating a link to a related resource in the same rfs rule
             String source = cms.getRequestContext().addSiteRoot(cms.getRequestContext().getUri());
-            Iterator<CmsStaticExportRfsRule> it = getRfsRules().iterator();
-            while (it.hasNext()) {
-                CmsStaticExportRfsRule rule = it.next();
+            int[] candidates = m_rfsRuleMatcher.getCandidates(source);
+            for (int i = 0; i < candidates.length; i++) {
+                CmsStaticExportRfsRule rule = m_rfsRules.get(candidates[i]);
                 if (rule.getSource().matcher(source).matches() && rule.match(vfsName)) {
                     return rule.getRfsPrefix().concat(rfsName);
                 }
@@ -1371,14 +1542,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      */
     public String getRfsPrefix(String vfsName) {
 
-        if (vfsName != null) {
-            Iterator<CmsStaticExportRfsRule> it = m_rfsRules.iterator();
-            while (it.hasNext()) {
-                CmsStaticExportRfsRule rule = it.next();
-                if (rule.getSource().matcher(vfsName).matches()) {
-                    return rule.getRfsPrefix();
-                }
-            }
+        CmsStaticExportRfsRule rule = getRfsRule(vfsName);
+        if (rule != null) {
+            return rule.getRfsPrefix();
         }
         return m_rfsPrefix;
     }
@@ -1408,6 +1574,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return Collections.unmodifiableList(m_rfsRules);
     }
 
+    /**
+     * Returns the number of links substituted by the link manager that are currently cached.<p>
+     *
+     * @return the number of cached substituted links
+     */
+    public int getSubstitutedLinkCacheSize() {
+
+        return m_cacheSubstitutedLinks == null ? 0 : m_cacheSubstitutedLinks.size();
+    }
+
     /**
      * Returns the vfs name of the test resource.<p>
      *
@@ -1605,21 +1781,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_rfsPrefix = normalizeRfsPrefix(m_rfsPrefixConfigured);
         Iterator<CmsStaticExportRfsRule> itRfsRules = m_rfsRules.iterator();
         while (itRfsRules.hasNext()) {
-            CmsStaticExportRfsRule rule = itRfsRules.next();
-            try {
-                rule.setExportPath(normalizeExportPath(rule.getExportPathConfigured()));
-            } catch (CmsIllegalArgumentException e) {
-                CmsLog.INIT.warn(e.getMessageContainer());
-                rule.setExportPath(m_staticExportPath);
-            }
-            try {
-                rule.setExportWorkPath(normalizeExportPath(rule.getExportWorkPathConfigured()));
-            } catch (CmsIllegalArgumentException e) {
-                CmsLog.INIT.warn(e.getMessageContainer());
-                rule.setExportWorkPath(m_staticExportWorkPath);
-            }
-            rule.setRfsPrefix(normalizeRfsPrefix(rule.getRfsPrefixConfigured()));
+            initRfsRule(itRfsRules.next());
         }
+        updateRfsRuleMatcher();
         m_vfsPrefix = insertContextStrings(m_vfsPrefixConfigured);
         m_vfsPrefix = CmsFileUtil.normalizePath(m_vfsPrefix, '/');
         if (CmsResource.isFolder(m_vfsPrefix)) {
@@ -1646,16 +1810,42 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_cacheExportLinks = CmsMemoryMonitor.createLRUCacheMap(2048);
         OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheExportLinks", m_cacheExportLinks);
 
+        m_cacheSubstitutedLinks = CmsMemoryMonitor.createLRUCacheMap(4096);
+        OpenCms.getMemoryMonitor().register(
+            this.getClass().getName() + ".m_cacheSubstitutedLinks",
+            m_cacheSubstitutedLinks);
+
         // register this object as event listener
         OpenCms.addCmsEventListener(
             this,
             new int[] {
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
+                I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
                 I_CmsEventListener.EVENT_UPDATE_EXPORTS});
 
         m_exportFolderMatcher = new CmsExportFolderMatcher(m_exportFolders, m_testResource);
 
+        m_exportFileWriter = new CmsStaticExportFileWriter(
+            CmsStaticExportFileWriter.COMPRESSION_GZIP.equals(getExportCompression()));
+        m_onDemandExportLimiter = new CmsOnDemandExportLimiter(
+            getExportOnDemandWorkers(),
+            getExportOnDemandWorkers() * CmsOnDemandExportLimiter.QUEUED_PER_RENDER,
+            CmsOnDemandExportLimiter.DEFAULT_TIMEOUT);
+
+        // read the index of the exported files
+        File dependencyIndexFile = getDependencyIndexFile();
+        try {
+            m_dependencyIndex.read(dependencyIndexFile);
+        } catch (IOException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_DEPENDENCY_INDEX_READ_FAILED_1,
+                    dependencyIndexFile.getAbsolutePath()),
+                e);
+            m_dependencyIndex.clear();
+        }
+
         // get the default accept-language header value
         m_defaultAcceptLanguageHeader = CmsAcceptLanguageHeaderParser.createLanguageHeader();
 
@@ -1731,6 +1921,17 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                         Messages.INIT_EXPORT_EXPORT_HANDLER_1,
                         getHandler().getClass().getName()));
                 CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_EXPORT_URL_1, getExportUrl()));
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(Messages.INIT_EXPORT_COMPRESSION_1, getExportCompression()));
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_DEPENDENCY_INDEX_2,
+                        dependencyIndexFile.getAbsolutePath(),
+                        new Integer(m_dependencyIndex.size())));
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_DEPENDENCY_INDEX_ONLY_1,
+                        Boolean.valueOf(isDependencyIndexOnly())));
                 CmsLog.INIT.info(
                     Messages.get().getBundle().key(Messages.INIT_EXPORT_OPTIMIZATION_1, getPlainExportOptimization()));
                 CmsLog.INIT.info(
@@ -1745,6 +1946,19 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Returns if only the dependency index is used to find the resources to export after publishing.<p>
+     *
+     * This is only the case if explicitly configured, because pages listing other resources by navigation,
+     * collectors or lists do not always have a strong relation to the listed resources.<p>
+     *
+     * @return <code>true</code> if only the dependency index is used to find the resources to export
+     */
+    public boolean isDependencyIndexOnly() {
+
+        return (m_dependencyIndexOnly != null) && m_dependencyIndexOnly.booleanValue();
+    }
+
     /**
      * Checks if the static export is required for the given VFS resource.<p>
      *
@@ -2005,16 +2219,11 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      */
     public boolean relativeLinksInExport(String vfsName) {
 
-        if (vfsName != null) {
-            Iterator<CmsStaticExportRfsRule> it = m_rfsRules.iterator();
-            while (it.hasNext()) {
-                CmsStaticExportRfsRule rule = it.next();
-                if (rule.getSource().matcher(vfsName).matches()) {
-                    return rule.getUseRelativeLinks() != null
-                    ? rule.getUseRelativeLinks().booleanValue()
-                    : m_exportRelativeLinks;
-                }
-            }
+        CmsStaticExportRfsRule rule = getRfsRule(vfsName);
+        if (rule != null) {
+            return rule.getUseRelativeLinks() != null
+            ? rule.getUseRelativeLinks().booleanValue()
+            : m_exportRelativeLinks;
         }
         return m_exportRelativeLinks;
     }
@@ -2049,6 +2258,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_exportPropertyDefault = Boolean.valueOf(value).booleanValue();
     }
 
+    /**
+     * Sets if only the dependency index is used to find the resources to export after publishing.<p>
+     *
+     * @param value must be <code>true</code> or <code>false</code>
+     */
+    public void setDependencyIndexOnly(String value) {
+
+        m_dependencyIndexOnly = Boolean.valueOf(value.trim());
+    }
+
     /**
      * Sets the number of backups for the static export.<p>
      *
@@ -2059,6 +2278,24 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_staticExportBackups = new Integer(backup);
     }
 
+    /**
+     * Sets the compression of the exported files.<p>
+     *
+     * @param compression the compression, either "gzip" or "none"
+     */
+    public void setExportCompression(String compression) {
+
+        String value = compression.trim().toLowerCase();
+        if (CmsStaticExportFileWriter.COMPRESSION_GZIP.equals(value)
+            || CmsStaticExportFileWriter.COMPRESSION_NONE.equals(value)) {
+            m_exportCompression = value;
+        } else {
+            CmsLog.INIT.warn(
+                Messages.get().getBundle().key(Messages.INIT_EXPORT_COMPRESSION_UNSUPPORTED_1, compression));
+            m_exportCompression = CmsStaticExportFileWriter.COMPRESSION_NONE;
+        }
+    }
+
     /**
      * Sets the export enabled value.<p>
      *
@@ -2100,6 +2337,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the maximum number of resources exported on demand in parallel.<p>
+     *
+     * @param workers the maximum number of parallel exports on demand
+     */
+    public void setExportOnDemandWorkers(String workers) {
+
+        m_exportOnDemandWorkers = new Integer(Math.max(1, Integer.parseInt(workers.trim())));
+    }
+
     /**
      * Sets the path where the static export is written.<p>
      *
@@ -2141,6 +2388,26 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_staticExportWorkPathConfigured = path;
     }
 
+    /**
+     * Sets the number of worker threads used by the after publish export.<p>
+     *
+     * @param workers the number of worker threads
+     */
+    public void setExportWorkers(String workers) {
+
+        m_exportWorkers = new Integer(Math.max(1, Integer.parseInt(workers.trim())));
+    }
+
+    /**
+     * Sets the maximum number of parallel export requests to the same host.<p>
+     *
+     * @param workers the maximum number of parallel export requests to the same host
+     */
+    public void setExportWorkersPerHost(String workers) {
+
+        m_exportWorkersPerHost = new Integer(Math.max(1, Integer.parseInt(workers.trim())));
+    }
+
     /**
      * Sets the link substitution handler class.<p>
      *
@@ -2258,6 +2525,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             }
         }
 
+        m_exportFileWriter.shutdown();
+        writeDependencyIndex();
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SHUTDOWN_1, this.getClass().getName()));
         }
@@ -2279,6 +2549,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_cacheExportUris.clear();
         m_cacheSecureLinks.clear();
         m_cacheExportLinks.clear();
+        m_cacheSubstitutedLinks.clear();
         m_exportnameResources = null;
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLUSHED_CACHES_1, new Integer(event.getType())));
@@ -2554,21 +2825,8 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      */
     protected String getRfsPrefixForRfsName(String rfsName) {
 
-        String retVal = "";
-        // default case
-        if (rfsName.startsWith(m_rfsPrefix + "/")) {
-            retVal = m_rfsPrefix;
-        }
-        // additional rules
-        Iterator<CmsStaticExportRfsRule> it = m_rfsRules.iterator();
-        while (it.hasNext()) {
-            CmsStaticExportRfsRule rule = it.next();
-            String rfsPrefix = rule.getRfsPrefix();
-            if (rfsName.startsWith(rfsPrefix + "/") && (retVal.length() < rfsPrefix.length())) {
-                retVal = rfsPrefix;
-            }
-        }
-        return retVal;
+        String retVal = findRfsPrefix(rfsName);
+        return retVal != null ? retVal : "";
     }
 
     /**
@@ -2599,22 +2857,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      */
     protected boolean isValidRfsName(String rfsName) {
 
-        if (rfsName != null) {
-            // default case
-            if (rfsName.startsWith(m_rfsPrefix + "/")) {
-                return true;
-            }
-            // additional rules
-            Iterator<CmsStaticExportRfsRule> it = m_rfsRules.iterator();
-            while (it.hasNext()) {
-                CmsStaticExportRfsRule rule = it.next();
-                String rfsPrefix = rule.getRfsPrefix() + "/";
-                if (rfsName.startsWith(rfsPrefix)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return (rfsName != null) && (findRfsPrefix(rfsName) != null);
     }
 
     /**
@@ -2681,6 +2924,65 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Returns the root paths of the resources the content of an exported resource has been generated from.<p>
+     *
+     * These are the resources reachable from the exported resource and its template by strong relations,
+     * like the elements of a container page or the JSP files included by the template.<p>
+     *
+     * This reads the relations of up to {@link #MAX_DEPENDENCIES} resources, so it is only called for exports
+     * after publishing and full exports. The dependencies of resources exported on demand are read before
+     * the next export after publishing.<p>
+     *
+     * @param cms the current users context
+     * @param resource the exported resource
+     *
+     * @return the root paths of the resources the exported content depends on
+     */
+    protected Set<String> readExportDependencies(CmsObject cms, CmsResource resource) {
+
+        Set<String> result = new HashSet<String>();
+        List<CmsResource> resources = new ArrayList<CmsResource>();
+        resources.add(resource);
+        try {
+            String template = cms.readPropertyObject(
+                resource,
+                CmsPropertyDefinition.PROPERTY_TEMPLATE,
+                true).getValue();
+            if (template != null) {
+                CmsResource templateResource = cms.readResource(template);
+                result.add(templateResource.getRootPath());
+                resources.add(templateResource);
+            }
+        } catch (CmsException e) {
+            // the template is not available, ignore it
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+        int pos = 0;
+        while ((pos < resources.size()) && (result.size() < MAX_DEPENDENCIES)) {
+            CmsResource current = resources.get(pos++);
+            try {
+                List<CmsRelation> relations = cms.getRelationsForResource(
+                    current,
+                    CmsRelationFilter.TARGETS.filterStrong());
+                for (CmsRelation relation : relations) {
+                    if (result.add(relation.getTargetPath())) {
+                        try {
+                            resources.add(relation.getTarget(cms, CmsResourceFilter.ALL));
+                        } catch (CmsException e) {
+                            // the target does not exist, but keep the dependency
+                            LOG.debug(e.getLocalizedMessage(), e);
+                        }
+                    }
+                }
+            } catch (CmsException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
+        result.remove(resource.getRootPath());
+        return result;
+    }
+
     /**
      * Reads the resource with the given URI.<p>
      *
@@ -2729,6 +3031,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 I_CmsReport.FORMAT_HEADLINE);
         }
         synchronized (m_lockScrubExportFolders) {
+            m_dependencyIndex.clear();
             int count = 0;
             Integer size = new Integer(m_rfsRules.size() + 1);
             // default case
@@ -2806,6 +3109,26 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Writes the index of the exported files to the RFS, if it has been changed.<p>
+     */
+    protected void writeDependencyIndex() {
+
+        if (!m_dependencyIndex.isModified()) {
+            return;
+        }
+        File dependencyIndexFile = getDependencyIndexFile();
+        try {
+            m_dependencyIndex.write(dependencyIndexFile);
+        } catch (IOException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_DEPENDENCY_INDEX_WRITE_FAILED_1,
+                    dependencyIndexFile.getAbsolutePath()),
+                e);
+        }
+    }
+
     /**
       * Writes a resource to the given export path with the given rfs name and the given content.<p>
       *
@@ -2829,13 +3152,30 @@ public class CmsStaticExportManager implements I_CmsEventListener {
 
         // make sure all required parent folder exist
         createExportFolder(exportPath, rfsName);
-        // generate export file instance and output stream
+        // generate export file instance
         File exportFile = new File(exportFileName);
-        // write new exported file content
+        // use the modification date from the server, otherwise the one of the OpenCms resource
+        long dateLastModified = -1;
+        if (req != null) {
+            Long serverDateLastModified = (Long)req.getAttribute(CmsRequestUtil.HEADER_OPENCMS_EXPORT);
+            if ((serverDateLastModified != null) && (serverDateLastModified.longValue() != -1)) {
+                dateLastModified = (serverDateLastModified.longValue() / 1000) * 1000;
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_SET_LAST_MODIFIED_2,
+                            exportFile.getName(),
+                            new Long(dateLastModified)));
+                }
+            }
+        } else {
+            dateLastModified = (resource.getDateLastModified() / 1000) * 1000;
+        }
+        // write new exported file content to a temporary file and replace the exported file with it
         try {
-            FileOutputStream exportStream = new FileOutputStream(exportFile);
-            exportStream.write(content);
-            exportStream.close();
+            String mimeType = OpenCms.getResourceManager().getMimeType(exportFile.getName(), null);
+            m_exportFileWriter.write(exportFile, content, mimeType, dateLastModified);
+            m_dependencyIndex.addFile(resource.getRootPath(), exportFileName);
 
             // log export success
             if (LOG.isInfoEnabled()) {
@@ -2851,23 +3191,6 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 Messages.get().container(Messages.ERR_OUTPUT_STREAM_1, exportFileName),
                 t);
         }
-        // update the file with the modification date from the server
-        if (req != null) {
-            Long dateLastModified = (Long)req.getAttribute(CmsRequestUtil.HEADER_OPENCMS_EXPORT);
-            if ((dateLastModified != null) && (dateLastModified.longValue() != -1)) {
-                exportFile.setLastModified((dateLastModified.longValue() / 1000) * 1000);
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_SET_LAST_MODIFIED_2,
-                            exportFile.getName(),
-                            new Long((dateLastModified.longValue() / 1000) * 1000)));
-                }
-            }
-        } else {
-            // otherwise take the last modification date form the OpenCms resource
-            exportFile.setLastModified((resource.getDateLastModified() / 1000) * 1000);
-        }
     }
 
     /**
@@ -2925,4 +3248,331 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             return Collections.emptyMap();
         }
     }
+
+    /**
+     * Exports the requested uri and at the same time writes the uri to the response output stream
+     * if required.<p>
+     *
+     * @param req the current request
+     * @param res the current response
+     * @param cms an initialised cms context (should be initialised with the "Guest" user only)
+     * @param data the static export data set
+     * @param flight the export on demand to store the exported content in, or <code>null</code>
+     *
+     * @return status code of the export operation, status codes are the same as http status codes (200,303,304)
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws ServletException in case of errors accessing the servlet
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws CmsStaticExportException if static export is disabled
+     */
+    private int exportResource(
+        HttpServletRequest req,
+        HttpServletResponse res,
+        CmsObject cms,
+        CmsStaticExportData data,
+        CmsOnDemandExportLimiter.Flight flight)
+    throws CmsException, IOException, ServletException, CmsStaticExportException {
+
+        CmsResource resource = data.getResource();
+        String vfsName = data.getVfsName();
+        String rfsName;
+        if (data.isDetailPage()) {
+            rfsName = CmsStringUtil.joinPaths(data.getRfsName(), CmsStaticExportManager.DEFAULT_FILE);
+        } else if (data.getParameters() != null) {
+            rfsName = data.getRfsName();
+        } else {
+            rfsName = addDefaultFileNameToFolder(data.getRfsName(), resource.isFolder());
+        }
+
+        // cut the site root from the vfsName and switch to the correct site
+        String siteRoot = OpenCms.getSiteManager().getSiteRoot(vfsName);
+
+        CmsI18nInfo i18nInfo = OpenCms.getLocaleManager().getI18nInfo(
+            req,
+            cms.getRequestContext().getCurrentUser(),
+            cms.getRequestContext().getCurrentProject(),
+            vfsName);
+
+        String remoteAddr = m_remoteAddr;
+        if (remoteAddr == null) {
+            remoteAddr = CmsContextInfo.LOCALHOST;
+        }
+
+        if (siteRoot != null) {
+            vfsName = vfsName.substring(siteRoot.length());
+        } else {
+            siteRoot = "/";
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATIC_EXPORT_SITE_ROOT_2, siteRoot, vfsName));
+        }
+
+        boolean usesSecureSite = (req != null) && OpenCms.getSiteManager().usesSecureSite(req);
+        CmsContextInfo contextInfo = new CmsContextInfo(
+            cms.getRequestContext().getCurrentUser(),
+            cms.getRequestContext().getCurrentProject(),
+            vfsName,
+            cms.getRequestContext().getRequestMatcher(),
+            siteRoot,
+            usesSecureSite,
+            i18nInfo.getLocale(),
+            i18nInfo.getEncoding(),
+            remoteAddr,
+            CmsContextInfo.CURRENT_TIME,
+            cms.getRequestContext().getOuFqn());
+        CmsObject exportCms = OpenCms.initCmsObject(null, contextInfo);
+
+        // only export those resources where the export property is set
+        if (!isExportLink(exportCms, exportCms.getRequestContext().removeSiteRoot(data.getVfsName()))) {
+            // the resource was not used for export, so return HttpServletResponse.SC_SEE_OTHER
+            // as a signal for not exported resource
+            return HttpServletResponse.SC_SEE_OTHER;
+        }
+
+        // this flag signals if the export method is used for "on demand" or "after publish".
+        // if no request and result stream are available, it was called during "export on publish"
+        boolean exportOnDemand = ((req != null) && (res != null));
+        CmsStaticExportResponseWrapper wrapRes = null;
+        if (res != null) {
+            wrapRes = new CmsStaticExportResponseWrapper(res);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_SE_RESOURCE_START_1, data));
+        }
+
+        CmsFile file = exportCms.readFile(OpenCms.initResource(exportCms, vfsName, req, wrapRes));
+        vfsName = exportCms.getSitePath(file);
+
+        // check loader id for resource
+        I_CmsResourceLoader loader = OpenCms.getResourceManager().getLoader(file);
+        if ((loader == null) || (!loader.isStaticExportEnabled())) {
+            Object[] arguments = new Object[] {vfsName, new Integer(file.getTypeId())};
+            throw new CmsStaticExportException(
+                Messages.get().container(Messages.ERR_EXPORT_NOT_SUPPORTED_2, arguments));
+        }
+
+        // ensure we have exactly the same setup as if called "the usual way"
+        // we only have to do this in case of the static export on demand
+        String mimetype = null;
+        if (exportOnDemand) {
+            mimetype = OpenCms.getResourceManager().getMimeType(
+                file.getName(),
+                exportCms.getRequestContext().getEncoding());
+            if (wrapRes != null) {
+                wrapRes.setContentType(mimetype);
+            }
+            exportCms.getRequestContext().setUri(vfsName);
+        }
+
+        // do the export
+        int status = -1;
+        List<Locale> locales = OpenCms.getLocaleManager().getDefaultLocales(exportCms, vfsName);
+        boolean exported = false;
+        boolean matched = false;
+        // iterate over all rules
+        Iterator<CmsStaticExportRfsRule> it = getRfsRules().iterator();
+        while (it.hasNext()) {
+            CmsStaticExportRfsRule rule = it.next();
+            // normal case
+            boolean export = rule.getSource().matcher(siteRoot + vfsName).matches();
+            matched |= export;
+            // system folder case
+            export |= (vfsName.startsWith(CmsWorkplace.VFS_PATH_SYSTEM) && rule.match(vfsName));
+            if (export) {
+                // the resource has to exported for this rule
+                CmsObject locCms = exportCms;
+                Locale locale = CmsLocaleManager.getLocale(rule.getName());
+                if (locales.contains(locale)) {
+                    // if the locale is in the default locales for the resource
+                    // so adjust the locale to use for exporting
+                    CmsContextInfo ctxInfo = new CmsContextInfo(exportCms.getRequestContext());
+                    ctxInfo.setLocale(locale);
+                    locCms = OpenCms.initCmsObject(exportCms, ctxInfo);
+                }
+                // read the content in the matching locale
+                byte[] content = loader.export(locCms, file, req, wrapRes);
+                if (content != null) {
+                    // write to rfs
+                    exported = true;
+                    String locRfsName = rfsName;
+                    if (locales.contains(locale)) {
+                        locRfsName = rule.getLocalizedRfsName(rfsName, "/");
+                    }
+                    writeResource(req, rule.getExportPath(), locRfsName, resource, content);
+                    if ((flight != null) && locRfsName.equals(rfsName)) {
+                        flight.setContent(content, mimetype);
+                    }
+                }
+            }
+        }
+        if (!matched) {
+            // no rule matched
+            String exportPath = getExportPath(siteRoot + vfsName);
+            byte[] content = loader.export(exportCms, file, req, wrapRes);
+            if (content != null) {
+                exported = true;
+                writeResource(req, exportPath, rfsName, resource, content);
+                if (flight != null) {
+                    flight.setContent(content, mimetype);
+                }
+            }
+        }
+
+        if (exported && loader.isStaticExportProcessable()) {
+            // remember the resources the exported content was generated from
+            if (exportOnDemand) {
+                // reading the relations would delay the response, so this is done before the next export after publish
+                synchronized (m_pendingDependencies) {
+                    m_pendingDependencies.add(resource.getRootPath());
+                }
+            } else {
+                m_dependencyIndex.setDependencies(resource.getRootPath(), readExportDependencies(exportCms, file));
+            }
+        }
+
+        if (exported) {
+            // get the wrapper status that was set
+            status = (wrapRes != null) ? wrapRes.getStatus() : -1;
+            if (status < 0) {
+                // the status was not set, assume everything is o.k.
+                status = HttpServletResponse.SC_OK;
+            }
+        } else {
+            // the resource was not written because it was not modified.
+            // set the status to not modified
+            status = HttpServletResponse.SC_NOT_MODIFIED;
+        }
+
+        return status;
+    }
+
+    /**
+     * Returns the longest rfs prefix of the default rule or an rfs rule the given rfs name starts with.<p>
+     *
+     * The rfs name has to continue with a <code>/</code> after the prefix.<p>
+     *
+     * @param rfsName the rfs name
+     *
+     * @return the longest matching rfs prefix, or <code>null</code> if no prefix matches
+     */
+    private String findRfsPrefix(String rfsName) {
+
+        Set<String> rfsPrefixes = m_rfsPrefixes;
+        String result = null;
+        // check the parent paths of the rfs name, the last match is the longest
+        int pos = rfsName.indexOf('/');
+        while (pos >= 0) {
+            String prefix = rfsName.substring(0, pos);
+            if (rfsPrefixes.contains(prefix)) {
+                result = prefix;
+            }
+            pos = rfsName.indexOf('/', pos + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the file the index of the exported files is stored in.<p>
+     *
+     * @return the file the index of the exported files is stored in
+     */
+    private File getDependencyIndexFile() {
+
+        return new File(OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(EXPORT_DEPENDENCY_INDEX));
+    }
+
+    /**
+     * Returns the first rfs rule with a source matching the given vfs name.<p>
+     *
+     * @param vfsName the root path of the resource
+     *
+     * @return the first matching rfs rule, or <code>null</code> if no rule matches
+     */
+    private CmsStaticExportRfsRule getRfsRule(String vfsName) {
+
+        if (vfsName == null) {
+            return null;
+        }
+        int index = m_rfsRuleMatcher.indexOfFirstMatch(vfsName);
+        return index >= 0 ? m_rfsRules.get(index) : null;
+    }
+
+    /**
+     * Resolves the configured export paths and the configured prefix of the given rfs rule.<p>
+     *
+     * @param rule the rfs rule
+     */
+    private void initRfsRule(CmsStaticExportRfsRule rule) {
+
+        try {
+            rule.setExportPath(normalizeExportPath(rule.getExportPathConfigured()));
+        } catch (CmsIllegalArgumentException e) {
+            CmsLog.INIT.warn(e.getMessageContainer());
+            rule.setExportPath(m_staticExportPath);
+        }
+        try {
+            rule.setExportWorkPath(normalizeExportPath(rule.getExportWorkPathConfigured()));
+        } catch (CmsIllegalArgumentException e) {
+            CmsLog.INIT.warn(e.getMessageContainer());
+            rule.setExportWorkPath(m_staticExportWorkPath);
+        }
+        rule.setRfsPrefix(normalizeRfsPrefix(rule.getRfsPrefixConfigured()));
+    }
+
+    /**
+     * Reads the dependencies of the resources exported on demand since the last export after publishing.<p>
+     *
+     * The resources are read in the online project, so the dependencies already reflect the published state.
+     * This is fine, since the published resources themselves are exported again anyway.<p>
+     */
+    private void readPendingDependencies() {
+
+        List<String> vfsNames;
+        synchronized (m_pendingDependencies) {
+            if (m_pendingDependencies.isEmpty()) {
+                return;
+            }
+            vfsNames = new ArrayList<String>(m_pendingDependencies);
+            m_pendingDependencies.clear();
+        }
+        CmsObject cms;
+        try {
+            // this will always use the root site
+            cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        for (String vfsName : vfsNames) {
+            try {
+                CmsResource resource = cms.readResource(vfsName, CmsResourceFilter.ALL);
+                m_dependencyIndex.setDependencies(vfsName, readExportDependencies(cms, resource));
+            } catch (CmsException e) {
+                // the resource has been deleted or moved, the published resources are handled by the export
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the lookup structures for the rfs rules after the rules or their prefixes have changed.<p>
+     */
+    private void updateRfsRuleMatcher() {
+
+        List<Pattern> sources = new ArrayList<Pattern>(m_rfsRules.size());
+        Set<String> rfsPrefixes = new HashSet<String>();
+        if (m_rfsPrefix != null) {
+            rfsPrefixes.add(m_rfsPrefix);
+        }
+        for (CmsStaticExportRfsRule rule : m_rfsRules) {
+            sources.add(rule.getSource());
+            if (rule.getRfsPrefix() != null) {
+                rfsPrefixes.add(rule.getRfsPrefix());
+            }
+        }
+        m_rfsPrefixes = rfsPrefixes;
+        m_rfsRuleMatcher = new CmsPrefixPatternMatcher(sources);
+    }
 }
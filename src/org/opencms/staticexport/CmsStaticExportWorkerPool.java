@@ -0,0 +1,426 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.main.CmsLog;
+import org.opencms.report.I_CmsReport;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Exports resources with a bounded number of worker threads.<p>
+ *
+ * Export jobs are collected with {@link #addJob(String, String, String, String, Callable)} and executed
+ * with {@link #execute(I_CmsReport)}. Every RFS name is exported at most once during the lifetime of the pool,
+ * so resources reached by several paths are not requested again. The jobs for resources contained in the publish list
+ * are started before the jobs for resources that are only exported because they depend on a published resource.<p>
+ *
+ * Jobs that request the resource over HTTP name the host they connect to, the number of jobs
+ * running in parallel for the same host is limited by the configured number of workers per host.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsStaticExportWorkerPool {
+
+    /**
+     * A single export job.<p>
+     */
+    private class Job implements Callable<Integer>, Comparable<Job> {
+
+        /** The export to execute. */
+        private Callable<Integer> m_export;
+
+        /** The host the export connects to, or <code>null</code> for a local export. */
+        private String m_host;
+
+        /** Signals if the resource is contained in the publish list. */
+        private boolean m_published;
+
+        /** The name shown in the report. */
+        private String m_reportName;
+
+        /** The order in which the job was added. */
+        private int m_sequence;
+
+        /**
+         * Creates a new export job.<p>
+         *
+         * @param reportName the name shown in the report
+         * @param host the host the export connects to, or <code>null</code> for a local export
+         * @param published signals if the resource is contained in the publish list
+         * @param sequence the order in which the job was added
+         * @param export the export to execute
+         */
+        Job(String reportName, String host, boolean published, int sequence, Callable<Integer> export) {
+
+            m_reportName = reportName;
+            m_host = host;
+            m_published = published;
+            m_sequence = sequence;
+            m_export = export;
+        }
+
+        /**
+         * @see java.util.concurrent.Callable#call()
+         */
+        public Integer call() {
+
+            int status = -1;
+            Exception error = null;
+            try {
+                status = export().intValue();
+            } catch (Exception e) {
+                error = e;
+            }
+            reportResult(m_reportName, status, error);
+            return new Integer(status);
+        }
+
+        /**
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        public int compareTo(Job other) {
+
+            if (m_published != other.m_published) {
+                return m_published ? -1 : 1;
+            }
+            return m_sequence < other.m_sequence ? -1 : (m_sequence == other.m_sequence ? 0 : 1);
+        }
+
+        /**
+         * Executes the export, respecting the limit of parallel requests for the host.<p>
+         *
+         * @return the status of the export
+         *
+         * @throws Exception if the export fails
+         */
+        private Integer export() throws Exception {
+
+            if (m_host == null) {
+                return m_export.call();
+            }
+            Semaphore permits = getHostPermits(m_host);
+            permits.acquire();
+            try {
+                return m_export.call();
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsStaticExportWorkerPool.class);
+
+    /** The time in seconds idle workers are kept alive. */
+    private static final long WORKER_KEEP_ALIVE = 30;
+
+    /** The number of jobs of the current batch that are finished. */
+    private AtomicInteger m_completed;
+
+    /** The worker threads, created on first use. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The RFS names for which a job has already been added. */
+    private Set<String> m_exported;
+
+    /** The limits of parallel requests per host. */
+    private ConcurrentHashMap<String, Semaphore> m_hostPermits;
+
+    /** The jobs waiting for the next call of {@link #execute(I_CmsReport)}. */
+    private List<Job> m_pending;
+
+    /** The root paths of the resources in the publish list. */
+    private Set<String> m_publishedPaths;
+
+    /** The report of the current batch. */
+    private I_CmsReport m_report;
+
+    /** The number of jobs added so far. */
+    private int m_sequence;
+
+    /** The number of jobs in the current batch. */
+    private int m_total;
+
+    /** The number of worker threads. */
+    private int m_workers;
+
+    /** The number of parallel requests per host. */
+    private int m_workersPerHost;
+
+    /**
+     * Creates a new worker pool.<p>
+     *
+     * @param workers the number of worker threads
+     * @param workersPerHost the maximum number of parallel requests to the same host
+     */
+    public CmsStaticExportWorkerPool(int workers, int workersPerHost) {
+
+        m_workers = Math.max(1, workers);
+        m_workersPerHost = Math.max(1, Math.min(m_workers, workersPerHost));
+        m_exported = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        m_hostPermits = new ConcurrentHashMap<String, Semaphore>();
+        m_pending = new ArrayList<Job>();
+        m_publishedPaths = Collections.emptySet();
+        m_completed = new AtomicInteger();
+    }
+
+    /**
+     * Adds an export job that is executed with the next call of {@link #execute(I_CmsReport)}.<p>
+     *
+     * The export must return the HTTP status of the export, like {@link CmsStaticExportManager#export(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, org.opencms.file.CmsObject, CmsStaticExportData)}.<p>
+     *
+     * @param rfsName the RFS name the job writes
+     * @param vfsName the root path of the exported resource
+     * @param host the host the export connects to, or <code>null</code> if the resource is exported locally
+     * @param reportName the name of the resource shown in the report
+     * @param export the export to execute
+     *
+     * @return <code>false</code> if a job for the RFS name has already been added to this pool
+     */
+    public boolean addJob(String rfsName, String vfsName, String host, String reportName, Callable<Integer> export) {
+
+        if (!m_exported.add(rfsName)) {
+            return false;
+        }
+        m_pending.add(new Job(reportName, host, m_publishedPaths.contains(vfsName), m_sequence++, export));
+        return true;
+    }
+
+    /**
+     * Executes all pending jobs and waits until they are finished.<p>
+     *
+     * Each finished job writes one line to the report, including the number of finished jobs of this batch.<p>
+     *
+     * @param report the report to write the results to
+     */
+    public void execute(I_CmsReport report) {
+
+        if (m_pending.isEmpty()) {
+            return;
+        }
+        List<Job> jobs = m_pending;
+        m_pending = new ArrayList<Job>();
+        Collections.sort(jobs);
+        m_report = report;
+        m_total = jobs.size();
+        m_completed.set(0);
+        long start = System.currentTimeMillis();
+        try {
+            getExecutor().invokeAll(jobs);
+        } catch (InterruptedException e) {
+            // stop the remaining jobs of the batch
+            getExecutor().getQueue().clear();
+            Thread.currentThread().interrupt();
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXPORT_JOBS_FINISHED_3,
+                    new Integer(m_completed.get()),
+                    new Integer(m_workers),
+                    new Long(System.currentTimeMillis() - start)));
+        }
+    }
+
+    /**
+     * Returns the number of finished jobs of the current batch.<p>
+     *
+     * @return the number of finished jobs of the current batch
+     */
+    public int getCompleted() {
+
+        return m_completed.get();
+    }
+
+    /**
+     * Returns the number of jobs of the current batch.<p>
+     *
+     * @return the number of jobs of the current batch
+     */
+    public int getTotal() {
+
+        return m_total;
+    }
+
+    /**
+     * Returns the number of worker threads.<p>
+     *
+     * @return the number of worker threads
+     */
+    public int getWorkers() {
+
+        return m_workers;
+    }
+
+    /**
+     * Returns the maximum number of parallel requests to the same host.<p>
+     *
+     * @return the maximum number of parallel requests to the same host
+     */
+    public int getWorkersPerHost() {
+
+        return m_workersPerHost;
+    }
+
+    /**
+     * Sets the root paths of the resources in the publish list.<p>
+     *
+     * Jobs for these resources are executed before the jobs for all other resources.<p>
+     *
+     * @param publishedPaths the root paths of the resources in the publish list
+     */
+    public void setPublishedPaths(Collection<String> publishedPaths) {
+
+        m_publishedPaths = new HashSet<String>(publishedPaths);
+    }
+
+    /**
+     * Stops the worker threads.<p>
+     */
+    public synchronized void shutdown() {
+
+        if (m_executor != null) {
+            m_executor.shutdownNow();
+            m_executor = null;
+        }
+    }
+
+    /**
+     * Returns the limit of parallel requests for the given host.<p>
+     *
+     * @param host the host
+     *
+     * @return the limit of parallel requests for the host
+     */
+    Semaphore getHostPermits(String host) {
+
+        Semaphore permits = m_hostPermits.get(host);
+        if (permits == null) {
+            permits = new Semaphore(m_workersPerHost, true);
+            Semaphore existing = m_hostPermits.putIfAbsent(host, permits);
+            if (existing != null) {
+                permits = existing;
+            }
+        }
+        return permits;
+    }
+
+    /**
+     * Writes the result of a finished job to the report.<p>
+     *
+     * @param reportName the name of the resource shown in the report
+     * @param status the status of the export
+     * @param error the error that occurred, or <code>null</code>
+     */
+    void reportResult(String reportName, int status, Exception error) {
+
+        I_CmsReport report = m_report;
+        // write the complete line at once, so the lines of parallel jobs are not mixed up
+        synchronized (report) {
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_SUCCESSION_2,
+                    new Integer(m_completed.incrementAndGet()),
+                    new Integer(m_total)),
+                I_CmsReport.FORMAT_NOTE);
+            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, reportName));
+            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+            if (error != null) {
+                // the error does not stop the other jobs
+                report.println(error);
+            } else if (status == HttpServletResponse.SC_OK) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else if (status == HttpServletResponse.SC_SEE_OTHER) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        new Integer(status)),
+                    I_CmsReport.FORMAT_OK);
+            }
+        }
+    }
+
+    /**
+     * Returns the worker threads, creating them if required.<p>
+     *
+     * @return the worker threads
+     */
+    private synchronized ThreadPoolExecutor getExecutor() {
+
+        if (m_executor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            m_executor = new ThreadPoolExecutor(
+                m_workers,
+                m_workers,
+                WORKER_KEEP_ALIVE,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Static Export Worker " + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            m_executor.allowCoreThreadTimeOut(true);
+        }
+        return m_executor;
+    }
+}
@@ -70,6 +70,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_THREAD_NAME_SCRUB_EXPORT_FOLDERS_1 = "GUI_THREAD_NAME_SCRUB_EXPORT_FOLDERS_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_DEPENDENCY_INDEX_2 = "INIT_DEPENDENCY_INDEX_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_DEPENDENCY_INDEX_ONLY_1 = "INIT_DEPENDENCY_INDEX_ONLY_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_EXPORT_COMPRESSION_1 = "INIT_EXPORT_COMPRESSION_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_EXPORT_COMPRESSION_UNSUPPORTED_1 = "INIT_EXPORT_COMPRESSION_UNSUPPORTED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_EXPORT_DEFAULT_1 = "INIT_EXPORT_DEFAULT_1";
 
@@ -154,6 +166,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DEL_MAIN_SE_FOLDER_1 = "LOG_DEL_MAIN_SE_FOLDER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENCY_INDEX_READ_FAILED_1 = "LOG_DEPENDENCY_INDEX_READ_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENCY_INDEX_WRITE_FAILED_1 = "LOG_DEPENDENCY_INDEX_WRITE_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EVENT_PUBLISH_PROJECT_1 = "LOG_EVENT_PUBLISH_PROJECT_1";
 
@@ -166,9 +184,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_FILE_STATUS_3 = "LOG_EXPORT_FILE_STATUS_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXPORT_JOBS_FINISHED_3 = "LOG_EXPORT_JOBS_FINISHED_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_RFSNAME_1 = "LOG_EXPORT_RFSNAME_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXPORT_STATISTICS_6 = "LOG_EXPORT_STATISTICS_6";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_TEMPLATES_1 = "LOG_EXPORT_TEMPLATES_1";
 
@@ -223,6 +247,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NUM_RESOURCES_1 = "LOG_NUM_RESOURCES_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ON_DEMAND_EXPORT_REJECTED_3 = "LOG_ON_DEMAND_EXPORT_REJECTED_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PROCESSING_1 = "LOG_PROCESSING_1";
 
@@ -304,6 +331,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_WARN_ELEMENT_GROUP_REFERENCES_SELF_1 = "LOG_WARN_ELEMENT_GROUP_REFERENCES_SELF_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_WRITE_COMPRESSED_FAILED_1 = "LOG_WRITE_COMPRESSED_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_WRITE_FAILED_1 = "LOG_WRITE_FAILED_1";
 
@@ -32,6 +32,7 @@ import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.file.types.I_CmsResourceType;
+import org.opencms.i18n.CmsEncoder;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
@@ -51,6 +52,8 @@ import org.opencms.xml.types.I_CmsXmlContentValue;
 import org.opencms.xml.types.I_CmsXmlSchemaType;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -63,6 +66,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.logging.Log;
 
 import org.dom4j.Attribute;
@@ -187,6 +192,9 @@ public class CmsXmlContentDefinition implements Cloneable {
     /** The Map of configured types indexed by the element xpath. */
     private Map<String, I_CmsXmlSchemaType> m_elementTypes;
 
+    /** The fingerprint of the schema and all nested schemas this definition was compiled from. */
+    private String m_fingerprint;
+
     /** The set of included additional XML content definitions. */
     private Set<CmsXmlContentDefinition> m_includes;
 
@@ -824,6 +832,45 @@ public class CmsXmlContentDefinition implements Cloneable {
         return new CmsXmlComplexTypeSequence(name, sequence, hasLanguageAttribute, sequenceType, choiceMaxOccurs);
     }
 
+    /**
+     * Creates the fingerprint of a schema, which identifies the compiled content definition for exactly this
+     * version of the schema and of all nested schemas.<p>
+     *
+     * @param document the XML schema document
+     * @param schemaLocation the location from which the XML schema was read (system id)
+     * @param nestedDefinitions the content definitions of the nested schemas
+     *
+     * @return the fingerprint, or <code>null</code> if the schema location is unknown or a nested definition has no fingerprint
+     */
+    private static String createFingerprint(
+        Document document,
+        String schemaLocation,
+        Set<CmsXmlContentDefinition> nestedDefinitions) {
+
+        if (schemaLocation == null) {
+            return null;
+        }
+        List<String> nestedFingerprints = new ArrayList<String>(nestedDefinitions.size());
+        for (CmsXmlContentDefinition nestedDefinition : nestedDefinitions) {
+            if (nestedDefinition.m_fingerprint == null) {
+                return null;
+            }
+            nestedFingerprints.add(nestedDefinition.m_fingerprint);
+        }
+        // the order of the includes does not change the definition
+        Collections.sort(nestedFingerprints);
+        Charset utf8 = Charset.forName(CmsEncoder.ENCODING_UTF_8);
+        MessageDigest digest = DigestUtils.getMd5Digest();
+        digest.update(schemaLocation.getBytes(utf8));
+        digest.update((byte)0);
+        digest.update(document.asXML().getBytes(utf8));
+        for (String nestedFingerprint : nestedFingerprints) {
+            digest.update((byte)0);
+            digest.update(nestedFingerprint.getBytes(utf8));
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
     /**
      * Looks up the given XML content definition system id in the internal content definition cache.<p>
      *
@@ -923,6 +970,17 @@ public class CmsXmlContentDefinition implements Cloneable {
             }
         }
 
+        // reuse the compiled definition if neither this schema nor one of the nested schemas has changed
+        String fingerprint = createFingerprint(document, schemaLocation, nestedDefinitions);
+        if ((fingerprint != null) && (resolver instanceof CmsXmlEntityResolver)) {
+            CmsXmlEntityResolver cmsResolver = (CmsXmlEntityResolver)resolver;
+            CmsXmlContentDefinition compiled = cmsResolver.getCompiledContentDefinition(fingerprint);
+            if (compiled != null) {
+                cmsResolver.cacheContentDefinition(schemaLocation, compiled);
+                return compiled;
+            }
+        }
+
         List<Element> elements = CmsXmlGenericWrapper.elements(root, XSD_NODE_ELEMENT);
         if (elements.size() != 1) {
             // only one root element is allowed
@@ -1017,10 +1075,14 @@ public class CmsXmlContentDefinition implements Cloneable {
         result.m_contentHandler = contentHandler;
 
         result.freeze();
+        result.m_fingerprint = fingerprint;
 
         if (resolver instanceof CmsXmlEntityResolver) {
             // put the generated content definition in the cache
             ((CmsXmlEntityResolver)resolver).cacheContentDefinition(schemaLocation, result);
+            if (fingerprint != null) {
+                ((CmsXmlEntityResolver)resolver).cacheCompiledContentDefinition(fingerprint, result);
+            }
         }
 
         return result;
@@ -1263,6 +1325,19 @@ public class CmsXmlContentDefinition implements Cloneable {
         return m_contentHandler;
     }
 
+    /**
+     * Returns the fingerprint of the schema and all nested schemas this definition was compiled from.<p>
+     *
+     * Content definitions with the same fingerprint are equal, so a compiled definition can be reused
+     * as long as neither its schema nor one of the nested schemas has changed.<p>
+     *
+     * @return the fingerprint, or <code>null</code> if this definition was not unmarshalled from a schema
+     */
+    public String getFingerprint() {
+
+        return m_fingerprint;
+    }
+
     /**
      * Returns the set of nested (included) XML content definitions.<p>
      *
@@ -47,8 +47,12 @@ import org.opencms.xml.page.CmsXmlPage;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
@@ -88,6 +92,9 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsXmlEntityResolver.class);
 
+    /** A cache for compiled XML content definitions, keyed by the fingerprint of the schema. */
+    private static Map<String, CmsXmlContentDefinition> m_cacheCompiledContentDefinitions;
+
     /** A temporary cache for XML content definitions. */
     private static Map<String, CmsXmlContentDefinition> m_cacheContentDefinitions;
 
@@ -211,6 +218,8 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
             m_cachePermanent = new ConcurrentHashMap<String, byte[]>(32);
 
             m_cacheContentDefinitions = CmsMemoryMonitor.createLRUCacheMap(CONTENT_DEFINITION_CACHE_SIZE);
+
+            m_cacheCompiledContentDefinitions = CmsMemoryMonitor.createLRUCacheMap(CONTENT_DEFINITION_CACHE_SIZE);
         }
         if (OpenCms.getRunLevel() > OpenCms.RUNLEVEL_1_CORE_OBJECT) {
             if ((OpenCms.getMemoryMonitor() != null)
@@ -237,6 +246,14 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
                 OpenCms.getMemoryMonitor().register(
                     CmsXmlEntityResolver.class.getName() + ".cacheContentDefinitions",
                     cacheContentDefinitions);
+
+                Map<String, CmsXmlContentDefinition> cacheCompiledContentDefinitions = CmsMemoryMonitor.createLRUCacheMap(
+                    CONTENT_DEFINITION_CACHE_SIZE);
+                cacheCompiledContentDefinitions.putAll(m_cacheCompiledContentDefinitions);
+                m_cacheCompiledContentDefinitions = cacheCompiledContentDefinitions;
+                OpenCms.getMemoryMonitor().register(
+                    CmsXmlEntityResolver.class.getName() + ".cacheCompiledContentDefinitions",
+                    cacheCompiledContentDefinitions);
             }
         }
     }
@@ -263,6 +280,20 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         return result;
     }
 
+    /**
+     * Caches a compiled XML content definition based on the fingerprint of its schema.<p>
+     *
+     * The compiled definition is shared by the online and offline project and survives the flush of the
+     * content definition cache, so it is reused as long as neither the schema nor a nested schema changes.<p>
+     *
+     * @param fingerprint the fingerprint of the schema, see {@link CmsXmlContentDefinition#getFingerprint()}
+     * @param contentDefinition the compiled content definition to cache
+     */
+    public void cacheCompiledContentDefinition(String fingerprint, CmsXmlContentDefinition contentDefinition) {
+
+        m_cacheCompiledContentDefinitions.put(fingerprint, contentDefinition);
+    }
+
     /**
      * Caches an XML content definition based on the given system id and the online / offline status
      * of this entity resolver instance.<p>
@@ -287,20 +318,27 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         CmsResource resource;
         switch (event.getType()) {
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
-                // only flush cache if a schema definition where published
+                // only flush the published schema definitions and the definitions depending on them
                 CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
-                if (isSchemaDefinitionInPublishList(publishHistoryId)) {
+                List<String> publishedSchemas = getPublishedSchemaDefinitions(publishHistoryId);
+                if (publishedSchemas == null) {
                     m_cacheTemporary.clear();
                     m_cacheContentDefinitions.clear();
                     if (LOG.isDebugEnabled()) {
                         LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_FLUSHED_CACHES_0));
                     }
+                } else {
+                    for (String publishedSchema : publishedSchemas) {
+                        m_cacheTemporary.remove(getCacheKey(publishedSchema, true));
+                        uncacheContentDefinitions(publishedSchema, true);
+                    }
                 }
                 break;
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 // flush cache
                 m_cacheTemporary.clear();
                 m_cacheContentDefinitions.clear();
+                m_cacheCompiledContentDefinitions.clear();
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_FLUSHED_CACHES_0));
                 }
@@ -345,6 +383,23 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         return result;
     }
 
+    /**
+     * Looks up the compiled XML content definition for the given schema fingerprint.<p>
+     *
+     * @param fingerprint the fingerprint of the schema, see {@link CmsXmlContentDefinition#getFingerprint()}
+     *
+     * @return the compiled XML content definition, or <code>null</code> if no definition is cached for the fingerprint
+     */
+    public CmsXmlContentDefinition getCompiledContentDefinition(String fingerprint) {
+
+        CmsXmlContentDefinition result = m_cacheCompiledContentDefinitions.get(fingerprint);
+        if ((result != null) && LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(Messages.LOG_CACHE_LOOKUP_SUCCEEDED_1, result.getSchemaLocation()));
+        }
+        return result;
+    }
+
     /**
      * @see org.xml.sax.EntityResolver#resolveEntity(java.lang.String, java.lang.String)
      */
@@ -458,24 +513,12 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
 
         Object o;
         o = m_cacheTemporary.remove(getCacheKey(systemId, false));
-        if (null != o) {
-            // if an object was removed from the temporary cache, all XML content definitions must be cleared
-            // because this may be a nested subschema
-            m_cacheContentDefinitions.clear();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(Messages.LOG_ERR_UNCACHED_SYS_ID_1, getCacheKey(systemId, false)));
-            }
-        } else {
-            // check if a cached content definition has to be removed based on the system id
-            o = m_cacheContentDefinitions.remove(getCacheKey(systemId, false));
-            if ((null != o) && LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_ERR_UNCACHED_CONTENT_DEF_1,
-                        getCacheKey(systemId, false)));
-            }
+        if ((null != o) && LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(Messages.LOG_ERR_UNCACHED_SYS_ID_1, getCacheKey(systemId, false)));
         }
+        // remove the content definition for the system id and all definitions using it as nested schema
+        uncacheContentDefinitions(systemId, false);
     }
 
     /**
@@ -493,6 +536,34 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         return result;
     }
 
+    /**
+     * Checks if the given content definition uses the given schema, either directly or as a nested schema.<p>
+     *
+     * @param definition the content definition to check
+     * @param systemId the system id (filename) of the schema
+     * @param visited the content definitions already checked, required for recursive schemas
+     *
+     * @return <code>true</code> if the content definition uses the schema
+     */
+    private boolean dependsOn(CmsXmlContentDefinition definition, String systemId, Set<CmsXmlContentDefinition> visited) {
+
+        if (!visited.add(definition)) {
+            return false;
+        }
+        String schemaLocation = definition.getSchemaLocation();
+        if ((schemaLocation != null)
+            && schemaLocation.startsWith(OPENCMS_SCHEME)
+            && schemaLocation.substring(OPENCMS_SCHEME.length() - 1).equals(systemId)) {
+            return true;
+        }
+        for (CmsXmlContentDefinition nestedDefinition : definition.getIncludes()) {
+            if (dependsOn(nestedDefinition, systemId, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns a cache key for the given system id (filename) based on the status
      * of the given project flag.<p>
@@ -532,18 +603,20 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
     }
 
     /**
-     * Proves if there is at least one xsd or dtd file in the list of resources to publish.<p>
+     * Returns the root paths of the xsd and dtd files and of the cached files in the list of published resources.<p>
      *
      * @param publishHistoryId the publish history id
      *
-     * @return true, if there is at least one xsd or dtd file in the list of resources to publish, otherwise false
+     * @return the root paths of the published schema definitions,
+     *      or <code>null</code> if the published resources are not available and all caches must be flushed
      */
-    private boolean isSchemaDefinitionInPublishList(CmsUUID publishHistoryId) {
+    private List<String> getPublishedSchemaDefinitions(CmsUUID publishHistoryId) {
 
         if (m_cms == null) {
             // CmsObject not available, assume there may be a schema definition in the publish history
-            return true;
+            return null;
         }
+        List<String> result = new ArrayList<String>();
         try {
             List<CmsPublishedResource> publishedResources = m_cms.readPublishedResources(publishHistoryId);
             for (CmsPublishedResource cmsPublishedResource : publishedResources) {
@@ -552,13 +625,37 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
                 if (resourceRootPathLowerCase.endsWith(".xsd")
                     || resourceRootPathLowerCase.endsWith(".dtd")
                     || m_cacheTemporary.containsKey(getCacheKey(resourceRootPath, true))) {
-                    return true;
+                    result.add(resourceRootPath);
                 }
             }
         } catch (CmsException e) {
             // error reading published Resources.
             LOG.warn(e.getMessage(), e);
         }
-        return false;
+        return result;
+    }
+
+    /**
+     * Removes the cached content definitions of the online or offline project that use the given schema,
+     * either directly or as a nested schema.<p>
+     *
+     * @param systemId the system id (filename) of the schema
+     * @param online indicates if the content definitions of the online project are removed
+     */
+    private void uncacheContentDefinitions(String systemId, boolean online) {
+
+        String prefix = getCacheKey("", online);
+        Iterator<Map.Entry<String, CmsXmlContentDefinition>> i = m_cacheContentDefinitions.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry<String, CmsXmlContentDefinition> entry = i.next();
+            if (entry.getKey().startsWith(prefix)
+                && (entry.getKey().equals(getCacheKey(systemId, online))
+                    || dependsOn(entry.getValue(), systemId, new HashSet<CmsXmlContentDefinition>()))) {
+                i.remove();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_UNCACHED_CONTENT_DEF_1, entry.getKey()));
+                }
+            }
+        }
     }
 }
\ No newline at end of file
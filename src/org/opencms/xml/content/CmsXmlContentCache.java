@@ -0,0 +1,364 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.cache.CmsLruCache;
+import org.opencms.cache.I_CmsLruCacheObject;
+import org.opencms.file.CmsFile;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the parsed XML contents of the online project.<p>
+ *
+ * The cache holds read-only snapshots of the parsed contents, keyed by the structure id, the date of the last
+ * modification, the size and the encoding of the file. The snapshots are never handed out, every read returns
+ * a copy created with {@link CmsXmlContent#clone()}, so the callers may modify their content without affecting
+ * other threads. Copying the parsed document avoids parsing the XML, resolving the schema and creating
+ * the content values again.<p>
+ *
+ * The snapshots are evicted in least recently used order as soon as the size of the cached XML exceeds
+ * the maximum cache costs. All snapshots are discarded after a publish, since the schemas may have changed.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsXmlContentCache implements I_CmsEventListener {
+
+    /**
+     * A cached snapshot of a parsed XML content.<p>
+     */
+    private class CmsCacheEntry implements I_CmsLruCacheObject {
+
+        /** The cache costs, i.e. the size of the XML in bytes. */
+        private int m_costs;
+
+        /** The cache key. */
+        private String m_key;
+
+        /** The next entry in the LRU list. */
+        private I_CmsLruCacheObject m_next;
+
+        /** The previous entry in the LRU list. */
+        private I_CmsLruCacheObject m_previous;
+
+        /** The parsed XML content, never modified. */
+        private CmsXmlContent m_snapshot;
+
+        /**
+         * Creates a new cache entry.<p>
+         *
+         * @param key the cache key
+         * @param snapshot the parsed XML content
+         * @param costs the cache costs
+         */
+        CmsCacheEntry(String key, CmsXmlContent snapshot, int costs) {
+
+            m_key = key;
+            m_snapshot = snapshot;
+            m_costs = costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            // the entry is added to the map by the cache
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return m_snapshot;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            // called with the lock of the cache held, either on eviction or on removal
+            if (m_entries.get(m_key) == this) {
+                m_entries.remove(m_key);
+                m_evictions.incrementAndGet();
+            }
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /** The default maximum size in bytes of all cached XML. */
+    public static final long DEFAULT_MAX_CACHE_COSTS = 8 * 1024 * 1024;
+
+    /** The default maximum size in bytes of a single cached XML. */
+    public static final int DEFAULT_MAX_OBJECT_COSTS = 512 * 1024;
+
+    /** The cache instance used by the XML content factory. */
+    private static CmsXmlContentCache m_instance;
+
+    /** The cached snapshots by their key. */
+    Map<String, CmsCacheEntry> m_entries;
+
+    /** The number of evicted snapshots. */
+    AtomicLong m_evictions;
+
+    /** The number of cache hits. */
+    private AtomicLong m_hits;
+
+    /** The LRU list of the cached snapshots, limiting their total costs. */
+    private CmsLruCache m_lruCache;
+
+    /** The number of cache misses. */
+    private AtomicLong m_misses;
+
+    /**
+     * Creates a new XML content cache.<p>
+     *
+     * @param maxCacheCosts the maximum size in bytes of all cached XML
+     * @param maxObjectCosts the maximum size in bytes of a single cached XML
+     */
+    public CmsXmlContentCache(long maxCacheCosts, int maxObjectCosts) {
+
+        m_entries = new HashMap<String, CmsCacheEntry>();
+        m_lruCache = new CmsLruCache(maxCacheCosts, (maxCacheCosts * 3) / 4, maxObjectCosts);
+        m_evictions = new AtomicLong();
+        m_hits = new AtomicLong();
+        m_misses = new AtomicLong();
+    }
+
+    /**
+     * Returns the cache instance used by the XML content factory.<p>
+     *
+     * The instance is created on first access and registered for the events flushing the cache.<p>
+     *
+     * @return the cache instance used by the XML content factory
+     */
+    public static synchronized CmsXmlContentCache getInstance() {
+
+        if (m_instance == null) {
+            CmsXmlContentCache instance = new CmsXmlContentCache(DEFAULT_MAX_CACHE_COSTS, DEFAULT_MAX_OBJECT_COSTS);
+            OpenCms.addCmsEventListener(
+                instance,
+                new int[] {
+                    I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                    I_CmsEventListener.EVENT_CLEAR_CACHES,
+                    I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES});
+            m_instance = instance;
+        }
+        return m_instance;
+    }
+
+    /**
+     * Creates the cache key for a file.<p>
+     *
+     * @param file the file containing the XML
+     * @param encoding the encoding used to read the XML
+     *
+     * @return the cache key
+     */
+    public static String getKey(CmsFile file, String encoding) {
+
+        StringBuffer result = new StringBuffer(64);
+        result.append(file.getStructureId());
+        result.append('_').append(file.getDateLastModified());
+        result.append('_').append(file.getContents().length);
+        result.append('_').append(encoding);
+        return result.toString();
+    }
+
+    /**
+     * Discards all cached snapshots.<p>
+     */
+    public synchronized void clear() {
+
+        // clear the map first, so the removal from the LRU list is not counted as eviction
+        m_entries.clear();
+        m_lruCache.clear();
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        clear();
+    }
+
+    /**
+     * Returns a copy of the cached XML content for the given key.<p>
+     *
+     * @param key the cache key, see {@link #getKey(CmsFile, String)}
+     *
+     * @return a copy of the cached XML content, or <code>null</code> if not cached
+     */
+    public CmsXmlContent get(String key) {
+
+        CmsXmlContent snapshot = null;
+        synchronized (this) {
+            CmsCacheEntry entry = m_entries.get(key);
+            if (entry != null) {
+                m_lruCache.touch(entry);
+                snapshot = entry.m_snapshot;
+            }
+        }
+        if (snapshot == null) {
+            m_misses.incrementAndGet();
+            return null;
+        }
+        m_hits.incrementAndGet();
+        // the snapshot is only read, so it can be copied without holding the lock
+        return snapshot.clone();
+    }
+
+    /**
+     * Returns the total size in bytes of the cached XML.<p>
+     *
+     * @return the total size in bytes of the cached XML
+     */
+    public int getCosts() {
+
+        return m_lruCache.getObjectCosts();
+    }
+
+    /**
+     * Returns the number of snapshots evicted from the cache.<p>
+     *
+     * @return the number of snapshots evicted from the cache
+     */
+    public long getEvictions() {
+
+        return m_evictions.get();
+    }
+
+    /**
+     * Returns the number of cache hits.<p>
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the maximum size in bytes of all cached XML.<p>
+     *
+     * @return the maximum size in bytes of all cached XML
+     */
+    public long getMaxCosts() {
+
+        return m_lruCache.getMaxCacheCosts();
+    }
+
+    /**
+     * Returns the number of cache misses.<p>
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Returns the number of cached snapshots.<p>
+     *
+     * @return the number of cached snapshots
+     */
+    public synchronized int getSize() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * Caches a snapshot of a parsed XML content.<p>
+     *
+     * The snapshot must not be modified or handed out afterwards.<p>
+     *
+     * @param key the cache key, see {@link #getKey(CmsFile, String)}
+     * @param snapshot the parsed XML content
+     * @param costs the size of the XML in bytes
+     */
+    public synchronized void put(String key, CmsXmlContent snapshot, int costs) {
+
+        CmsCacheEntry entry = new CmsCacheEntry(key, snapshot, costs);
+        CmsCacheEntry previous = m_entries.put(key, entry);
+        if (previous != null) {
+            m_lruCache.remove(previous);
+        }
+        if (!m_lruCache.add(entry)) {
+            // too large to be cached
+            m_entries.remove(key);
+        }
+    }
+}
@@ -232,7 +232,25 @@ public final class CmsXmlContentFactory {
         CmsXmlContent content;
         if (contentBytes.length > 0) {
             // content is initialized
-            if (keepEncoding) {
+            if (keepEncoding && cms.getRequestContext().getCurrentProject().isOnlineProject()) {
+                // use a copy of the cached online content
+                CmsXmlContentCache cache = CmsXmlContentCache.getInstance();
+                String key = CmsXmlContentCache.getKey(file, encoding);
+                content = cache.get(key);
+                if (content == null) {
+                    CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(cms);
+                    // the snapshot is created without links checked for the current user
+                    CmsXmlContent snapshot = new CmsXmlContent(
+                        null,
+                        CmsXmlUtils.unmarshalHelper(contentBytes, resolver),
+                        encoding,
+                        resolver);
+                    content = snapshot.clone();
+                    cache.put(key, snapshot, contentBytes.length);
+                }
+                content.getHandler().invalidateBrokenLinks(cms, content);
+                content = content.getHandler().prepareForUse(cms, content);
+            } else if (keepEncoding) {
                 // use the encoding from the content
                 content = unmarshal(cms, contentBytes, encoding, new CmsXmlEntityResolver(cms));
             } else {
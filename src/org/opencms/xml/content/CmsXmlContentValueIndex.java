@@ -0,0 +1,393 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.CmsXmlUtils;
+import org.opencms.xml.types.A_CmsXmlValueCdataBase;
+import org.opencms.xml.types.A_CmsXmlValueTextBase;
+import org.opencms.xml.types.I_CmsXmlSchemaType;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * A compact index of the text values of an XML content, read with a streaming parser.<p>
+ *
+ * Building an {@link CmsXmlContent} creates the complete DOM and a value object for every node.
+ * When only a few text values are accessed, e.g. for rendering a list of teasers, these values
+ * can be read from this index instead. The index maps the xpath of each leaf element,
+ * with all indexes, to the text of the element.<p>
+ *
+ * Only values of types whose String value is the plain text of the element are answered from the index,
+ * see {@link #isIndexable(I_CmsXmlSchemaType)}. All other values still require the complete content.<p>
+ *
+ * The indexes are kept in memory, keyed by the structure id, date of last modification and length of the
+ * resource, so a new version of the content never uses an outdated index.<p>
+ *
+ * @since 10.5.0
+ */
+public final class CmsXmlContentValueIndex {
+
+    /** The default maximum number of cached indexes. */
+    public static final int DEFAULT_MAX_ENTRIES = 2048;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsXmlContentValueIndex.class);
+
+    /** The cached indexes. */
+    private static Map<String, CmsXmlContentValueIndex> m_cache = Collections.synchronizedMap(
+        CmsCollectionsGenericWrapper.<String, CmsXmlContentValueIndex> createLRUMap(DEFAULT_MAX_ENTRIES));
+
+    /** The streaming parser factory. */
+    private static XMLInputFactory m_factory;
+
+    /** Caches if the content handler classes leave the content unchanged when it is prepared for use. */
+    private static Map<Class<?>, Boolean> m_supportedHandlers = new ConcurrentHashMap<Class<?>, Boolean>();
+
+    /** The locales of the content in document order. */
+    private List<Locale> m_locales;
+
+    /** The schema location of the content. */
+    private String m_schemaLocation;
+
+    /** The text values by xpath for each locale. */
+    private Map<Locale, Map<String, String>> m_values;
+
+    static {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        m_factory = factory;
+    }
+
+    /**
+     * Creates a new value index.<p>
+     *
+     * @param schemaLocation the schema location of the content
+     * @param locales the locales of the content
+     * @param values the text values by xpath for each locale
+     */
+    private CmsXmlContentValueIndex(String schemaLocation, List<Locale> locales, Map<Locale, Map<String, String>> values) {
+
+        m_schemaLocation = schemaLocation;
+        m_locales = locales;
+        m_values = values;
+    }
+
+    /**
+     * Discards all cached indexes.<p>
+     */
+    public static void clearCache() {
+
+        m_cache.clear();
+    }
+
+    /**
+     * Creates the value index for the given XML content data.<p>
+     *
+     * The encoding is read from the XML declaration of the data.<p>
+     *
+     * @param content the XML content data
+     *
+     * @return the value index
+     *
+     * @throws XMLStreamException if the data is not well formed
+     */
+    public static CmsXmlContentValueIndex create(byte[] content) throws XMLStreamException {
+
+        String schemaLocation = null;
+        List<Locale> locales = new ArrayList<Locale>();
+        Map<Locale, Map<String, String>> values = new HashMap<Locale, Map<String, String>>();
+
+        // the values of the locale currently read, null if the current locale node is skipped
+        Map<String, String> localeValues = null;
+        // for each open element: the path, the counters of the child element names and the text
+        List<String> paths = new ArrayList<String>();
+        List<Map<String, Integer>> counters = new ArrayList<Map<String, Integer>>();
+        List<StringBuffer> texts = new ArrayList<StringBuffer>();
+        // if the current element has child elements
+        boolean hasChildren = false;
+        int depth = 0;
+
+        XMLStreamReader reader = m_factory.createXMLStreamReader(new ByteArrayInputStream(content));
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        if (depth == 1) {
+                            schemaLocation = reader.getAttributeValue(
+                                I_CmsXmlSchemaType.XSI_NAMESPACE.getURI(),
+                                I_CmsXmlSchemaType.XSI_NAMESPACE_ATTRIBUTE_NO_SCHEMA_LOCATION.getName());
+                        } else if (depth == 2) {
+                            String language = reader.getAttributeValue(
+                                null,
+                                CmsXmlContentDefinition.XSD_ATTRIBUTE_VALUE_LANGUAGE);
+                            localeValues = null;
+                            if (language != null) {
+                                Locale locale = CmsLocaleManager.getLocale(language);
+                                if (!values.containsKey(locale)) {
+                                    locales.add(locale);
+                                    values.put(locale, new HashMap<String, String>());
+                                }
+                                localeValues = values.get(locale);
+                            }
+                            paths.clear();
+                            counters.clear();
+                            texts.clear();
+                            counters.add(new HashMap<String, Integer>());
+                        } else if (localeValues != null) {
+                            String name = reader.getLocalName();
+                            Map<String, Integer> siblings = counters.get(counters.size() - 1);
+                            Integer count = siblings.get(name);
+                            int index = count == null ? 1 : count.intValue() + 1;
+                            siblings.put(name, Integer.valueOf(index));
+                            String element = CmsXmlUtils.createXpathElement(name, index);
+                            paths.add(paths.isEmpty() ? element : paths.get(paths.size() - 1) + "/" + element);
+                            counters.add(new HashMap<String, Integer>());
+                            texts.add(new StringBuffer());
+                        }
+                        hasChildren = false;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if ((depth > 2) && (localeValues != null)) {
+                            texts.get(texts.size() - 1).append(reader.getText());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if ((depth > 2) && (localeValues != null)) {
+                            int last = paths.size() - 1;
+                            if (!hasChildren) {
+                                // only leaf elements can be simple values
+                                localeValues.put(paths.get(last), texts.get(last).toString());
+                            }
+                            paths.remove(last);
+                            counters.remove(last + 1);
+                            texts.remove(last);
+                        }
+                        depth--;
+                        // the parent of the closed element has child elements
+                        hasChildren = true;
+                        break;
+                    default:
+                        // ignore comments, processing instructions and the like
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return new CmsXmlContentValueIndex(schemaLocation, locales, values);
+    }
+
+    /**
+     * Returns the value index for the given XML content resource.<p>
+     *
+     * The index is read from the cache, or created from the file content and cached.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the XML content resource
+     *
+     * @return the value index, or <code>null</code> if the content can not be indexed
+     */
+    public static CmsXmlContentValueIndex getIndex(CmsObject cms, CmsResource resource) {
+
+        String key = getKey(resource);
+        CmsXmlContentValueIndex result = m_cache.get(key);
+        if (result == null) {
+            try {
+                byte[] content = cms.readFile(resource).getContents();
+                if (content.length == 0) {
+                    // empty contents are initialized by the complete content
+                    return null;
+                }
+                result = create(content);
+                m_cache.put(key, result);
+            } catch (CmsException e) {
+                // the error is reported when the complete content is read
+                LOG.debug(e.getLocalizedMessage(), e);
+                return null;
+            } catch (XMLStreamException e) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_XMLCONTENT_INDEX_FAILED_1, resource.getRootPath()), e);
+                return null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cache key for the given resource.<p>
+     *
+     * @param resource the XML content resource
+     *
+     * @return the cache key
+     */
+    public static String getKey(CmsResource resource) {
+
+        StringBuffer result = new StringBuffer(64);
+        result.append(resource.getStructureId());
+        result.append('_').append(resource.getDateLastModified());
+        result.append('_').append(resource.getLength());
+        return result.toString();
+    }
+
+    /**
+     * Returns if the content handler leaves the content unchanged when it is prepared for use,
+     * which is required to read values from the index.<p>
+     *
+     * @param handler the content handler
+     *
+     * @return <code>true</code> if the content handler leaves the content unchanged
+     */
+    public static boolean isIndexable(I_CmsXmlContentHandler handler) {
+
+        Class<?> handlerClass = handler.getClass();
+        Boolean result = m_supportedHandlers.get(handlerClass);
+        if (result == null) {
+            try {
+                result = Boolean.valueOf(
+                    handlerClass.getMethod(
+                        "prepareForUse",
+                        CmsObject.class,
+                        CmsXmlContent.class).getDeclaringClass() == CmsDefaultXmlContentHandler.class);
+            } catch (NoSuchMethodException e) {
+                result = Boolean.FALSE;
+            }
+            m_supportedHandlers.put(handlerClass, result);
+        }
+        return result.booleanValue();
+    }
+
+    /**
+     * Returns if the String value of the given schema type is the plain text of the element,
+     * so values of this type can be read from the index.<p>
+     *
+     * @param type the schema type, may be <code>null</code>
+     *
+     * @return <code>true</code> if values of this type can be read from the index
+     */
+    public static boolean isIndexable(I_CmsXmlSchemaType type) {
+
+        return (type instanceof A_CmsXmlValueTextBase) || (type instanceof A_CmsXmlValueCdataBase);
+    }
+
+    /**
+     * Returns the content definition of the indexed content.<p>
+     *
+     * @param cms the current users OpenCms context
+     *
+     * @return the content definition, or <code>null</code> if it can not be read
+     */
+    public CmsXmlContentDefinition getContentDefinition(CmsObject cms) {
+
+        if (m_schemaLocation == null) {
+            return null;
+        }
+        try {
+            return CmsXmlContentDefinition.unmarshal(m_schemaLocation, new CmsXmlEntityResolver(cms));
+        } catch (Exception e) {
+            // the error is reported when the complete content is read
+            LOG.debug(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the locales of the content in document order.<p>
+     *
+     * @return the locales of the content
+     */
+    public List<Locale> getLocales() {
+
+        return new ArrayList<Locale>(m_locales);
+    }
+
+    /**
+     * Returns the schema location of the content.<p>
+     *
+     * @return the schema location of the content, or <code>null</code> if not set
+     */
+    public String getSchemaLocation() {
+
+        return m_schemaLocation;
+    }
+
+    /**
+     * Returns the text of the leaf element with the given xpath.<p>
+     *
+     * The path is completed with the default index <code>[1]</code> like in {@link CmsXmlContent#getValue(String, Locale)}.<p>
+     *
+     * @param path the xpath of the element
+     * @param locale the locale
+     *
+     * @return the text of the element, or <code>null</code> if there is no such leaf element
+     */
+    public String getStringValue(String path, Locale locale) {
+
+        Map<String, String> values = m_values.get(locale);
+        if (values == null) {
+            return null;
+        }
+        return values.get(CmsXmlUtils.createXpath(path, 1));
+    }
+
+    /**
+     * Returns if the content contains the given locale.<p>
+     *
+     * @param locale the locale to check
+     *
+     * @return <code>true</code> if the content contains the given locale
+     */
+    public boolean hasLocale(Locale locale) {
+
+        return m_values.containsKey(locale);
+    }
+}
@@ -172,6 +172,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_XMLCONTENT_CHECK_WARNING_2 = "LOG_XMLCONTENT_CHECK_WARNING_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_XMLCONTENT_INDEX_FAILED_1 = "LOG_XMLCONTENT_INDEX_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_XMLCONTENT_INIT_BOOKMARKS_0 = "LOG_XMLCONTENT_INIT_BOOKMARKS_0";
 
@@ -60,7 +60,10 @@ public final class AllTests {
         TestSuite suite = new TestSuite("Tests for package " + AllTests.class.getPackage().getName());
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         // $JUnit-BEGIN$
+        suite.addTest(new TestSuite(TestCmsStatementPoolFactory.class));
         suite.addTest(TestQueryProperties.suite());
+        suite.addTest(TestQueryStatistics.suite());
+        suite.addTest(TestReplicaRouter.suite());
         suite.addTest(TestPublishHistory.suite());
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
@@ -0,0 +1,150 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import org.apache.commons.pool.BaseKeyedPoolableObjectFactory;
+import org.apache.commons.pool.KeyedObjectPool;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+
+/**
+ * Unit tests for the counting prepared statement pools.<p>
+ */
+public class TestCmsStatementPoolFactory extends OpenCmsTestCase {
+
+    /**
+     * Creates a new object for each key, like a pooling connection prepares a new statement for each SQL string.<p>
+     */
+    private static class StatementFactory extends BaseKeyedPoolableObjectFactory {
+
+        /**
+         * @see org.apache.commons.pool.BaseKeyedPoolableObjectFactory#makeObject(java.lang.Object)
+         */
+        @Override
+        public Object makeObject(Object key) {
+
+            return new StringBuffer(key.toString());
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsStatementPoolFactory(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that statements are closed when the maximum number of pooled statements is reached.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMaxTotal() throws Exception {
+
+        CmsStatementPoolFactory factory = new CmsStatementPoolFactory(
+            5,
+            GenericKeyedObjectPool.WHEN_EXHAUSTED_GROW,
+            100,
+            5,
+            2);
+        KeyedObjectPool pool = createPool(factory);
+
+        String[] queries = new String[] {"SELECT A", "SELECT B", "SELECT C"};
+        for (String query : queries) {
+            pool.returnObject(query, pool.borrowObject(query));
+        }
+        assertEquals(3, factory.getRequestCount());
+        assertEquals(3, factory.getPrepareCount());
+        // only two statements can be pooled, so preparing the third one has closed an idle statement
+        assertTrue(factory.getCloseCount() >= 1);
+        assertTrue(pool.getNumIdle() <= 2);
+
+        pool.close();
+        assertEquals(factory.getPrepareCount(), factory.getCloseCount());
+    }
+
+    /**
+     * Tests that a statement for the same SQL is reused and only prepared once.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStatementReuse() throws Exception {
+
+        CmsStatementPoolFactory factory = new CmsStatementPoolFactory(
+            5,
+            GenericKeyedObjectPool.WHEN_EXHAUSTED_GROW,
+            100,
+            5,
+            -1);
+        KeyedObjectPool pool = createPool(factory);
+
+        String query = "SELECT * FROM CMS_ONLINE_RESOURCES WHERE RESOURCE_ID=?";
+        Object statement = pool.borrowObject(query);
+        pool.returnObject(query, statement);
+        for (int i = 0; i < 10; i++) {
+            Object reused = pool.borrowObject(query);
+            assertSame(statement, reused);
+            pool.returnObject(query, reused);
+        }
+        assertEquals(11, factory.getRequestCount());
+        assertEquals(1, factory.getPrepareCount());
+        assertEquals(0, factory.getCloseCount());
+
+        // a statement in use is not shared, another SQL string requires another statement
+        Object first = pool.borrowObject(query);
+        Object second = pool.borrowObject(query);
+        Object other = pool.borrowObject("SELECT 1");
+        assertNotSame(first, second);
+        assertEquals(3, factory.getPrepareCount());
+        pool.returnObject(query, first);
+        pool.returnObject(query, second);
+        pool.returnObject("SELECT 1", other);
+
+        pool.close();
+        assertEquals(3, factory.getCloseCount());
+    }
+
+    /**
+     * Creates a statement pool in the same way as the DBCP pooling connection.<p>
+     *
+     * @param factory the statement pool factory
+     *
+     * @return the statement pool
+     */
+    @SuppressWarnings("deprecation")
+    private KeyedObjectPool createPool(CmsStatementPoolFactory factory) {
+
+        KeyedObjectPool pool = factory.createPool();
+        pool.setFactory(new StatementFactory());
+        return pool;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the SQL query statistics.<p>
+ */
+public class TestQueryStatistics extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestQueryStatistics(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestQueryStatistics.class.getName());
+
+        suite.addTest(new TestQueryStatistics("testCollectStatistics"));
+        suite.addTest(new TestQueryStatistics("testUnwrap"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that executions, rows and driver methods are recorded while the statistics are enabled.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCollectStatistics() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the collection of query statistics");
+
+        CmsQueryStatistics statistics = OpenCms.getSqlManager().getQueryStatistics();
+        assertFalse(statistics.isEnabled());
+        statistics.reset();
+        statistics.setEnabled(true);
+        try {
+            OpenCms.getMemoryMonitor().flushCache(CacheType.RESOURCE, CacheType.RESOURCE_LIST);
+            cms.readResources("/", CmsResourceFilter.ALL, true);
+        } finally {
+            statistics.setEnabled(false);
+        }
+        long executions = statistics.getExecutionCount();
+        assertTrue(executions > 0);
+        assertFalse(statistics.getQueryEntries().isEmpty());
+        assertFalse(statistics.getDriverMethodEntries().isEmpty());
+
+        long rows = 0;
+        long queryExecutions = 0;
+        for (CmsQueryStatisticsEntry entry : statistics.getQueryEntries()) {
+            rows += entry.getRowCount();
+            queryExecutions += entry.getExecutionCount();
+        }
+        assertTrue(rows > 0);
+        assertEquals(executions, queryExecutions);
+        for (CmsQueryStatisticsEntry entry : statistics.getDriverMethodEntries()) {
+            assertFalse("unknown".equals(entry.getName()));
+        }
+
+        // no more statements are recorded once disabled
+        cms.readResources("/", CmsResourceFilter.ALL, true);
+        assertEquals(executions, statistics.getExecutionCount());
+    }
+
+    /**
+     * Tests that the original statement and result set can be retrieved from the wrapped objects.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testUnwrap() throws Exception {
+
+        echo("Testing unwrapping statements and result sets wrapped for the query statistics");
+
+        final String sql = "SELECT * FROM CMS_TEST WHERE ID=?";
+        final ResultSet resultSet = (ResultSet)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    return "next".equals(method.getName()) ? Boolean.FALSE : null;
+                }
+            });
+        PreparedStatement statement = (PreparedStatement)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    if ("toString".equals(method.getName())) {
+                        return sql;
+                    } else if ("executeQuery".equals(method.getName())) {
+                        return resultSet;
+                    }
+                    return null;
+                }
+            });
+
+        CmsQueryStatistics statistics = new CmsQueryStatistics();
+        assertSame(statement, statistics.wrap(statement, "C_TEST_READ"));
+        statistics.setEnabled(true);
+        PreparedStatement wrapped = statistics.wrap(statement, "C_TEST_READ");
+        assertNotSame(statement, wrapped);
+        assertSame(statement, CmsQueryStatistics.unwrap(wrapped));
+        assertSame(statement, CmsQueryStatistics.unwrap(statement));
+        assertEquals(sql, CmsDbSqlException.getErrorQuery(wrapped));
+
+        wrapped.setNull(1, Types.VARCHAR);
+        ResultSet wrappedResult = wrapped.executeQuery();
+        assertNotSame(resultSet, wrappedResult);
+        assertFalse(wrappedResult.next());
+        assertSame(resultSet, CmsQueryStatistics.unwrap(wrappedResult));
+        assertSame(resultSet, CmsQueryStatistics.unwrap(resultSet));
+        assertEquals(1, statistics.getExecutionCount());
+        assertNull(CmsQueryStatistics.unwrap((ResultSet)null));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.Collections;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the routing of online reads to a replica pool.<p>
+ */
+public class TestReplicaRouter extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestReplicaRouter(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestReplicaRouter.class.getName());
+
+        suite.addTest(new TestReplicaRouter("testRouting"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests which reads are routed to the replica pool.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRouting() throws Exception {
+
+        echo("Testing the routing of reads to a replica pool");
+
+        CmsParameterConfiguration config = new CmsParameterConfiguration();
+        config.put(CmsReplicaRouter.CONFIGURATION_REPLICA_POOL, "opencms:replica");
+        config.put(CmsReplicaRouter.CONFIGURATION_REPLICA_WINDOW, "60000");
+        config.add(CmsDriverManager.CONFIGURATION_DB + ".pools", "default");
+        config.add(CmsDriverManager.CONFIGURATION_DB + ".pools", "replica");
+        config.put("db.pool.default.poolUrl", "opencms:default");
+        config.put("db.pool.replica.poolUrl", "opencms:replica");
+
+        CmsReplicaRouter router = new CmsReplicaRouter();
+        assertFalse(
+            router.isReplicaReadable(
+                new CmsDbContext(getCmsObject().getRequestContext()),
+                CmsProject.ONLINE_PROJECT_ID));
+        router.initConfiguration(config);
+        assertEquals(CmsDbPool.DBCP_JDBC_URL_PREFIX + "opencms:replica", router.getPoolUrl());
+
+        CmsObject offlineCms = getCmsObject();
+        CmsObject onlineCms = OpenCms.initCmsObject(offlineCms);
+        onlineCms.getRequestContext().setCurrentProject(onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        CmsDbContext onlineDbc = new CmsDbContext(onlineCms.getRequestContext());
+        CmsDbContext offlineDbc = new CmsDbContext(offlineCms.getRequestContext());
+
+        assertTrue(router.isReplicaReadable(onlineDbc, CmsProject.ONLINE_PROJECT_ID));
+        assertFalse(router.isReplicaReadable(onlineDbc, offlineCms.getRequestContext().getCurrentProject().getUuid()));
+        // offline requests need to see the online data of the primary, e.g. while publishing
+        assertFalse(router.isReplicaReadable(offlineDbc, CmsProject.ONLINE_PROJECT_ID));
+        assertEquals(1, router.getReplicaReadCount());
+
+        // while publishing and during the read-your-writes window, all reads use the primary
+        router.cmsEvent(
+            new CmsEvent(I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT, Collections.<String, Object> emptyMap()));
+        assertFalse(router.isReplicaReadable(onlineDbc, CmsProject.ONLINE_PROJECT_ID));
+        router.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, Collections.<String, Object> emptyMap()));
+        assertFalse(router.isReplicaReadable(onlineDbc, CmsProject.ONLINE_PROJECT_ID));
+        assertEquals(2, router.getPrimaryReadCount());
+    }
+}
@@ -27,6 +27,9 @@
 
 package org.opencms.file;
 
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsHistoryCompactionSettings;
+import org.opencms.db.CmsHistoryCompactor;
 import org.opencms.db.CmsResourceState;
 import org.opencms.file.history.CmsHistoryFile;
 import org.opencms.file.history.I_CmsHistoryResource;
@@ -42,6 +45,7 @@ import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceConfigurableFilter;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
@@ -96,6 +100,7 @@ public class TestHistory extends OpenCmsTestCase {
         suite.addTest(new TestHistory("testFileVersions"));
         suite.addTest(new TestHistory("testVersioningLimit"));
         suite.addTest(new TestHistory("testSiblingsV7HistoryIssue"));
+        suite.addTest(new TestHistory("testDeleteHistoricalVersionsPartitioned"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -313,6 +318,98 @@ public class TestHistory extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Tests deleting the historical versions in chunks and parallel partitions.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testDeleteHistoricalVersionsPartitioned() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing deleting the historical versions in chunks and parallel partitions");
+
+        String folderName = "/folderCompaction/";
+        int files = 5;
+        int versions = 4;
+        cms.createResource(folderName, CmsResourceTypeFolder.getStaticTypeId());
+        for (int i = 0; i < files; i++) {
+            cms.createResource(
+                folderName + "file" + i + ".txt",
+                CmsResourceTypePlain.getStaticTypeId(),
+                "version 0".getBytes(),
+                null);
+        }
+        cms.copyResource(folderName + "file0.txt", folderName + "sibling0.txt", CmsResource.COPY_AS_SIBLING);
+        OpenCms.getPublishManager().publishResource(cms, folderName);
+        OpenCms.getPublishManager().waitWhileRunning();
+        for (int v = 1; v < versions; v++) {
+            cms.lockResource(folderName);
+            for (int i = 0; i < files; i++) {
+                CmsFile file = cms.readFile(folderName + "file" + i + ".txt");
+                file.setContents(("version " + v).getBytes());
+                cms.writeFile(file);
+            }
+            cms.unlockResource(folderName);
+            OpenCms.getPublishManager().publishResource(cms, folderName);
+            OpenCms.getPublishManager().waitWhileRunning();
+        }
+        for (int i = 0; i < files; i++) {
+            // the number of versions may be limited by the history settings
+            assertTrue(cms.readAllAvailableVersions(folderName + "file" + i + ".txt").size() > 2);
+        }
+
+        // siblings share the resource entries, so they have to end up in the same partition
+        List<I_CmsHistoryResource> resources = new ArrayList<I_CmsHistoryResource>();
+        resources.add(cms.readAllAvailableVersions(folderName + "file0.txt").get(0));
+        resources.add(cms.readAllAvailableVersions(folderName + "file1.txt").get(0));
+        resources.add(cms.readAllAvailableVersions(folderName + "sibling0.txt").get(0));
+        List<List<I_CmsHistoryResource>> partitions = CmsHistoryCompactor.partition(resources, 3);
+        for (List<I_CmsHistoryResource> partition : partitions) {
+            for (I_CmsHistoryResource res : partition) {
+                if (res.getRootPath().endsWith("sibling0.txt")) {
+                    assertTrue(partition.size() > 1);
+                }
+            }
+        }
+
+        CmsHistoryCompactionSettings settings = new CmsHistoryCompactionSettings();
+        settings.setPartitions(3);
+        settings.setChunkSize(2);
+        cms.deleteHistoricalVersions(2, -1, -1, settings, new CmsShellReport(cms.getRequestContext().getLocale()));
+
+        for (int i = 0; i < files; i++) {
+            List<I_CmsHistoryResource> allVersions = cms.readAllAvailableVersions(folderName + "file" + i + ".txt");
+            assertEquals(2, allVersions.size());
+            assertEquals(
+                "version " + (versions - 1),
+                new String(cms.readFile((CmsHistoryFile)allVersions.get(0)).getContents()));
+        }
+
+        // an error in a partition thread is not lost
+        assertTrue(partitions.size() > 1);
+        CmsHistoryCompactor failing = new CmsHistoryCompactor(
+            null,
+            null,
+            settings,
+            new CmsShellReport(cms.getRequestContext().getLocale())) {
+
+            @Override
+            protected int deleteChunk(CmsDbContext dbc, int partition, List<I_CmsHistoryResource> chunk) {
+
+                if (partition == 2) {
+                    throw new IllegalStateException("Failing partition");
+                }
+                return chunk.size();
+            }
+        };
+        try {
+            failing.compact(new CmsDbContext(cms.getRequestContext()), resources, 2, -1);
+            fail("The error of the failing partition was not thrown");
+        } catch (CmsDataAccessException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
     /**
      * Creates a file, modifies and publishes it n-times, create a sibling,
      * publishes both and compares the histories.<p>
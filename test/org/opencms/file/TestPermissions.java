@@ -73,6 +73,7 @@ public class TestPermissions extends OpenCmsTestCase {
         suite.addTest(new TestPermissions("testVisiblePermission"));
         suite.addTest(new TestPermissions("testVisiblePermissionForFolder"));
         suite.addTest(new TestPermissions("testFilterForFolder"));
+        suite.addTest(new TestPermissions("testFilterReadable"));
         suite.addTest(new TestPermissions("testDefaultPermissions"));
         suite.addTest(new TestPermissions("testPermissionOverwrite"));
         suite.addTest(new TestPermissions("testPermissionInheritance"));
@@ -163,6 +164,46 @@ public class TestPermissions extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Test the bulk read permission filter for the resources in a folder.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testFilterReadable() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing bulk read permission filter for the resources in a folder");
+
+        String folder = "/testFilterReadable/";
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(folder + "a.txt", CmsResourceTypePlain.getStaticTypeId());
+        cms.createResource(folder + "b.txt", CmsResourceTypePlain.getStaticTypeId());
+        cms.createResource(folder + "c.txt", CmsResourceTypePlain.getStaticTypeId());
+        // remove all "Users" group permissions from the second file
+        cms.chacc(
+            folder + "b.txt",
+            I_CmsPrincipal.PRINCIPAL_GROUP,
+            OpenCms.getDefaultUsers().getGroupUsers(),
+            0,
+            0,
+            CmsAccessControlEntry.ACCESS_FLAGS_OVERWRITE);
+        cms.unlockResource(folder);
+        List<CmsResource> resources = cms.readResources(folder, CmsResourceFilter.ALL, false);
+        assertEquals(3, resources.size());
+
+        cms.loginUser("test1", "test1");
+        cms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        List<CmsResource> readable = cms.filterReadable(resources, CmsResourceFilter.DEFAULT);
+        assertEquals(2, readable.size());
+        for (CmsResource resource : resources) {
+            assertEquals(
+                cms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ, false, CmsResourceFilter.DEFAULT),
+                readable.contains(resource));
+        }
+        cms.loginUser("Admin", "admin");
+        cms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+    }
+
     /**
      * Test the lock status permissions.<p>
      *
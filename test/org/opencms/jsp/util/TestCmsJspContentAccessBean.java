@@ -30,6 +30,7 @@ package org.opencms.jsp.util;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
 import org.opencms.file.CmsUser;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsRole;
@@ -38,6 +39,7 @@ import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.xml.content.CmsXmlContent;
 import org.opencms.xml.content.CmsXmlContentFactory;
+import org.opencms.xml.types.I_CmsXmlContentValue;
 
 import java.util.List;
 import java.util.Locale;
@@ -77,6 +79,7 @@ public class TestCmsJspContentAccessBean extends OpenCmsTestCase {
         suite.setName(TestCmsJspContentAccessBean.class.getName());
 
         suite.addTest(new TestCmsJspContentAccessBean("testContentAccess"));
+        suite.addTest(new TestCmsJspContentAccessBean("testIndexedValueAccess"));
         suite.addTest(new TestCmsJspContentAccessBean("testIsEditable"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -181,6 +184,50 @@ public class TestCmsJspContentAccessBean extends OpenCmsTestCase {
         assertEquals("This is teaser 2 in sample article 2.", String.valueOf(enValues.get("Teaser").get(1)));
     }
 
+    /**
+     * Tests that simple values are read from the value index without reading the complete XML content.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testIndexedValueAccess() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        CmsResource resource = cms.readResource("/xmlcontent/article_0002.html");
+        cms.getRequestContext().setUri("/xmlcontent/article_0002.html");
+
+        // create the content access bean for the resource, so the content is read on demand
+        CmsJspContentAccessBean bean = new CmsJspContentAccessBean(cms, Locale.ENGLISH, resource);
+        assertNotNull(bean.getIndexedValue("Title", Locale.ENGLISH));
+
+        Map<String, CmsJspContentAccessValueWrapper> enValue = bean.getValue();
+        CmsJspContentAccessValueWrapper title = enValue.get("Title");
+        assertTrue(title.getExists());
+        assertTrue(title.getIsSet());
+        assertEquals("This is the article 2 sample", String.valueOf(title));
+        assertEquals("Das ist Artikel 2", String.valueOf(bean.getLocaleValue().get("de").get("Title")));
+        assertFalse(bean.getLocaleValue().get("fr").get("Title").getExists());
+        assertFalse(enValue.get("i/do/no/exists").getExists());
+
+        // information other than the String value is read from the complete content
+        assertEquals("Title[1]", title.getPath());
+        assertEquals(Locale.ENGLISH, title.getLocale());
+        assertNull(bean.getIndexedValue("Title", Locale.ENGLISH));
+
+        // the values must match the values read from the complete content
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(cms, cms.readFile(resource));
+        bean = new CmsJspContentAccessBean(cms, Locale.GERMAN, resource);
+        for (I_CmsXmlContentValue value : content.getValues(Locale.GERMAN)) {
+            CmsJspContentAccessValueWrapper indexed = bean.getIndexedValue(value.getPath(), Locale.GERMAN);
+            if (indexed != null) {
+                assertEquals(value.getStringValue(cms), indexed.getStringValue());
+                assertEquals(
+                    String.valueOf(new CmsJspContentAccessBean(cms, Locale.GERMAN, content).getValue().get(
+                        value.getPath()).getResolveMacros()),
+                    String.valueOf(indexed.getResolveMacros()));
+            }
+        }
+    }
+
     /**
      * Tests for the {@link CmsJspContentAccessBean#getIsEditable()} method.<p>
      *
@@ -0,0 +1,226 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the worker pool of the indexing thread manager.<p>
+ */
+public class TestCmsIndexingThreadManager extends OpenCmsTestCase {
+
+    /**
+     * Indexing thread that blocks until it is released.<p>
+     */
+    protected static class CmsBlockingIndexingThread extends CmsIndexingThread {
+
+        /** Signals that the extraction may finish. */
+        protected CountDownLatch m_release = new CountDownLatch(1);
+
+        /** Signals that the extraction has started. */
+        protected CountDownLatch m_started = new CountDownLatch(1);
+
+        /** Controls if the extraction finishes when the worker is interrupted. */
+        private boolean m_interruptible;
+
+        /**
+         * Creates a new blocking indexing thread.<p>
+         *
+         * @param interruptible if the extraction finishes when the worker is interrupted
+         */
+        protected CmsBlockingIndexingThread(boolean interruptible) {
+
+            super(null, createResource(), null, 0, null);
+            m_interruptible = interruptible;
+        }
+
+        /**
+         * @see org.opencms.search.CmsIndexingThread#run()
+         */
+        @Override
+        public void run() {
+
+            m_started.countDown();
+            while (true) {
+                try {
+                    m_release.await();
+                    return;
+                } catch (InterruptedException e) {
+                    if (m_interruptible) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Maximum time to wait for a worker in milliseconds. */
+    private static final long WAIT_TIME = 10000;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsIndexingThreadManager(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Creates a resource to index.<p>
+     *
+     * @return a resource to index
+     */
+    protected static CmsResource createResource() {
+
+        CmsUUID id = new CmsUUID();
+        return new CmsResource(
+            id,
+            id,
+            "/sites/default/test.txt",
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Tests that abandoning a job still waiting for a worker does not grow the pool.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testAbandonQueuedJob() throws Exception {
+
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(1000, 100, 1);
+        try {
+            CmsBlockingIndexingThread running = new CmsBlockingIndexingThread(true);
+            CmsBlockingIndexingThread queued = new CmsBlockingIndexingThread(true);
+            manager.submit(createJob(manager, running));
+            assertTrue(running.m_started.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            CmsIndexingThreadManager.CmsIndexingJob job = createJob(manager, queued);
+            manager.submit(job);
+
+            assertTrue(job.abandon());
+            assertEquals(1, manager.getPoolSize());
+            assertTrue(job.m_future.isCancelled());
+
+            // the abandoned job must not be started once the worker is available again
+            running.m_release.countDown();
+            assertFalse(queued.m_started.await(500, TimeUnit.MILLISECONDS));
+            assertEquals(1, manager.getPoolSize());
+        } finally {
+            manager.shutDown();
+        }
+    }
+
+    /**
+     * Tests that abandoning a running job adds a worker until the abandoned job has finished.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testAbandonRunningJob() throws Exception {
+
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(1000, 100, 1);
+        try {
+            CmsBlockingIndexingThread running = new CmsBlockingIndexingThread(false);
+            CmsIndexingThreadManager.CmsIndexingJob job = createJob(manager, running);
+            manager.submit(job);
+            assertTrue(running.m_started.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+
+            assertTrue(job.abandon());
+            assertFalse(job.abandon());
+            assertEquals(2, manager.getPoolSize());
+
+            // the additional worker is released when the abandoned job finally returns
+            running.m_release.countDown();
+            long end = System.currentTimeMillis() + WAIT_TIME;
+            while ((manager.getPoolSize() > 1) && (System.currentTimeMillis() < end)) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, manager.getPoolSize());
+        } finally {
+            manager.shutDown();
+        }
+    }
+
+    /**
+     * Tests that shutting down the manager interrupts and stops the workers.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testShutDown() throws Exception {
+
+        CmsIndexingThreadManager manager = new CmsIndexingThreadManager(1000, 100, 2);
+        CmsBlockingIndexingThread running = new CmsBlockingIndexingThread(true);
+        manager.submit(createJob(manager, running));
+        assertTrue(running.m_started.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+        assertFalse(manager.isTerminated());
+
+        manager.shutDown();
+        long end = System.currentTimeMillis() + WAIT_TIME;
+        while (!manager.isTerminated() && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+        assertTrue(manager.isTerminated());
+        // resizing a stopped pool must be ignored
+        manager.resizePool(1);
+        assertTrue(manager.isTerminated());
+    }
+
+    /**
+     * Creates a job for the given indexing thread.<p>
+     *
+     * @param manager the thread manager
+     * @param thread the indexing thread
+     *
+     * @return the job
+     */
+    private CmsIndexingThreadManager.CmsIndexingJob createJob(
+        CmsIndexingThreadManager manager,
+        CmsIndexingThread thread) {
+
+        return manager.new CmsIndexingJob(null, null, createResource(), thread);
+    }
+}
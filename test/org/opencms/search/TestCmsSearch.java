@@ -40,11 +40,14 @@ import org.opencms.search.fields.CmsSearchField;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.util.CmsDateUtil;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.xml.content.CmsXmlContent;
 import org.opencms.xml.content.CmsXmlContentFactory;
 
+import java.io.File;
 import java.text.DateFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -161,6 +164,7 @@ public class TestCmsSearch extends OpenCmsTestCase {
         suite.addTest(new TestCmsSearch("testIndexGeneration"));
         suite.addTest(new TestCmsSearch("testQueryEncoding"));
         suite.addTest(new TestCmsSearch("testSearchIssueWithSpecialFoldernames"));
+        suite.addTest(new TestCmsSearch("testShadowRebuild"));
         suite.addTest(new TestCmsSearch("testShutdownWhileIndexing"));
         suite.addTest(new TestCmsSearch("testHasAnalyzerForAll"));
 
@@ -533,7 +537,11 @@ public class TestCmsSearch extends OpenCmsTestCase {
         results = cmsSearchBean.getSearchResult();
         TestCmsSearch.printResults(results, cms);
         assertEquals(8, results.size());
-        assertEquals("/sites/default" + folderName + "text.txt", results.get(0).getPath());
+        // the copied file has the same score as the unchanged original, which keeps its place in the index
+        assertEquals(results.get(0).getScore(), results.get(1).getScore());
+        assertTrue(
+            Arrays.asList(results.get(0).getPath(), results.get(1).getPath()).contains(
+                "/sites/default" + folderName + "text.txt"));
 
         cmsSearchBean.setSearchRoot(folderName);
         cmsSearchBean.setQuery("+Alkacon +OpenCms");
@@ -543,6 +551,67 @@ public class TestCmsSearch extends OpenCmsTestCase {
         assertEquals("/sites/default" + folderName + "text.txt", results.get(0).getPath());
     }
 
+    /**
+     * Tests the rebuild of an index in a shadow index.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testShadowRebuild() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the rebuild of an index in a shadow index");
+
+        // make sure the index is up to date before the rebuild
+        I_CmsReport report = new CmsShellReport(Locale.ENGLISH);
+        OpenCms.getSearchManager().rebuildIndex(INDEX_OFFLINE, report);
+
+        CmsSearchIndex index = OpenCms.getSearchManager().getIndex(INDEX_OFFLINE);
+        CmsSearch cmsSearchBean = new CmsSearch();
+        cmsSearchBean.init(cms);
+        cmsSearchBean.setIndex(INDEX_OFFLINE);
+        cmsSearchBean.setQuery("+Alkacon +OpenCms");
+        int expected = cmsSearchBean.getSearchResult().size();
+        assertTrue(expected > 0);
+
+        index.addConfigurationParameter(CmsSearchIndex.SHADOW_REINDEXING, "true");
+        try {
+            OpenCms.getSearchManager().rebuildIndex(INDEX_OFFLINE, report);
+        } finally {
+            index.addConfigurationParameter(CmsSearchIndex.SHADOW_REINDEXING, "false");
+        }
+
+        // the shadow index must have replaced the index and must have been removed
+        assertNull(index.getShadowIndexWriter());
+        assertFalse(new File(index.getPath() + "_shadow").exists());
+        assertFalse(new File(index.getPath() + "_old").exists());
+
+        cmsSearchBean = new CmsSearch();
+        cmsSearchBean.init(cms);
+        cmsSearchBean.setIndex(INDEX_OFFLINE);
+        cmsSearchBean.setQuery("+Alkacon +OpenCms");
+        assertEquals(expected, cmsSearchBean.getSearchResult().size());
+
+        // a failed swap must keep the current index
+        CmsShadowIndexWriter writer = index.createShadowIndexWriter();
+        writer.close();
+        CmsFileUtil.purgeDirectory(new File(writer.getPath()));
+        try {
+            index.swapShadowIndex();
+            fail("Swapping a missing shadow index must fail");
+        } catch (CmsIndexException e) {
+            // expected
+        }
+        assertNull(index.getShadowIndexWriter());
+        assertTrue(new File(index.getPath()).exists());
+        assertFalse(new File(index.getPath() + "_old").exists());
+
+        cmsSearchBean = new CmsSearch();
+        cmsSearchBean.init(cms);
+        cmsSearchBean.setIndex(INDEX_OFFLINE);
+        cmsSearchBean.setQuery("+Alkacon +OpenCms");
+        assertEquals(expected, cmsSearchBean.getSearchResult().size());
+    }
+
     /**
      * Test the cms search indexer.<p>
      *
@@ -36,12 +36,17 @@ import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.OpenCms;
 import org.opencms.report.CmsShellReport;
 import org.opencms.report.I_CmsReport;
+import org.opencms.search.fields.CmsSearchField;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 
 import java.util.List;
 import java.util.Locale;
 
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -78,6 +83,7 @@ public class TestCmsSearchOffline extends OpenCmsTestCase {
 
         suite.addTest(new TestCmsSearchOffline("testSearchIndexSetup"));
         suite.addTest(new TestCmsSearchOffline("testIndexUpdateOnModification"));
+        suite.addTest(new TestCmsSearchOffline("testIndexUpdateUnchangedDocument"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -252,4 +258,80 @@ public class TestCmsSearchOffline extends OpenCmsTestCase {
 
         echo("Move Test - end");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that an index update keeps a document that is unchanged in the index.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testIndexUpdateUnchangedDocument() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing index update of a resource with an unchanged document");
+
+        String fileName = "/xmlcontent/article_0001.html";
+        String rootPath = cms.getRequestContext().addSiteRoot(fileName);
+        CmsSearchIndex index = OpenCms.getSearchManager().getIndex(INDEX_SPECIAL);
+        I_CmsSearchDocument doc = index.getDocument(CmsSearchField.FIELD_PATH, rootPath);
+        assertNotNull(doc);
+        String digest = doc.getFieldValueAsString(CmsSearchField.FIELD_DIGEST);
+        assertNotNull(digest);
+        int docId = getDocumentId(index, rootPath);
+        int maxDoc = index.getSearcher().getIndexReader().maxDoc();
+
+        // touch the resource without changing it, so the same document is created again
+        CmsResource resource = cms.readResource(fileName);
+        cms.lockResource(fileName);
+        cms.setDateLastModified(fileName, resource.getDateLastModified(), false);
+        cms.unlockResource(fileName);
+
+        // wait for the offline index
+        waitForUpdate();
+
+        doc = index.getDocument(CmsSearchField.FIELD_PATH, rootPath);
+        assertNotNull(doc);
+        assertEquals(digest, doc.getFieldValueAsString(CmsSearchField.FIELD_DIGEST));
+        // the document has not been written again, a rewrite would add a new document and delete the old one
+        assertEquals(docId, getDocumentId(index, rootPath));
+        assertEquals(maxDoc, index.getSearcher().getIndexReader().maxDoc());
+
+        // a real change writes the document again
+        cms.lockResource(fileName);
+        cms.writePropertyObject(
+            fileName,
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Unchanged document test", null));
+        cms.unlockResource(fileName);
+        waitForUpdate();
+        doc = index.getDocument(CmsSearchField.FIELD_PATH, rootPath);
+        assertNotNull(doc);
+        assertFalse(digest.equals(doc.getFieldValueAsString(CmsSearchField.FIELD_DIGEST)));
+        assertFalse(docId == getDocumentId(index, rootPath));
+
+        CmsSearch searchBean = new CmsSearch();
+        searchBean.init(cms);
+        searchBean.setIndex(INDEX_SPECIAL);
+        searchBean.setQuery(">>SearchEgg1<<");
+        List<CmsSearchResult> searchResult = searchBean.getSearchResult();
+        assertEquals(1, searchResult.size());
+        assertEquals(rootPath, searchResult.get(0).getPath());
+    }
+
+    /**
+     * Returns the Lucene document id of the document with the given root path.<p>
+     *
+     * @param index the index to search in
+     * @param rootPath the root path of the document
+     *
+     * @return the Lucene document id
+     *
+     * @throws Exception in case the search fails
+     */
+    private int getDocumentId(CmsSearchIndex index, String rootPath) throws Exception {
+
+        TopDocs hits = index.getSearcher().search(
+            new TermQuery(new Term(CmsSearchField.FIELD_PATH, rootPath)),
+            1);
+        assertEquals(1, hits.totalHits);
+        return hits.scoreDocs[0].doc;
+    }
+}
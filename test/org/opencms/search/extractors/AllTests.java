@@ -65,6 +65,8 @@ public final class AllTests {
         suite.addTest(new TestSuite(TestPdfExtraction.class));
         suite.addTest(new TestSuite(TestMsExcelExtraction.class));
         suite.addTest(TestXmlDocumentExtraction.suite());
+        suite.addTest(new TestSuite(TestExtractionResultCache.class));
+        suite.addTest(new TestSuite(TestExtractionLimits.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,114 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.extractors;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.InputStream;
+
+/**
+ * Tests the limits for the number of bytes read and characters extracted from a document.<p>
+ */
+public class TestExtractionLimits extends OpenCmsTestCase {
+
+    /**
+     * Tests that only the maximum number of bytes is read from a document.<p>
+     *
+     * A truncated RTF document yields the text before the limit. A truncated PDF document can not be parsed
+     * without its end and yields no text at all, but the extraction must not fail.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMaxBytes() throws Exception {
+
+        String full = CmsExtractorRtf.getExtractor().extractText(getTestFile("test1.rtf")).getContent();
+        long truncated = A_CmsTextExtractor.getTruncatedDocuments();
+        A_CmsTextExtractor.setMaxBytes(10000);
+        try {
+            // the parsing of a PDF fails without its end, this must not fail the extraction
+            I_CmsExtractionResult result = CmsExtractorPdf.getExtractor().extractText(getTestFile("test1.pdf"));
+            assertNotNull(result);
+            assertNull(result.getContent());
+            assertNull(result.getContentItems().get(I_CmsExtractionResult.ITEM_RAW));
+            assertEquals(truncated + 1, A_CmsTextExtractor.getTruncatedDocuments());
+
+            String partial = CmsExtractorRtf.getExtractor().extractText(getTestFile("test1.rtf")).getContent();
+            assertTrue(partial.length() > 0);
+            assertTrue(partial.length() < full.length());
+            assertTrue(full.startsWith(partial.substring(0, Math.min(100, partial.length()))));
+            assertEquals(truncated + 2, A_CmsTextExtractor.getTruncatedDocuments());
+        } finally {
+            A_CmsTextExtractor.setMaxBytes(0);
+        }
+    }
+
+    /**
+     * Tests that the text of a document is truncated at the maximum number of characters.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMaxChars() throws Exception {
+
+        long truncated = A_CmsTextExtractor.getTruncatedDocuments();
+        A_CmsTextExtractor.setMaxChars(20);
+        try {
+            I_CmsExtractionResult result = CmsExtractorPdf.getExtractor().extractText(getTestFile("test1.pdf"));
+            String raw = result.getContentItems().get(I_CmsExtractionResult.ITEM_RAW);
+            assertNotNull(raw);
+            assertEquals(20, raw.length());
+            // the meta data is still extracted
+            assertEquals(
+                "Alkacon Software - The OpenCms experts",
+                result.getContentItems().get(I_CmsExtractionResult.ITEM_TITLE));
+            assertEquals(truncated + 1, A_CmsTextExtractor.getTruncatedDocuments());
+
+            result = CmsExtractorHtml.getExtractor().extractText(getTestFile("test1.html"), "UTF-8");
+            assertEquals(20, result.getContent().length());
+            assertEquals(truncated + 2, A_CmsTextExtractor.getTruncatedDocuments());
+        } finally {
+            A_CmsTextExtractor.setMaxChars(0);
+        }
+
+        // without limit the complete text is extracted
+        I_CmsExtractionResult result = CmsExtractorPdf.getExtractor().extractText(getTestFile("test1.pdf"));
+        assertTrue(result.getContentItems().get(I_CmsExtractionResult.ITEM_RAW).length() > 20);
+        assertEquals(truncated + 2, A_CmsTextExtractor.getTruncatedDocuments());
+    }
+
+    /**
+     * Opens an input stream for a test file of this package.<p>
+     *
+     * @param name the name of the test file
+     *
+     * @return the input stream for the test file
+     */
+    private InputStream getTestFile(String name) {
+
+        return getClass().getClassLoader().getResourceAsStream("org/opencms/search/extractors/" + name);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.extractors;
+
+import org.opencms.search.documents.CmsExtractionResultCache;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tests the binary format of the extraction results and the segment storage of the extraction result cache.<p>
+ */
+public class TestExtractionResultCache extends OpenCmsTestCase {
+
+    /**
+     * Tests that expired entries are removed from the cache and empty segments are deleted.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCacheCleanup() throws Exception {
+
+        File basedir = createCacheFolder();
+        try {
+            CmsExtractionResultCache cache = new CmsExtractionResultCache(basedir.getAbsolutePath(), "/cache");
+            String rfsName = cache.getRepositoryPath() + "/old.ext";
+            cache.saveCacheObject(rfsName, new CmsExtractionResult("Old content"));
+            cache.shutDown();
+
+            cache = new CmsExtractionResultCache(basedir.getAbsolutePath(), "/cache");
+            assertNotNull(cache.getCacheObject(rfsName));
+            Thread.sleep(10);
+            assertEquals(1, cache.cleanCache(0));
+            assertNull(cache.getCacheObject(rfsName));
+            File[] files = new File(cache.getRepositoryPath()).listFiles();
+            assertEquals(0, files == null ? 0 : files.length);
+            cache.shutDown();
+        } finally {
+            CmsFileUtil.purgeDirectory(basedir);
+        }
+    }
+
+    /**
+     * Tests that the time of the last access is stored in the segment files, so entries read frequently
+     * do not expire after a restart.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCacheLastAccess() throws Exception {
+
+        File basedir = createCacheFolder();
+        try {
+            CmsExtractionResultCache cache = new CmsExtractionResultCache(basedir.getAbsolutePath(), "/cache");
+            String rfsName = cache.getRepositoryPath() + "/used.ext";
+            cache.saveCacheObject(rfsName, new CmsExtractionResult("Used content"));
+            cache.shutDown();
+
+            // pretend the entry has been stored two hours ago
+            File segment = new File(
+                cache.getRepositoryPath(),
+                CmsExtractionResultCache.SEGMENT_PREFIX + 1 + CmsExtractionResultCache.SEGMENT_SUFFIX);
+            assertTrue(segment.exists());
+            RandomAccessFile file = new RandomAccessFile(segment, "rw");
+            try {
+                file.seek(4);
+                file.writeLong(System.currentTimeMillis() - (2L * 60L * 60L * 1000L));
+            } finally {
+                file.close();
+            }
+
+            // reading the entry stores the access time
+            cache = new CmsExtractionResultCache(basedir.getAbsolutePath(), "/cache");
+            assertEquals("Used content", cache.getCacheObject(rfsName).getContent());
+            cache.shutDown();
+
+            // after a restart the entry must not be expired
+            cache = new CmsExtractionResultCache(basedir.getAbsolutePath(), "/cache");
+            assertEquals(0, cache.cleanCache(1));
+            assertEquals("Used content", cache.getCacheObject(rfsName).getContent());
+            cache.shutDown();
+        } finally {
+            CmsFileUtil.purgeDirectory(basedir);
+        }
+    }
+
+    /**
+     * Tests storing and reading extraction results in the segment files of the cache.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCacheSegments() throws Exception {
+
+        File basedir = createCacheFolder();
+        try {
+            CmsExtractionResultCache cache = new CmsExtractionResultCache(basedir.getAbsolutePath(), "/cache");
+            String rfsName1 = cache.getRepositoryPath() + "/first.ext";
+            String rfsName2 = cache.getRepositoryPath() + "/second.ext";
+            assertNull(cache.getCacheObject(rfsName1));
+            cache.saveCacheObject(rfsName1, new CmsExtractionResult("First content"));
+            cache.saveCacheObject(rfsName2, new CmsExtractionResult("Second content"));
+            cache.saveCacheObject(rfsName1, new CmsExtractionResult("First content, changed"));
+            assertEquals("First content, changed", cache.getCacheObject(rfsName1).getContent());
+            assertEquals("Second content", cache.getCacheObject(rfsName2).getContent());
+            cache.shutDown();
+
+            // a new cache instance reads the index from the segment files
+            cache = new CmsExtractionResultCache(basedir.getAbsolutePath(), "/cache");
+            assertEquals("First content, changed", cache.getCacheObject(rfsName1).getContent());
+            assertEquals("Second content", cache.getCacheObject(rfsName2).getContent());
+            assertEquals(0, cache.cleanCache(1));
+            assertEquals("Second content", cache.getCacheObject(rfsName2).getContent());
+            cache.shutDown();
+        } finally {
+            CmsFileUtil.purgeDirectory(basedir);
+        }
+    }
+
+    /**
+     * Tests the compact binary format of the extraction results.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCompactFormat() throws Exception {
+
+        LinkedHashMap<String, String> enItems = new LinkedHashMap<String, String>();
+        enItems.put(I_CmsExtractionResult.ITEM_CONTENT, "English content \u00e4\u00f6\u00fc");
+        enItems.put(I_CmsExtractionResult.ITEM_TITLE, "Title");
+        LinkedHashMap<String, String> deItems = new LinkedHashMap<String, String>();
+        deItems.put(I_CmsExtractionResult.ITEM_CONTENT, "Deutscher Inhalt");
+        Map<Locale, LinkedHashMap<String, String>> items = new HashMap<Locale, LinkedHashMap<String, String>>();
+        items.put(Locale.ENGLISH, enItems);
+        items.put(Locale.GERMAN, deItems);
+        Map<String, String> mappings = new HashMap<String, String>();
+        mappings.put("field", "value");
+        CmsExtractionResult result = new CmsExtractionResult(Locale.ENGLISH, items, mappings);
+
+        byte[] bytes = result.getBytes();
+        assertTrue(CmsExtractionResult.isCompactFormat(bytes));
+        CmsExtractionResult read = CmsExtractionResult.fromBytes(bytes);
+        assertEquals(Locale.ENGLISH, read.getDefaultLocale());
+        assertEquals(result.getLocales(), read.getLocales());
+        assertEquals(enItems, read.getContentItems(Locale.ENGLISH));
+        assertEquals(deItems, read.getContentItems(Locale.GERMAN));
+        assertEquals("English content \u00e4\u00f6\u00fc", read.getContent());
+        assertEquals(mappings, read.getFieldMappings());
+
+        CmsExtractionResult unilingual = CmsExtractionResult.fromBytes(
+            new CmsExtractionResult("Some content").getBytes());
+        assertNull(unilingual.getDefaultLocale());
+        assertEquals("Some content", unilingual.getContent());
+        assertEquals("Some content", unilingual.getContentItems().get(I_CmsExtractionResult.ITEM_RAW));
+    }
+
+    /**
+     * Tests that extraction results serialized by older versions can still be read.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLegacyFormat() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectOutputStream oout = new ObjectOutputStream(out);
+        oout.writeObject(new CmsExtractionResult("Legacy content"));
+        oout.close();
+        byte[] bytes = out.toByteArray();
+        assertFalse(CmsExtractionResult.isCompactFormat(bytes));
+        assertEquals("Legacy content", CmsExtractionResult.fromBytes(bytes).getContent());
+    }
+
+    /**
+     * Creates an empty folder for the cache repository.<p>
+     *
+     * @return the folder
+     *
+     * @throws Exception if something goes wrong
+     */
+    private File createCacheFolder() throws Exception {
+
+        File basedir = File.createTempFile("extractCache", "");
+        basedir.delete();
+        basedir.mkdirs();
+        return basedir;
+    }
+}
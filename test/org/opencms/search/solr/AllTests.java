@@ -123,6 +123,9 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(TestSolrConfiguration.suite());
         suite.addTest(TestSolrFieldConfiguration.suite());
+        suite.addTestSuite(TestSolrIndexWriter.class);
+        suite.addTestSuite(TestSolrPrincipalFilter.class);
+        suite.addTestSuite(TestSolrResultCache.class);
         suite.addTest(TestSolrSearch.suite());
         suite.addTest(TestCmsSolrCollector.suite());
         //$JUnit-END$
@@ -0,0 +1,316 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * Tests the batching and the background sending of the Solr index writer, using a fake Solr client.<p>
+ */
+public class TestSolrIndexWriter extends OpenCmsTestCase {
+
+    /**
+     * Solr client that keeps the documents in memory and makes them visible with a commit.<p>
+     */
+    protected static class CmsFakeSolrClient extends SolrClient {
+
+        /** The serial version id. */
+        private static final long serialVersionUID = 1L;
+
+        /** Released to let the requests adding documents continue. */
+        protected CountDownLatch m_addAllowed = new CountDownLatch(0);
+
+        /** The number of hard commits. */
+        protected volatile int m_hardCommits;
+
+        /** The documents added but not yet committed. */
+        protected List<SolrInputDocument> m_pending = new ArrayList<SolrInputDocument>();
+
+        /** The ids of the documents rejected by the client. */
+        protected Set<String> m_rejectedIds = new HashSet<String>();
+
+        /** The committed documents. */
+        protected List<SolrInputDocument> m_visible = new ArrayList<SolrInputDocument>();
+
+        /**
+         * @see org.apache.solr.client.solrj.SolrClient#request(org.apache.solr.client.solrj.SolrRequest, java.lang.String)
+         */
+        @Override
+        @SuppressWarnings("rawtypes")
+        public NamedList<Object> request(SolrRequest request, String collection) throws IOException {
+
+            UpdateRequest update = (UpdateRequest)request;
+            if (update.getDocuments() != null) {
+                try {
+                    m_addAllowed.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                for (SolrInputDocument doc : update.getDocuments()) {
+                    if (m_rejectedIds.contains(doc.getFieldValue("id"))) {
+                        throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Rejected " + doc);
+                    }
+                }
+                synchronized (this) {
+                    m_pending.addAll(update.getDocuments());
+                }
+            }
+            if (update.getAction() == AbstractUpdateRequest.ACTION.COMMIT) {
+                synchronized (this) {
+                    m_visible.addAll(m_pending);
+                    m_pending.clear();
+                }
+                if (!update.getParams().getBool(UpdateParams.SOFT_COMMIT, false)) {
+                    m_hardCommits++;
+                }
+            }
+            return new NamedList<Object>();
+        }
+
+        /**
+         * @see org.apache.solr.client.solrj.SolrClient#shutdown()
+         */
+        @Override
+        public void shutdown() {
+
+            // nothing to release
+        }
+
+        /**
+         * Returns the number of committed documents.<p>
+         *
+         * @return the number of committed documents
+         */
+        protected synchronized int getVisibleCount() {
+
+            return m_visible.size();
+        }
+    }
+
+    /**
+     * Solr index that does not require a running OpenCms.<p>
+     */
+    protected static class CmsTestSolrIndex extends CmsSolrIndex {
+
+        /**
+         * @see org.opencms.search.CmsSearchIndex#getName()
+         */
+        @Override
+        public String getName() {
+
+            return "Test Writer";
+        }
+
+        /**
+         * @see org.opencms.search.CmsSearchIndex#getPath()
+         */
+        @Override
+        public String getPath() {
+
+            return "/test";
+        }
+    }
+
+    /** Maximum time to wait for the background thread in milliseconds. */
+    private static final long WAIT_TIME = 10000;
+
+    /**
+     * Tests that adding documents blocks while the maximum number of batches is waiting to be sent.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testBackPressure() throws Exception {
+
+        CmsFakeSolrClient client = new CmsFakeSolrClient();
+        client.m_addAllowed = new CountDownLatch(1);
+        final CmsSolrIndexWriter writer = createWriter(client, 1, 1, 0);
+        try {
+            // the first batch occupies the only slot, it is taken by the background thread and blocks in the client
+            writer.updateDocument("/doc1", createDocument("doc1"));
+            final CountDownLatch added = new CountDownLatch(1);
+            Thread producer = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        writer.updateDocument("/doc2", createDocument("doc2"));
+                        added.countDown();
+                    } catch (IOException e) {
+                        // the latch stays closed and the test fails
+                    }
+                }
+            };
+            producer.start();
+            assertFalse("Adding must block while Solr is busy", added.await(500, TimeUnit.MILLISECONDS));
+
+            client.m_addAllowed.countDown();
+            assertTrue("Adding must continue once Solr has caught up", added.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            writer.commit();
+            assertEquals(2, client.getVisibleCount());
+        } finally {
+            client.m_addAllowed.countDown();
+            writer.close();
+        }
+    }
+
+    /**
+     * Tests that closing the writer performs a hard commit and stops the background thread.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCloseStopsSender() throws Exception {
+
+        CmsFakeSolrClient client = new CmsFakeSolrClient();
+        CmsSolrIndexWriter writer = createWriter(client, 10, 2, 20);
+        writer.updateDocument("/doc1", createDocument("doc1"));
+        writer.commit();
+        Thread sender = findThread("OpenCms: Solr Index Writer Test Writer");
+        assertNotNull(sender);
+
+        writer.close();
+        sender.join(WAIT_TIME);
+        assertFalse("The background thread must stop when the writer is closed", sender.isAlive());
+        assertTrue(client.m_hardCommits > 0);
+        assertEquals(1, client.getVisibleCount());
+    }
+
+    /**
+     * Tests that a commit sends all buffered and queued documents before making them visible.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCommitMakesDocumentsVisible() throws Exception {
+
+        CmsFakeSolrClient client = new CmsFakeSolrClient();
+        CmsSolrIndexWriter writer = createWriter(client, 2, 2, 0);
+        try {
+            for (int i = 0; i < 5; i++) {
+                writer.updateDocument("/doc" + i, createDocument("doc" + i));
+            }
+            // only a commit makes the documents visible, including the ones still buffered
+            assertEquals(0, client.getVisibleCount());
+            writer.commit();
+            assertEquals(5, client.getVisibleCount());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Tests that a document rejected by Solr only skips this document, without failing later calls.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRejectedDocument() throws Exception {
+
+        CmsFakeSolrClient client = new CmsFakeSolrClient();
+        client.m_rejectedIds.add("rejected");
+        CmsSolrIndexWriter writer = createWriter(client, 3, 2, 0);
+        try {
+            writer.updateDocument("/doc1", createDocument("doc1"));
+            writer.updateDocument("/rejected", createDocument("rejected"));
+            writer.updateDocument("/doc2", createDocument("doc2"));
+            // the other documents of the batch are added, and the rejection is not thrown by the commit
+            writer.commit();
+            assertEquals(2, client.getVisibleCount());
+
+            writer.updateDocument("/doc3", createDocument("doc3"));
+            writer.commit();
+            assertEquals(3, client.getVisibleCount());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Creates a search document.<p>
+     *
+     * @param id the id of the document
+     *
+     * @return the search document
+     */
+    protected CmsSolrDocument createDocument(String id) {
+
+        SolrInputDocument doc = new SolrInputDocument();
+        doc.addField("id", id);
+        return new CmsSolrDocument(doc);
+    }
+
+    /**
+     * Creates an index writer for the given client.<p>
+     *
+     * @param client the client
+     * @param batchSize the number of documents per batch
+     * @param maxPendingBatches the maximum number of batches waiting to be sent
+     * @param commitMs the time between the periodic hard commits
+     *
+     * @return the index writer
+     */
+    private CmsSolrIndexWriter createWriter(SolrClient client, int batchSize, int maxPendingBatches, int commitMs) {
+
+        CmsSolrIndex index = new CmsTestSolrIndex();
+        index.addConfigurationParameter(CmsSolrIndex.INDEX_BATCH_SIZE, String.valueOf(batchSize));
+        index.addConfigurationParameter(CmsSolrIndex.INDEX_MAX_PENDING_BATCHES, String.valueOf(maxPendingBatches));
+        return new CmsSolrIndexWriter(client, index, null, commitMs);
+    }
+
+    /**
+     * Returns the running thread with the given name.<p>
+     *
+     * @param name the thread name
+     *
+     * @return the thread, or <code>null</code> if not found
+     */
+    private Thread findThread(String name) {
+
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (name.equals(thread.getName())) {
+                return thread;
+            }
+        }
+        return null;
+    }
+}
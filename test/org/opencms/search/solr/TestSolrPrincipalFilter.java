@@ -0,0 +1,134 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.search.fields.CmsSearchField;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the filtering of Solr results by the indexed read principals, without a running Solr server.<p>
+ */
+public class TestSolrPrincipalFilter extends OpenCmsTestCase {
+
+    /**
+     * Tests the configuration parameter enabling the principal filter.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testConfiguration() throws Exception {
+
+        CmsSolrIndex index = new CmsSolrIndex();
+        assertFalse(index.isPrincipalFiltering());
+        assertFalse(index.getConfiguration().containsKey(CmsSolrIndex.PRINCIPAL_FILTER));
+        index.addConfigurationParameter(CmsSolrIndex.PRINCIPAL_FILTER, "true");
+        assertTrue(index.isPrincipalFiltering());
+        assertEquals("true", index.getConfiguration().get(CmsSolrIndex.PRINCIPAL_FILTER));
+    }
+
+    /**
+     * Tests the filter query built for the principals of a user.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFilterQuery() throws Exception {
+
+        CmsUUID user = new CmsUUID();
+        CmsUUID group = new CmsUUID();
+        String query = CmsSolrIndex.getPrincipalFilterQuery(
+            Arrays.asList(user, group, CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID));
+        assertEquals(
+            CmsSearchField.FIELD_READ_PRINCIPALS
+                + ":(\""
+                + user
+                + "\" OR \""
+                + group
+                + "\" OR \""
+                + CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID
+                + "\") OR (*:* -"
+                + CmsSearchField.FIELD_READ_PRINCIPALS
+                + ":[* TO *])",
+            query);
+    }
+
+    /**
+     * Tests the principals indexed in the read principals field of a document.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReadPrincipals() throws Exception {
+
+        CmsUUID resource = new CmsUUID();
+        CmsUUID reader = new CmsUUID();
+        CmsUUID writer = new CmsUUID();
+        CmsUUID denied = new CmsUUID();
+        CmsUUID viewer = new CmsUUID();
+        CmsAccessControlList acl = new CmsAccessControlList();
+        acl.add(new CmsAccessControlEntry(resource, reader, CmsPermissionSet.PERMISSION_READ, 0, 0));
+        acl.add(
+            new CmsAccessControlEntry(
+                resource,
+                writer,
+                CmsPermissionSet.PERMISSION_READ | CmsPermissionSet.PERMISSION_WRITE,
+                0,
+                0));
+        acl.add(
+            new CmsAccessControlEntry(
+                resource,
+                denied,
+                CmsPermissionSet.PERMISSION_READ,
+                CmsPermissionSet.PERMISSION_READ,
+                0));
+        acl.add(new CmsAccessControlEntry(resource, viewer, CmsPermissionSet.PERMISSION_VIEW, 0, 0));
+        acl.add(
+            new CmsAccessControlEntry(
+                resource,
+                CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID,
+                CmsPermissionSet.PERMISSION_READ,
+                0,
+                0));
+
+        List<String> principals = new ArrayList<String>(new CmsSolrFieldConfiguration().getReadPrincipals(acl));
+        Collections.sort(principals);
+        List<String> expected = new ArrayList<String>(
+            Arrays.asList(
+                reader.toString(),
+                writer.toString(),
+                CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID.toString()));
+        Collections.sort(expected);
+        assertEquals(expected, principals);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.search.CmsSearchResource;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocumentList;
+
+/**
+ * Tests the invalidation and the metrics of the Solr result cache.<p>
+ */
+public class TestSolrResultCache extends OpenCmsTestCase {
+
+    /**
+     * Tests that cached results expire after the maximum age.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMaxAge() throws Exception {
+
+        CmsSolrResultCache cache = new CmsSolrResultCache(10, 20);
+        assertNull(cache.get("key", 1));
+        cache.put("key", 1, createResultList(5));
+        assertNotNull(cache.get("key", 1));
+        Thread.sleep(50);
+        assertNull(cache.get("key", 1));
+        assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * Tests that the cached results are copies not affected by changes of the returned lists.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testResultCopies() throws Exception {
+
+        CmsSolrResultCache cache = new CmsSolrResultCache(10, 60000);
+        assertNull(cache.get("key", 1));
+        CmsSolrResultList result = createResultList(5);
+        cache.put("key", 1, result);
+        result.clear();
+
+        CmsSolrResultList cached = cache.get("key", 1);
+        assertEquals(1, cached.size());
+        assertEquals(5, cached.getVisibleHitCount());
+        cached.clear();
+        assertEquals(1, cache.get("key", 1).size());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    /**
+     * Tests that all cached results are discarded as soon as the index version changes.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testVersionInvalidation() throws Exception {
+
+        CmsSolrResultCache cache = new CmsSolrResultCache(10, 60000);
+        assertNull(cache.get("a", 1));
+        cache.put("a", 1, createResultList(1));
+        cache.put("b", 1, createResultList(2));
+        assertEquals(2, cache.getSize());
+        assertNotNull(cache.get("a", 1));
+
+        // a search started before the commit must not discard the cache or add results
+        assertNull(cache.get("a", 0));
+        cache.put("c", 0, createResultList(3));
+        assertEquals(2, cache.getSize());
+
+        // the commit makes a new version visible
+        assertNull(cache.get("a", 2));
+        assertEquals(0, cache.getSize());
+        cache.put("b", 1, createResultList(2));
+        assertEquals(0, cache.getSize());
+        cache.put("b", 2, createResultList(2));
+        assertEquals(1, cache.getSize());
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertNull(cache.get("b", 2));
+        assertEquals(1, cache.getHits());
+    }
+
+    /**
+     * Creates a result list with the given visible hit count and one search resource.<p>
+     *
+     * @param visibleHitCount the visible hit count
+     *
+     * @return the result list
+     */
+    private CmsSolrResultList createResultList(long visibleHitCount) {
+
+        ArrayList<CmsSearchResource> resources = new ArrayList<CmsSearchResource>();
+        resources.add(null);
+        return new CmsSolrResultList(
+            new SolrQuery("*:*"),
+            new QueryResponse(),
+            new SolrDocumentList(),
+            resources,
+            0,
+            Integer.valueOf(10),
+            1,
+            1,
+            visibleHitCount,
+            Float.valueOf(1),
+            System.currentTimeMillis(),
+            0);
+    }
+}
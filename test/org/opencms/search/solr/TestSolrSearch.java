@@ -41,6 +41,7 @@ import org.opencms.report.I_CmsReport;
 import org.opencms.search.CmsSearchIndex;
 import org.opencms.search.CmsSearchResource;
 import org.opencms.search.fields.CmsSearchField;
+import org.opencms.search.galleries.CmsGallerySearchParameters;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.util.CmsRequestUtil;
@@ -49,6 +50,7 @@ import org.opencms.xml.content.CmsXmlContentFactory;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
@@ -56,6 +58,10 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrQuery.ORDER;
@@ -110,6 +116,7 @@ public class TestSolrSearch extends OpenCmsTestCase {
         suite.addTest(new TestSolrSearch("testDocumentBoost"));
         suite.addTest(new TestSolrSearch("testAdvancedFacetting"));
         suite.addTest(new TestSolrSearch("testAdvancedHighlighting"));
+        suite.addTest(new TestSolrSearch("testConcurrentSearches"));
 
         // suite.addTest(new TestSolrSearch("testAdvancedMoreLikeThis"));
         // suite.addTest(new TestSolrSearch("testAdvancedPaging"));
@@ -297,6 +304,70 @@ public class TestSolrSearch extends OpenCmsTestCase {
         // TODO: implement
     }
 
+    /**
+     * Load test executing many gallery and JSP searches in parallel with a limited number of concurrent searches.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testConcurrentSearches() throws Throwable {
+
+        echo("Testing many parallel gallery and JSP searches");
+        final CmsSolrIndex index = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE);
+        final CmsObject cms = getCmsObject();
+        final String query = "q=content_en:opencms meta_en:opencms";
+        final int jspHits = index.search(cms, query).size();
+        final int galleryHits = index.gallerySearch(cms, createGallerySearchParameters()).size();
+        assertTrue(jspHits > 0);
+
+        int threads = 16;
+        int searches = 400;
+        CmsSolrSearchLimiter previousLimiter = index.getSearchLimiter();
+        CmsSolrSearchLimiter limiter = new CmsSolrSearchLimiter(4, 60000);
+        index.setSearchLimiter(limiter);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.currentTimeMillis();
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < searches; i++) {
+                final boolean gallery = (i % 2) == 0;
+                results.add(executor.submit(new Callable<Boolean>() {
+
+                    public Boolean call() throws Exception {
+
+                        CmsObject searchCms = OpenCms.initCmsObject(cms);
+                        if (gallery) {
+                            return Boolean.valueOf(
+                                index.gallerySearch(searchCms, createGallerySearchParameters()).size() == galleryHits);
+                        }
+                        return Boolean.valueOf(index.search(searchCms, query).size() == jspHits);
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue("Parallel search returned an unexpected result", result.get().booleanValue());
+            }
+        } finally {
+            executor.shutdown();
+            index.setSearchLimiter(previousLimiter);
+        }
+        echo(
+            "Executed "
+                + searches
+                + " searches in "
+                + (System.currentTimeMillis() - start)
+                + " ms, "
+                + limiter.getQueuedSearches()
+                + " queued, average queue time "
+                + limiter.getAverageQueueTime()
+                + " ms, max queue time "
+                + limiter.getMaxQueueTime()
+                + " ms");
+        // the gallery searches are executed as searches of the index as well
+        assertEquals(searches, limiter.getSearches());
+        assertEquals(0, limiter.getActiveSearches());
+        assertEquals(0, limiter.getRejectedSearches());
+    }
+
     /**
      * @throws Throwable if something goes wrong
      */
@@ -1039,6 +1110,18 @@ public class TestSolrSearch extends OpenCmsTestCase {
         // assertEquals("/sites/default/xmlcontent/article_0004.html", ((CmsSearchResult)results.get(1)).getPath());
     }
 
+    /**
+     * Creates the parameters for a gallery search for "OpenCms".<p>
+     *
+     * @return the gallery search parameters
+     */
+    private CmsGallerySearchParameters createGallerySearchParameters() {
+
+        CmsGallerySearchParameters params = new CmsGallerySearchParameters();
+        params.setSearchWords("OpenCms");
+        return params;
+    }
+
     /**
      * Internal helper for test with same name.<p>
      *
@@ -1079,4 +1162,4 @@ public class TestSolrSearch extends OpenCmsTestCase {
 
         assertEquals(expected, results.size());
     }
-}
\ No newline at end of file
+}
@@ -58,8 +58,14 @@ public final class AllTests {
         TestSuite suite = new TestSuite("Tests for package " + AllTests.class.getPackage().getName());
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
+        suite.addTest(new TestSuite(TestCmsLinkProcessor.class));
+        suite.addTest(new TestSuite(TestCmsOnDemandExportLimiter.class));
+        suite.addTest(new TestSuite(TestCmsPrefixPatternMatcher.class));
         suite.addTest(TestCmsLinkManager.suite());
+        suite.addTest(new TestSuite(TestCmsStaticExportDependencyIndex.class));
+        suite.addTest(new TestSuite(TestCmsStaticExportFileWriter.class));
         suite.addTest(TestCmsStaticExportManager.suite());
+        suite.addTest(new TestSuite(TestCmsStaticExportWorkerPool.class));
         suite.addTest(TestExportFile.suite());
         suite.addTest(TestSecure.suite());
         suite.addTest(TestCmsExternalLinksValidator.suite());
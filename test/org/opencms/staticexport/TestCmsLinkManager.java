@@ -29,11 +29,14 @@ package org.opencms.staticexport;
 
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.file.types.CmsResourceTypeXmlPage;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.main.CmsException;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
@@ -83,6 +86,7 @@ public class TestCmsLinkManager extends OpenCmsTestCase {
 
         suite1.addTest(new TestCmsLinkManager("testToAbsolute"));
         suite1.addTest(new TestCmsLinkManager("testLinkSubstitution"));
+        suite1.addTest(new TestCmsLinkManager("testLinkSubstitutionCache"));
         suite1.addTest(new TestCmsLinkManager("testSymmetricSubstitution"));
         suite1.addTest(new TestCmsLinkManager("testCustomLinkHandler"));
         suite1.addTest(new TestCmsLinkManager("testRootPathAdjustment"));
@@ -367,6 +371,53 @@ public class TestCmsLinkManager extends OpenCmsTestCase {
         assertEquals("./", test);
     }
 
+    /**
+     * Tests the cache for substituted links in the online project.<p>
+     *
+     * @throws Exception if test fails
+     */
+    public void testLinkSubstitutionCache() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the link substitution cache");
+
+        CmsLinkManager linkManager = OpenCms.getLinkManager();
+        String link = "/folder1/index.html?additionalParam";
+
+        // links are not cached in an offline project
+        long misses = linkManager.getLinkCacheMisses();
+        linkManager.substituteLink(cms, link, "/sites/default");
+        assertEquals(misses, linkManager.getLinkCacheMisses());
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+        cms.getRequestContext().setCurrentProject(cms.readProject("Online"));
+        OpenCms.fireCmsEvent(I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES, null);
+        assertEquals(0, linkManager.getLinkCacheSize());
+
+        long hits = linkManager.getLinkCacheHits();
+        String expected = linkManager.substituteLink(cms, link, "/sites/default");
+        assertEquals(getVfsPrefix() + link, expected);
+        assertEquals(misses + 1, linkManager.getLinkCacheMisses());
+        assertEquals(1, linkManager.getLinkCacheSize());
+        assertEquals(expected, linkManager.substituteLink(cms, link, "/sites/default"));
+        assertEquals(expected, linkManager.substituteLinkForRootPath(cms, "/sites/default" + link));
+        assertEquals(hits + 2, linkManager.getLinkCacheHits());
+
+        // relative links depend on the current URI
+        cms.getRequestContext().setUri("/folder1/page1.html");
+        assertEquals(getVfsPrefix() + "/folder1/page2.html", linkManager.substituteLink(cms, "page2.html"));
+        cms.getRequestContext().setUri("/index.html");
+        assertEquals(getVfsPrefix() + "/page2.html", linkManager.substituteLink(cms, "page2.html"));
+        assertEquals(3, linkManager.getLinkCacheSize());
+
+        // publishing clears the cache
+        cms.getRequestContext().setCurrentProject(offlineProject);
+        cms.createResource("/linkcache.txt", CmsResourceTypePlain.getStaticTypeId());
+        OpenCms.getPublishManager().publishResource(cms, "/linkcache.txt");
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertEquals(0, linkManager.getLinkCacheSize());
+    }
+
     /**
      * @throws Exception if tests fail
      * @see #testLinkSubstitution()
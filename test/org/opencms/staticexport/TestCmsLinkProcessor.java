@@ -0,0 +1,109 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.relations.CmsRelationType;
+import org.opencms.test.OpenCmsTestCase;
+
+/**
+ * Compares the streaming link processing with the HTML parser based link processing.<p>
+ */
+public class TestCmsLinkProcessor extends OpenCmsTestCase {
+
+    /** HTML fragments containing link macros. */
+    private static final String[] FRAGMENTS = new String[] {
+        "<p>Text <a href=\"%(link0)\">link</a> and <img src=\"%(link1)\" alt=\"x\" /></p>",
+        "<a href='%(link0)' title='a>b'>x</a>",
+        "<A HREF = \"%(link0)\" >x</A>",
+        "<a href=%(link2)>x</a> <a href=%(link0)>y</a>",
+        "<object codebase=\"%(link0)\" data=\"%(link1)\"><param name=\"movie\" value=\"%(link3)\"></object>",
+        "<object data=\"%(link1)\"><param name=\"x\" value=\"%(link0)\"/></object><param value=\"%(link0)\">",
+        "<embed src=\"%(link0)\" pluginspage=\"%(link1)\" pluginurl=\"%(unknown)\">",
+        "<map><area shape=\"rect\" href=\"%(link0)\"><area nohref></map>",
+        "<script>document.write('<a href=\"%(link0)\">');</script><style>a{}</style><!-- <img src=\"%(link0)\"> -->",
+        "<div><img src=\"%(link1)\"><br><a href=\"%(link0)\" href=\"%(link1)\">dup</a><a href>none</a></div>",
+        "<p>a < b and a<b>bold</b> <a\nhref=\"%(link0)\"\n>x</a> <a href=\"${link1}\">old</a></p>"};
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsLinkProcessor(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the streaming link processing creates the same result as the HTML parser.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStreamingProcessLinks() throws Exception {
+
+        CmsLinkProcessor streaming = createProcessor(true);
+        CmsLinkProcessor parser = createProcessor(false);
+        assertTrue(streaming.isStreaming());
+        assertFalse(parser.isStreaming());
+        for (String fragment : FRAGMENTS) {
+            assertEquals(fragment, parser.processLinks(fragment), streaming.processLinks(fragment));
+        }
+
+        String result = streaming.processLinks(FRAGMENTS[0]);
+        assertEquals(
+            "<p>Text <a href=\"/sites/default/index.html?a=1&amp;b=2\">link</a> and <img src=\"/sites/default/image.png\" alt=\"x\" /></p>",
+            result);
+        assertEquals(
+            "<a href=\"http://www.alkacon.com/a b\">x</a> <a href=/sites/default/index.html?a=1&amp;b=2>y</a>",
+            streaming.processLinks(FRAGMENTS[3]));
+
+        // content without link macros is returned unchanged
+        String plain = "<p>No <a href=\"/index.html\">links</a> to replace</p>";
+        assertSame(plain, streaming.processLinks(plain));
+    }
+
+    /**
+     * Creates a link processor with a link table containing internal and external links.<p>
+     *
+     * @param streaming if the streaming tokenizer is used
+     *
+     * @return the link processor
+     */
+    private CmsLinkProcessor createProcessor(boolean streaming) {
+
+        CmsLinkTable linkTable = new CmsLinkTable();
+        linkTable.addLink(CmsRelationType.HYPERLINK, "/sites/default/index.html?a=1&b=2", true);
+        linkTable.addLink(CmsRelationType.EMBEDDED_IMAGE, "/sites/default/image.png", true);
+        linkTable.addLink(CmsRelationType.HYPERLINK, "http://www.alkacon.com/a b", false);
+        linkTable.addLink(CmsRelationType.EMBEDDED_OBJECT, "/sites/default/movie.swf", true);
+        CmsLinkProcessor processor = new CmsLinkProcessor(null, linkTable, CmsEncoder.ENCODING_UTF_8, null);
+        processor.setStreaming(streaming);
+        return processor;
+    }
+}
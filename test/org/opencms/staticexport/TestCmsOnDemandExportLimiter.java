@@ -0,0 +1,144 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Tests the limiter of the exports on demand.<p>
+ */
+public class TestCmsOnDemandExportLimiter extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsOnDemandExportLimiter(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that requests are rejected if the queue is full or no slot gets free in time.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testQueueLimit() throws Exception {
+
+        final CmsOnDemandExportLimiter limiter = new CmsOnDemandExportLimiter(1, 1, 2000);
+        assertTrue(limiter.acquire());
+        assertEquals(1, limiter.getActiveRenders());
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger acquired = new AtomicInteger();
+        Thread waiting = new Thread() {
+
+            @Override
+            public void run() {
+
+                started.countDown();
+                if (limiter.acquire()) {
+                    acquired.incrementAndGet();
+                    limiter.release();
+                }
+            }
+        };
+        waiting.start();
+        started.await();
+        while (limiter.getQueueLength() == 0) {
+            Thread.sleep(5);
+        }
+        // the queue is full
+        assertFalse(limiter.acquire());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release();
+        waiting.join();
+        assertEquals(1, acquired.get());
+        assertEquals(0, limiter.getQueueLength());
+        assertEquals(0, limiter.getActiveRenders());
+
+        // no slot gets free in time
+        CmsOnDemandExportLimiter timeout = new CmsOnDemandExportLimiter(1, 1, 10);
+        assertTrue(timeout.acquire());
+        assertFalse(timeout.acquire());
+        assertEquals(1, timeout.getRejected());
+    }
+
+    /**
+     * Tests that concurrent requests for the same RFS name wait for the first export and get its content.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSingleFlight() throws Exception {
+
+        final CmsOnDemandExportLimiter limiter = new CmsOnDemandExportLimiter(4, 4, 10000);
+        CmsOnDemandExportLimiter.Flight flight = limiter.beginFlight("/index.html");
+        assertTrue(flight.isLeader());
+        assertSame(flight, limiter.beginFlight("/index.html"));
+        assertNotSame(flight, limiter.beginFlight("/other.html"));
+        assertEquals(2, limiter.getInFlight());
+
+        final byte[] content = "<p>exported</p>".getBytes();
+        final AtomicInteger delivered = new AtomicInteger();
+        Thread[] followers = new Thread[3];
+        for (int i = 0; i < followers.length; i++) {
+            final CmsOnDemandExportLimiter.Flight running = limiter.beginFlight("/index.html");
+            followers[i] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    if (!running.isLeader() && (limiter.waitFor(running) == content)) {
+                        delivered.incrementAndGet();
+                    }
+                }
+            };
+            followers[i].start();
+        }
+        Thread.sleep(20);
+        flight.setContent(content, "text/html");
+        limiter.endFlight("/index.html", flight, HttpServletResponse.SC_OK);
+        for (int i = 0; i < followers.length; i++) {
+            followers[i].join();
+        }
+        assertEquals(3, delivered.get());
+        assertEquals(3, limiter.getJoined());
+        assertEquals(HttpServletResponse.SC_OK, flight.getStatus());
+        assertEquals(1, limiter.getInFlight());
+
+        // a finished export is not joined, the next request exports again
+        assertTrue(limiter.beginFlight("/index.html").isLeader());
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the prefix tree based matching of the rfs rule sources with evaluating all expressions in order.<p>
+ */
+public class TestCmsPrefixPatternMatcher extends OpenCmsTestCase {
+
+    /** The number of rfs rules used for the tests. */
+    private static final int RULES = 200;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsPrefixPatternMatcher(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the first matching expression is found in the order of the list.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testIndexOfFirstMatch() throws Exception {
+
+        List<Pattern> patterns = createPatterns();
+        CmsPrefixPatternMatcher matcher = new CmsPrefixPatternMatcher(patterns);
+        for (String name : createNames()) {
+            assertEquals(name, indexOfFirstMatch(patterns, name), matcher.indexOfFirstMatch(name));
+        }
+
+        List<Pattern> ordered = new ArrayList<Pattern>();
+        ordered.add(Pattern.compile("/sites/default/en/news/.*"));
+        ordered.add(Pattern.compile(".*\\.pdf"));
+        ordered.add(Pattern.compile("/sites/default/.*"));
+        ordered.add(Pattern.compile("/sites/default/en/.*"));
+        matcher = new CmsPrefixPatternMatcher(ordered);
+        assertEquals(0, matcher.indexOfFirstMatch("/sites/default/en/news/a.pdf"));
+        assertEquals(1, matcher.indexOfFirstMatch("/sites/default/en/a.pdf"));
+        assertEquals(2, matcher.indexOfFirstMatch("/sites/default/en/a.html"));
+        assertEquals(1, matcher.indexOfFirstMatch("/shared/a.pdf"));
+        assertEquals(-1, matcher.indexOfFirstMatch("/shared/a.html"));
+        assertEquals(-1, new CmsPrefixPatternMatcher(new ArrayList<Pattern>()).indexOfFirstMatch("/a"));
+    }
+
+    /**
+     * Tests the calculation of the literal prefix of a regular expression.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLiteralPrefix() throws Exception {
+
+        assertEquals("/sites/default/", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/default/.*")));
+        assertEquals("/sites/default", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("^/sites/default")));
+        assertEquals("/sites/de", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/def?ault/.*")));
+        assertEquals("/sites/de", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/def*ault/.*")));
+        assertEquals("/sites/de", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/def{0,1}/.*")));
+        assertEquals("/sites/def", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/def+/.*")));
+        assertEquals("/sites/", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/(de|en)/.*")));
+        assertEquals("/sites/", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/\\w+/.*")));
+        assertEquals("", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/a|/sites/b")));
+        assertEquals("", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/(a)|[(]b")));
+        assertEquals("/sites/", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/[|(]\\|x")));
+        assertEquals("", CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile(".*\\.pdf")));
+        assertEquals(
+            "",
+            CmsPrefixPatternMatcher.getLiteralPrefix(Pattern.compile("/sites/.*", Pattern.CASE_INSENSITIVE)));
+    }
+
+    /**
+     * Creates names of resources matched by none, one or several of the test expressions.<p>
+     *
+     * @return the names
+     */
+    private List<String> createNames() {
+
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < RULES; i += 3) {
+            names.add("/sites/site" + i + "/index.html");
+            names.add("/sites/site" + i + "/en/news/article" + i + ".html");
+            names.add("/sites/site" + i + "/files/document" + i + ".pdf");
+            names.add("/sites/other" + i + "/index.html");
+        }
+        names.add("/system/modules/org.opencms.test/resources/style.css");
+        names.add("/shared/image.png");
+        names.add("/");
+        names.add("");
+        return names;
+    }
+
+    /**
+     * Creates the source expressions of 200 rfs rules, similar to the rules of a system with many sites.<p>
+     *
+     * @return the expressions
+     */
+    private List<Pattern> createPatterns() {
+
+        List<Pattern> patterns = new ArrayList<Pattern>();
+        for (int i = 0; patterns.size() < RULES; i++) {
+            switch (i % 4) {
+                case 0:
+                    patterns.add(Pattern.compile("/sites/site" + i + "/en/.*"));
+                    break;
+                case 1:
+                    patterns.add(Pattern.compile("/sites/site" + (i - 1) + "/.*"));
+                    break;
+                case 2:
+                    patterns.add(Pattern.compile("/sites/site" + i + "/(de|en)/news/.*"));
+                    break;
+                default:
+                    patterns.add(Pattern.compile("/sites/site" + (i / 2) + "/files/.*\\.pdf"));
+            }
+        }
+        // expressions without literal prefix are evaluated for all names
+        patterns.add(RULES / 2, Pattern.compile(".*\\.css"));
+        patterns.remove(patterns.size() - 1);
+        return patterns;
+    }
+
+    /**
+     * Returns the index of the first of the given expressions matching the given name.<p>
+     *
+     * @param patterns the expressions
+     * @param name the name
+     *
+     * @return the index of the first matching expression, or <code>-1</code> if none matches
+     */
+    private int indexOfFirstMatch(List<Pattern> patterns, String name) {
+
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).matcher(name).matches()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Tests the index of the exported files and their dependencies.<p>
+ */
+public class TestCmsStaticExportDependencyIndex extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsStaticExportDependencyIndex(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the dependents of changed resources are found and removed.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDependents() throws Exception {
+
+        CmsStaticExportDependencyIndex index = createIndex();
+        assertEquals(
+            new HashSet<String>(Arrays.asList("/sites/default/index.html", "/sites/default/news.html")),
+            index.getDependents(Collections.singletonList("/system/modules/template/main.jsp")));
+        assertEquals(
+            Collections.singleton("/sites/default/news.html"),
+            index.getDependents(Collections.singletonList("/sites/default/.content/news_1.xml")));
+        assertTrue(index.getDependents(Collections.singletonList("/sites/default/other.html")).isEmpty());
+
+        // a removed resource is no longer a dependent of its former dependencies
+        assertEquals(
+            new HashSet<String>(Arrays.asList("/export/news.html", "/export/news_123.html")),
+            index.removeResource("/sites/default/news.html"));
+        assertTrue(index.getFiles("/sites/default/news.html").isEmpty());
+        assertTrue(index.getDependents(Collections.singletonList("/sites/default/.content/news_1.xml")).isEmpty());
+        assertEquals(
+            Collections.singleton("/sites/default/index.html"),
+            index.getDependents(Collections.singletonList("/system/modules/template/main.jsp")));
+        assertTrue(index.removeResource("/sites/default/news.html").isEmpty());
+
+        // new dependencies replace the previous ones
+        index.setDependencies("/sites/default/index.html", Collections.singletonList("/sites/default/teaser.xml"));
+        assertTrue(index.getDependents(Collections.singletonList("/system/modules/template/main.jsp")).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * Tests moving the exported files to another folder.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRelocate() throws Exception {
+
+        CmsStaticExportDependencyIndex index = createIndex();
+        index.addFile("/sites/default/other.html", "/export2/other.html");
+        index.relocate("/export/", "/online/");
+        assertEquals(Collections.singleton("/online/index.html"), index.getFiles("/sites/default/index.html"));
+        assertEquals(
+            new HashSet<String>(Arrays.asList("/online/news.html", "/online/news_123.html")),
+            index.getFiles("/sites/default/news.html"));
+        assertEquals(Collections.singleton("/export2/other.html"), index.getFiles("/sites/default/other.html"));
+    }
+
+    /**
+     * Tests writing and reading the index file.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testWriteAndRead() throws Exception {
+
+        CmsStaticExportDependencyIndex index = createIndex();
+        index.setComplete(true);
+        assertTrue(index.isModified());
+        File file = File.createTempFile("dependencies", ".idx");
+        try {
+            index.write(file);
+            assertFalse(index.isModified());
+
+            CmsStaticExportDependencyIndex read = new CmsStaticExportDependencyIndex();
+            read.read(file);
+            assertFalse(read.isModified());
+            assertTrue(read.isComplete());
+            assertEquals(2, read.size());
+            assertEquals(index.getFiles("/sites/default/news.html"), read.getFiles("/sites/default/news.html"));
+            assertEquals(
+                index.getDependents(Collections.singletonList("/system/modules/template/main.jsp")),
+                read.getDependents(Collections.singletonList("/system/modules/template/main.jsp")));
+
+            // a missing file results in an empty, incomplete index
+            assertTrue(file.delete());
+            read.read(file);
+            assertEquals(0, read.size());
+            assertFalse(read.isComplete());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Creates an index with two exported resources.<p>
+     *
+     * @return the index
+     */
+    private CmsStaticExportDependencyIndex createIndex() {
+
+        CmsStaticExportDependencyIndex index = new CmsStaticExportDependencyIndex();
+        index.addFile("/sites/default/index.html", "/export/index.html");
+        index.addFile("/sites/default/news.html", "/export/news.html");
+        index.addFile("/sites/default/news.html", "/export/news_123.html");
+        index.setDependencies(
+            "/sites/default/index.html",
+            Arrays.asList("/system/modules/template/main.jsp", "/sites/default/index.html"));
+        index.setDependencies(
+            "/sites/default/news.html",
+            Arrays.asList("/system/modules/template/main.jsp", "/sites/default/.content/news_1.xml"));
+        return index;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tests the writer for the files of the static export.<p>
+ */
+public class TestCmsStaticExportFileWriter extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsStaticExportFileWriter(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests writing the compressed copies of the exported files.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCompressedCopies() throws Exception {
+
+        File folder = createFolder();
+        CmsStaticExportFileWriter writer = new CmsStaticExportFileWriter(true);
+        try {
+            assertTrue(writer.isCompressionEnabled());
+            File page = new File(folder, "index.html");
+            byte[] content = createContent(4096);
+            writer.write(page, content, "text/html; charset=UTF-8", 1000000L);
+            writer.flush();
+            File compressed = new File(folder, "index.html" + CmsStaticExportFileWriter.SUFFIX_GZIP);
+            assertTrue(compressed.exists());
+            assertEquals(1000000L, compressed.lastModified());
+            byte[] uncompressed = CmsFileUtil.readFully(
+                new GZIPInputStream(new ByteArrayInputStream(CmsFileUtil.readFile(compressed))));
+            assertTrue(Arrays.equals(content, uncompressed));
+            assertEquals(1, writer.getCompressedFiles());
+            assertEquals(compressed.length(), writer.getCompressedBytes());
+
+            // small and binary files are not compressed, and an outdated copy is removed
+            writer.write(page, "<p>small</p>".getBytes(), "text/html", -1);
+            writer.write(new File(folder, "image.png"), content, "image/png", -1);
+            writer.flush();
+            assertFalse(compressed.exists());
+            assertFalse(new File(folder, "image.png" + CmsStaticExportFileWriter.SUFFIX_GZIP).exists());
+            assertEquals(1, writer.getCompressedFiles());
+            assertEquals(3, writer.getWrittenFiles());
+            assertEquals(2, folder.list().length);
+        } finally {
+            writer.shutdown();
+            CmsFileUtil.purgeDirectory(folder);
+        }
+    }
+
+    /**
+     * Tests that no outdated compressed copies are written if more files are written than copies can be queued.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testOutdatedCompressedCopies() throws Exception {
+
+        File folder = createFolder();
+        CmsStaticExportFileWriter writer = new CmsStaticExportFileWriter(true);
+        try {
+            int count = 4 * CmsStaticExportFileWriter.MAX_PENDING_COMPRESSIONS;
+            byte[] content = createContent(4096);
+            for (int i = 0; i < count; i++) {
+                writer.write(new File(folder, "page" + i + ".html"), content, "text/html", -1);
+            }
+            // replace every second file with content that is not compressed before the copies are written
+            for (int i = 0; i < count; i += 2) {
+                writer.write(new File(folder, "page" + i + ".html"), "<p>small</p>".getBytes(), "text/html", -1);
+            }
+            writer.flush();
+            for (int i = 0; i < count; i++) {
+                File compressed = new File(folder, "page" + i + ".html" + CmsStaticExportFileWriter.SUFFIX_GZIP);
+                assertEquals(compressed.getName(), (i % 2) == 1, compressed.exists());
+            }
+            assertEquals(count + (count / 2), folder.list().length);
+            assertTrue(writer.getCompressedFiles() >= (count / 2));
+            assertEquals(count + (count / 2), writer.getWrittenFiles());
+
+            writer.resetStatistics();
+            assertEquals(0, writer.getWrittenFiles());
+            assertEquals(0, writer.getWrittenBytes());
+            assertEquals(0, writer.getCompressedFiles());
+            assertEquals(0, writer.getCompressedBytes());
+        } finally {
+            writer.shutdown();
+            CmsFileUtil.purgeDirectory(folder);
+        }
+    }
+
+    /**
+     * Tests that exported files are replaced without leaving temporary files behind.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testWrite() throws Exception {
+
+        File folder = createFolder();
+        CmsStaticExportFileWriter writer = new CmsStaticExportFileWriter(false);
+        try {
+            assertFalse(writer.isCompressionEnabled());
+            File page = new File(folder, "index.html");
+            writer.write(page, createContent(4096), "text/html", 2000000L);
+            writer.write(page, "<p>new</p>".getBytes(), "text/html", 3000000L);
+            writer.flush();
+            assertEquals("<p>new</p>", new String(CmsFileUtil.readFile(page)));
+            assertEquals(3000000L, page.lastModified());
+            assertEquals(1, folder.list().length);
+            assertEquals(2, writer.getWrittenFiles());
+            assertEquals(4096 + 10, writer.getWrittenBytes());
+            assertEquals(0, writer.getCompressedFiles());
+        } finally {
+            writer.shutdown();
+            CmsFileUtil.purgeDirectory(folder);
+        }
+    }
+
+    /**
+     * Creates some compressible HTML content.<p>
+     *
+     * @param size the size of the content
+     *
+     * @return the content
+     */
+    private byte[] createContent(int size) {
+
+        StringBuffer result = new StringBuffer(size);
+        while (result.length() < size) {
+            result.append("<p>Exported content ").append(result.length()).append("</p>\n");
+        }
+        result.setLength(size);
+        return result.toString().getBytes();
+    }
+
+    /**
+     * Creates an empty temporary folder.<p>
+     *
+     * @return the folder
+     *
+     * @throws Exception if creating the folder fails
+     */
+    private File createFolder() throws Exception {
+
+        File folder = File.createTempFile("export", "");
+        folder.delete();
+        folder.mkdirs();
+        return folder;
+    }
+}
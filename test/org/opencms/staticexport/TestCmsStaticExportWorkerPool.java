@@ -0,0 +1,203 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.report.CmsPrintStreamReport;
+import org.opencms.report.I_CmsReport;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Tests the worker pool of the after publish static export.<p>
+ */
+public class TestCmsStaticExportWorkerPool extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsStaticExportWorkerPool(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that a failed job is reported and does not stop the other jobs.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testErrors() throws Exception {
+
+        CmsStaticExportWorkerPool pool = new CmsStaticExportWorkerPool(2, 2);
+        final AtomicInteger exported = new AtomicInteger();
+        try {
+            I_CmsReport report = createReport();
+            pool.addJob("/request.html", "/request.html", "localhost", "/request.html", new Callable<Integer>() {
+
+                public Integer call() throws IOException {
+
+                    throw new IOException("request failed");
+                }
+            });
+            for (int i = 0; i < 3; i++) {
+                String rfsName = "/file" + i + ".pdf";
+                pool.addJob(rfsName, rfsName, null, rfsName, new Callable<Integer>() {
+
+                    public Integer call() {
+
+                        exported.incrementAndGet();
+                        return new Integer(HttpServletResponse.SC_OK);
+                    }
+                });
+            }
+            pool.execute(report);
+            assertEquals(4, pool.getCompleted());
+            assertEquals(3, exported.get());
+            assertTrue(report.hasError());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that the number of parallel requests per host is limited.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testHostLimit() throws Exception {
+
+        CmsStaticExportWorkerPool pool = new CmsStaticExportWorkerPool(6, 2);
+        assertEquals(6, pool.getWorkers());
+        assertEquals(2, pool.getWorkersPerHost());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            for (int i = 0; i < 12; i++) {
+                String rfsName = "/page" + i + ".html";
+                pool.addJob(rfsName, rfsName, "localhost:8080", rfsName, new Callable<Integer>() {
+
+                    public Integer call() throws Exception {
+
+                        int current = running.incrementAndGet();
+                        synchronized (maxRunning) {
+                            maxRunning.set(Math.max(maxRunning.get(), current));
+                        }
+                        Thread.sleep(20);
+                        running.decrementAndGet();
+                        return new Integer(HttpServletResponse.SC_OK);
+                    }
+                });
+            }
+            I_CmsReport report = createReport();
+            pool.execute(report);
+            assertEquals(12, pool.getCompleted());
+            assertEquals(12, pool.getTotal());
+            assertTrue("Too many parallel requests: " + maxRunning.get(), maxRunning.get() <= 2);
+            assertFalse(report.hasError());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that RFS names are exported once and resources from the publish list are exported first.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPriorityAndDeduplication() throws Exception {
+
+        CmsStaticExportWorkerPool pool = new CmsStaticExportWorkerPool(1, 1);
+        pool.setPublishedPaths(Arrays.asList("/sites/default/b.html", "/sites/default/d.html"));
+        final List<String> exported = Collections.synchronizedList(new ArrayList<String>());
+        try {
+            String[] names = new String[] {"a", "b", "c", "d", "b"};
+            for (int i = 0; i < names.length; i++) {
+                final String vfsName = "/sites/default/" + names[i] + ".html";
+                boolean added = pool.addJob("/" + names[i] + ".html", vfsName, null, vfsName, new Callable<Integer>() {
+
+                    public Integer call() {
+
+                        exported.add(vfsName);
+                        return new Integer(HttpServletResponse.SC_OK);
+                    }
+                });
+                // only the second job for "b" is a duplicate
+                assertEquals(i < 4, added);
+            }
+            assertTrue(exported.isEmpty());
+            pool.execute(createReport());
+            assertEquals(
+                Arrays.asList(
+                    "/sites/default/b.html",
+                    "/sites/default/d.html",
+                    "/sites/default/a.html",
+                    "/sites/default/c.html"),
+                exported);
+            assertEquals(4, pool.getTotal());
+
+            // RFS names exported in a previous batch are not exported again
+            assertFalse(pool.addJob("/a.html", "/sites/default/a.html", null, "/a.html", null));
+            assertTrue(pool.addJob("/a_1.html", "/sites/default/a.html", null, "/a_1.html", new Callable<Integer>() {
+
+                public Integer call() {
+
+                    exported.add("/a_1.html");
+                    return new Integer(HttpServletResponse.SC_NOT_MODIFIED);
+                }
+            }));
+            pool.execute(createReport());
+            assertEquals(5, exported.size());
+            assertEquals(1, pool.getTotal());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Creates a report writing to a buffer.<p>
+     *
+     * @return the report
+     */
+    private I_CmsReport createReport() {
+
+        return new CmsPrintStreamReport(new PrintStream(new ByteArrayOutputStream()), Locale.ENGLISH, false);
+    }
+}
@@ -881,6 +881,10 @@ public class OpenCmsTestCase extends TestCase {
         if (path != null) {
             CmsFileUtil.purgeDirectory(new File(path));
         }
+        path = getTestDataPath("WEB-INF/staticexport/");
+        if (path != null) {
+            CmsFileUtil.purgeDirectory(new File(path));
+        }
 
         printInfoBox(new String[] {"Finished OpenCms test class:", testName});
     }
@@ -0,0 +1,126 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.test.performance;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.relations.CmsRelationType;
+import org.opencms.staticexport.CmsLinkProcessor;
+import org.opencms.staticexport.CmsLinkTable;
+import org.opencms.test.OpenCmsTestCase;
+
+/**
+ * Compares the performance of the streaming link processing with the HTML parser based link processing.<p>
+ *
+ * This benchmark is not part of the regular test suites and has to be run explicitly.<p>
+ */
+public class TestLinkProcessorPerformance extends OpenCmsTestCase {
+
+    /** The number of processed fields per measured run. */
+    private static final int ITERATIONS = 20;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestLinkProcessorPerformance(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the streaming link processing of a large rich text field is at least twice as fast
+     * as the HTML parser.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStreamingFasterThanParser() throws Exception {
+
+        StringBuffer html = new StringBuffer(512 * 1024);
+        for (int i = 0; i < 2000; i++) {
+            html.append("<h2>Heading ").append(i).append("</h2>\n");
+            html.append("<p class=\"text\">Some <strong>rich</strong> text with a <a href=\"%(link0)\" ");
+            html.append("title=\"Link ").append(i).append("\">link</a> and an image ");
+            html.append("<img src=\"%(link1)\" alt=\"Image\" width=\"100\" height=\"50\" /> as well as ");
+            html.append("<a href=\"http://www.opencms.org/\" target=\"_blank\">an external link</a>.</p>\n");
+            html.append("<table><tr><td>Cell</td><td><span style=\"color: red;\">red</span></td></tr></table>\n");
+        }
+        String content = html.toString();
+        CmsLinkProcessor streaming = createProcessor(true);
+        CmsLinkProcessor parser = createProcessor(false);
+        assertEquals(parser.processLinks(content), streaming.processLinks(content));
+
+        long streamingTime = 0;
+        long parserTime = 0;
+        // run twice to warm up the JIT, only the second run is measured
+        for (int run = 0; run < 2; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                streaming.processLinks(content);
+            }
+            streamingTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                parser.processLinks(content);
+            }
+            parserTime = System.nanoTime() - start;
+        }
+        System.out.println(
+            "Processed "
+                + ITERATIONS
+                + " fields with "
+                + content.length()
+                + " chars: streaming "
+                + (streamingTime / 1000000)
+                + " msecs, HTML parser "
+                + (parserTime / 1000000)
+                + " msecs");
+        assertTrue(
+            "Streaming " + streamingTime + " ns, HTML parser " + parserTime + " ns",
+            (2 * streamingTime) < parserTime);
+    }
+
+    /**
+     * Creates a link processor with a link table containing internal and external links.<p>
+     *
+     * @param streaming if the streaming tokenizer is used
+     *
+     * @return the link processor
+     */
+    private CmsLinkProcessor createProcessor(boolean streaming) {
+
+        CmsLinkTable linkTable = new CmsLinkTable();
+        linkTable.addLink(CmsRelationType.HYPERLINK, "/sites/default/index.html?a=1&b=2", true);
+        linkTable.addLink(CmsRelationType.EMBEDDED_IMAGE, "/sites/default/image.png", true);
+        linkTable.addLink(CmsRelationType.HYPERLINK, "http://www.alkacon.com/a b", false);
+        linkTable.addLink(CmsRelationType.EMBEDDED_OBJECT, "/sites/default/movie.swf", true);
+        CmsLinkProcessor processor = new CmsLinkProcessor(null, linkTable, CmsEncoder.ENCODING_UTF_8, null);
+        processor.setStreaming(streaming);
+        return processor;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.test.performance;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.OpenCms;
+import org.opencms.staticexport.CmsStaticExportManager;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Measures the rfs rule lookups of the static export with many rfs rules.<p>
+ *
+ * The export data of a requested rfs name, as returned by
+ * {@link CmsStaticExportManager#getExportData(javax.servlet.http.HttpServletRequest, CmsObject)},
+ * and the rfs prefix and export path of a resource, as used by
+ * {@link CmsStaticExportManager#getRfsName(CmsObject, String)}, are looked up for every exported file.<p>
+ *
+ * This benchmark is not part of the regular test suites and has to be run explicitly.<p>
+ */
+public class TestStaticExportRulesPerformance extends OpenCmsTestCase {
+
+    /** The number of measured lookups of all resources. */
+    private static final int ITERATIONS = 200;
+
+    /** The number of added rfs rules. */
+    private static final int RULES = 200;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestStaticExportRulesPerformance(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestStaticExportRulesPerformance.class.getName());
+
+        suite.addTest(new TestStaticExportRulesPerformance("testRfsRules"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that 200 rfs rules not matching the exported resources make the lookups of the
+     * export data, the rfs prefixes and the export paths less than twice as slow.<p>
+     *
+     * Evaluating the sources of all 200 rules for each lookup is about four times as slow.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRfsRules() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the static export lookups with " + RULES + " rfs rules");
+        cms.getRequestContext().setCurrentProject(cms.readProject("Online"));
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        List<String> vfsNames = new ArrayList<String>();
+        List<String> rfsNames = new ArrayList<String>();
+        for (CmsResource resource : cms.readResources("/", CmsResourceFilter.DEFAULT_FILES)) {
+            vfsNames.add(resource.getRootPath());
+            rfsNames.add(manager.getRfsName(cms, cms.getSitePath(resource)));
+        }
+        assertFalse(vfsNames.isEmpty());
+
+        long timeWithoutRules = measureLookups(cms, manager, vfsNames, rfsNames);
+        int rulesCount = manager.getRfsRules().size();
+        for (int i = 0; i < RULES; i++) {
+            manager.addRfsRule(
+                "rule" + i,
+                "Rule " + i,
+                "/sites/default/rule" + i + "/.*",
+                "/export/rule" + i,
+                "export/rule" + i,
+                "temp/rule" + i,
+                null,
+                null);
+        }
+        assertEquals(rulesCount + RULES, manager.getRfsRules().size());
+        // the rules do not match the resources, so the rfs names are unchanged
+        for (int i = 0; i < vfsNames.size(); i++) {
+            String sitePath = cms.getRequestContext().removeSiteRoot(vfsNames.get(i));
+            assertEquals(rfsNames.get(i), manager.getRfsName(cms, sitePath));
+        }
+        long timeWithRules = measureLookups(cms, manager, vfsNames, rfsNames);
+
+        echo(
+            "Looked up "
+                + (ITERATIONS * vfsNames.size())
+                + " resources: "
+                + (timeWithoutRules / 1000000)
+                + " msecs without rfs rules, "
+                + (timeWithRules / 1000000)
+                + " msecs with "
+                + RULES
+                + " rfs rules");
+        assertTrue(
+            "Without rules " + timeWithoutRules + " ns, with rules " + timeWithRules + " ns",
+            timeWithRules < (2 * timeWithoutRules));
+    }
+
+    /**
+     * Looks up the export data of the given rfs names and the rfs prefixes and export paths of the given resources.<p>
+     *
+     * The export data is read from the cache after the first run, as for repeated requests of exported files.<p>
+     *
+     * @param cms the cms context
+     * @param manager the static export manager
+     * @param vfsNames the root paths of the resources
+     * @param rfsNames the rfs names of the resources
+     *
+     * @return the time of the measured lookups in nanoseconds
+     */
+    private long measureLookups(
+        CmsObject cms,
+        CmsStaticExportManager manager,
+        List<String> vfsNames,
+        List<String> rfsNames) {
+
+        long time = 0;
+        // run twice to warm up the JIT and the caches, only the second run is measured
+        for (int run = 0; run < 2; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                for (int j = 0; j < vfsNames.size(); j++) {
+                    String vfsName = vfsNames.get(j);
+                    assertNotNull(manager.getVfsName(cms, rfsNames.get(j)));
+                    assertNotNull(manager.getRfsPrefix(vfsName));
+                    assertNotNull(manager.getExportPath(vfsName));
+                }
+            }
+            time = System.nanoTime() - start;
+        }
+        return time;
+    }
+}
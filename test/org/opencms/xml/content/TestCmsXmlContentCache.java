@@ -0,0 +1,136 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+
+import java.util.Locale;
+
+/**
+ * Tests the cache for parsed XML contents.<p>
+ */
+public class TestCmsXmlContentCache extends OpenCmsTestCase {
+
+    /** The schema id. */
+    private static final String SCHEMA_SYSTEM_ID_1 = "http://www.opencms.org/test1.xsd";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsXmlContentCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the least recently used contents are evicted when the maximum costs are exceeded.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testCostEviction() throws Exception {
+
+        CmsXmlContent xmlcontent = createContent();
+        CmsXmlContentCache cache = new CmsXmlContentCache(100, 60);
+        cache.put("a", xmlcontent, 45);
+        cache.put("b", xmlcontent, 45);
+        assertEquals(2, cache.getSize());
+        assertEquals(90, cache.getCosts());
+
+        // touch "a", so "b" is the least recently used content
+        assertNotNull(cache.get("a"));
+        cache.put("c", xmlcontent, 20);
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(65, cache.getCosts());
+
+        // contents exceeding the maximum costs per object are not cached
+        cache.put("d", xmlcontent, 70);
+        assertNull(cache.get("d"));
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getCosts());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    /**
+     * Tests that the cache returns copies, so changes of a returned content do not affect other readers.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testSnapshotCopies() throws Exception {
+
+        CmsXmlContent xmlcontent = createContent();
+        CmsXmlContentCache cache = new CmsXmlContentCache(1024 * 1024, 1024 * 1024);
+        assertNull(cache.get("key"));
+        cache.put("key", xmlcontent, 1000);
+
+        CmsXmlContent copy1 = cache.get("key");
+        assertNotSame(xmlcontent, copy1);
+        assertEquals("Multitest 1", copy1.getValue("String", Locale.ENGLISH).getStringValue(null));
+        copy1.getValue("String", Locale.ENGLISH).setStringValue(null, "Changed");
+        copy1.addValue(null, "String", Locale.ENGLISH, 1);
+
+        CmsXmlContent copy2 = cache.get("key");
+        assertEquals("Multitest 1", copy2.getValue("String", Locale.ENGLISH).getStringValue(null));
+        assertEquals(1, copy2.getValue("String", Locale.ENGLISH).getMaxIndex());
+        assertEquals("Multitest 1", xmlcontent.getValue("String", Locale.ENGLISH).getStringValue(null));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    /**
+     * Creates the XML content used for the tests.<p>
+     *
+     * @return the XML content
+     *
+     * @throws Exception in case the content could not be created
+     */
+    private CmsXmlContent createContent() throws Exception {
+
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+        String content = CmsFileUtil.readFile(
+            "org/opencms/xml/content/xmlcontent-definition-1.xsd",
+            CmsEncoder.ENCODING_UTF_8);
+        CmsXmlContentDefinition definition = CmsXmlContentDefinition.unmarshal(content, SCHEMA_SYSTEM_ID_1, resolver);
+        CmsXmlEntityResolver.cacheSystemId(
+            SCHEMA_SYSTEM_ID_1,
+            definition.getSchema().asXML().getBytes(CmsEncoder.ENCODING_UTF_8));
+        content = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-1.xml", CmsEncoder.ENCODING_UTF_8);
+        return CmsXmlContentFactory.unmarshal(content, CmsEncoder.ENCODING_UTF_8, resolver);
+    }
+}
@@ -166,6 +166,53 @@ public class TestCmsXmlContentDefinition extends OpenCmsTestCase {
         System.out.println(content.toString());
     }
 
+    /**
+     * Tests that compiled content definitions are reused and only the definitions using a changed schema are removed.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testCompiledDefinitionCache() throws Exception {
+
+        String nestedId = "opencms://system/compiled/nested.xsd";
+        String outerId = "opencms://system/compiled/outer.xsd";
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+        String nested = CmsFileUtil.readFile(
+            "org/opencms/xml/content/xmlcontent-definition-1.xsd",
+            CmsEncoder.ENCODING_UTF_8);
+        // the outer schema includes the nested schema
+        String outer = CmsFileUtil.readFile(
+            "org/opencms/xml/content/xmlcontent-definition-compiled.xsd",
+            CmsEncoder.ENCODING_UTF_8);
+        CmsXmlEntityResolver.cacheSystemId(nestedId, nested.getBytes(CmsEncoder.ENCODING_UTF_8));
+
+        CmsXmlContentDefinition outerDefinition = CmsXmlContentDefinition.unmarshal(outer, outerId, resolver);
+        CmsXmlContentDefinition nestedDefinition = resolver.getCachedContentDefinition(nestedId);
+        assertNotNull(outerDefinition.getFingerprint());
+        assertNotNull(nestedDefinition);
+
+        // a change of an unrelated schema does not remove the definitions
+        resolver.uncacheSystemId("/system/compiled/other.xsd");
+        assertSame(outerDefinition, resolver.getCachedContentDefinition(outerId));
+
+        // a change of the nested schema removes the nested and the outer definition
+        resolver.uncacheSystemId("/system/compiled/nested.xsd");
+        assertNull(resolver.getCachedContentDefinition(nestedId));
+        assertNull(resolver.getCachedContentDefinition(outerId));
+
+        // as long as the schemas are unchanged, the compiled definitions are reused
+        assertSame(outerDefinition, CmsXmlContentDefinition.unmarshal(outer, outerId, resolver));
+        assertSame(nestedDefinition, resolver.getCachedContentDefinition(nestedId));
+
+        // a changed nested schema results in new definitions
+        resolver.uncacheSystemId("/system/compiled/nested.xsd");
+        nested = nested.replace("</xsd:schema>", "<!-- changed --></xsd:schema>");
+        CmsXmlEntityResolver.cacheSystemId(nestedId, nested.getBytes(CmsEncoder.ENCODING_UTF_8));
+        CmsXmlContentDefinition changedDefinition = CmsXmlContentDefinition.unmarshal(outer, outerId, resolver);
+        assertNotSame(outerDefinition, changedDefinition);
+        assertFalse(outerDefinition.getFingerprint().equals(changedDefinition.getFingerprint()));
+        assertNotSame(nestedDefinition, resolver.getCachedContentDefinition(nestedId));
+    }
+
     /**
      * Tests XML content definition with a different inner / outer sequence name.<p>
      *
@@ -0,0 +1,140 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.types.I_CmsXmlContentValue;
+
+import java.util.Collections;
+import java.util.Locale;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Tests the index of the text values of XML contents.<p>
+ */
+public class TestCmsXmlContentValueIndex extends OpenCmsTestCase {
+
+    /** The schema id. */
+    private static final String SCHEMA_SYSTEM_ID_1 = "http://www.opencms.org/test1.xsd";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsXmlContentValueIndex(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the indexed text values match the values of the complete XML content.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testIndexedValues() throws Exception {
+
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+        String schema = CmsFileUtil.readFile(
+            "org/opencms/xml/content/xmlcontent-definition-1.xsd",
+            CmsEncoder.ENCODING_UTF_8);
+        CmsXmlContentDefinition definition = CmsXmlContentDefinition.unmarshal(schema, SCHEMA_SYSTEM_ID_1, resolver);
+        CmsXmlEntityResolver.cacheSystemId(
+            SCHEMA_SYSTEM_ID_1,
+            definition.getSchema().asXML().getBytes(CmsEncoder.ENCODING_UTF_8));
+        byte[] data = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-1.xml");
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(null, data, CmsEncoder.ENCODING_UTF_8, resolver);
+
+        CmsXmlContentValueIndex index = CmsXmlContentValueIndex.create(data);
+        assertEquals(SCHEMA_SYSTEM_ID_1, index.getSchemaLocation());
+        assertEquals(content.getLocales(), index.getLocales());
+
+        int indexed = 0;
+        for (I_CmsXmlContentValue value : content.getValues(Locale.ENGLISH)) {
+            if (CmsXmlContentValueIndex.isIndexable(value)) {
+                assertEquals(value.getStringValue(null), index.getStringValue(value.getPath(), Locale.ENGLISH));
+                indexed++;
+            }
+        }
+        assertTrue(indexed > 0);
+        assertEquals("Multitest 1", index.getStringValue("String", Locale.ENGLISH));
+        assertNull(index.getStringValue("String", Locale.GERMAN));
+        assertNull(index.getStringValue("Html", Locale.ENGLISH));
+        assertTrue(CmsXmlContentValueIndex.isIndexable(content.getHandler()));
+    }
+
+    /**
+     * Tests the xpaths of nested and repeated elements as well as invalid data.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testNestedPaths() throws Exception {
+
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<Articles xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+            + " xsi:noNamespaceSchemaLocation=\"opencms://test.xsd\">\n"
+            + "  <Article language=\"de\">\n"
+            + "    <Title><![CDATA[Titel]]></Title>\n"
+            + "    <Teaser>\n"
+            + "      <Text>Erster</Text>\n"
+            + "    </Teaser>\n"
+            + "    <Teaser>\n"
+            + "      <Text>Zweiter <![CDATA[& letzter]]></Text>\n"
+            + "      <Text></Text>\n"
+            + "    </Teaser>\n"
+            + "  </Article>\n"
+            + "  <Article>\n"
+            + "    <Title>No locale</Title>\n"
+            + "  </Article>\n"
+            + "</Articles>";
+        CmsXmlContentValueIndex index = CmsXmlContentValueIndex.create(xml.getBytes(CmsEncoder.ENCODING_UTF_8));
+        assertEquals("opencms://test.xsd", index.getSchemaLocation());
+        assertEquals(Collections.singletonList(Locale.GERMAN), index.getLocales());
+        assertTrue(index.hasLocale(Locale.GERMAN));
+        assertFalse(index.hasLocale(Locale.ENGLISH));
+
+        assertEquals("Titel", index.getStringValue("Title", Locale.GERMAN));
+        assertEquals("Erster", index.getStringValue("Teaser/Text", Locale.GERMAN));
+        assertEquals("Zweiter & letzter", index.getStringValue("Teaser[2]/Text[1]", Locale.GERMAN));
+        assertEquals("", index.getStringValue("Teaser[2]/Text[2]", Locale.GERMAN));
+        assertNull(index.getStringValue("Teaser[2]", Locale.GERMAN));
+        assertNull(index.getStringValue("Teaser[3]/Text", Locale.GERMAN));
+
+        try {
+            CmsXmlContentValueIndex.create("<Articles><Article>".getBytes(CmsEncoder.ENCODING_UTF_8));
+            fail("Malformed XML must not be indexed");
+        } catch (XMLStreamException e) {
+            // expected
+        }
+    }
+}